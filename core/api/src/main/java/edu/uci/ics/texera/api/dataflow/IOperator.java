@@ -3,6 +3,7 @@ package edu.uci.ics.texera.api.dataflow;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
 
 /**
  * Created by chenli on 3/25/16.
@@ -15,6 +16,27 @@ public interface IOperator {
     void open() throws TexeraException;
 
     Tuple getNextTuple() throws TexeraException;
+    
+    /**
+     * Gets up to maxSize next tuples in one call. Returns null if there are no more tuples.
+     * 
+     * The default implementation adapts getNextTuple(). 
+     * Operators can override it to produce a batch without paying the per-tuple overhead of getNextTuple().
+     * 
+     * Calls to getNextTuple() and getNextBatch() can be mixed, the tuples are returned in the same order.
+     * 
+     * @param maxSize, the maximum number of tuples in the batch, must be positive
+     * @return a non-empty batch of at most maxSize tuples, or null if there are no more tuples
+     * @throws TexeraException
+     */
+    default TupleBatch getNextBatch(int maxSize) throws TexeraException {
+        TupleBatch batch = new TupleBatch(maxSize);
+        Tuple tuple;
+        while (batch.size() < maxSize && (tuple = getNextTuple()) != null) {
+            batch.add(tuple);
+        }
+        return batch.isEmpty() ? null : batch;
+    }
 
     void close() throws TexeraException;
 
@@ -24,11 +24,23 @@ public class Engine {
         return singletonEngine;
     }
 
+    /**
+     * Evaluates the plan on the caller's thread.
+     * 
+     * If the plan is pipelined, the operators below each {@link PipelineStage} run on their own workers,
+     * and all stages are closed after evaluation, even if it fails or the sink stops early.
+     */
     public void evaluate(Plan plan) throws TexeraException {
         ISink root = plan.getRoot();
-        root.open();
-        root.processTuples();
-        root.close();
+        try {
+            root.open();
+            root.processTuples();
+            root.close();
+        } finally {
+            for (PipelineStage stage : plan.getPipelineStages()) {
+                stage.close();
+            }
+        }
     }
 
     ;
@@ -0,0 +1,229 @@
+package edu.uci.ics.texera.api.engine;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
+
+/**
+ * PipelineStage decouples an operator from its consumer by running the operator
+ *   on its own worker thread, which pulls tuples from it and pushes them into a bounded queue.
+ *
+ * The consumer sees a normal IOperator: open() opens the input operator on the caller's thread
+ *   (so that the output schema is available immediately) and starts the worker,
+ *   getNextTuple() takes tuples from the queue, and close() stops the worker and closes the input.
+ *
+ * Tuples are handed over in chunks, obtained from the input operator's getNextBatch(), 
+ *   to reduce queue synchronization.
+ * While the queue is empty (the consumer is waiting), the worker asks the input for one tuple at a time,
+ *   so the first results of a selective operator are not delayed until a whole chunk has matched.
+ *
+ * An exception thrown by the input operator on the worker thread is re-thrown to the consumer.
+ */
+public class PipelineStage implements IOperator {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final int DEFAULT_CHUNK_SIZE = 32;
+
+    // worker threads are daemon threads so that an abandoned plan never blocks JVM shutdown
+    private static final ExecutorService workerPool = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "texera-pipeline-stage");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // an empty chunk marks the end of the input
+    private static final List<Tuple> END_OF_INPUT = Collections.emptyList();
+
+    private final IOperator inputOperator;
+    private final int queueCapacity;
+    private final int chunkSize;
+
+    private BlockingQueue<List<Tuple>> queue;
+    private Future<?> worker;
+    private volatile boolean stopped;
+    private volatile Throwable workerFailure;
+
+    private List<Tuple> currentChunk = END_OF_INPUT;
+    private int currentChunkPosition = 0;
+    private boolean inputExhausted = false;
+
+    private int cursor = CLOSED;
+
+    public PipelineStage(IOperator inputOperator) {
+        this(inputOperator, DEFAULT_QUEUE_CAPACITY, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PipelineStage(IOperator inputOperator, int queueCapacity, int chunkSize) {
+        if (queueCapacity < 1 || chunkSize < 1) {
+            throw new TexeraException("queue capacity and chunk size of a pipeline stage must be positive");
+        }
+        this.inputOperator = inputOperator;
+        this.queueCapacity = queueCapacity;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void open() throws TexeraException {
+        if (cursor != CLOSED) {
+            return;
+        }
+        if (inputOperator == null) {
+            throw new DataflowException(ErrorMessages.INPUT_OPERATOR_NOT_SPECIFIED);
+        }
+        inputOperator.open();
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        stopped = false;
+        workerFailure = null;
+        currentChunk = END_OF_INPUT;
+        currentChunkPosition = 0;
+        inputExhausted = false;
+        worker = workerPool.submit(this::produce);
+
+        cursor = OPENED;
+    }
+
+    @Override
+    public Tuple getNextTuple() throws TexeraException {
+        if (cursor == CLOSED) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        if (! fetchChunkIfNeeded()) {
+            return null;
+        }
+        cursor++;
+        return currentChunk.get(currentChunkPosition++);
+    }
+
+    @Override
+    public TupleBatch getNextBatch(int maxSize) throws TexeraException {
+        if (cursor == CLOSED) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        if (! fetchChunkIfNeeded()) {
+            return null;
+        }
+        int batchEnd = Math.min(currentChunk.size(), currentChunkPosition + maxSize);
+        TupleBatch batch = new TupleBatch(currentChunk.subList(currentChunkPosition, batchEnd));
+        cursor += batch.size();
+        currentChunkPosition = batchEnd;
+        return batch;
+    }
+
+    /*
+     * Takes the next chunk from the queue if the current one is consumed.
+     * Returns false if there are no more tuples.
+     */
+    private boolean fetchChunkIfNeeded() throws TexeraException {
+        if (inputExhausted) {
+            return false;
+        }
+        if (currentChunkPosition < currentChunk.size()) {
+            return true;
+        }
+        try {
+            currentChunk = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataflowException(e.getMessage(), e);
+        }
+        currentChunkPosition = 0;
+        if (currentChunk == END_OF_INPUT) {
+            inputExhausted = true;
+            if (workerFailure != null) {
+                throw new DataflowException(workerFailure.getMessage(), workerFailure);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws TexeraException {
+        if (cursor == CLOSED) {
+            return;
+        }
+        stopped = true;
+        // drain the queue so that a worker blocked on a full queue can observe the stop flag
+        queue.clear();
+        try {
+            worker.get();
+        } catch (Exception e) {
+            // the failure (if any) is already recorded in workerFailure
+        }
+        queue.clear();
+        inputOperator.close();
+        cursor = CLOSED;
+    }
+
+    /*
+     * The worker loop: pulls tuples from the input operator and pushes them to the queue in chunks.
+     */
+    private void produce() {
+        try {
+            TupleBatch batch;
+            while (! stopped && (batch = inputOperator.getNextBatch(queue.isEmpty() ? 1 : chunkSize)) != null) {
+                offer(batch.getTuples());
+            }
+        } catch (Throwable e) {
+            workerFailure = e;
+        } finally {
+            offer(END_OF_INPUT);
+        }
+    }
+
+    /*
+     * Blocks until the chunk is accepted by the queue or the stage is stopped.
+     */
+    private void offer(List<Tuple> chunk) {
+        try {
+            while (! stopped) {
+                if (queue.offer(chunk, 10, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        }
+    }
+
+    @Override
+    public Schema getOutputSchema() {
+        return inputOperator.getOutputSchema();
+    }
+
+    @Override
+    public Schema transformToOutputSchema(Schema... inputSchema) {
+        if (inputSchema.length != 1) {
+            throw new TexeraException(String.format(ErrorMessages.NUMBER_OF_ARGUMENTS_DOES_NOT_MATCH, 1, inputSchema.length));
+        }
+        return inputSchema[0];
+    }
+
+    public IOperator getInputOperator() {
+        return inputOperator;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+}
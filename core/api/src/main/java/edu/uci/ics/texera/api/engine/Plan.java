@@ -1,5 +1,9 @@
 package edu.uci.ics.texera.api.engine;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import edu.uci.ics.texera.api.dataflow.ISink;
 
 /**
@@ -7,16 +11,33 @@ import edu.uci.ics.texera.api.dataflow.ISink;
  * <p>
  * A query plan is a tree of operators except the root, which is an ISink object
  * that consumes all the tuples generated by its subtree.
+ * <p>
+ * A pipelined plan additionally keeps track of the {@link PipelineStage}s inserted
+ * between its operators, so that the engine can stop all worker threads after evaluation.
  */
 public class Plan {
 
     private final ISink root;
+    private final List<PipelineStage> pipelineStages;
 
     public Plan(ISink root) {
+        this(root, Collections.emptyList());
+    }
+
+    public Plan(ISink root, List<PipelineStage> pipelineStages) {
         this.root = root;
+        this.pipelineStages = Collections.unmodifiableList(new ArrayList<>(pipelineStages));
     }
 
     public ISink getRoot() {
         return root;
     }
+
+    public List<PipelineStage> getPipelineStages() {
+        return pipelineStages;
+    }
+
+    public boolean isPipelined() {
+        return ! pipelineStages.isEmpty();
+    }
 }
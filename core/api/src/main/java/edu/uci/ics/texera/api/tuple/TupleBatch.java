@@ -0,0 +1,71 @@
+package edu.uci.ics.texera.api.tuple;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A TupleBatch is an ordered group of tuples passed between operators in one call.
+ * 
+ * Operators can hand over tuples in batches through IOperator.getNextBatch(int)
+ *   to amortize the per-tuple overhead (virtual calls, cursor and limit checks) of getNextTuple().
+ * 
+ * A TupleBatch is filled by its producer and then only read by its consumer.
+ */
+public class TupleBatch implements Iterable<Tuple> {
+    
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    
+    // upper bound of the pre-allocated capacity, in case a caller asks for a huge batch
+    private static final int MAX_INITIAL_CAPACITY = 4096;
+    
+    private final List<Tuple> tuples;
+    
+    public TupleBatch() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+    
+    public TupleBatch(int expectedSize) {
+        this.tuples = new ArrayList<>(Math.max(0, Math.min(expectedSize, MAX_INITIAL_CAPACITY)));
+    }
+    
+    public TupleBatch(List<Tuple> tuples) {
+        checkNotNull(tuples);
+        this.tuples = new ArrayList<>(tuples);
+    }
+    
+    public void add(Tuple tuple) {
+        checkNotNull(tuple);
+        tuples.add(tuple);
+    }
+    
+    public Tuple get(int index) {
+        return tuples.get(index);
+    }
+    
+    public int size() {
+        return tuples.size();
+    }
+    
+    public boolean isEmpty() {
+        return tuples.isEmpty();
+    }
+    
+    public List<Tuple> getTuples() {
+        return Collections.unmodifiableList(tuples);
+    }
+
+    @Override
+    public Iterator<Tuple> iterator() {
+        return getTuples().iterator();
+    }
+    
+    @Override
+    public String toString() {
+        return "TupleBatch [tuples=" + tuples + "]";
+    }
+
+}
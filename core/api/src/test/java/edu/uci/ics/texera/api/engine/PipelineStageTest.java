@@ -0,0 +1,192 @@
+package edu.uci.ics.texera.api.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.dataflow.ISink;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.IntegerField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
+
+public class PipelineStageTest {
+
+    private static final Schema SCHEMA = new Schema(new Attribute("number", AttributeType.INTEGER));
+
+    /*
+     * A simple operator which generates tuples with numbers from 0 to (count - 1).
+     */
+    private static class NumberOperator implements IOperator {
+        private final int count;
+        private int next = 0;
+        private boolean closed = true;
+
+        NumberOperator(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public void open() {
+            next = 0;
+            closed = false;
+        }
+
+        @Override
+        public Tuple getNextTuple() {
+            if (next >= count) {
+                return null;
+            }
+            return new Tuple(SCHEMA, new IntegerField(next++));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public Schema getOutputSchema() {
+            return SCHEMA;
+        }
+
+        @Override
+        public Schema transformToOutputSchema(Schema... inputSchema) {
+            return SCHEMA;
+        }
+    }
+
+    @Test
+    public void testAllTuplesInOrder() throws Exception {
+        int count = 10000;
+        PipelineStage stage = new PipelineStage(new NumberOperator(count), 4, 7);
+        stage.open();
+        Assert.assertEquals(SCHEMA, stage.getOutputSchema());
+
+        List<Integer> results = new ArrayList<>();
+        Tuple tuple;
+        while ((tuple = stage.getNextTuple()) != null) {
+            results.add(tuple.getField("number", IntegerField.class).getValue());
+        }
+        stage.close();
+
+        Assert.assertEquals(count, results.size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i, results.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testGetNextBatch() throws Exception {
+        int count = 1000;
+        PipelineStage stage = new PipelineStage(new NumberOperator(count), 4, 16);
+        stage.open();
+
+        List<Integer> results = new ArrayList<>();
+        // mix getNextTuple() and getNextBatch() calls
+        results.add(stage.getNextTuple().getField("number", IntegerField.class).getValue());
+        TupleBatch batch;
+        while ((batch = stage.getNextBatch(10)) != null) {
+            Assert.assertTrue(batch.size() > 0 && batch.size() <= 10);
+            for (Tuple tuple : batch) {
+                results.add(tuple.getField("number", IntegerField.class).getValue());
+            }
+        }
+        Assert.assertNull(stage.getNextTuple());
+        stage.close();
+
+        Assert.assertEquals(count, results.size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i, results.get(i).intValue());
+        }
+    }
+
+    /*
+     * The input produces its second tuple only after the consumer has received the first one,
+     *   which would never happen if the worker waited for a whole chunk.
+     */
+    @Test(timeout = 10000)
+    public void testPartialChunkNotDelayed() throws Exception {
+        CountDownLatch firstTupleReceived = new CountDownLatch(1);
+        IOperator input = new NumberOperator(2) {
+            @Override
+            public Tuple getNextTuple() {
+                Tuple tuple = super.getNextTuple();
+                if (tuple != null && tuple.getField("number", IntegerField.class).getValue() == 1) {
+                    try {
+                        firstTupleReceived.await(20, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return tuple;
+            }
+        };
+        PipelineStage stage = new PipelineStage(input, 4, 16);
+        stage.open();
+        Assert.assertEquals(0, stage.getNextTuple().getField("number", IntegerField.class).getValue().intValue());
+        firstTupleReceived.countDown();
+        Assert.assertEquals(1, stage.getNextTuple().getField("number", IntegerField.class).getValue().intValue());
+        Assert.assertNull(stage.getNextTuple());
+        stage.close();
+    }
+
+    @Test
+    public void testCloseBeforeInputExhausted() throws Exception {
+        NumberOperator input = new NumberOperator(Integer.MAX_VALUE);
+        PipelineStage stage = new PipelineStage(input, 2, 2);
+        stage.open();
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(i, stage.getNextTuple().getField("number", IntegerField.class).getValue().intValue());
+        }
+        stage.close();
+        Assert.assertTrue(input.closed);
+    }
+
+    @Test(expected = DataflowException.class)
+    public void testInputFailureIsPropagated() throws Exception {
+        IOperator input = new NumberOperator(Integer.MAX_VALUE) {
+            @Override
+            public Tuple getNextTuple() {
+                Tuple tuple = super.getNextTuple();
+                if (tuple.getField("number", IntegerField.class).getValue() > 100) {
+                    throw new TexeraException("input failure");
+                }
+                return tuple;
+            }
+        };
+        PipelineStage stage = new PipelineStage(input);
+        stage.open();
+        try {
+            while (stage.getNextTuple() != null) {
+            }
+        } finally {
+            stage.close();
+        }
+    }
+
+    @Test
+    public void testEngineClosesPipelineStages() throws Exception {
+        NumberOperator input = new NumberOperator(Integer.MAX_VALUE);
+        PipelineStage stage = new PipelineStage(input);
+        stage.open();
+
+        Plan plan = new Plan(Mockito.mock(ISink.class), Arrays.asList(stage));
+        Assert.assertTrue(plan.isPipelined());
+        Engine.getEngine().evaluate(plan);
+        Assert.assertTrue(input.closed);
+    }
+
+}
@@ -6,6 +6,7 @@ import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
 
 /**
  * AbstractSingleInputOperator is an abstract class that can be used by many operators.
@@ -18,6 +19,10 @@ import edu.uci.ics.texera.api.tuple.Tuple;
  *          It returns the next available matching tuple, null if there's no more match.
  * cleanUp(). It is called in close(). 
  *          Its purpose is to deallocates resources.
+ * 
+ * getNextBatch() is implemented on top of computeNextMatchingBatch(), which by default adapts computeNextMatchingTuple().
+ * An operator producing at most one result per input tuple can override computeNextMatchingBatch() 
+ *   with processNextInputBatch() to consume its input in batches as well.
 
  * @author Zuozhi Wang (zuozhiw)
  *
@@ -88,6 +93,36 @@ public abstract class AbstractSingleInputOperator implements IOperator {
         }
     }
 
+    @Override
+    public TupleBatch getNextBatch(int maxSize) throws TexeraException {
+        if (cursor == CLOSED) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        try {
+            TupleBatch resultBatch = new TupleBatch(maxSize);
+            while (resultBatch.isEmpty()) {
+                // the number of tuples (including the ones skipped by offset) still allowed by limit
+                long remaining = (long) limit + offset - cursor;
+                if (remaining <= 0) {
+                    return null;
+                }
+                TupleBatch matchingBatch = computeNextMatchingBatch((int) Math.min(maxSize, remaining));
+                if (matchingBatch == null) {
+                    return null;
+                }
+                for (Tuple resultTuple : matchingBatch) {
+                    cursor++;
+                    if (cursor > offset) {
+                        resultBatch.add(resultTuple);
+                    }
+                }
+            }
+            return resultBatch;
+        } catch (Exception e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
     /**
      * Give the input tuples, compute the next matching tuple. Return null if there's no more matching tuple.
      * 
@@ -95,6 +130,53 @@ public abstract class AbstractSingleInputOperator implements IOperator {
      * @throws TexeraException
      */
     protected abstract Tuple computeNextMatchingTuple() throws TexeraException;
+    
+    /**
+     * Give the input tuples, compute at most maxSize next matching tuples. 
+     * Return null if there's no more matching tuple.
+     * 
+     * The default implementation calls computeNextMatchingTuple() repeatedly.
+     * 
+     * @param maxSize, the maximum number of matching tuples to compute
+     * @return a non-empty batch of next matching tuples, null if there's no more matching tuple.
+     * @throws TexeraException
+     */
+    protected TupleBatch computeNextMatchingBatch(int maxSize) throws TexeraException {
+        TupleBatch resultBatch = new TupleBatch(maxSize);
+        Tuple resultTuple;
+        while (resultBatch.size() < maxSize && (resultTuple = computeNextMatchingTuple()) != null) {
+            resultBatch.add(resultTuple);
+        }
+        return resultBatch.isEmpty() ? null : resultBatch;
+    }
+    
+    /**
+     * Gets batches of at most maxSize tuples from the input operator and calls processOneInputTuple() on each tuple,
+     *   until at least one matching tuple is found. Return null if the input operator has no more tuples.
+     * 
+     * This can be used to implement computeNextMatchingBatch() for operators 
+     *   that produce at most one result for each input tuple.
+     * 
+     * @param maxSize, the maximum number of input tuples to get in one batch
+     * @return a non-empty batch of next matching tuples, null if there's no more matching tuple.
+     * @throws TexeraException
+     */
+    protected TupleBatch processNextInputBatch(int maxSize) throws TexeraException {
+        TupleBatch inputBatch;
+        while ((inputBatch = inputOperator.getNextBatch(maxSize)) != null) {
+            TupleBatch resultBatch = new TupleBatch(inputBatch.size());
+            for (Tuple inputTuple : inputBatch) {
+                Tuple resultTuple = processOneInputTuple(inputTuple);
+                if (resultTuple != null) {
+                    resultBatch.add(resultTuple);
+                }
+            }
+            if (! resultBatch.isEmpty()) {
+                return resultBatch;
+            }
+        }
+        return null;
+    }
 
     public abstract Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException;
 
@@ -0,0 +1,23 @@
+package edu.uci.ics.texera.dataflow.common;
+
+import java.util.Collection;
+
+/**
+ * IProjectionPushdown is implemented by the source operators which can read
+ *   only a subset of the attributes of a table.
+ * 
+ * LogicalPlan computes the attributes needed by the downstream operators of a source,
+ *   and passes them to the source operator before the plan is opened.
+ *
+ */
+public interface IProjectionPushdown {
+    
+    /**
+     * Sets the attributes needed by the downstream operators, which must be called before open().
+     * The source operator may still output other attributes (for example, "_id" and "payload").
+     * 
+     * @param requiredAttributes, the attributes needed by the downstream operators, case insensitive
+     */
+    public void setRequiredAttributes(Collection<String> requiredAttributes);
+
+}
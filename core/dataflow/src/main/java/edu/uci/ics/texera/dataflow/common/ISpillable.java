@@ -0,0 +1,21 @@
+package edu.uci.ics.texera.dataflow.common;
+
+/**
+ * ISpillable is implemented by the operators (and connectors) which buffer tuples,
+ *   and spill them to temporary files when they don't fit in their memory budget.
+ *
+ * LogicalPlan passes the memory budget of the plan to each of them before the plan is opened,
+ *   so that they share it. Outside of a plan, each of them has a budget of MemoryBudget.DEFAULT_LIMIT.
+ *
+ */
+public interface ISpillable {
+
+    /**
+     * Sets the memory budget the operator reserves the memory of its buffered tuples from,
+     *   which must be called before open().
+     *
+     * @param memoryBudget
+     */
+    public void setMemoryBudget(MemoryBudget memoryBudget);
+
+}
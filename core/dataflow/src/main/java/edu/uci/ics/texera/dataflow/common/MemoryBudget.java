@@ -0,0 +1,76 @@
+package edu.uci.ics.texera.dataflow.common;
+
+import edu.uci.ics.texera.api.exception.DataflowException;
+
+/**
+ * MemoryBudget is the memory (estimated in bytes, see TupleCodec.estimateSize())
+ *   which the operators buffering tuples (see ISpillable) can take together.
+ *
+ * LogicalPlan creates one budget for each plan it builds, and shares it among the operators of the plan.
+ * An operator reserves the memory of a tuple before keeping it on the heap,
+ *   and spills it to a temporary file instead if the budget has run out.
+ * The operators of a pipelined plan run on different threads, so the budget is synchronized.
+ *
+ */
+public class MemoryBudget {
+
+    // the budget of a plan, and of an operator used outside of a plan
+    public static final long DEFAULT_LIMIT = Runtime.getRuntime().maxMemory() / 4;
+
+    private final long limit;
+    private long reservedBytes = 0;
+
+    public MemoryBudget() {
+        this(DEFAULT_LIMIT);
+    }
+
+    public MemoryBudget(long limit) {
+        if (limit < 0) {
+            throw new DataflowException("memory budget should be greater than or equal to 0");
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * Reserves memory if the budget has enough left.
+     *
+     * @param bytes
+     * @return true if the memory is reserved, false if the budget doesn't have enough left
+     */
+    public synchronized boolean tryReserve(long bytes) {
+        if (reservedBytes + bytes > limit) {
+            return false;
+        }
+        reservedBytes += bytes;
+        return true;
+    }
+
+    /**
+     * Reserves memory even if the budget doesn't have enough left,
+     *   for the tuples an operator can't spill, such as the hash table of a spilled partition.
+     * The other operators sharing the budget spill their tuples until it's released.
+     *
+     * @param bytes
+     */
+    public synchronized void reserve(long bytes) {
+        reservedBytes += bytes;
+    }
+
+    /**
+     * Releases memory reserved by tryReserve() or reserve().
+     *
+     * @param bytes
+     */
+    public synchronized void release(long bytes) {
+        reservedBytes = Math.max(0, reservedBytes - bytes);
+    }
+
+    public synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+}
@@ -0,0 +1,302 @@
+package edu.uci.ics.texera.dataflow.common;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import edu.uci.ics.texera.api.constants.DataConstants;
+import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
+import edu.uci.ics.texera.dataflow.comparablematcher.ComparablePredicate;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionaryPredicate;
+import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenPredicate;
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordPredicate;
+import edu.uci.ics.texera.dataflow.nlp.sentiment.EmojiSentimentPredicate;
+import edu.uci.ics.texera.dataflow.projection.ProjectionPredicate;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
+
+/**
+ * ParallelOperator runs N copies of a stateless single-input operator in parallel.
+ *
+ * An operator is stateless if it does all its work in processOneInputTuple(),
+ *   and the result of one input tuple doesn't depend on other input tuples.
+ *
+ * ParallelOperator reads N batches (slices) of input tuples,
+ *   and lets copy i process slice i on the fork-join pool. Each copy is only used
+ *   by one task at a time, so the copies don't need to be thread-safe.
+ * The copies must not share mutable state either: predicates aren't thread-safe
+ *   (for example, DictionaryPredicate's Dictionary keeps a cursor and the tokens of its entries),
+ *   so each copy should be created with its own predicate (see copyPredicate()).
+ *
+ * If preserveOrder is true, the results are returned in the order of the input tuples,
+ *   otherwise the results of each slice are returned as soon as the slice finishes.
+ *
+ * Limit and offset are applied to the merged results, the copies themselves have no limit or offset.
+ *
+ */
+public class ParallelOperator extends AbstractSingleInputOperator {
+
+    public static final int DEFAULT_SLICE_SIZE = 64;
+
+    // the predicates whose operators are stateless and can be run in parallel
+    private static final Set<Class<? extends PredicateBase>> parallelizablePredicates =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    KeywordPredicate.class,
+                    RegexPredicate.class,
+                    DictionaryPredicate.class,
+                    FuzzyTokenPredicate.class,
+                    ComparablePredicate.class,
+                    ProjectionPredicate.class,
+                    EmojiSentimentPredicate.class)));
+
+    private final List<AbstractSingleInputOperator> operatorCopies;
+    private final boolean preserveOrder;
+    private final int sliceSize;
+
+    private Queue<Tuple> resultBuffer;
+    private boolean inputExhausted;
+
+    /**
+     * Creates a ParallelOperator with the default slice size.
+     *
+     * @param operatorFactory, creates a new copy of the operator each time it's called
+     * @param parallelism, the number of copies running in parallel
+     * @param preserveOrder, whether the results are in the same order as the input tuples
+     */
+    public ParallelOperator(Supplier<? extends AbstractSingleInputOperator> operatorFactory,
+            int parallelism, boolean preserveOrder) {
+        this(operatorFactory, parallelism, preserveOrder, DEFAULT_SLICE_SIZE);
+    }
+
+    /**
+     * Creates a ParallelOperator.
+     *
+     * @param operatorFactory, creates a new copy of the operator each time it's called
+     * @param parallelism, the number of copies running in parallel
+     * @param preserveOrder, whether the results are in the same order as the input tuples
+     * @param sliceSize, the number of input tuples processed by one copy in one task
+     */
+    public ParallelOperator(Supplier<? extends AbstractSingleInputOperator> operatorFactory,
+            int parallelism, boolean preserveOrder, int sliceSize) {
+        if (parallelism < 1 || sliceSize < 1) {
+            throw new TexeraException("parallelism and slice size of a parallel operator must be positive");
+        }
+        this.operatorCopies = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            this.operatorCopies.add(operatorFactory.get());
+        }
+        this.preserveOrder = preserveOrder;
+        this.sliceSize = sliceSize;
+    }
+
+    /**
+     * Returns true if the operator of the predicate is stateless and can be wrapped by a ParallelOperator.
+     */
+    public static boolean isParallelizable(PredicateBase predicate) {
+        return parallelizablePredicates.contains(predicate.getClass());
+    }
+
+    /**
+     * Returns a deep copy of a predicate, by writing it to JSON and reading it back.
+     */
+    public static PredicateBase copyPredicate(PredicateBase predicate) throws TexeraException {
+        try {
+            return DataConstants.defaultObjectMapper.readValue(
+                    DataConstants.defaultObjectMapper.writeValueAsString(predicate), PredicateBase.class);
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void setUp() throws TexeraException {
+        // every copy is opened against an input which only provides the schema,
+        //   the real input tuples are fed to the copies by this operator
+        Schema inputSchema = inputOperator.getOutputSchema();
+        for (AbstractSingleInputOperator operatorCopy : operatorCopies) {
+            operatorCopy.setInputOperator(new SchemaOnlyOperator(inputSchema));
+            operatorCopy.open();
+        }
+        outputSchema = operatorCopies.get(0).getOutputSchema();
+
+        resultBuffer = new ArrayDeque<>();
+        inputExhausted = false;
+    }
+
+    @Override
+    protected Tuple computeNextMatchingTuple() throws TexeraException {
+        while (resultBuffer.isEmpty() && ! inputExhausted) {
+            processNextBatch();
+        }
+        return resultBuffer.poll();
+    }
+
+    @Override
+    protected TupleBatch computeNextMatchingBatch(int maxSize) throws TexeraException {
+        while (resultBuffer.isEmpty() && ! inputExhausted) {
+            processNextBatch();
+        }
+        if (resultBuffer.isEmpty()) {
+            return null;
+        }
+        TupleBatch resultBatch = new TupleBatch(Math.min(maxSize, resultBuffer.size()));
+        while (resultBatch.size() < maxSize && ! resultBuffer.isEmpty()) {
+            resultBatch.add(resultBuffer.poll());
+        }
+        return resultBatch;
+    }
+
+    /*
+     * Reads up to (parallelism * sliceSize) input tuples, processes the slices in parallel,
+     *   and puts the results to the result buffer.
+     */
+    private void processNextBatch() throws TexeraException {
+        List<List<Tuple>> slices = new ArrayList<>();
+        for (int i = 0; i < operatorCopies.size(); i++) {
+            TupleBatch slice = inputOperator.getNextBatch(sliceSize);
+            if (slice == null) {
+                inputExhausted = true;
+                break;
+            }
+            slices.add(slice.getTuples());
+        }
+
+        if (slices.isEmpty()) {
+            return;
+        }
+        if (slices.size() == 1) {
+            resultBuffer.addAll(processSlice(operatorCopies.get(0), slices.get(0)));
+            return;
+        }
+
+        // a completion service per batch, so that no completed task is left behind in its queue
+        CompletionService<List<Tuple>> completionService = new ExecutorCompletionService<>(ForkJoinPool.commonPool());
+        List<Future<List<Tuple>>> futures = new ArrayList<>();
+        for (int i = 0; i < slices.size(); i++) {
+            AbstractSingleInputOperator operatorCopy = operatorCopies.get(i);
+            List<Tuple> slice = slices.get(i);
+            Callable<List<Tuple>> task = () -> processSlice(operatorCopy, slice);
+            futures.add(completionService.submit(task));
+        }
+
+        try {
+            if (preserveOrder) {
+                for (Future<List<Tuple>> future : futures) {
+                    resultBuffer.addAll(future.get());
+                }
+            } else {
+                for (int i = 0; i < futures.size(); i++) {
+                    resultBuffer.addAll(completionService.take().get());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataflowException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            // wait for the other tasks so that no copy is still in use when the operator is closed
+            for (Future<List<Tuple>> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException | ExecutionException ignored) {
+                }
+            }
+            throw new DataflowException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static List<Tuple> processSlice(AbstractSingleInputOperator operatorCopy, List<Tuple> slice)
+            throws TexeraException {
+        List<Tuple> results = new ArrayList<>(slice.size());
+        for (Tuple inputTuple : slice) {
+            Tuple resultTuple = operatorCopy.processOneInputTuple(inputTuple);
+            if (resultTuple != null) {
+                results.add(resultTuple);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
+        return operatorCopies.get(0).processOneInputTuple(inputTuple);
+    }
+
+    @Override
+    protected void cleanUp() throws TexeraException {
+        for (AbstractSingleInputOperator operatorCopy : operatorCopies) {
+            operatorCopy.close();
+        }
+        resultBuffer = null;
+    }
+
+    @Override
+    public Schema transformToOutputSchema(Schema... inputSchema) {
+        return operatorCopies.get(0).transformToOutputSchema(inputSchema);
+    }
+
+    public int getParallelism() {
+        return operatorCopies.size();
+    }
+
+    public boolean isPreserveOrder() {
+        return preserveOrder;
+    }
+
+    /*
+     * An input operator which only provides the output schema,
+     *   so that the copies can set up their output schema without touching the real input.
+     */
+    private static class SchemaOnlyOperator implements IOperator {
+
+        private final Schema schema;
+
+        private SchemaOnlyOperator(Schema schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public void open() throws TexeraException {
+        }
+
+        @Override
+        public Tuple getNextTuple() throws TexeraException {
+            return null;
+        }
+
+        @Override
+        public void close() throws TexeraException {
+        }
+
+        @Override
+        public Schema getOutputSchema() {
+            return schema;
+        }
+
+        @Override
+        public Schema transformToOutputSchema(Schema... inputSchema) {
+            if (inputSchema.length != 1) {
+                throw new TexeraException(String.format(ErrorMessages.NUMBER_OF_ARGUMENTS_DOES_NOT_MATCH, 1, inputSchema.length));
+            }
+            return inputSchema[0];
+        }
+    }
+
+}
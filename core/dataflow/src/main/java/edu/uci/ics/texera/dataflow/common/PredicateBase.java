@@ -21,6 +21,7 @@ import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionaryPredicate;
 import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionarySourcePredicate;
 import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenPredicate;
 import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenSourcePredicate;
+import edu.uci.ics.texera.dataflow.join.HashJoinPredicate;
 import edu.uci.ics.texera.dataflow.join.JoinDistancePredicate;
 import edu.uci.ics.texera.dataflow.join.SimilarityJoinPredicate;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordPredicate;
@@ -72,6 +73,7 @@ import edu.uci.ics.texera.dataflow.wordcount.WordCountOperatorPredicate;
         
         @Type(value = JoinDistancePredicate.class, name = "JoinDistance"),
         @Type(value = SimilarityJoinPredicate.class, name = "SimilarityJoin"),
+        @Type(value = HashJoinPredicate.class, name = "HashJoin"),
         
         @Type(value = NlpEntityPredicate.class, name = "NlpEntity"),
         @Type(value = NlpSentimentPredicate.class, name = "NlpSentiment"),
@@ -55,6 +55,11 @@ public class PropertyNameConstants {
     public static final String REGEX = "regex";
     public static final String REGEX_IGNORE_CASE = "regexIgnoreCase";
     public static final String REGEX_USE_INDEX = "regexUseIndex";
+    public static final String REGEX_ENGINE = "regexEngine";
+    public static final String REGEX_ADAPTIVE_PLAN = "regexAdaptivePlan";
+    public static final String REGEX_TIMEOUT_MILLIS = "regexTimeoutMillis";
+    public static final String REGEX_STEP_LIMIT = "regexStepLimit";
+    public static final String REGEX_OVERRUN_ACTION = "regexOverrunAction";
     
     // related to fuzzy token matcher
     public static final String FUZZY_TOKEN_QUERY = "query";
@@ -92,6 +97,8 @@ public class PropertyNameConstants {
     public static final String OUTER_ATTRIBUTE_NAME = "outerAttribute";
     public static final String SPAN_DISTANCE = "spanDistance";
     public static final String JOIN_SIMILARITY_THRESHOLD = "similarityThreshold";
+    public static final String JOIN_TYPE = "joinType";
+    public static final String JOIN_BAND_WIDTH = "bandWidth";
     
     // related to asterix connector
     public static final String ASTERIX_HOST = "host";
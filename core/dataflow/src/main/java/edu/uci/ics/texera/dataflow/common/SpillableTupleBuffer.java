@@ -0,0 +1,213 @@
+package edu.uci.ics.texera.dataflow.common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+
+/**
+ * SpillableTupleBuffer is a list of tuples with the same schema, which an operator appends tuples to
+ *   and reads them back by their positions.
+ *
+ * The tuples are kept on the heap as long as their memory can be reserved from the memory budget.
+ * Once the budget runs out, the tuples added after are written to a temporary file (see TupleCodec),
+ *   the tuples already on the heap stay there.
+ *
+ * Reading the spilled tuples in order is fast, even for a few readers at different positions
+ *   (for example, the outputs of OneToNBroadcastConnector): a file reader is kept for each of them,
+ *   and reading another position seeks one of them.
+ * The buffer isn't synchronized.
+ *
+ */
+public class SpillableTupleBuffer {
+
+    // the number of file readers kept open
+    private static final int MAX_READERS = 4;
+
+    /*
+     * A reader of the file, which reads the tuple at nextPosition without seeking.
+     */
+    private static class SpillFileReader {
+        private final FileChannel channel;
+        private DataInputStream input;
+        private int nextPosition = -1;
+
+        private SpillFileReader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+
+        private void seek(long offset) throws IOException {
+            channel.position(offset);
+            input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        }
+    }
+
+    private final Schema schema;
+    private final MemoryBudget memoryBudget;
+
+    private final List<Tuple> memoryTuples = new ArrayList<>();
+    private long reservedBytes = 0;
+
+    // the file of the tuples after the memory tuples, null if none is spilled
+    private Path spillPath = null;
+    private DataOutputStream spillOutput;
+    private boolean spillOutputFlushed = true;
+    private final ByteArrayOutputStream encodedTuple = new ByteArrayOutputStream();
+    private long spillFileSize = 0;
+    // the offsets of the spilled tuples in the file
+    private long[] spillOffsets = new long[0];
+    private int spillCount = 0;
+    // the readers of the file, the least recently used first
+    private final List<SpillFileReader> spillReaders = new ArrayList<>();
+
+    public SpillableTupleBuffer(Schema schema, MemoryBudget memoryBudget) {
+        this.schema = schema;
+        this.memoryBudget = memoryBudget;
+    }
+
+    public void add(Tuple tuple) throws DataflowException {
+        if (spillPath == null) {
+            long tupleSize = TupleCodec.estimateSize(tuple);
+            if (memoryBudget.tryReserve(tupleSize)) {
+                memoryTuples.add(tuple);
+                reservedBytes += tupleSize;
+                return;
+            }
+        }
+        spill(tuple);
+    }
+
+    private void spill(Tuple tuple) throws DataflowException {
+        try {
+            if (spillPath == null) {
+                spillPath = Files.createTempFile("texera-", ".spill");
+                spillOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillPath)));
+            }
+            encodedTuple.reset();
+            TupleCodec.write(new DataOutputStream(encodedTuple), tuple);
+            encodedTuple.writeTo(spillOutput);
+            spillOutputFlushed = false;
+
+            if (spillCount == spillOffsets.length) {
+                spillOffsets = Arrays.copyOf(spillOffsets, Math.max(16, spillCount * 2));
+            }
+            spillOffsets[spillCount++] = spillFileSize;
+            spillFileSize += encodedTuple.size();
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the tuple at a position, from 0 to size() - 1.
+     *
+     * @param position
+     * @return
+     * @throws DataflowException
+     */
+    public Tuple get(int position) throws DataflowException {
+        if (position < 0 || position >= size()) {
+            throw new DataflowException(String.format("position %d is out of the bound of %d tuples", position, size()));
+        }
+        if (position < memoryTuples.size()) {
+            return memoryTuples.get(position);
+        }
+        try {
+            if (! spillOutputFlushed) {
+                spillOutput.flush();
+                spillOutputFlushed = true;
+            }
+            int spillPosition = position - memoryTuples.size();
+            SpillFileReader reader = getReader(spillPosition);
+            Tuple tuple = TupleCodec.read(reader.input, schema);
+            reader.nextPosition = spillPosition + 1;
+            return tuple;
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Returns a reader at the position of a spilled tuple, which becomes the most recently used.
+     */
+    private SpillFileReader getReader(int spillPosition) throws IOException {
+        SpillFileReader reader = spillReaders.stream()
+                .filter(spillReader -> spillReader.nextPosition == spillPosition).findFirst().orElse(null);
+        if (reader == null) {
+            if (spillReaders.size() < MAX_READERS) {
+                reader = new SpillFileReader(spillPath);
+            } else {
+                reader = spillReaders.get(0);
+            }
+            reader.seek(spillOffsets[spillPosition]);
+        }
+        spillReaders.remove(reader);
+        spillReaders.add(reader);
+        return reader;
+    }
+
+    public int size() {
+        return memoryTuples.size() + spillCount;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return true if some of the tuples have been written to the temporary file
+     */
+    public boolean isSpilled() {
+        return spillPath != null;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Removes all the tuples, which releases their memory and deletes the temporary file.
+     *
+     * @throws DataflowException
+     */
+    public void clear() throws DataflowException {
+        memoryTuples.clear();
+        memoryBudget.release(reservedBytes);
+        reservedBytes = 0;
+        if (spillPath == null) {
+            return;
+        }
+        try {
+            spillOutput.close();
+            for (SpillFileReader reader : spillReaders) {
+                reader.channel.close();
+            }
+            Files.deleteIfExists(spillPath);
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        } finally {
+            spillReaders.clear();
+            spillPath = null;
+            spillOutput = null;
+            spillOutputFlushed = true;
+            spillFileSize = 0;
+            spillOffsets = new long[0];
+            spillCount = 0;
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+package edu.uci.ics.texera.dataflow.common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.field.DateField;
+import edu.uci.ics.texera.api.field.DateTimeField;
+import edu.uci.ics.texera.api.field.DoubleField;
+import edu.uci.ics.texera.api.field.IDField;
+import edu.uci.ics.texera.api.field.IField;
+import edu.uci.ics.texera.api.field.IntegerField;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+
+/**
+ * TupleCodec is the binary encoding of the tuples which operators spill to temporary files
+ *   (see SpillableTupleBuffer).
+ *
+ * The schema isn't written, a tuple is read back with the schema it was written with.
+ * Each field is written by the type of its attribute:
+ *   strings (STRING, TEXT, _id) as a length and UTF-8 bytes, INTEGER as 4 bytes, DOUBLE as 8 bytes,
+ *   DATE as the epoch day, DATETIME as the epoch second and nanosecond (in UTC),
+ *   and LIST, which must be a list of spans, as the number of spans followed by the fields of each span.
+ *
+ */
+public class TupleCodec {
+
+    // the length of a null string
+    private static final int NULL_LENGTH = -1;
+
+    private TupleCodec() {
+    }
+
+    public static void write(DataOutput output, Tuple tuple) throws DataflowException {
+        try {
+            for (IField field : tuple.getFields()) {
+                writeField(output, field);
+            }
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    public static Tuple read(DataInput input, Schema schema) throws IOException {
+        List<IField> fields = new ArrayList<>(schema.getAttributes().size());
+        for (Attribute attribute : schema.getAttributes()) {
+            fields.add(readField(input, attribute));
+        }
+        return new Tuple(schema, fields);
+    }
+
+    private static void writeField(DataOutput output, IField field) throws IOException {
+        if (field instanceof StringField || field instanceof TextField || field instanceof IDField) {
+            writeString(output, (String) field.getValue());
+        } else if (field instanceof IntegerField) {
+            output.writeInt(((IntegerField) field).getValue());
+        } else if (field instanceof DoubleField) {
+            output.writeDouble(((DoubleField) field).getValue());
+        } else if (field instanceof DateField) {
+            output.writeLong(((DateField) field).getValue().toEpochDay());
+        } else if (field instanceof DateTimeField) {
+            LocalDateTime dateTime = ((DateTimeField) field).getValue();
+            output.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+            output.writeInt(dateTime.getNano());
+        } else if (field instanceof ListField) {
+            List<?> list = ((ListField<?>) field).getValue();
+            output.writeInt(list.size());
+            for (Object element : list) {
+                if (! (element instanceof Span)) {
+                    throw new DataflowException("can't encode a list element of " + element.getClass());
+                }
+                Span span = (Span) element;
+                writeString(output, span.getAttributeName());
+                output.writeInt(span.getStart());
+                output.writeInt(span.getEnd());
+                writeString(output, span.getKey());
+                writeString(output, span.getValue());
+                output.writeInt(span.getTokenOffset());
+            }
+        } else {
+            throw new DataflowException("can't encode a field of " + field.getClass());
+        }
+    }
+
+    private static IField readField(DataInput input, Attribute attribute) throws IOException {
+        switch (attribute.getType()) {
+        case STRING:
+            return new StringField(readString(input));
+        case TEXT:
+            return new TextField(readString(input));
+        case _ID_TYPE:
+            return new IDField(readString(input));
+        case INTEGER:
+            return new IntegerField(input.readInt());
+        case DOUBLE:
+            return new DoubleField(input.readDouble());
+        case DATE:
+            return new DateField(LocalDate.ofEpochDay(input.readLong()));
+        case DATETIME:
+            return new DateTimeField(LocalDateTime.ofEpochSecond(input.readLong(), input.readInt(), ZoneOffset.UTC));
+        case LIST:
+            int size = input.readInt();
+            List<Span> spans = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                spans.add(new Span(readString(input), input.readInt(), input.readInt(),
+                        readString(input), readString(input), input.readInt()));
+            }
+            return new ListField<>(spans);
+        default:
+            throw new DataflowException("can't decode a field of type " + attribute.getType());
+        }
+    }
+
+    private static void writeString(DataOutput output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Roughly estimates the heap size of a tuple in bytes, by the lengths of its string values.
+     */
+    public static long estimateSize(Tuple tuple) {
+        long size = 64;
+        for (IField field : tuple.getFields()) {
+            size += 32;
+            Object value = field.getValue();
+            if (value instanceof String) {
+                size += 2 * ((String) value).length();
+            } else if (field instanceof ListField) {
+                for (Object element : ((ListField<?>) field).getValue()) {
+                    size += 64;
+                    if (element instanceof Span) {
+                        Span span = (Span) element;
+                        size += 2 * (length(span.getKey()) + length(span.getValue()));
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+}
@@ -55,6 +55,11 @@ public class ComparableMatcher extends AbstractSingleInputOperator {
         return null;
     }
 
+    @Override
+    protected TupleBatch computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return processNextInputBatch(maxSize);
+    }
+
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         boolean conditionSatisfied = false;
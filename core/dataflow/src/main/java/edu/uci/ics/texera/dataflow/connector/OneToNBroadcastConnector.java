@@ -9,16 +9,25 @@ import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.common.ISpillable;
+import edu.uci.ics.texera.dataflow.common.MemoryBudget;
+import edu.uci.ics.texera.dataflow.common.SpillableTupleBuffer;
 
 /**
  * OneToNBroadcastConnector connects one input operator with multiple output operators.
  * The tuples from the input operator will be broadcast to every output operator.
  * 
  * It is required that all output operators need to be opened prior to calling getNextTuple().
+ * 
+ * The output operators can be consumed from different threads (e.g. in a pipelined plan), 
+ * access to the shared input is synchronized.
+ * 
+ * The tuples cached for the output operators are spilled to a temporary file
+ * once they don't fit in the memory budget (see SpillableTupleBuffer).
  * @author Zuozhi Wang (zuozhiw)
  *
  */
-public class OneToNBroadcastConnector implements IConnector {
+public class OneToNBroadcastConnector implements IConnector, ISpillable {
     
     private static final int PRE_OPEN = -2;
     private static final int OPENED = 0;
@@ -35,8 +44,9 @@ public class OneToNBroadcastConnector implements IConnector {
     private boolean inputOperatorOpened;
     
     private IOperator inputOperator;
-    // an in-memory list to cache tuples from input tuple, see getNextTuple() for more details
-    private ArrayList<Tuple> inputTupleList;
+    // a buffer to cache tuples from input tuple, see getNextTuple() for more details
+    private SpillableTupleBuffer inputTupleList;
+    private MemoryBudget memoryBudget = new MemoryBudget();
     // indicates if the input operator's tuples are all consumed
     boolean inputAllConsumed = false;
     
@@ -45,7 +55,6 @@ public class OneToNBroadcastConnector implements IConnector {
      * @param outputOperatorNumber, the number of output operators this connector has
      */
     public OneToNBroadcastConnector(int outputOperatorNumber) {        
-        this.inputTupleList = new ArrayList<>();
         inputOperatorOpened = false;
         this.outputOperatorNumber = outputOperatorNumber;
         initializeOutputOperators();
@@ -90,10 +99,10 @@ public class OneToNBroadcastConnector implements IConnector {
     /*
      * This returns the nextTuple of the operator corresponding to the index.
      * A cursor will be maintained for each operator. 
-     * Tuples from input operators are cached in an in-memory list.
+     * Tuples from input operators are cached in a buffer, which spills them to disk if the memory budget runs out.
      * A new tuple will be fetched from input operator whenever a cursor exceeds the list size.
      */
-    private Tuple getNextTuple(int outputOperatorIndex) throws TexeraException {
+    private synchronized Tuple getNextTuple(int outputOperatorIndex) throws TexeraException {
         int currentPosition = outputCursorList.get(outputOperatorIndex);
         
         if (currentPosition + 1 < inputTupleList.size()) {
@@ -117,20 +126,25 @@ public class OneToNBroadcastConnector implements IConnector {
         }
     }
     
-    private void openInputOperator(int outputOperatorIndex) throws TexeraException {
+    private synchronized void openInputOperator(int outputOperatorIndex) throws TexeraException {
         outputStatusList.set(outputOperatorIndex, OPENED);
         if (! inputOperatorOpened) {
             inputOperator.open();
             inputOperatorOpened = true;
+            inputTupleList = new SpillableTupleBuffer(inputOperator.getOutputSchema(), memoryBudget);
         }
     }
     
-    private void closeInputOperator(int outputOperatorIndex) throws TexeraException {
+    private synchronized void closeInputOperator(int outputOperatorIndex) throws TexeraException {
         outputStatusList.set(outputOperatorIndex, CLOSED);
         boolean isAllClosed = isAllOutputOperatorClosed();
         if (isAllClosed) {
             inputOperator.close();
             inputOperatorOpened = false;
+            if (inputTupleList != null) {
+                inputTupleList.clear();
+                inputTupleList = null;
+            }
         }
     }
     
@@ -145,6 +159,15 @@ public class OneToNBroadcastConnector implements IConnector {
     public IOperator getInputOperator() {
         return this.inputOperator;
     }
+    
+    @Override
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+    
+    public MemoryBudget getMemoryBudget() {
+        return this.memoryBudget;
+    }
 
     private boolean isAllOutputOperatorClosed() {
         return outputStatusList.stream().reduce(CLOSED, (a, b) -> (a == b ? CLOSED : OPENED)) == -1;
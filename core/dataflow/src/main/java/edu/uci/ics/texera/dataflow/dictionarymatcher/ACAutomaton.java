@@ -0,0 +1,290 @@
+package edu.uci.ics.texera.dataflow.dictionarymatcher;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * ACAutomaton is a compiled, immutable aho-corasick automaton over a list of keywords.
+ * Wiki page link: https://github.com/Texera/texera/wiki/Aho-Corasick-String-Matching-Algorithm
+ *
+ * All the states are kept in primitive arrays:
+ *   the states are numbered in BFS order, so the children of a state are consecutive states,
+ *   whose labels (the chars on the transitions) are sorted and binary searched.
+ *   The transitions of the root state are a dense table over all the char codes.
+ *   The failure links and the output links (the nearest state on the failure path
+ *   which is the end of a keyword) are computed when the automaton is built.
+ *
+ * Case-insensitive matching folds every char with Character.toLowerCase(char),
+ *   so the offsets of the matches are always the offsets in the original text.
+ *
+ * Matching reports every emit through an EmitListener without allocating any object,
+ *   and an automaton can be shared by any number of threads.
+ */
+public class ACAutomaton implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Receives the keyword matches found by match().
+     */
+    @FunctionalInterface
+    public interface EmitListener {
+        /**
+         * @param keywordIndex, the index of the matched keyword, see getKeyword()
+         * @param start, the start offset of the match in the text (inclusive)
+         * @param end, the end offset of the match in the text (exclusive)
+         */
+        void onEmit(int keywordIndex, int start, int end);
+    }
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    // a state with at most this many children is searched linearly instead of binary searched
+    private static final int LINEAR_SEARCH_THRESHOLD = 8;
+
+    private final boolean caseInsensitive;
+    private final String[] keywords;
+    private final int[] keywordLengths;
+
+    // the char on the transition into each state
+    private final char[] labels;
+    // the children of state s are the states from firstChild[s] to firstChild[s + 1] - 1
+    private final int[] firstChild;
+    private final int[] rootTransitions;
+    private final int[] failure;
+    private final int[] outputLink;
+    // the keywords ending at state s are keywordIds[keywordStart[s]] to keywordIds[keywordStart[s + 1] - 1]
+    private final int[] keywordStart;
+    private final int[] keywordIds;
+
+    /**
+     * Builds an automaton over the keywords. Empty and duplicate keywords are ignored.
+     *
+     * @param keywordCollection
+     * @param caseInsensitive
+     */
+    public ACAutomaton(Collection<String> keywordCollection, boolean caseInsensitive) {
+        this.caseInsensitive = caseInsensitive;
+
+        List<String> keywordList = new ArrayList<>();
+        for (String keyword : new LinkedHashSet<>(keywordCollection)) {
+            if (keyword != null && ! keyword.isEmpty()) {
+                keywordList.add(keyword);
+            }
+        }
+        this.keywords = keywordList.toArray(new String[keywordList.size()]);
+        this.keywordLengths = new int[keywords.length];
+
+        String[] foldedKeywords = new String[keywords.length];
+        int totalLength = 0;
+        for (int i = 0; i < keywords.length; i++) {
+            foldedKeywords[i] = fold(keywords[i]);
+            keywordLengths[i] = keywords[i].length();
+            totalLength += keywordLengths[i];
+        }
+        Integer[] sortedOrder = new Integer[keywords.length];
+        for (int i = 0; i < sortedOrder.length; i++) {
+            sortedOrder[i] = i;
+        }
+        Arrays.sort(sortedOrder, (i, j) -> foldedKeywords[i].compareTo(foldedKeywords[j]));
+
+        // there are at most (total length of the keywords + 1) states
+        int maxStates = totalLength + 1;
+        char[] stateLabels = new char[maxStates];
+        int[] stateFirstChild = new int[maxStates + 1];
+        int[] stateKeywordStart = new int[maxStates + 1];
+        int[] stateKeywordIds = new int[keywords.length];
+        // temporary information of each state: its parent, depth,
+        //   and the range of the sorted keywords which have the state as a prefix
+        int[] parent = new int[maxStates];
+        int[] depth = new int[maxStates];
+        int[] rangeStart = new int[maxStates];
+        int[] rangeEnd = new int[maxStates];
+
+        // build the trie in BFS order, every state is expanded after all the states before it
+        int stateCount = 1;
+        int keywordCount = 0;
+        parent[ROOT] = NONE;
+        rangeEnd[ROOT] = keywords.length;
+        for (int state = 0; state < stateCount; state++) {
+            int stateDepth = depth[state];
+            int i = rangeStart[state];
+            // the keywords which end at this state sort before the longer ones
+            stateKeywordStart[state] = keywordCount;
+            while (i < rangeEnd[state] && foldedKeywords[sortedOrder[i]].length() == stateDepth) {
+                stateKeywordIds[keywordCount++] = sortedOrder[i++];
+            }
+            stateFirstChild[state] = stateCount;
+            while (i < rangeEnd[state]) {
+                char label = foldedKeywords[sortedOrder[i]].charAt(stateDepth);
+                int j = i + 1;
+                while (j < rangeEnd[state] && foldedKeywords[sortedOrder[j]].charAt(stateDepth) == label) {
+                    j++;
+                }
+                stateLabels[stateCount] = label;
+                parent[stateCount] = state;
+                depth[stateCount] = stateDepth + 1;
+                rangeStart[stateCount] = i;
+                rangeEnd[stateCount] = j;
+                stateCount++;
+                i = j;
+            }
+        }
+        stateFirstChild[stateCount] = stateCount;
+        stateKeywordStart[stateCount] = keywordCount;
+
+        this.labels = Arrays.copyOf(stateLabels, stateCount);
+        this.firstChild = Arrays.copyOf(stateFirstChild, stateCount + 1);
+        this.keywordStart = Arrays.copyOf(stateKeywordStart, stateCount + 1);
+        this.keywordIds = stateKeywordIds;
+
+        this.rootTransitions = new int[Character.MAX_VALUE + 1];
+        for (int child = firstChild[ROOT]; child < firstChild[ROOT + 1]; child++) {
+            rootTransitions[labels[child]] = child;
+        }
+
+        // the failure state of a state always has a smaller depth, so it's computed earlier in BFS order
+        this.failure = new int[stateCount];
+        this.outputLink = new int[stateCount];
+        outputLink[ROOT] = NONE;
+        for (int state = 1; state < stateCount; state++) {
+            int failureState = ROOT;
+            if (parent[state] != ROOT) {
+                failureState = nextState(failure[parent[state]], labels[state]);
+            }
+            failure[state] = failureState;
+            outputLink[state] = hasKeywords(failureState) ? failureState : outputLink[failureState];
+        }
+    }
+
+    /**
+     * Finds all the occurrences of the keywords in the text, and reports them to the listener
+     *   in the order of their end offsets.
+     *
+     * @param text
+     * @param listener
+     */
+    public void match(CharSequence text, EmitListener listener) {
+        if (text == null) {
+            return;
+        }
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (caseInsensitive) {
+                c = Character.toLowerCase(c);
+            }
+            state = nextState(state, c);
+            int outputState = hasKeywords(state) ? state : outputLink[state];
+            while (outputState != NONE) {
+                for (int k = keywordStart[outputState]; k < keywordStart[outputState + 1]; k++) {
+                    int keywordIndex = keywordIds[k];
+                    listener.onEmit(keywordIndex, i + 1 - keywordLengths[keywordIndex], i + 1);
+                }
+                outputState = outputLink[outputState];
+            }
+        }
+    }
+
+    /**
+     * @param text
+     * @return true if any of the keywords occurs in the text, stops at the first occurrence
+     */
+    public boolean matchesAny(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (caseInsensitive) {
+                c = Character.toLowerCase(c);
+            }
+            state = nextState(state, c);
+            if (hasKeywords(state) || outputLink[state] != NONE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param keywordIndex, the index reported by match()
+     * @return the keyword, as it was given to the automaton
+     */
+    public String getKeyword(int keywordIndex) {
+        return keywords[keywordIndex];
+    }
+
+    public int getKeywordCount() {
+        return keywords.length;
+    }
+
+    public int getStateCount() {
+        return labels.length;
+    }
+
+    public boolean isCaseInsensitive() {
+        return caseInsensitive;
+    }
+
+    /*
+     * Follows the transition on the char from the state,
+     *   and the failure links if the state doesn't have such a transition.
+     */
+    private int nextState(int state, char c) {
+        while (state != ROOT) {
+            int child = findChild(state, c);
+            if (child != NONE) {
+                return child;
+            }
+            state = failure[state];
+        }
+        return rootTransitions[c];
+    }
+
+    private int findChild(int state, char c) {
+        int low = firstChild[state];
+        int high = firstChild[state + 1] - 1;
+        if (high - low < LINEAR_SEARCH_THRESHOLD) {
+            for (int child = low; child <= high; child++) {
+                if (labels[child] == c) {
+                    return child;
+                }
+            }
+            return NONE;
+        }
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (labels[middle] < c) {
+                low = middle + 1;
+            } else if (labels[middle] > c) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NONE;
+    }
+
+    private boolean hasKeywords(int state) {
+        return keywordStart[state] < keywordStart[state + 1];
+    }
+
+    private String fold(String keyword) {
+        if (! caseInsensitive) {
+            return keyword;
+        }
+        char[] folded = new char[keyword.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = Character.toLowerCase(keyword.charAt(i));
+        }
+        return new String(folded);
+    }
+
+}
@@ -10,64 +10,33 @@ import java.util.*;
  * This is to implement the aho-corasick algorithm to build automaton
  * for all dictionary entries with a prefix trie and failure transactions.
  * Wiki page link: https://github.com/Texera/texera/wiki/Aho-Corasick-String-Matching-Algorithm
+ *
+ * ACTrie collects the keywords, and compiles them into an ACAutomaton in constructFailureTransactions().
+ * Use ACAutomaton directly to get the matches without creating Emit objects.
  * Created by Chang on 8/29/17.
  */
 public class ACTrie {
-    private final TrieNode rootNode;
+    private final List<String> keywordList = new ArrayList<>();
     private boolean caseInsensitive = false;
+    private ACAutomaton automaton;
 
     public ACTrie() {
-        this.rootNode = TrieNode.newRootNode();
-    }
-
-    private void addKeyword(String keyword) {
-        if (keyword == null || keyword.length() == 0) return;
-        String originalWord = keyword;
-        if (caseInsensitive) {
-            keyword = keyword.toLowerCase();
-        }
-        TrieNode currentNode = this.rootNode;
-        for (Character character : keyword.toCharArray()) {
-            currentNode = currentNode.addTrieNode(character);
-        }
-        currentNode.addEmit(originalWord);
     }
 
     public void addKeywords(List<String> keywordList) {
         if (keywordList == null || keywordList.isEmpty()) {
             return;
         }
-        for (String keyword : keywordList) {
-            addKeyword(keyword);
-        }
+        this.keywordList.addAll(keywordList);
+        this.automaton = null;
     }
 
     /**
-     * Run a BFS on the constructed prefix trie to setup links between
-     * failed matching node to its longest common suffix on other branches.
+     * Compiles the keywords into an automaton, with the
+     * links between failed matching node to its longest common suffix on other branches.
      */
     public void constructFailureTransactions() {
-        Deque<TrieNode> queue = new ArrayDeque<>();
-        for (TrieNode node : this.rootNode.getChildrenNodes()) {
-            node.setFailure(this.rootNode);
-            queue.add(node);
-        }
-        while (!queue.isEmpty()) {
-            TrieNode currentNode = queue.poll();
-            for (Character character : currentNode.getTransactions()) {
-                TrieNode nextNode = currentNode.getNextTrieNode(character);
-                if (nextNode != null) {
-                    queue.add(nextNode);
-                    TrieNode failureNode = currentNode.getFailure();
-                    while (failureNode.getNextTrieNode(character) == null) {
-                        failureNode = failureNode.getFailure();
-                    }
-                    TrieNode newFailureNode = failureNode.getNextTrieNode(character);
-                    nextNode.setFailure(newFailureNode);
-                    nextNode.addEmits(newFailureNode.getEmits());
-                }
-            }
-        }
+        this.automaton = new ACAutomaton(keywordList, caseInsensitive);
     }
 
     /**
@@ -82,40 +51,18 @@ public class ACTrie {
         List<Emit> resultList = new ArrayList<>();
         if (text == null || text.isEmpty()) return resultList;
 
-        if (caseInsensitive) {
-            text = text.toLowerCase();
-        }
-        TrieNode currentNode = this.rootNode;
-        char[] textArray = text.toCharArray();
-        for (int i = 0; i < textArray.length; i++) {
-            Character character = textArray[i];
-            currentNode = getNextTransition(character, currentNode);
-            if (!currentNode.getEmits().isEmpty()) {
-                resultList.addAll(storeEmits(currentNode, i));
-            }
-        }
-        return resultList;
-    }
-
-    private TrieNode getNextTransition(Character c, TrieNode node) {
-        TrieNode nextNode = node.getNextTrieNode(c);
-        while (nextNode == null) {
-            node = node.getFailure();
-            nextNode = node.getNextTrieNode(c);
-        }
-        return nextNode;
-    }
-
-    private List<Emit> storeEmits(TrieNode node, int position) {
-        List<Emit> resultList = new ArrayList<>();
-        for (String matchedKeyword : node.getEmits()) {
-            resultList.add(new Emit(position - matchedKeyword.length() + 1, position + 1, matchedKeyword));
+        if (automaton == null) {
+            constructFailureTransactions();
         }
+        ACAutomaton currentAutomaton = automaton;
+        currentAutomaton.match(text, (keywordIndex, start, end) -> 
+                resultList.add(new Emit(start, end, currentAutomaton.getKeyword(keywordIndex))));
         return resultList;
     }
 
     public void setCaseInsensitive(boolean caseInsensitive) {
         this.caseInsensitive = caseInsensitive;
+        this.automaton = null;
     }
 
     public static class Emit {
@@ -0,0 +1,188 @@
+package edu.uci.ics.texera.dataflow.dictionarymatcher;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
+
+/**
+ * CompiledDictionary holds everything a DictionaryMatcher prepares from a dictionary before matching,
+ *   for one keyword matching type and one lucene analyzer:
+ *
+ * CONJUNCTION_INDEXBASED: the token set of each entry, and the index from each token to the entries containing it.
+ * PHRASE_INDEXBASED: in addition, the token lists of each entry without and with the stopwords.
+ * SUBSTRING_SCANBASED: the aho-corasick automaton of the entries.
+ * REGEX: the java pattern of each entry, and the automaton of all the regexes.
+ *
+ * The index-based types also keep the longest token of each entry,
+ *   which DictionaryMatcherSourceOperator uses to search the index.
+ *
+ * A CompiledDictionary is immutable once it's compiled, so it's shared by all the operators using the same dictionary
+ *   (see DictionaryManager.getCompiledDictionary()), and it's serializable to be cached on the disk.
+ */
+public class CompiledDictionary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> dictionaryEntries;
+    private final KeywordMatchingType keywordMatchingType;
+    private final String luceneAnalyzerStr;
+
+    private List<Set<String>> tokenSetsNoStopwords;
+    private List<List<String>> tokenListsNoStopwords;
+    private List<List<String>> tokenListsWithStopwords;
+    private Map<String, List<Integer>> entryTokenIndex;
+    private Set<String> dictionaryEntrySet;
+    private List<String> longestTokens;
+
+    private ACAutomaton substringAutomaton;
+
+    private List<Pattern> patternList;
+    private MultiRegexAutomaton regexAutomaton;
+
+    private CompiledDictionary(List<String> dictionaryEntries, KeywordMatchingType keywordMatchingType, String luceneAnalyzerStr) {
+        this.dictionaryEntries = Collections.unmodifiableList(new ArrayList<>(dictionaryEntries));
+        this.keywordMatchingType = keywordMatchingType;
+        this.luceneAnalyzerStr = luceneAnalyzerStr;
+    }
+
+    /**
+     * Compiles the entries of a dictionary for a keyword matching type.
+     *
+     * @param dictionaryEntries, the entries of the dictionary (see Dictionary.getDictionaryEntries())
+     * @param keywordMatchingType
+     * @param luceneAnalyzerStr, the analyzer to tokenize the entries, only used by the index-based types
+     * @return
+     */
+    public static CompiledDictionary compile(List<String> dictionaryEntries, KeywordMatchingType keywordMatchingType,
+            String luceneAnalyzerStr) {
+        CompiledDictionary compiledDictionary = new CompiledDictionary(dictionaryEntries, keywordMatchingType, luceneAnalyzerStr);
+        if (keywordMatchingType == KeywordMatchingType.CONJUNCTION_INDEXBASED) {
+            compiledDictionary.compileTokens(false);
+        } else if (keywordMatchingType == KeywordMatchingType.PHRASE_INDEXBASED) {
+            compiledDictionary.compileTokens(true);
+        } else if (keywordMatchingType == KeywordMatchingType.REGEX) {
+            compiledDictionary.compileRegexes();
+        } else {
+            compiledDictionary.substringAutomaton = new ACAutomaton(dictionaryEntries, true);
+        }
+        return compiledDictionary;
+    }
+
+    private void compileTokens(boolean withTokenLists) {
+        List<Set<String>> tokenSets = new ArrayList<>();
+        List<List<String>> tokenLists = new ArrayList<>();
+        List<List<String>> tokenListsStopwords = new ArrayList<>();
+        List<String> longestTokenList = new ArrayList<>();
+        Map<String, List<Integer>> tokenIndex = new HashMap<>();
+        for (int i = 0; i < dictionaryEntries.size(); i++) {
+            List<String> tokens = DataflowUtils.tokenizeQuery(luceneAnalyzerStr, dictionaryEntries.get(i));
+            Set<String> tokenSet = Collections.unmodifiableSet(new LinkedHashSet<>(tokens));
+            tokenSets.add(tokenSet);
+            if (withTokenLists) {
+                tokenLists.add(Collections.unmodifiableList(tokens));
+                tokenListsStopwords.add(Collections.unmodifiableList(
+                        DataflowUtils.tokenizeQueryWithStopwords(luceneAnalyzerStr, dictionaryEntries.get(i))));
+            }
+
+            String longestToken = "";
+            for (String token : tokens) {
+                if (token.length() > longestToken.length()) {
+                    longestToken = token;
+                }
+            }
+            longestTokenList.add(longestToken);
+
+            // the index lets a tuple only check the entries which share at least one token with its payload
+            for (String token : tokenSet) {
+                tokenIndex.computeIfAbsent(token, key -> new ArrayList<>()).add(i);
+            }
+        }
+        tokenIndex.replaceAll((token, entryIndexes) -> Collections.unmodifiableList(entryIndexes));
+
+        this.tokenSetsNoStopwords = Collections.unmodifiableList(tokenSets);
+        if (withTokenLists) {
+            this.tokenListsNoStopwords = Collections.unmodifiableList(tokenLists);
+            this.tokenListsWithStopwords = Collections.unmodifiableList(tokenListsStopwords);
+        }
+        this.longestTokens = Collections.unmodifiableList(longestTokenList);
+        this.entryTokenIndex = Collections.unmodifiableMap(tokenIndex);
+        this.dictionaryEntrySet = Collections.unmodifiableSet(new HashSet<>(dictionaryEntries));
+    }
+
+    private void compileRegexes() {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String entry : dictionaryEntries) {
+            patterns.add(Pattern.compile(entry, Pattern.CASE_INSENSITIVE));
+        }
+        this.patternList = Collections.unmodifiableList(patterns);
+        this.regexAutomaton = new MultiRegexAutomaton(dictionaryEntries);
+    }
+
+    public List<String> getDictionaryEntries() {
+        return dictionaryEntries;
+    }
+
+    public KeywordMatchingType getKeywordMatchingType() {
+        return keywordMatchingType;
+    }
+
+    public String getLuceneAnalyzerString() {
+        return luceneAnalyzerStr;
+    }
+
+    public List<Set<String>> getTokenSetsNoStopwords() {
+        return tokenSetsNoStopwords;
+    }
+
+    public List<List<String>> getTokenListsNoStopwords() {
+        return tokenListsNoStopwords;
+    }
+
+    public List<List<String>> getTokenListsWithStopwords() {
+        return tokenListsWithStopwords;
+    }
+
+    /**
+     * @return the indexes of the entries containing each token (index-based types only)
+     */
+    public Map<String, List<Integer>> getEntryTokenIndex() {
+        return entryTokenIndex;
+    }
+
+    /**
+     * @return the set of the entries, to match STRING fields (index-based types only)
+     */
+    public Set<String> getDictionaryEntrySet() {
+        return dictionaryEntrySet;
+    }
+
+    /**
+     * @return the longest token of each entry, or "" if an entry has no token (index-based types only)
+     */
+    public List<String> getLongestTokens() {
+        return longestTokens;
+    }
+
+    public ACAutomaton getSubstringAutomaton() {
+        return substringAutomaton;
+    }
+
+    public List<Pattern> getPatternList() {
+        return patternList;
+    }
+
+    public MultiRegexAutomaton getRegexAutomaton() {
+        return regexAutomaton;
+    }
+
+}
@@ -10,8 +10,11 @@ import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatchBudget;
+import edu.uci.ics.texera.dataflow.resource.dictionary.DictionaryManager;
 import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
 
 import java.util.*;
@@ -35,7 +38,13 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
     }
 
     private Schema inputSchema;
-    private ACTrie dictionaryTrie;
+    // the tokens and automata of the dictionary, shared with the other operators using the same dictionary
+    private CompiledDictionary compiledDictionary;
+    // for REGEX: the runner of the automaton, the regexes not in the automaton are matched by their java patterns
+    private MultiRegexAutomaton.Runner regexRunner;
+    private int[] fallbackRegexEntries;
+    // for REGEX: bounds the time or the steps of matching the regexes on a tuple
+    private RegexMatchBudget matchBudget;
 
     @Override
     protected void setUp() throws TexeraException {
@@ -57,23 +66,38 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
 
         outputSchema = transformToOutputSchema(inputOperator.getOutputSchema());
 
-        if (predicate.getKeywordMatchingType() == KeywordMatchingType.CONJUNCTION_INDEXBASED) {
-            predicate.getDictionary().setDictionaryTokenSetList(predicate.getAnalyzerString());
-        } else if (predicate.getKeywordMatchingType() == KeywordMatchingType.PHRASE_INDEXBASED) {
-            predicate.getDictionary().setDictionaryTokenListWithStopwords(predicate.getAnalyzerString());
-            predicate.getDictionary().setDictionaryTokenSetList(predicate.getAnalyzerString());
-        } else if (predicate.getKeywordMatchingType() == KeywordMatchingType.REGEX) {
-            predicate.getDictionary().setPatternList();
-        } else {
-            preprocessDictionaryTrie();
+        compiledDictionary = DictionaryManager.getCompiledDictionary(predicate.getDictionary(), 
+                predicate.getKeywordMatchingType(), predicate.getAnalyzerString());
+        checkEntriesHaveTokens();
+        if (predicate.getKeywordMatchingType() == KeywordMatchingType.REGEX) {
+            regexRunner = compiledDictionary.getRegexAutomaton().newRunner();
+            fallbackRegexEntries = compiledDictionary.getRegexAutomaton().getFallbackEntries();
         }
+        matchBudget = new RegexMatchBudget(predicate.getRegexTimeoutMillis(), predicate.getRegexStepLimit(),
+                predicate.getRegexOverrunAction());
     }
 
-    private void  preprocessDictionaryTrie(){
-        dictionaryTrie = new ACTrie();
-        dictionaryTrie.setCaseInsensitive(true);
-        dictionaryTrie.addKeywords(predicate.getDictionary().getDictionaryEntries());
-        dictionaryTrie.constructFailureTransactions();
+    /*
+     * In CONJUNCTION and PHRASE mode, a TEXT attribute is matched by the tokens of the entries without stopwords,
+     *   so an entry which only has stopwords can never match it, and is rejected instead of being ignored.
+     */
+    private void checkEntriesHaveTokens() throws DataflowException {
+        if (predicate.getKeywordMatchingType() != KeywordMatchingType.CONJUNCTION_INDEXBASED
+                && predicate.getKeywordMatchingType() != KeywordMatchingType.PHRASE_INDEXBASED) {
+            return;
+        }
+        boolean hasTextAttribute = predicate.getAttributeNames().stream()
+                .anyMatch(attributeName -> inputSchema.getAttribute(attributeName).getType() == AttributeType.TEXT);
+        if (! hasTextAttribute) {
+            return;
+        }
+        for (int i = 0; i < compiledDictionary.getDictionaryEntries().size(); i++) {
+            if (compiledDictionary.getTokenSetsNoStopwords().get(i).isEmpty()) {
+                throw new DataflowException(String.format(
+                        "dictionary entry \"%s\" only has stopwords, it can't be matched in %s mode",
+                        compiledDictionary.getDictionaryEntries().get(i), predicate.getKeywordMatchingType()));
+            }
+        }
     }
 
     @Override
@@ -91,6 +115,11 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
 
     }
 
+    @Override
+    protected TupleBatch computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return processNextInputBatch(maxSize);
+    }
+
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         if (inputTuple == null) {
@@ -108,21 +137,22 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
         List<Span> matchingResults = null;
         if (predicate.getKeywordMatchingType() == KeywordMatchingType.CONJUNCTION_INDEXBASED) {
 
-            ArrayList<String> dictionaryEntries = predicate.getDictionary().getDictionaryEntries();
-            ArrayList<Set<String>> tokenSetsNoStopwords = predicate.getDictionary().getTokenSetsNoStopwords();
+            List<String> dictionaryEntries = compiledDictionary.getDictionaryEntries();
+            List<Set<String>> tokenSetsNoStopwords = compiledDictionary.getTokenSetsNoStopwords();
 
             matchingResults = appendConjunctionMatchingSpans4Dictionary(inputTuple, predicate.getAttributeNames(), tokenSetsNoStopwords, dictionaryEntries);
 
         } else if (predicate.getKeywordMatchingType() == KeywordMatchingType.PHRASE_INDEXBASED) {
 
-            ArrayList<String> dictionaryEntries = predicate.getDictionary().getDictionaryEntries();
-            ArrayList<List<String>> tokenListsNoStopwords = predicate.getDictionary().getTokenListsNoStopwords();
-            ArrayList<List<String>> tokenListsWithStopwords = predicate.getDictionary().getTokenListsWithStopwords();
-            ArrayList<Set<String>> tokenSetsNoStopwords = predicate.getDictionary().getTokenSetsNoStopwords();
+            List<String> dictionaryEntries = compiledDictionary.getDictionaryEntries();
+            List<List<String>> tokenListsNoStopwords = compiledDictionary.getTokenListsNoStopwords();
+            List<List<String>> tokenListsWithStopwords = compiledDictionary.getTokenListsWithStopwords();
+            List<Set<String>> tokenSetsNoStopwords = compiledDictionary.getTokenSetsNoStopwords();
 
             matchingResults = appendPhraseMatchingSpans4Dictionary(inputTuple, predicate.getAttributeNames(), tokenListsNoStopwords, tokenSetsNoStopwords, tokenListsWithStopwords, dictionaryEntries);
 
         } else if (predicate.getKeywordMatchingType() == KeywordMatchingType.SUBSTRING_SCANBASED) {
+            ACAutomaton dictionaryAutomaton = compiledDictionary.getSubstringAutomaton();
             matchingResults = new ArrayList<Span>();
             for (String attributeName : predicate.getAttributeNames()) {
                 AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
@@ -132,44 +162,20 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
                 if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
                     throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
                 }
-                List<ACTrie.Emit> matchingEmits = dictionaryTrie.parseText(fieldValue);
-
-                if (!matchingEmits.isEmpty()) {
-                    for(ACTrie.Emit emit : matchingEmits){
-                        matchingResults.add(new Span(attributeName, emit.getStart(), emit.getEnd(), emit.getKeyword(), fieldValue.substring(emit.getStart(), emit.getEnd())));
-                    }
-                }
+                List<Span> attributeResults = matchingResults;
+                dictionaryAutomaton.match(fieldValue, (keywordIndex, start, end) -> 
+                        attributeResults.add(new Span(attributeName, start, end, 
+                                dictionaryAutomaton.getKeyword(keywordIndex), fieldValue.substring(start, end))));
             }
 
         } else if (predicate.getKeywordMatchingType() == KeywordMatchingType.REGEX) {
 
-            ArrayList<Pattern> patternList = predicate.getDictionary().getPatternList();
-            ArrayList<String> dictionaryEntries = predicate.getDictionary().getDictionaryEntries();
-            matchingResults = new ArrayList<>();
-
-            for (int i = 0; i < dictionaryEntries.size(); i++) {
-                for (String attributeName : predicate.getAttributeNames()) {
-                    AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
-                    String fieldValue = inputTuple.getField(attributeName).getValue().toString();
-
-                    // types other than TEXT and STRING: throw Exception for now
-                    if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
-                        throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
-                    }
-
-                    Matcher javaMatcher = patternList.get(i).matcher(fieldValue);
-                    while (javaMatcher.find()) {
-                        int start = javaMatcher.start();
-                        int end = javaMatcher.end();
-                        matchingResults.add(
-                                new Span(attributeName, start, end, dictionaryEntries.get(i), fieldValue.substring(start, end)));
-                    }
-                }
-            }
+            matchingResults = appendRegexMatchingSpans4Dictionary(inputTuple, predicate.getAttributeNames(),
+                    compiledDictionary.getPatternList(), compiledDictionary.getDictionaryEntries());
 
         }
 
-        if (matchingResults.isEmpty()) {
+        if (matchingResults == null || matchingResults.isEmpty()) {
             return null;
         }
         
@@ -185,7 +191,7 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
         List<Span> matchingResults = new ArrayList<>();
         ListField<Span> payloadField = inputTuple.getField(SchemaConstants.PAYLOAD);
         List<Span> payload = payloadField.getValue();
-        Map<Integer, List<Span>> relevantSpansMap = filterRelevantSpans(payload, queryTokenSetList);
+        Map<Integer, List<Span>> relevantSpansMap = filterRelevantSpans(payload);
         for (String attributeName : attributeNames) {
             AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
             String fieldValue = inputTuple.getField(attributeName).getValue().toString();
@@ -197,7 +203,7 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
 
             // for STRING type, check if the dictionary entries contains the complete fieldValue
             if (attributeType == AttributeType.STRING) {
-                if (queryList.contains(fieldValue)) {
+                if (compiledDictionary.getDictionaryEntrySet().contains(fieldValue)) {
                     Span span = new Span(attributeName, 0, fieldValue.length(), fieldValue, fieldValue);
                     matchingResults.add(span);
                 }
@@ -221,7 +227,7 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
         List<Span> matchingResults = new ArrayList<>();
         ListField<Span> payloadField = inputTuple.getField(SchemaConstants.PAYLOAD);
         List<Span> payload = payloadField.getValue();
-        Map<Integer, List<Span>> relevantSpansMap = filterRelevantSpans(payload, queryTokenSetList);
+        Map<Integer, List<Span>> relevantSpansMap = filterRelevantSpans(payload);
         for (String attributeName : attributeNames) {
             AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
             String fieldValue = inputTuple.getField(attributeName).getValue().toString();
@@ -233,7 +239,7 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
 
             // for STRING type, the query should match the fieldValue completely
             if (attributeType == AttributeType.STRING) {
-                if (queryList.contains(fieldValue)) {
+                if (compiledDictionary.getDictionaryEntrySet().contains(fieldValue)) {
                     Span span = new Span(attributeName, 0, fieldValue.length(), fieldValue, fieldValue);
                     matchingResults.add(span);
                 }
@@ -254,29 +260,69 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
         return matchingResults;
     }
 
-    private Map<Integer, List<Span>> filterRelevantSpans(List<Span> spanList, List<Set<String>> queryTokenSet) {
-        Map<Integer, List<Span>> resultMap = new HashMap<>();
-        Map<String, List<Integer>> tokenMap = new HashMap<>();
-        for (int i = 0; i < queryTokenSet.size(); i++) {
-            for (String s : queryTokenSet.get(i)) {
-                if (!tokenMap.containsKey(s)) {
-                    tokenMap.put(s, new ArrayList<>());
+    /*
+     * Matches the regexes in the automaton with one scan of each field, and the other regexes with java regex.
+     * The spans are in the same order as matching the regexes one by one:
+     *   by the regex, then by the attribute, then by the start offset.
+     * Returns null if the tuple is skipped because matching the regexes exceeds the budget of the tuple.
+     */
+    private List<Span> appendRegexMatchingSpans4Dictionary(Tuple inputTuple, List<String> attributeNames, List<Pattern> patternList, List<String> queryList) throws DataflowException {
+        List<Integer> spanEntries = new ArrayList<>();
+        List<Span> spans = new ArrayList<>();
+        matchBudget.startTuple();
+        try {
+            for (String attributeName : attributeNames) {
+                AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
+                String fieldValue = inputTuple.getField(attributeName).getValue().toString();
+
+                // types other than TEXT and STRING: throw Exception for now
+                if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
+                    throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
                 }
-                tokenMap.get(s).add(i);
-            }
-        }
-        Iterator<Span> iterator = spanList.iterator();
-        while (iterator.hasNext()) {
-            Span span = iterator.next();
-            if (tokenMap.keySet().contains(span.getKey())) {
-                List<Integer> tokensetIndex = tokenMap.get(span.getKey());
-                for (Integer index : tokensetIndex) {
-                    if (!resultMap.containsKey(index)) {
-                        resultMap.put(index, new ArrayList<>());
+
+                CharSequence limitedFieldValue = matchBudget.limit(fieldValue);
+                regexRunner.match(limitedFieldValue, (entryIndex, start, end) -> {
+                    spanEntries.add(entryIndex);
+                    spans.add(new Span(attributeName, start, end, queryList.get(entryIndex), fieldValue.substring(start, end)));
+                });
+                for (int entryIndex : fallbackRegexEntries) {
+                    Matcher javaMatcher = patternList.get(entryIndex).matcher(limitedFieldValue);
+                    while (javaMatcher.find()) {
+                        int start = javaMatcher.start();
+                        int end = javaMatcher.end();
+                        spanEntries.add(entryIndex);
+                        spans.add(new Span(attributeName, start, end, queryList.get(entryIndex), fieldValue.substring(start, end)));
                     }
-                    resultMap.get(index).add(span);
                 }
+            }
+        } catch (RegexMatchBudget.Overrun overrun) {
+            if (! matchBudget.handleOverrun(overrun)) {
+                return null;
+            }
+        }
+
+        // the automaton reports the matches of each regex from left to right, a stable sort by the regex is enough
+        Integer[] spanOrder = new Integer[spans.size()];
+        for (int i = 0; i < spanOrder.length; i++) {
+            spanOrder[i] = i;
+        }
+        Arrays.sort(spanOrder, Comparator.comparing(spanEntries::get));
+        List<Span> matchingResults = new ArrayList<>(spans.size());
+        for (int i : spanOrder) {
+            matchingResults.add(spans.get(i));
+        }
+        return matchingResults;
+    }
 
+    private Map<Integer, List<Span>> filterRelevantSpans(List<Span> spanList) {
+        Map<Integer, List<Span>> resultMap = new HashMap<>();
+        for (Span span : spanList) {
+            List<Integer> entryIndexes = compiledDictionary.getEntryTokenIndex().get(span.getKey());
+            if (entryIndexes == null) {
+                continue;
+            }
+            for (Integer index : entryIndexes) {
+                resultMap.computeIfAbsent(index, key -> new ArrayList<>()).add(span);
             }
         }
         return resultMap;
@@ -284,6 +330,9 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
 
     @Override
     protected void cleanUp() throws TexeraException {
+        compiledDictionary = null;
+        regexRunner = null;
+        fallbackRegexEntries = null;
 
     }
 
@@ -314,6 +363,13 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
         return inputOperator;
     }
 
+    /**
+     * @return the budget of a tuple (used by REGEX), with the counters of the tuples over the budget
+     */
+    public RegexMatchBudget getMatchBudget() {
+        return matchBudget;
+    }
+
     public DictionaryPredicate getPredicate() {
         return this.predicate;
     }
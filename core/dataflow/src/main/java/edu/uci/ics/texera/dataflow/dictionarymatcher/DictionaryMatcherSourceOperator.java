@@ -1,28 +1,30 @@
-
 package edu.uci.ics.texera.dataflow.dictionarymatcher;
 
 
-import java.util.List;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.TermsQuery;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
-import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.dataflow.ISourceOperator;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
-import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
-import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
-import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordSourcePredicate;
 import edu.uci.ics.texera.dataflow.source.scan.ScanBasedSourceOperator;
 import edu.uci.ics.texera.dataflow.source.scan.ScanSourcePredicate;
-import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatcherSourceOperator;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.dataflow.resource.dictionary.DictionaryManager;
+import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
+import edu.uci.ics.texera.storage.DataReader;
+import edu.uci.ics.texera.storage.RelationManager;
 
 
 /**
@@ -33,27 +35,18 @@ import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
  */
 public class DictionaryMatcherSourceOperator implements ISourceOperator {
 
-    private ISourceOperator indexSource;
+    private IOperator indexSource;
     
-    private KeywordMatcherSourceOperator keywordSource;
     private DictionaryMatcher dictionaryMatcher;
 
     private Schema outputSchema;
 
-    private String currentDictionaryEntry;
-
     private final DictionarySourcePredicate predicate;
 
     private int limit;
     private int offset;
 
-    private HashMap<String, Tuple> tupleIDMap; // map of tuple's ID to the tuple itself
-    private Map<String, List<Span>> tupleResultMap; // map of tuple's ID to the tuples's results (for Conjunction and Phrase)
-    private boolean resultMapPopulated = false;
-    
-    private Iterator<String> resultIterator;
-
-    private int cursor = CLOSED;  //Flag for computing matching results for CONJUNCTION and PHRASE.
+    private int cursor = CLOSED;
 
     /**
      * Constructs a DictionaryMatcher with a dictionary predicate.
@@ -67,10 +60,11 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
      * DictionaryMatcher. <br>
      *
      * DictionaryOperatorType.PHRASE_INDEX, CONJUNCTION_INDEX: <br>
-     * Loop through the dictionary entries.
-     * For each entry, use an index-based KeywordMatcher to get the matching results.
-     * Maintain a HashMap </Tuple_ID, Tuple> to add all the matching results
-     * into the spanlist of each input tuple.
+     * Search the index once with a disjunctive query built from all the dictionary entries,
+     * which returns every tuple that may match at least one entry. <br>
+     * Each candidate tuple is read once (with its payload) and checked against all the entries
+     * by a Dictionary Matcher, which only looks at the entries sharing a token with the tuple.
+     * The results are produced as the candidate tuples are read. <br>
      *
      * CONJUNCTION_INDEX corresponds to KeywordOperatorType.BASIC, which
      * performs keyword search on the document. The input query is
@@ -88,9 +82,6 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
         this.limit = Integer.MAX_VALUE;
         this.offset = 0;
         this.predicate = predicate;
-        
-        this.tupleIDMap = new HashMap<>();
-        this.tupleResultMap = new HashMap<>();
     }
 
     @Override
@@ -99,38 +90,36 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
             return;
         }
 
-        currentDictionaryEntry = predicate.getDictionary().getNextEntry();
-
         if (predicate.getKeywordMatchingType() == KeywordMatchingType.SUBSTRING_SCANBASED
                 || predicate.getKeywordMatchingType() == KeywordMatchingType.REGEX) {
-
             // For Substring matching and Regex matching, create a scan source operator followed by a dictionary matcher.
             indexSource = new ScanBasedSourceOperator(new ScanSourcePredicate(predicate.getTableName()));
+        } else {
+            // For other keyword matching types (CONJUNCTION and PHRASE),
+            // read the candidate tuples of all the entries with one index search, followed by a dictionary matcher.
+            DataReader dataReader = RelationManager.getInstance().getTableDataReader(
+                    predicate.getTableName(), createLuceneQueryObject());
+            dataReader.setPayloadAdded(true);
+            dataReader.setStreaming(true);
+            indexSource = dataReader;
+        }
 
-            dictionaryMatcher = new DictionaryMatcher(new DictionaryPredicate(predicate.getDictionary(), predicate.getAttributeNames(),
-                    predicate.getAnalyzerString(), predicate.getKeywordMatchingType(), predicate.getSpanListName()));
+        dictionaryMatcher = new DictionaryMatcher(new DictionaryPredicate(predicate.getDictionary(), predicate.getAttributeNames(),
+                predicate.getAnalyzerString(), predicate.getKeywordMatchingType(), predicate.getRegexTimeoutMillis(),
+                predicate.getRegexStepLimit(), predicate.getRegexOverrunAction(), predicate.getSpanListName()));
 
-            dictionaryMatcher.setInputOperator(indexSource);
+        dictionaryMatcher.setInputOperator(indexSource);
+        try {
             dictionaryMatcher.open();
-            outputSchema = dictionaryMatcher.getOutputSchema();
-
-        } else {
-            // For other keyword matching types (CONJUNCTION and PHRASE),
-            // create an index-based keyword source operator.
-            keywordSource = new KeywordMatcherSourceOperator(new KeywordSourcePredicate(
-                    currentDictionaryEntry,
-                    predicate.getAttributeNames(),
-                    predicate.getAnalyzerString(),
-                    predicate.getKeywordMatchingType(),
-                    predicate.getTableName(),
-                    predicate.getSpanListName()));
-
-            keywordSource.open();
-
-            // Other keyword matching types uses a KeywordMatcher, so the
-            // output schema is the same as keywordMatcher's schema.
-            outputSchema = keywordSource.getOutputSchema();
+        } catch (TexeraException e) {
+            // the index source is already open when the dictionary matcher rejects the dictionary
+            indexSource.close();
+            indexSource = null;
+            dictionaryMatcher = null;
+            throw e;
         }
+        outputSchema = dictionaryMatcher.getOutputSchema();
+
         cursor = OPENED;
     }
 
@@ -140,45 +129,16 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
             return null;
         }
         
-        if (predicate.getKeywordMatchingType() == KeywordMatchingType.PHRASE_INDEXBASED
-                || predicate.getKeywordMatchingType() == KeywordMatchingType.CONJUNCTION_INDEXBASED) {
-            // For each dictionary entry, get all results from KeywordMatcher.
-            if(! resultMapPopulated){
-                computeMatchingResults();
-                resultIterator = tupleIDMap.keySet().iterator();
-                
-                resultMapPopulated = true;
-            }
-            while (true) {
-                if (resultIterator.hasNext()) {
-                    cursor++;
-                    String tupleID = resultIterator.next();
-                    Tuple resultTuple = new Tuple.Builder(tupleIDMap.get(tupleID))
-                        .add(predicate.getSpanListName(), AttributeType.LIST, 
-                                new ListField<Span>(tupleResultMap.get(tupleID))).build();
-                    if (cursor > offset) {
-                        return resultTuple;
-                    }
-                    continue;
-                } else {
-                    return null;
-                }
-            }
-        }
-
-        // Substring matching or regex matching (scan based)
-        else {
-            while(true) {
-                Tuple inputTuple;
-                if ((inputTuple = dictionaryMatcher.getNextTuple()) != null) {
-                    cursor++;
-                    if(cursor > offset) {
-                        return inputTuple;
-                    }
-                    continue;
-                } else {
-                    return null;
+        while(true) {
+            Tuple inputTuple;
+            if ((inputTuple = dictionaryMatcher.getNextTuple()) != null) {
+                cursor++;
+                if(cursor > offset) {
+                    return inputTuple;
                 }
+                continue;
+            } else {
+                return null;
             }
         }
     }
@@ -200,45 +160,77 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
         return this.offset;
     }
 
-    /***
-     *  Maintain a HashMap </Tuple_ID, Tuple> to compute all the keyword
-     *  matching results for each tuple.
-     *
+    /**
+     * Creates the query which returns the candidate tuples of all the dictionary entries:
+     *   for a STRING attribute, the tuples whose value is one of the entries,
+     *   for a TEXT attribute, the tuples which contain at least one token of an entry.
+     * 
+     * A tuple matching an entry in CONJUNCTION or PHRASE mode contains all the tokens of the entry,
+     *   so the query only needs one token of each entry, the longest one (which tends to be the rarest).
+     * The tokens are produced by the analyzer of the table, so they are the terms in the index.
+     * An entry without tokens (only stopwords) is rejected by the dictionary matcher.
+     * The terms of each attribute form one TermsQuery, which has no limit on the number of terms.
+     * 
+     * @return Query
+     * @throws DataflowException
      */
+    private Query createLuceneQueryObject() throws DataflowException {
+        Schema inputSchema = RelationManager.getInstance().getTableDataStore(predicate.getTableName()).getSchema();
+        Schema.checkAttributeExists(inputSchema, predicate.getAttributeNames());
+
+        // the dictionary is compiled (or taken from the cache) here, and shared with the dictionary matcher
+        CompiledDictionary compiledDictionary = DictionaryManager.getCompiledDictionary(predicate.getDictionary(),
+                predicate.getKeywordMatchingType(), predicate.getAnalyzerString());
+        String tableAnalyzerString = RelationManager.getInstance().getTableAnalyzerString(predicate.getTableName());
+        List<String> longestTokens = tableAnalyzerString.equals(predicate.getAnalyzerString())
+                ? compiledDictionary.getLongestTokens()
+                : getLongestTokens(compiledDictionary.getDictionaryEntries(), tableAnalyzerString);
+
+        BooleanQuery.Builder booleanQueryBuilder = new BooleanQuery.Builder();
+        for (String attributeName : predicate.getAttributeNames()) {
+            AttributeType attributeType = inputSchema.getAttribute(attributeName).getType();
+
+            // types other than TEXT and STRING: throw Exception for now
+            if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
+                throw new DataflowException(
+                        "DictionaryPredicate: Fields other than STRING and TEXT are not supported yet");
+            }
 
-    @SuppressWarnings("unchecked")
-	private void computeMatchingResults(){
-        Tuple inputTuple;
-        
-        while(true) {
-            while((inputTuple = keywordSource.getNextTuple()) != null){
-                String tupleID = inputTuple.getField(SchemaConstants._ID).getValue().toString();
-                ListField<Span> keywordResultsField = inputTuple.getField(predicate.getSpanListName(), ListField.class);
-                List<Span> keywordResults = keywordResultsField.getValue();
-                
-                if (tupleResultMap.containsKey(tupleID)) {
-                    tupleResultMap.get(tupleID).addAll(keywordResults);
-                } else {
-                    tupleIDMap.put(tupleID, new Tuple.Builder(inputTuple).remove(predicate.getSpanListName()).build());
-                    tupleResultMap.put(tupleID, new ArrayList<>(keywordResults));
+            List<Term> attributeTerms = new ArrayList<>();
+            for (int i = 0; i < compiledDictionary.getDictionaryEntries().size(); i++) {
+                if (attributeType == AttributeType.STRING) {
+                    attributeTerms.add(new Term(attributeName, compiledDictionary.getDictionaryEntries().get(i)));
+                }
+                if (attributeType == AttributeType.TEXT) {
+                    String longestToken = longestTokens.get(i);
+                    if (! longestToken.isEmpty()) {
+                        attributeTerms.add(new Term(attributeName, longestToken));
+                    }
                 }
             }
-
-            if ((currentDictionaryEntry = predicate.getDictionary().getNextEntry()) == null) {
-                 return;
+            if (! attributeTerms.isEmpty()) {
+                booleanQueryBuilder.add(new TermsQuery(attributeTerms), BooleanClause.Occur.SHOULD);
             }
+        }
 
-            keywordSource.close();
-
-            KeywordSourcePredicate keywordSourcePredicate = new KeywordSourcePredicate(currentDictionaryEntry,
-                    predicate.getAttributeNames(),
-                    predicate.getAnalyzerString(), predicate.getKeywordMatchingType(),
-                    predicate.getTableName(),
-                    predicate.getSpanListName());
+        return booleanQueryBuilder.build();
+    }
 
-            keywordSource = new KeywordMatcherSourceOperator(keywordSourcePredicate);
-            keywordSource.open();
+    /*
+     * Returns the longest token of each entry produced by an analyzer, or "" if the entry has no tokens.
+     */
+    private static List<String> getLongestTokens(List<String> dictionaryEntries, String luceneAnalyzerString) {
+        List<String> longestTokens = new ArrayList<>();
+        for (String entry : dictionaryEntries) {
+            String longestToken = "";
+            for (String token : DataflowUtils.tokenizeQuery(luceneAnalyzerString, entry)) {
+                if (token.length() > longestToken.length()) {
+                    longestToken = token;
+                }
+            }
+            longestTokens.add(longestToken);
         }
+        return longestTokens;
     }
 
     /**
@@ -246,21 +238,24 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
      */
     @Override
     public void close() throws DataflowException {
+        if (cursor == CLOSED) {
+            return;
+        }
         try {
-            if (keywordSource != null) {
-                keywordSource.close();
+            // the dictionary matcher doesn't close its input, the index source is closed here, once
+            if (dictionaryMatcher != null){
+                dictionaryMatcher.close();
+                dictionaryMatcher = null;
             }
             if (indexSource != null) {
                 indexSource.close();
-            }
-
-            if (dictionaryMatcher != null){
-                dictionaryMatcher.close();
+                indexSource = null;
             }
         } catch (Exception e) {
             e.printStackTrace();
             throw new DataflowException(e.getMessage(), e);
         }
+        cursor = CLOSED;
     }
 
     public Schema transformToOutputSchema(Schema... inputSchema) {
@@ -10,11 +10,13 @@ import com.fasterxml.jackson.annotation.JsonUnwrapped;
 import com.google.common.collect.ImmutableMap;
 
 import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.dataflow.annotation.AdvancedOption;
 import edu.uci.ics.texera.dataflow.common.OperatorGroupConstants;
 import edu.uci.ics.texera.dataflow.common.PredicateBase;
 import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexOverrunAction;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
 
 public class DictionaryPredicate extends PredicateBase {
@@ -24,6 +26,17 @@ public class DictionaryPredicate extends PredicateBase {
     private final String luceneAnalyzerStr;
     private final KeywordMatchingType keywordMatchingType;
     private final String spanListName;
+    private final Integer timeoutMillis;
+    private final Integer stepLimit;
+    private final RegexOverrunAction overrunAction;
+    
+    /*
+     * This constructor is for internal use. It's not a JSON entry point.
+     */
+    public DictionaryPredicate(Dictionary dictionary, List<String> attributeNames, String luceneAnalyzerStr,
+            KeywordMatchingType keywordMatchingType, String spanListName) {
+        this(dictionary, attributeNames, luceneAnalyzerStr, keywordMatchingType, null, null, null, spanListName);
+    }
 
     /**
      * DictionaryPredicate is used to create a DictionaryMatcher.
@@ -32,6 +45,12 @@ public class DictionaryPredicate extends PredicateBase {
      * @param attributeNames, the names of the attributes to match the dictionary
      * @param luceneAnalyzerStr, the lucene analyzer to tokenize the dictionary entries
      * @param keywordMatchingType, the keyword matching type ({@code KeywordMatchingType}
+     * @param timeoutMillis, optional, for REGEX: the time limit of matching the regexes on a tuple in milliseconds, 
+     *          default 0 (no limit)
+     * @param stepLimit, optional, for REGEX: the limit of the characters read by the regex engine on a tuple 
+     *          ({@code RegexMatchBudget}), default 0 (no limit)
+     * @param overrunAction, optional, for REGEX: what to do with a tuple over the time or step limit 
+     *          ({@code RegexOverrunAction}), default skip
      * @param spanListName, optional, the name of the attribute where the results (a list of spans) will be in, 
      *          default value is the id of the predicate
      */
@@ -53,6 +72,21 @@ public class DictionaryPredicate extends PredicateBase {
                     defaultValue = KeywordMatchingType.KeywordMatchingTypeName.PHRASE)
             KeywordMatchingType keywordMatchingType,
             
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_TIMEOUT_MILLIS, required = false,
+                    defaultValue = "0")
+            Integer timeoutMillis,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_STEP_LIMIT, required = false,
+                    defaultValue = "0")
+            Integer stepLimit,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_OVERRUN_ACTION, required = false,
+                    defaultValue = RegexOverrunAction.RegexOverrunActionName.SKIP)
+            RegexOverrunAction overrunAction,
+            
             @JsonProperty(value = PropertyNameConstants.SPAN_LIST_NAME, required = false)
             String spanListName) {
         
@@ -61,6 +95,13 @@ public class DictionaryPredicate extends PredicateBase {
         this.attributeNames = attributeNames;
         this.keywordMatchingType = keywordMatchingType;
         
+        this.timeoutMillis = timeoutMillis == null ? 0 : timeoutMillis;
+        this.stepLimit = stepLimit == null ? 0 : stepLimit;
+        if (this.timeoutMillis < 0 || this.stepLimit < 0) {
+            throw new TexeraException("the time limit and the step limit of a regex match must not be negative");
+        }
+        this.overrunAction = overrunAction == null ? RegexOverrunAction.SKIP : overrunAction;
+        
         if (spanListName == null || spanListName.trim().isEmpty()) {
             this.spanListName = null;
         } else {
@@ -94,6 +135,21 @@ public class DictionaryPredicate extends PredicateBase {
         return spanListName;
     }
     
+    @JsonProperty(value = PropertyNameConstants.REGEX_TIMEOUT_MILLIS)
+    public Integer getRegexTimeoutMillis() {
+        return timeoutMillis;
+    }
+    
+    @JsonProperty(value = PropertyNameConstants.REGEX_STEP_LIMIT)
+    public Integer getRegexStepLimit() {
+        return stepLimit;
+    }
+    
+    @JsonProperty(value = PropertyNameConstants.REGEX_OVERRUN_ACTION)
+    public RegexOverrunAction getRegexOverrunAction() {
+        return overrunAction;
+    }
+    
     @Override
     public IOperator newOperator() {
         return new DictionaryMatcher(this);
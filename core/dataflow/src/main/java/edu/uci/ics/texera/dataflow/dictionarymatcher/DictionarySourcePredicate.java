@@ -13,11 +13,21 @@ import edu.uci.ics.texera.dataflow.annotation.AdvancedOption;
 import edu.uci.ics.texera.dataflow.common.OperatorGroupConstants;
 import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexOverrunAction;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
 
 public class DictionarySourcePredicate extends DictionaryPredicate {
     
     private final String tableName;
+    
+    /*
+     * This constructor is for internal use. It's not a JSON entry point.
+     */
+    public DictionarySourcePredicate(Dictionary dictionary, List<String> attributeNames, String luceneAnalyzerStr,
+            KeywordMatchingType keywordMatchingType, String tableName, String spanListName) {
+        this(dictionary, attributeNames, luceneAnalyzerStr, keywordMatchingType, null, null, null, 
+                tableName, spanListName);
+    }
 
     /**
      * DictionarySourcePredicate is used to create a DictionarySourceOperator.
@@ -26,6 +36,12 @@ public class DictionarySourcePredicate extends DictionaryPredicate {
      * @param attributeNames, the names of the attributes to match the dictionary
      * @param luceneAnalyzerStr, the lucene analyzer to tokenize the dictionary entries
      * @param keywordMatchingType, the keyword matching type ({@code KeywordMatchingType}
+     * @param timeoutMillis, optional, for REGEX: the time limit of matching the regexes on a tuple in milliseconds, 
+     *          default 0 (no limit)
+     * @param stepLimit, optional, for REGEX: the limit of the characters read by the regex engine on a tuple 
+     *          ({@code RegexMatchBudget}), default 0 (no limit)
+     * @param overrunAction, optional, for REGEX: what to do with a tuple over the time or step limit 
+     *          ({@code RegexOverrunAction}), default skip
      * @param tableName, the name of the source table
      */
     @JsonCreator
@@ -46,13 +62,29 @@ public class DictionarySourcePredicate extends DictionaryPredicate {
                     defaultValue = KeywordMatchingType.KeywordMatchingTypeName.PHRASE)
             KeywordMatchingType keywordMatchingType,
             
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_TIMEOUT_MILLIS, required = false,
+                    defaultValue = "0")
+            Integer timeoutMillis,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_STEP_LIMIT, required = false,
+                    defaultValue = "0")
+            Integer stepLimit,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_OVERRUN_ACTION, required = false,
+                    defaultValue = RegexOverrunAction.RegexOverrunActionName.SKIP)
+            RegexOverrunAction overrunAction,
+            
             @JsonProperty(value = PropertyNameConstants.TABLE_NAME, required = true)
             String tableName,
             
             @JsonProperty(value = PropertyNameConstants.SPAN_LIST_NAME, required = false)
             String spanListName) {
 
-        super(dictionary, attributeNames, luceneAnalyzerStr, keywordMatchingType, spanListName);
+        super(dictionary, attributeNames, luceneAnalyzerStr, keywordMatchingType, timeoutMillis, stepLimit, overrunAction,
+                spanListName);
 
         if (tableName == null || tableName.isEmpty()) {
             throw new TexeraException(PropertyNameConstants.EMPTY_NAME_EXCEPTION);
@@ -0,0 +1,659 @@
+package edu.uci.ics.texera.dataflow.dictionarymatcher;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import dk.brics.automaton.Automaton;
+import dk.brics.automaton.RegExp;
+import dk.brics.automaton.State;
+import dk.brics.automaton.Transition;
+
+/**
+ * MultiRegexAutomaton matches all the regexes of a REGEX dictionary in one scan of a text.
+ *
+ * Every regex which can be expressed in the syntax of dk.brics.automaton is translated and compiled
+ *   into a DFA, which ignores the case of ASCII letters like Pattern.CASE_INSENSITIVE,
+ *   and the states of all the DFAs are numbered into one array-based state space.
+ *
+ * The java regex engine is leftmost-first: at a start offset, it returns the first match found by backtracking,
+ *   which isn't always the longest one ("a*(ab)?" matches "aa" in "aab", and "new|new york" matches "new").
+ *   A DFA can't tell which alternative java regex would take, so only the regexes without a match
+ *   which is a prefix of another match are in the automaton: such a regex has at most one match at a start offset,
+ *   and the automaton finds the same matches as Matcher.find().
+ *
+ * A regex which can't be translated (anchors, look-arounds, back references, lazy quantifiers, etc.),
+ *   which matches the empty string, or which has a match that is a prefix of another match, is not in the automaton,
+ *   the dictionary matcher runs its java Pattern instead (see getFallbackEntries()).
+ *
+ * A Runner reads a text once, from left to right. For each regex, it keeps the DFA states reached
+ *   from the start offsets which may still lead to a match, one per DFA state (the earliest start),
+ *   so the cost of a char is bounded by the number of DFA states, not by the length of the text.
+ *
+ * A MultiRegexAutomaton is immutable and can be shared by threads, a Runner can only be used by one thread.
+ */
+public class MultiRegexAutomaton implements Serializable {
+
+    private static final long serialVersionUID = 2L;
+
+    /**
+     * Receives the regex matches found by Runner.match().
+     */
+    @FunctionalInterface
+    public interface MatchListener {
+        /**
+         * @param entryIndex, the index of the matched regex in the dictionary
+         * @param start, the start offset of the match in the text (inclusive)
+         * @param end, the end offset of the match in the text (exclusive)
+         */
+        void onMatch(int entryIndex, int start, int end);
+    }
+
+    private static final int DEAD = -1;
+
+    // the chars matched by "." in a java regex (without the DOTALL flag)
+    private static final String ANY_CHAR = "[^\n\r\u0085\u2028\u2029]";
+    private static final String WHITESPACE_CHARS = " \t\n\u000B\f\r";
+    // the chars which are special in the syntax of dk.brics.automaton, but not in a java regex
+    private static final String BRICS_RESERVED_CHARS = "\"<>#@&~";
+
+    // a runner starts over with an empty cache if it has cached the initial transitions of more non-ASCII chars than this
+    private static final int MAX_CACHED_INITIAL_STEPS = 10000;
+
+    private final int entryCount;
+    private final int[] fallbackEntries;
+
+    // the initial DFA state of each regex in the automaton
+    private final int[] initialStates;
+    // the transitions of DFA state s are from transitionStart[s] to transitionStart[s + 1] - 1, sorted by their ranges
+    private final int[] transitionStart;
+    private final char[] transitionMin;
+    private final char[] transitionMax;
+    private final int[] transitionDest;
+    // the index of the regex of each DFA state
+    private final int[] stateEntry;
+    // whether each DFA state is an accept state
+    private final boolean[] accept;
+
+    /**
+     * Compiles the regexes of a dictionary.
+     *
+     * @param regexes, the entries of the dictionary
+     */
+    public MultiRegexAutomaton(List<String> regexes) {
+        this.entryCount = regexes.size();
+
+        List<Integer> automatonEntryList = new ArrayList<>();
+        List<Integer> fallbackEntryList = new ArrayList<>();
+        List<List<State>> automatonStates = new ArrayList<>();
+        List<State> automatonInitialStates = new ArrayList<>();
+        int stateCount = 0;
+        int transitionCount = 0;
+        for (int i = 0; i < regexes.size(); i++) {
+            Automaton automaton = toAutomaton(regexes.get(i));
+            if (automaton == null) {
+                fallbackEntryList.add(i);
+                continue;
+            }
+            List<State> states = new ArrayList<>(automaton.getStates());
+            for (State state : states) {
+                transitionCount += state.getTransitions().size();
+            }
+            stateCount += states.size();
+            automatonEntryList.add(i);
+            automatonStates.add(states);
+            automatonInitialStates.add(automaton.getInitialState());
+        }
+        this.fallbackEntries = fallbackEntryList.stream().mapToInt(Integer::intValue).toArray();
+
+        this.initialStates = new int[automatonEntryList.size()];
+        this.transitionStart = new int[stateCount + 1];
+        this.transitionMin = new char[transitionCount];
+        this.transitionMax = new char[transitionCount];
+        this.transitionDest = new int[transitionCount];
+        this.stateEntry = new int[stateCount];
+        this.accept = new boolean[stateCount];
+
+        int stateBase = 0;
+        int nextTransition = 0;
+        for (int k = 0; k < automatonStates.size(); k++) {
+            List<State> states = automatonStates.get(k);
+            Map<State, Integer> stateIds = new IdentityHashMap<>();
+            for (State state : states) {
+                stateIds.put(state, stateBase + stateIds.size());
+            }
+            initialStates[k] = stateIds.get(automatonInitialStates.get(k));
+            for (State state : states) {
+                int stateId = stateIds.get(state);
+                stateEntry[stateId] = automatonEntryList.get(k);
+                accept[stateId] = state.isAccept();
+                transitionStart[stateId] = nextTransition;
+                List<Transition> transitions = new ArrayList<>(state.getTransitions());
+                transitions.sort((t1, t2) -> Character.compare(t1.getMin(), t2.getMin()));
+                for (Transition transition : transitions) {
+                    transitionMin[nextTransition] = transition.getMin();
+                    transitionMax[nextTransition] = transition.getMax();
+                    transitionDest[nextTransition] = stateIds.get(transition.getDest());
+                    nextTransition++;
+                }
+            }
+            stateBase += states.size();
+        }
+        transitionStart[stateCount] = nextTransition;
+    }
+
+    /**
+     * @return the indexes of the regexes which are not in the automaton, and need to be matched by java regex
+     */
+    public int[] getFallbackEntries() {
+        return fallbackEntries.clone();
+    }
+
+    /**
+     * @return the number of regexes in the automaton
+     */
+    public int getAutomatonEntryCount() {
+        return initialStates.length;
+    }
+
+    public Runner newRunner() {
+        return new Runner();
+    }
+
+    /*
+     * Follows the transition of a DFA state on a char, returns DEAD if there's no such transition.
+     */
+    private int dfaStep(int state, char c) {
+        int low = transitionStart[state];
+        int high = transitionStart[state + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (transitionMax[middle] < c) {
+                low = middle + 1;
+            } else if (transitionMin[middle] > c) {
+                high = middle - 1;
+            } else {
+                return transitionDest[middle];
+            }
+        }
+        return DEAD;
+    }
+
+    private static char foldCase(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /*
+     * Compiles a java regex into a DFA on the case-folded text,
+     *   returns null if the regex isn't supported by the automaton.
+     */
+    private static Automaton toAutomaton(String regex) {
+        String bricsRegex = toBricsRegex(regex);
+        if (bricsRegex == null) {
+            return null;
+        }
+        Automaton automaton;
+        try {
+            automaton = new RegExp(bricsRegex, RegExp.NONE).toAutomaton();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        // the text is folded to lower case, so a transition on an upper case letter also needs to accept its lower case
+        for (State state : automaton.getStates()) {
+            List<Transition> foldedTransitions = new ArrayList<>();
+            for (Transition transition : state.getTransitions()) {
+                char min = (char) Math.max(transition.getMin(), 'A');
+                char max = (char) Math.min(transition.getMax(), 'Z');
+                if (min <= max) {
+                    foldedTransitions.add(new Transition(foldCase(min), foldCase(max), transition.getDest()));
+                }
+            }
+            for (Transition transition : foldedTransitions) {
+                state.addTransition(transition);
+            }
+        }
+        automaton.setDeterministic(false);
+        automaton.minimize();
+
+        // empty matches are left to java regex, which reports them in the same way as Matcher.find()
+        if (automaton.getInitialState().isAccept()) {
+            return null;
+        }
+        // with a match which is a prefix of another match, the longest match may not be the one of java regex
+        if (! isPrefixFree(automaton)) {
+            return null;
+        }
+        return automaton;
+    }
+
+    /*
+     * Returns true if no accept state of the DFA can reach an accept state, 
+     *   that is, no match of the regex is a prefix of another match.
+     */
+    private static boolean isPrefixFree(Automaton automaton) {
+        for (State acceptState : automaton.getAcceptStates()) {
+            Set<State> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            Deque<State> toVisit = new ArrayDeque<>();
+            for (Transition transition : acceptState.getTransitions()) {
+                toVisit.add(transition.getDest());
+            }
+            while (! toVisit.isEmpty()) {
+                State state = toVisit.poll();
+                if (! visited.add(state)) {
+                    continue;
+                }
+                if (state.isAccept()) {
+                    return false;
+                }
+                for (Transition transition : state.getTransitions()) {
+                    toVisit.add(transition.getDest());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Translates a java regex to the syntax of dk.brics.automaton,
+     *   returns null if the regex uses a construct which can't be translated.
+     *
+     * @param regex
+     * @return
+     */
+    static String toBricsRegex(String regex) {
+        StringBuilder bricsRegex = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    return null;
+                }
+                String escape = translateEscape(regex.charAt(i + 1), false);
+                if (escape == null) {
+                    return null;
+                }
+                bricsRegex.append(escape);
+                i += 2;
+            } else if (c == '[') {
+                i = translateCharClass(regex, i, bricsRegex);
+                if (i < 0) {
+                    return null;
+                }
+            } else if (c == '.') {
+                bricsRegex.append(ANY_CHAR);
+                i++;
+            } else if (c == '(') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '?') {
+                    // only non-capturing groups are supported
+                    if (i + 2 >= regex.length() || regex.charAt(i + 2) != ':') {
+                        return null;
+                    }
+                    i += 2;
+                }
+                bricsRegex.append('(');
+                i++;
+            } else if (c == '*' || c == '+' || c == '?' || c == '{') {
+                int quantifierEnd = i + 1;
+                if (c == '{') {
+                    quantifierEnd = regex.indexOf('}', i) + 1;
+                    if (quantifierEnd == 0 || ! regex.substring(i + 1, quantifierEnd - 1).matches("\\d+(,\\d*)?")) {
+                        return null;
+                    }
+                }
+                // lazy and possessive quantifiers
+                if (quantifierEnd < regex.length()
+                        && (regex.charAt(quantifierEnd) == '?' || regex.charAt(quantifierEnd) == '+')) {
+                    return null;
+                }
+                bricsRegex.append(regex, i, quantifierEnd);
+                i = quantifierEnd;
+            } else if (c == '^' || c == '$') {
+                return null;
+            } else {
+                if (c == ']' || c == '}' || BRICS_RESERVED_CHARS.indexOf(c) >= 0) {
+                    bricsRegex.append('\\');
+                }
+                bricsRegex.append(c);
+                i++;
+            }
+        }
+        return bricsRegex.toString();
+    }
+
+    /*
+     * Translates the char class starting at classStart, returns the offset after the class, or -1 if it's not supported.
+     */
+    private static int translateCharClass(String regex, int classStart, StringBuilder bricsRegex) {
+        StringBuilder charClass = new StringBuilder("[");
+        int i = classStart + 1;
+        boolean negated = i < regex.length() && regex.charAt(i) == '^';
+        if (negated) {
+            charClass.append('^');
+            i++;
+        }
+        boolean empty = true;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == ']') {
+                // "[]...]" is not supported
+                if (empty) {
+                    return -1;
+                }
+                bricsRegex.append(charClass).append(']');
+                return i + 1;
+            }
+            // unions and intersections of char classes are not supported
+            if (c == '[' || (c == '&' && i + 1 < regex.length() && regex.charAt(i + 1) == '&')) {
+                return -1;
+            }
+            // a negated class with letters doesn't ignore case in the same way as java regex
+            if (negated && ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                return -1;
+            }
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    return -1;
+                }
+                String escape = translateEscape(regex.charAt(i + 1), true);
+                if (escape == null) {
+                    return -1;
+                }
+                charClass.append(escape);
+                i += 2;
+            } else {
+                if (BRICS_RESERVED_CHARS.indexOf(c) >= 0) {
+                    charClass.append('\\');
+                }
+                charClass.append(c);
+                i++;
+            }
+            empty = false;
+        }
+        return -1;
+    }
+
+    /*
+     * Translates "\" followed by a char, returns null if it's not supported.
+     */
+    private static String translateEscape(char c, boolean inCharClass) {
+        switch (c) {
+        case 'd':
+            return inCharClass ? "0-9" : "[0-9]";
+        case 'w':
+            return inCharClass ? "a-zA-Z0-9_" : "[a-zA-Z0-9_]";
+        case 's':
+            return inCharClass ? WHITESPACE_CHARS : "[" + WHITESPACE_CHARS + "]";
+        case 'D':
+            return inCharClass ? null : "[^0-9]";
+        case 'W':
+            return inCharClass ? null : "[^a-zA-Z0-9_]";
+        case 'S':
+            return inCharClass ? null : "[^" + WHITESPACE_CHARS + "]";
+        case 't':
+            return "\\\t";
+        case 'n':
+            return "\\\n";
+        case 'r':
+            return "\\\r";
+        case 'f':
+            return "\\\f";
+        case 'a':
+            return "\\\u0007";
+        case 'e':
+            return "\\\u001B";
+        default:
+            // boundaries, back references, unicode classes, quoting, etc.
+            if (Character.isLetterOrDigit(c)) {
+                return null;
+            }
+            return "\\" + c;
+        }
+    }
+
+    /**
+     * Runner finds the matches of the automaton in texts, with a cache of the DFA states reached from the initial states.
+     * A runner can only be used by one thread at a time.
+     *
+     * A thread of the runner is a DFA state reached from a start offset.
+     *   When a thread reaches an accept state, its match is a candidate, and the thread ends
+     *   (the regexes in the automaton have no longer match at the same start offset).
+     *   A candidate is reported once no thread of its regex with an earlier start offset is left,
+     *   then the threads and candidates of the regex overlapping it are dropped, like Matcher.find() going on after a match.
+     * Two threads of a regex in the same DFA state have the same future, only the earlier one is kept,
+     *   unless a candidate ends between their start offsets (reporting it would drop the earlier thread only).
+     */
+    public class Runner {
+
+        // the threads, in the order of their start offsets: the DFA state and the start offset of each one
+        private int[] threadStates = new int[16];
+        private int[] threadStarts = new int[16];
+        private int threadCount;
+        private int[] nextThreadStates = new int[16];
+        private int[] nextThreadStarts = new int[16];
+
+        // the step at which each DFA state was last reached, and the start offset of the last thread kept in it
+        private final int[] reachedStep = new int[stateEntry.length];
+        private final int[] reachedStart = new int[stateEntry.length];
+        private int step;
+
+        // for each regex: the start offset allowed for its next match, and its candidates, ordered by start offset
+        private final int[] nextStart = new int[entryCount];
+        private final List<List<int[]>> candidates = new ArrayList<>(Collections.nCopies(entryCount, null));
+        private final List<Integer> matchedEntries = new ArrayList<>();
+        private final List<Integer> pendingEntries = new ArrayList<>();
+        private final boolean[] pending = new boolean[entryCount];
+        // the start offsets of the threads of each regex with candidates, filled when the candidates are checked
+        private final int[][] pendingThreadStarts = new int[entryCount][];
+        private final int[] pendingThreadCount = new int[entryCount];
+
+        // the DFA states reached from the initial states on each ASCII char, and on other chars
+        private final int[][] asciiInitialSteps = new int[128][];
+        private final Map<Character, int[]> otherInitialSteps = new HashMap<>();
+
+        private Runner() {
+        }
+
+        /**
+         * Finds the matches of all the regexes in the automaton in the text.
+         * The matches of each regex are reported from left to right.
+         *
+         * @param text
+         * @param listener
+         */
+        public void match(CharSequence text, MatchListener listener) {
+            if (initialStates.length == 0 || text == null) {
+                return;
+            }
+            if (otherInitialSteps.size() > MAX_CACHED_INITIAL_STEPS) {
+                otherInitialSteps.clear();
+            }
+            try {
+                for (int i = 0; i < text.length(); i++) {
+                    char c = foldCase(text.charAt(i));
+                    nextStep();
+                    int nextCount = 0;
+                    for (int t = 0; t < threadCount; t++) {
+                        nextCount = advance(dfaStep(threadStates[t], c), threadStarts[t], i, nextCount);
+                    }
+                    // the threads starting at this char have the latest start offset
+                    for (int state : getInitialSteps(c)) {
+                        nextCount = advance(state, i, i, nextCount);
+                    }
+                    swapThreads(nextCount);
+                    if (! pendingEntries.isEmpty()) {
+                        reportCandidates(listener);
+                    }
+                }
+                threadCount = 0;
+                reportCandidates(listener);
+            } finally {
+                threadCount = 0;
+                for (int entry : matchedEntries) {
+                    nextStart[entry] = 0;
+                }
+                matchedEntries.clear();
+                for (int entry : pendingEntries) {
+                    candidates.get(entry).clear();
+                    pending[entry] = false;
+                }
+                pendingEntries.clear();
+            }
+        }
+
+        /*
+         * Adds the thread in the DFA state to the next threads, returns the new number of next threads.
+         */
+        private int advance(int state, int start, int offset, int nextCount) {
+            if (state == DEAD) {
+                return nextCount;
+            }
+            int entry = stateEntry[state];
+            if (start < nextStart[entry]) {
+                return nextCount;
+            }
+            if (accept[state]) {
+                addCandidate(entry, start, offset + 1);
+                return nextCount;
+            }
+            if (reachedStep[state] == step && ! hasCandidateEnd(entry, reachedStart[state], start)) {
+                return nextCount;
+            }
+            reachedStep[state] = step;
+            reachedStart[state] = start;
+            if (nextCount == nextThreadStates.length) {
+                nextThreadStates = Arrays.copyOf(nextThreadStates, nextCount * 2);
+                nextThreadStarts = Arrays.copyOf(nextThreadStarts, nextCount * 2);
+            }
+            nextThreadStates[nextCount] = state;
+            nextThreadStarts[nextCount] = start;
+            return nextCount + 1;
+        }
+
+        /*
+         * Returns true if a candidate of the regex ends after the first start offset, and at or before the second one.
+         */
+        private boolean hasCandidateEnd(int entry, int firstStart, int secondStart) {
+            if (! pending[entry]) {
+                return false;
+            }
+            for (int[] candidate : candidates.get(entry)) {
+                if (candidate[1] > firstStart && candidate[1] <= secondStart) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void addCandidate(int entry, int start, int end) {
+            if (candidates.get(entry) == null) {
+                candidates.set(entry, new ArrayList<>());
+            }
+            List<int[]> entryCandidates = candidates.get(entry);
+            int position = entryCandidates.size();
+            while (position > 0 && entryCandidates.get(position - 1)[0] > start) {
+                position--;
+            }
+            entryCandidates.add(position, new int[] {start, end});
+            if (! pending[entry]) {
+                pending[entry] = true;
+                pendingEntries.add(entry);
+            }
+        }
+
+        /*
+         * Reports the candidates which can't be overlapped by a match with an earlier start offset any more.
+         */
+        private void reportCandidates(MatchListener listener) {
+            for (int entry : pendingEntries) {
+                pendingThreadCount[entry] = 0;
+            }
+            for (int t = 0; t < threadCount; t++) {
+                int entry = stateEntry[threadStates[t]];
+                if (pending[entry]) {
+                    int[] starts = pendingThreadStarts[entry];
+                    if (starts == null || starts.length == pendingThreadCount[entry]) {
+                        starts = starts == null ? new int[16] : Arrays.copyOf(starts, starts.length * 2);
+                        pendingThreadStarts[entry] = starts;
+                    }
+                    starts[pendingThreadCount[entry]++] = threadStarts[t];
+                }
+            }
+
+            int pendingCount = 0;
+            for (int entry : pendingEntries) {
+                List<int[]> entryCandidates = candidates.get(entry);
+                int thread = 0;
+                while (! entryCandidates.isEmpty()) {
+                    int[] candidate = entryCandidates.get(0);
+                    while (thread < pendingThreadCount[entry] && pendingThreadStarts[entry][thread] < nextStart[entry]) {
+                        thread++;
+                    }
+                    // a thread with an earlier start offset may still find a match
+                    if (thread < pendingThreadCount[entry] && pendingThreadStarts[entry][thread] < candidate[0]) {
+                        break;
+                    }
+                    listener.onMatch(entry, candidate[0], candidate[1]);
+                    if (nextStart[entry] == 0) {
+                        matchedEntries.add(entry);
+                    }
+                    nextStart[entry] = candidate[1];
+                    while (! entryCandidates.isEmpty() && entryCandidates.get(0)[0] < candidate[1]) {
+                        entryCandidates.remove(0);
+                    }
+                }
+                if (entryCandidates.isEmpty()) {
+                    pending[entry] = false;
+                } else {
+                    pendingEntries.set(pendingCount++, entry);
+                }
+            }
+            pendingEntries.subList(pendingCount, pendingEntries.size()).clear();
+        }
+
+        private int[] getInitialSteps(char c) {
+            if (c < 128) {
+                if (asciiInitialSteps[c] == null) {
+                    asciiInitialSteps[c] = computeInitialSteps(c);
+                }
+                return asciiInitialSteps[c];
+            }
+            return otherInitialSteps.computeIfAbsent(c, MultiRegexAutomaton.this::computeInitialSteps);
+        }
+
+        private void nextStep() {
+            if (step == Integer.MAX_VALUE) {
+                Arrays.fill(reachedStep, 0);
+                step = 0;
+            }
+            step++;
+        }
+
+        private void swapThreads(int nextCount) {
+            int[] states = threadStates;
+            int[] starts = threadStarts;
+            threadStates = nextThreadStates;
+            threadStarts = nextThreadStarts;
+            nextThreadStates = states;
+            nextThreadStarts = starts;
+            threadCount = nextCount;
+        }
+    }
+
+    /*
+     * Returns the DFA states reached from the initial states of all the regexes on a char.
+     */
+    private int[] computeInitialSteps(char c) {
+        return Arrays.stream(initialStates).map(state -> dfaStep(state, c)).filter(state -> state != DEAD).toArray();
+    }
+
+}
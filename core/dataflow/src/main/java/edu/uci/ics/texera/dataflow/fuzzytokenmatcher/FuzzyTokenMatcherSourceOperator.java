@@ -1,5 +1,9 @@
 package edu.uci.ics.texera.dataflow.fuzzytokenmatcher;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.schema.Schema;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
@@ -13,12 +17,15 @@ import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.dataflow.common.IProjectionPushdown;
 import edu.uci.ics.texera.storage.DataReader;
 import edu.uci.ics.texera.storage.RelationManager;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
 
-public class FuzzyTokenMatcherSourceOperator extends AbstractSingleInputOperator implements ISourceOperator {
+public class FuzzyTokenMatcherSourceOperator extends AbstractSingleInputOperator 
+        implements ISourceOperator, IProjectionPushdown {
     
     private FuzzyTokenSourcePredicate predicate;
 
@@ -52,6 +59,11 @@ public class FuzzyTokenMatcherSourceOperator extends AbstractSingleInputOperator
         return this.fuzzyTokenMatcher.getNextTuple();
     }
 
+    @Override
+    protected TupleBatch computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return this.fuzzyTokenMatcher.getNextBatch(maxSize);
+    }
+
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         return this.fuzzyTokenMatcher.processOneInputTuple(inputTuple);
@@ -61,6 +73,16 @@ public class FuzzyTokenMatcherSourceOperator extends AbstractSingleInputOperator
     protected void cleanUp() throws TexeraException {        
     }
 
+    /**
+     * Only the required attributes and the attributes to match on are read from the table.
+     */
+    @Override
+    public void setRequiredAttributes(Collection<String> requiredAttributes) {
+        List<String> attributesToRead = new ArrayList<>(requiredAttributes);
+        attributesToRead.addAll(this.predicate.getAttributeNames());
+        this.dataReader.setRequiredAttributes(attributesToRead);
+    }
+
     public Schema transformToOutputSchema(Schema... inputSchema) {
         if (inputSchema == null || inputSchema.length == 0) {
             if (outputSchema == null) {
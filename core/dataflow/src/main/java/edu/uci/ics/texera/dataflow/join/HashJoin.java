@@ -0,0 +1,490 @@
+package edu.uci.ics.texera.dataflow.join;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.common.ISpillable;
+import edu.uci.ics.texera.dataflow.common.MemoryBudget;
+import edu.uci.ics.texera.dataflow.common.TupleCodec;
+
+/**
+ * HashJoin joins the tuples of two operators on the values of an attribute of each (see HashJoinPredicate):
+ *   an equi-join with a hash table, or a band join with a sorted array, of the tuples of the build side.
+ *
+ * The build side is the input with fewer tuples: HashJoin reads the inner and outer operators alternately
+ *   until one of them runs out of tuples, and builds the table of that one.
+ *   The tuples read from the other one are probed first, followed by the rest of its tuples.
+ *
+ * If the memory of the tuples read can't be reserved from the memory budget (see MemoryBudget)
+ *   before either input runs out,
+ *   an equi-join falls back to a grace hash join: both inputs are hash-partitioned on their join keys
+ *   into temporary files (see TupleSpillFile), and the partitions are joined one at a time,
+ *   each with the smaller of its inner and outer partitions as the build side.
+ *   A band join can't be hash-partitioned, and it reads on until an input runs out.
+ *
+ * For a left outer join, the outer tuples which don't join with any inner tuple are output
+ *   with empty inner attributes: right away if the inner tuples are the build side,
+ *   or after all the inner tuples have been probed if the outer tuples are the build side.
+ *
+ */
+public class HashJoin implements IOperator, ISpillable {
+
+    // the number of partitions each input is split into when they don't fit in the memory budget
+    public static final int SPILL_PARTITION_COUNT = Join.SPILL_PARTITION_COUNT;
+
+    public static final long DEFAULT_MEMORY_BUDGET = MemoryBudget.DEFAULT_LIMIT;
+
+    /*
+     * A stream of the tuples probed, which returns null after the last one.
+     */
+    @FunctionalInterface
+    private interface TupleStream {
+        Tuple next() throws TexeraException;
+    }
+
+    private final HashJoinPredicate predicate;
+
+    private IOperator innerOperator;
+    private IOperator outerOperator;
+    private Schema innerSchema;
+    private Schema outerSchema;
+    private Schema outputSchema;
+
+    private MemoryBudget memoryBudget = new MemoryBudget();
+    // the memory reserved for the tuples read before choosing the build side
+    private long reservedBytes = 0;
+
+    // the tuples of the build side, and the outer ones that have joined for a left outer join
+    private boolean innerBuildSide = true;
+    private List<Tuple> buildTuples = null;
+    private boolean[] buildTupleMatched;
+    // equi-join: the positions of the build tuples by their join keys
+    private Map<Object, List<Integer>> buildTable;
+    // band join: the positions of the build tuples sorted by their join keys
+    private int[] sortedBuildPositions;
+    private double[] sortedBuildKeys;
+
+    private TupleStream probeStream;
+    private Tuple probeTuple;
+    private List<Integer> matchingBuildPositions = Collections.emptyList();
+    private int matchingCursor = 0;
+    // the position of the next build tuple to check for an unmatched outer tuple, -1 if not checking
+    private int unmatchedBuildCursor = -1;
+
+    // the partitions of the inputs if they don't fit in memory, null otherwise
+    private List<TupleSpillFile> innerPartitions = null;
+    private List<TupleSpillFile> outerPartitions = null;
+    private int partitionCursor = -1;
+
+    private int cursor = CLOSED;
+
+    public HashJoin(HashJoinPredicate predicate) {
+        this.predicate = predicate;
+    }
+
+    @Override
+    public void open() throws TexeraException {
+        if (cursor != CLOSED) {
+            return;
+        }
+        if (innerOperator == null) {
+            throw new DataflowException("Inner Input Operator is not set.");
+        }
+        if (outerOperator == null) {
+            throw new DataflowException("Outer Input Operator is not set.");
+        }
+
+        innerOperator.open();
+        innerSchema = innerOperator.getOutputSchema();
+        outerOperator.open();
+        outerSchema = outerOperator.getOutputSchema();
+        outputSchema = predicate.generateOutputSchema(innerSchema, outerSchema);
+
+        cursor = OPENED;
+    }
+
+    @Override
+    public Tuple getNextTuple() throws TexeraException {
+        if (cursor == CLOSED) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        if (buildTuples == null) {
+            readInputs();
+        }
+
+        while (true) {
+            // output the build tuples joining with the current probe tuple
+            if (matchingCursor < matchingBuildPositions.size()) {
+                Tuple buildTuple = buildTuples.get(matchingBuildPositions.get(matchingCursor++));
+                return innerBuildSide ? predicate.mergeTuples(buildTuple, probeTuple, outputSchema)
+                        : predicate.mergeTuples(probeTuple, buildTuple, outputSchema);
+            }
+
+            // output the outer build tuples that haven't joined
+            if (unmatchedBuildCursor >= 0) {
+                while (unmatchedBuildCursor < buildTuples.size()) {
+                    int position = unmatchedBuildCursor++;
+                    if (! buildTupleMatched[position]) {
+                        return predicate.mergeTuples(null, buildTuples.get(position), outputSchema);
+                    }
+                }
+                unmatchedBuildCursor = -1;
+                if (! loadNextPartition()) {
+                    return null;
+                }
+                continue;
+            }
+
+            probeTuple = probeStream.next();
+            if (probeTuple == null) {
+                if (isLeftOuterJoin() && ! innerBuildSide) {
+                    unmatchedBuildCursor = 0;
+                } else if (! loadNextPartition()) {
+                    return null;
+                }
+                continue;
+            }
+
+            matchingBuildPositions = findMatchingBuildPositions(probeTuple);
+            matchingCursor = 0;
+            if (isLeftOuterJoin()) {
+                if (innerBuildSide && matchingBuildPositions.isEmpty()) {
+                    return predicate.mergeTuples(null, probeTuple, outputSchema);
+                }
+                if (! innerBuildSide) {
+                    matchingBuildPositions.forEach(position -> buildTupleMatched[position] = true);
+                }
+            }
+        }
+    }
+
+    /*
+     * Reads the inputs alternately until one of them runs out of tuples, and builds the table of that one,
+     *   or partitions both inputs into files if the memory of the tuples read can't be reserved.
+     */
+    private void readInputs() throws TexeraException {
+        List<Tuple> innerTuples = new ArrayList<>();
+        List<Tuple> outerTuples = new ArrayList<>();
+        boolean innerFinished = false;
+        boolean outerFinished = false;
+        boolean overBudget = false;
+        while (! innerFinished && ! outerFinished && (! overBudget || predicate.isBandJoin())) {
+            Tuple innerTuple = innerOperator.getNextTuple();
+            if (innerTuple == null) {
+                innerFinished = true;
+            } else {
+                innerTuples.add(innerTuple);
+                overBudget = ! reserve(innerTuple) || overBudget;
+            }
+            Tuple outerTuple = outerOperator.getNextTuple();
+            if (outerTuple == null) {
+                outerFinished = true;
+            } else {
+                outerTuples.add(outerTuple);
+                overBudget = ! reserve(outerTuple) || overBudget;
+            }
+        }
+
+        if (! innerFinished && ! outerFinished) {
+            partitionInputs(innerTuples, outerTuples);
+            memoryBudget.release(reservedBytes);
+            reservedBytes = 0;
+            loadNextPartition();
+            return;
+        }
+
+        innerBuildSide = innerFinished && (! outerFinished || innerTuples.size() <= outerTuples.size());
+        if (innerBuildSide) {
+            buildTable(innerTuples);
+            probeStream = concat(outerTuples, outerFinished ? null : outerOperator);
+        } else {
+            buildTable(outerTuples);
+            probeStream = concat(innerTuples, innerFinished ? null : innerOperator);
+        }
+    }
+
+    /*
+     * Reserves the memory of a tuple read, returns false if the budget has run out.
+     */
+    private boolean reserve(Tuple tuple) {
+        long tupleSize = TupleCodec.estimateSize(tuple);
+        if (! memoryBudget.tryReserve(tupleSize)) {
+            return false;
+        }
+        reservedBytes += tupleSize;
+        return true;
+    }
+
+    /*
+     * Returns a stream of the tuples read, followed by the rest of the tuples of the operator (if not null).
+     */
+    private static TupleStream concat(List<Tuple> tuplesRead, IOperator operator) {
+        Iterator<Tuple> iterator = tuplesRead.iterator();
+        return () -> {
+            if (iterator.hasNext()) {
+                return iterator.next();
+            }
+            return operator == null ? null : operator.getNextTuple();
+        };
+    }
+
+    /*
+     * Writes the tuples read and the rest of the tuples of both inputs to the partition files.
+     */
+    private void partitionInputs(List<Tuple> innerTuples, List<Tuple> outerTuples) throws TexeraException {
+        innerPartitions = new ArrayList<>();
+        outerPartitions = new ArrayList<>();
+        for (int i = 0; i < SPILL_PARTITION_COUNT; i++) {
+            innerPartitions.add(new TupleSpillFile(innerSchema));
+            outerPartitions.add(new TupleSpillFile(outerSchema));
+        }
+        String innerAttributeName = predicate.getInnerAttributeName();
+        String outerAttributeName = predicate.getOuterAttributeName();
+        TupleStream innerStream = concat(innerTuples, innerOperator);
+        Tuple tuple;
+        while ((tuple = innerStream.next()) != null) {
+            Object key = HashJoinPredicate.getEquiJoinKey(tuple, innerAttributeName);
+            innerPartitions.get(getPartition(key)).write(tuple);
+        }
+        TupleStream outerStream = concat(outerTuples, outerOperator);
+        while ((tuple = outerStream.next()) != null) {
+            Object key = HashJoinPredicate.getEquiJoinKey(tuple, outerAttributeName);
+            outerPartitions.get(getPartition(key)).write(tuple);
+        }
+        partitionCursor = -1;
+    }
+
+    /*
+     * Returns the spill partition of a key, a tuple without a key (which doesn't join) goes to the first one.
+     */
+    private static int getPartition(Object key) {
+        return key == null ? 0 : Join.getPartition(key);
+    }
+
+    /*
+     * Builds the table of the next partition with its side with fewer tuples, and probes the other side.
+     *
+     * Returns false if there are no more partitions.
+     */
+    private boolean loadNextPartition() throws TexeraException {
+        // the table of the previous partition is dropped
+        memoryBudget.release(reservedBytes);
+        reservedBytes = 0;
+        if (innerPartitions == null || partitionCursor + 1 >= SPILL_PARTITION_COUNT) {
+            buildTable(Collections.emptyList());
+            probeStream = () -> null;
+            return false;
+        }
+        if (partitionCursor >= 0) {
+            innerPartitions.get(partitionCursor).delete();
+            outerPartitions.get(partitionCursor).delete();
+        }
+        partitionCursor++;
+
+        TupleSpillFile innerPartition = innerPartitions.get(partitionCursor);
+        TupleSpillFile outerPartition = outerPartitions.get(partitionCursor);
+        innerBuildSide = innerPartition.getTupleCount() <= outerPartition.getTupleCount();
+        TupleSpillFile buildPartition = innerBuildSide ? innerPartition : outerPartition;
+        List<Tuple> partitionTuples = new ArrayList<>(buildPartition.getTupleCount());
+        Tuple tuple;
+        while ((tuple = buildPartition.read()) != null) {
+            // the partition can't be spilled again, so its memory is reserved even if the budget has run out
+            long tupleSize = TupleCodec.estimateSize(tuple);
+            memoryBudget.reserve(tupleSize);
+            reservedBytes += tupleSize;
+            partitionTuples.add(tuple);
+        }
+        buildTable(partitionTuples);
+        probeStream = innerBuildSide ? outerPartition::read : innerPartition::read;
+        return true;
+    }
+
+    /*
+     * Builds the hash table, or the sorted array for a band join, of the tuples of the build side.
+     */
+    private void buildTable(List<Tuple> tuples) {
+        buildTuples = tuples;
+        buildTupleMatched = new boolean[tuples.size()];
+        matchingBuildPositions = Collections.emptyList();
+        matchingCursor = 0;
+        String attributeName = getAttributeName(innerBuildSide);
+
+        if (! predicate.isBandJoin()) {
+            buildTable = new HashMap<>();
+            for (int position = 0; position < tuples.size(); position++) {
+                Object key = HashJoinPredicate.getEquiJoinKey(tuples.get(position), attributeName);
+                if (key != null) {
+                    buildTable.computeIfAbsent(key, k -> new ArrayList<>()).add(position);
+                }
+            }
+            return;
+        }
+
+        double[] keys = tuples.stream()
+                .mapToDouble(tuple -> HashJoinPredicate.getBandJoinKey(tuple, attributeName)).toArray();
+        // NaN doesn't join with any value
+        sortedBuildPositions = IntStream.range(0, tuples.size()).filter(position -> ! Double.isNaN(keys[position]))
+                .boxed().sorted(Comparator.comparingDouble(position -> keys[position]))
+                .mapToInt(Integer::intValue).toArray();
+        sortedBuildKeys = new double[sortedBuildPositions.length];
+        for (int i = 0; i < sortedBuildPositions.length; i++) {
+            sortedBuildKeys[i] = keys[sortedBuildPositions[i]];
+        }
+    }
+
+    /*
+     * Returns the positions of the build tuples which join with the probe tuple.
+     */
+    private List<Integer> findMatchingBuildPositions(Tuple tuple) {
+        String attributeName = getAttributeName(! innerBuildSide);
+        if (! predicate.isBandJoin()) {
+            Object key = HashJoinPredicate.getEquiJoinKey(tuple, attributeName);
+            return key == null ? Collections.emptyList() : buildTable.getOrDefault(key, Collections.emptyList());
+        }
+
+        double key = HashJoinPredicate.getBandJoinKey(tuple, attributeName);
+        double bandWidth = predicate.getBandWidth();
+        List<Integer> matchingPositions = new ArrayList<>();
+        if (Double.isNaN(key)) {
+            return matchingPositions;
+        }
+        // binary search for the first build key in the band
+        int low = 0;
+        int high = sortedBuildKeys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedBuildKeys[middle] < key - bandWidth) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int i = low; i < sortedBuildKeys.length && sortedBuildKeys[i] <= key + bandWidth; i++) {
+            if (Math.abs(sortedBuildKeys[i] - key) <= bandWidth) {
+                matchingPositions.add(sortedBuildPositions[i]);
+            }
+        }
+        return matchingPositions;
+    }
+
+    private String getAttributeName(boolean inner) {
+        return inner ? predicate.getInnerAttributeName() : predicate.getOuterAttributeName();
+    }
+
+    private boolean isLeftOuterJoin() {
+        return predicate.getJoinType() == HashJoinType.LEFT_OUTER;
+    }
+
+    @Override
+    public void close() throws TexeraException {
+        if (cursor == CLOSED) {
+            return;
+        }
+        try {
+            innerOperator.close();
+            outerOperator.close();
+        } catch (Exception e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+
+        memoryBudget.release(reservedBytes);
+        reservedBytes = 0;
+        buildTuples = null;
+        buildTupleMatched = null;
+        buildTable = null;
+        sortedBuildPositions = null;
+        sortedBuildKeys = null;
+        probeStream = null;
+        probeTuple = null;
+        matchingBuildPositions = Collections.emptyList();
+        matchingCursor = 0;
+        unmatchedBuildCursor = -1;
+        deletePartitions(innerPartitions);
+        deletePartitions(outerPartitions);
+        innerPartitions = null;
+        outerPartitions = null;
+        partitionCursor = -1;
+        cursor = CLOSED;
+    }
+
+    private static void deletePartitions(List<TupleSpillFile> partitions) throws TexeraException {
+        if (partitions == null) {
+            return;
+        }
+        for (TupleSpillFile partition : partitions) {
+            partition.delete();
+        }
+    }
+
+    public void setInnerInputOperator(IOperator innerInputOperator) {
+        this.innerOperator = innerInputOperator;
+    }
+
+    public IOperator getInnerInputOperator() {
+        return innerOperator;
+    }
+
+    public void setOuterInputOperator(IOperator outerInputOperator) {
+        this.outerOperator = outerInputOperator;
+    }
+
+    public IOperator getOuterInputOperator() {
+        return outerOperator;
+    }
+
+    @Override
+    public Schema getOutputSchema() {
+        return outputSchema;
+    }
+
+    @Override
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Sets a memory budget of its own (estimated in bytes) the tuples read before choosing the build side can take,
+     *   before the inputs of an equi-join are partitioned into temporary files.
+     *
+     * @param memoryLimit
+     */
+    public void setMemoryBudget(long memoryLimit) {
+        setMemoryBudget(new MemoryBudget(memoryLimit));
+    }
+
+    public MemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @return true if the inputs have been partitioned into temporary files
+     */
+    public boolean isSpilled() {
+        return innerPartitions != null;
+    }
+
+    public HashJoinPredicate getPredicate() {
+        return this.predicate;
+    }
+
+    @Override
+    public Schema transformToOutputSchema(Schema... inputSchema) {
+        if (inputSchema.length != 2)
+            throw new TexeraException(String.format(ErrorMessages.NUMBER_OF_ARGUMENTS_DOES_NOT_MATCH, 2, inputSchema.length));
+
+        return predicate.generateOutputSchema(inputSchema[0], inputSchema[1]);
+    }
+
+}
@@ -0,0 +1,330 @@
+package edu.uci.ics.texera.dataflow.join;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableMap;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.DateField;
+import edu.uci.ics.texera.api.field.DateTimeField;
+import edu.uci.ics.texera.api.field.DoubleField;
+import edu.uci.ics.texera.api.field.IDField;
+import edu.uci.ics.texera.api.field.IField;
+import edu.uci.ics.texera.api.field.IntegerField;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.annotation.AdvancedOption;
+import edu.uci.ics.texera.dataflow.common.OperatorGroupConstants;
+import edu.uci.ics.texera.dataflow.common.PredicateBase;
+import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
+
+/**
+ * HashJoinPredicate is the predicate of the HashJoin operator, which joins two tables
+ *   on the values of an attribute of each table, for example extraction results with a lookup table.
+ *
+ * Without a band width, it is an equi-join: an inner tuple and an outer tuple join
+ *   if their values of the join attributes are equal.
+ *   The join attributes can be STRING or TEXT (compared as strings), INTEGER or DOUBLE (compared as numbers),
+ *   DATE, or DATETIME.
+ *
+ * With a band width, it is a band join: an inner tuple and an outer tuple join
+ *   if their values differ by at most the band width.
+ *   The join attributes can be INTEGER or DOUBLE, or DATE, whose band width is in days.
+ *
+ * The output schema has a new _id attribute, the attributes of the inner tuples prefixed by "inner_",
+ *   and the attributes of the outer tuples prefixed by "outer_" (except _id and payload).
+ *
+ */
+public class HashJoinPredicate extends PredicateBase implements IJoinPredicate {
+
+    public static final String INNER_PREFIX = "inner_";
+    public static final String OUTER_PREFIX = "outer_";
+
+    private static final Set<AttributeType> EQUI_JOIN_TYPES = EnumSet.of(AttributeType.STRING, AttributeType.TEXT,
+            AttributeType.INTEGER, AttributeType.DOUBLE, AttributeType.DATE, AttributeType.DATETIME);
+    private static final Set<AttributeType> BAND_JOIN_TYPES = EnumSet.of(
+            AttributeType.INTEGER, AttributeType.DOUBLE, AttributeType.DATE);
+
+    private final String innerJoinAttrName;
+    private final String outerJoinAttrName;
+    private final HashJoinType joinType;
+    private final Double bandWidth;
+
+    /**
+     * Constructs an inner equi-join predicate on an attribute with the same name in both tables.
+     *
+     * @param joinAttributeName
+     */
+    public HashJoinPredicate(String joinAttributeName) {
+        this(joinAttributeName, joinAttributeName, HashJoinType.INNER, null);
+    }
+
+    /**
+     * @param innerJoinAttrName, the join attribute of the inner tuples
+     * @param outerJoinAttrName, the join attribute of the outer tuples
+     * @param joinType, optional, inner or left outer, default inner
+     * @param bandWidth, optional, the largest difference of the values of a band join,
+     *          in days for DATE attributes, null for an equi-join
+     */
+    @JsonCreator
+    public HashJoinPredicate(
+            @JsonProperty(value = PropertyNameConstants.INNER_ATTRIBUTE_NAME, required = true)
+            String innerJoinAttrName,
+
+            @JsonProperty(value = PropertyNameConstants.OUTER_ATTRIBUTE_NAME, required = true)
+            String outerJoinAttrName,
+
+            @JsonProperty(value = PropertyNameConstants.JOIN_TYPE, required = false,
+                    defaultValue = HashJoinType.HashJoinTypeName.INNER)
+            HashJoinType joinType,
+
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.JOIN_BAND_WIDTH, required = false)
+            Double bandWidth) {
+        if (innerJoinAttrName == null || innerJoinAttrName.trim().isEmpty()
+                || outerJoinAttrName == null || outerJoinAttrName.trim().isEmpty()) {
+            throw new TexeraException("join attribute names should not be empty");
+        }
+        if (bandWidth != null && (bandWidth < 0 || bandWidth.isNaN())) {
+            throw new TexeraException("band width should be greater than or equal to 0");
+        }
+        this.innerJoinAttrName = innerJoinAttrName;
+        this.outerJoinAttrName = outerJoinAttrName;
+        this.joinType = joinType == null ? HashJoinType.INNER : joinType;
+        this.bandWidth = bandWidth;
+    }
+
+    @JsonProperty(value = PropertyNameConstants.INNER_ATTRIBUTE_NAME)
+    @Override
+    public String getInnerAttributeName() {
+        return this.innerJoinAttrName;
+    }
+
+    @JsonProperty(value = PropertyNameConstants.OUTER_ATTRIBUTE_NAME)
+    @Override
+    public String getOuterAttributeName() {
+        return this.outerJoinAttrName;
+    }
+
+    @JsonProperty(value = PropertyNameConstants.JOIN_TYPE)
+    public HashJoinType getJoinType() {
+        return this.joinType;
+    }
+
+    @JsonProperty(value = PropertyNameConstants.JOIN_BAND_WIDTH)
+    public Double getBandWidth() {
+        return this.bandWidth;
+    }
+
+    @JsonIgnore
+    public boolean isBandJoin() {
+        return this.bandWidth != null;
+    }
+
+    @Override
+    public Schema generateOutputSchema(Schema innerOperatorSchema, Schema outerOperatorSchema) throws DataflowException {
+        checkJoinAttribute(innerOperatorSchema, innerJoinAttrName);
+        checkJoinAttribute(outerOperatorSchema, outerJoinAttrName);
+        AttributeType innerType = innerOperatorSchema.getAttribute(innerJoinAttrName).getType();
+        AttributeType outerType = outerOperatorSchema.getAttribute(outerJoinAttrName).getType();
+        boolean bothStrings = isStringType(innerType) && isStringType(outerType);
+        boolean bothNumbers = isNumericType(innerType) && isNumericType(outerType);
+        if (innerType != outerType && ! bothStrings && ! bothNumbers) {
+            throw new DataflowException(String.format("join attribute %s of type %s can't be joined with %s of type %s",
+                    innerJoinAttrName, innerType, outerJoinAttrName, outerType));
+        }
+
+        List<Attribute> outputAttributeList = new ArrayList<>();
+        // add _ID field first
+        outputAttributeList.add(SchemaConstants._ID_ATTRIBUTE);
+        for (Attribute attr : innerOperatorSchema.getAttributes()) {
+            if (! isJoinedAttribute(attr.getName())) {
+                continue;
+            }
+            outputAttributeList.add(new Attribute(INNER_PREFIX + attr.getName(), attr.getType()));
+        }
+        for (Attribute attr : outerOperatorSchema.getAttributes()) {
+            if (! isJoinedAttribute(attr.getName())) {
+                continue;
+            }
+            outputAttributeList.add(new Attribute(OUTER_PREFIX + attr.getName(), attr.getType()));
+        }
+        return new Schema(outputAttributeList.stream().toArray(Attribute[]::new));
+    }
+
+    /*
+     * Checks that the join attribute exists, and that its type can be joined.
+     */
+    private void checkJoinAttribute(Schema schema, String attributeName) throws DataflowException {
+        if (! schema.containsAttribute(attributeName)) {
+            throw new DataflowException(String.format("join attribute %s is not in the schema %s", attributeName, schema));
+        }
+        AttributeType attributeType = schema.getAttribute(attributeName).getType();
+        Set<AttributeType> joinTypes = isBandJoin() ? BAND_JOIN_TYPES : EQUI_JOIN_TYPES;
+        if (! joinTypes.contains(attributeType)) {
+            throw new DataflowException(String.format("%s can't join on attribute %s of type %s, the types supported are %s",
+                    isBandJoin() ? "band join" : "equi-join", attributeName, attributeType, joinTypes));
+        }
+    }
+
+    private static boolean isStringType(AttributeType attributeType) {
+        return attributeType == AttributeType.STRING || attributeType == AttributeType.TEXT;
+    }
+
+    private static boolean isNumericType(AttributeType attributeType) {
+        return attributeType == AttributeType.INTEGER || attributeType == AttributeType.DOUBLE;
+    }
+
+    private static boolean isJoinedAttribute(String attributeName) {
+        return ! attributeName.equals(SchemaConstants._ID) && ! attributeName.equals(SchemaConstants.PAYLOAD);
+    }
+
+    /**
+     * Joins an inner tuple and an outer tuple if their join keys are equal,
+     *   or differ by at most the band width for a band join.
+     * The HashJoin operator only calls mergeTuples on the pairs found by their keys,
+     *   this is for the Join operator, which calls it on all pairs.
+     */
+    @Override
+    public Tuple joinTuples(Tuple innerTuple, Tuple outerTuple, Schema outputSchema) throws DataflowException {
+        if (isBandJoin()) {
+            double difference = getBandJoinKey(innerTuple, innerJoinAttrName) - getBandJoinKey(outerTuple, outerJoinAttrName);
+            if (! (Math.abs(difference) <= bandWidth)) {
+                return null;
+            }
+        } else {
+            Object innerKey = getEquiJoinKey(innerTuple, innerJoinAttrName);
+            if (innerKey == null || ! innerKey.equals(getEquiJoinKey(outerTuple, outerJoinAttrName))) {
+                return null;
+            }
+        }
+        return mergeTuples(innerTuple, outerTuple, outputSchema);
+    }
+
+    /**
+     * Returns the value of the join attribute of a tuple which the equi-join hashes:
+     *   strings, numbers as doubles (so that 1 and 1.0 are equal), dates, and date times.
+     *
+     * @param tuple
+     * @param attributeName
+     * @return the key, or null if the value doesn't join with any value (no value, or NaN)
+     */
+    public static Object getEquiJoinKey(Tuple tuple, String attributeName) {
+        Object value = tuple.getField(attributeName).getValue();
+        if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            // NaN isn't equal to any number, although a NaN Double equals another one
+            if (Double.isNaN(number)) {
+                return null;
+            }
+            // adding 0.0 turns -0.0 into 0.0, which equals it numerically but not as a Double
+            return number + 0.0;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value of the join attribute of a tuple which the band join sorts:
+     *   numbers, and dates as days since the epoch.
+     *
+     * @param tuple
+     * @param attributeName
+     * @return
+     */
+    public static double getBandJoinKey(Tuple tuple, String attributeName) {
+        Object value = tuple.getField(attributeName).getValue();
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).toEpochDay();
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * Merges an inner tuple and an outer tuple into an output tuple with a new _id.
+     *
+     * @param innerTuple, null for an outer tuple of a left outer join that doesn't join with any inner tuple,
+     *          whose inner attributes are empty values
+     * @param outerTuple
+     * @param outputSchema
+     * @return
+     */
+    public Tuple mergeTuples(Tuple innerTuple, Tuple outerTuple, Schema outputSchema) {
+        List<IField> resultFields = new ArrayList<>();
+        for (Attribute attr : outputSchema.getAttributes()) {
+            String attrName = attr.getName();
+            if (attrName.equals(SchemaConstants._ID)) {
+                resultFields.add(new IDField(UUID.randomUUID().toString()));
+            } else if (attrName.startsWith(INNER_PREFIX)) {
+                resultFields.add(innerTuple == null ? getEmptyField(attr.getType())
+                        : innerTuple.getField(attrName.substring(INNER_PREFIX.length())));
+            } else if (attrName.startsWith(OUTER_PREFIX)) {
+                resultFields.add(outerTuple.getField(attrName.substring(OUTER_PREFIX.length())));
+            }
+        }
+        return new Tuple(outputSchema, resultFields);
+    }
+
+    /**
+     * Returns the value of an attribute which the outer tuples of a left outer join without an inner tuple
+     *   have for the inner attributes, since a field can't be null:
+     *   an empty string or list, 0, or the minimum date.
+     *
+     * @param attributeType
+     * @return
+     */
+    public static IField getEmptyField(AttributeType attributeType) {
+        switch (attributeType) {
+        case STRING:
+            return new StringField("");
+        case TEXT:
+            return new TextField("");
+        case INTEGER:
+            return new IntegerField(0);
+        case DOUBLE:
+            return new DoubleField(0.0);
+        case DATE:
+            return new DateField(LocalDate.MIN);
+        case DATETIME:
+            return new DateTimeField(LocalDateTime.MIN);
+        case _ID_TYPE:
+            return new IDField(UUID.randomUUID().toString());
+        case LIST:
+            return new ListField<>(Collections.emptyList());
+        default:
+            throw new TexeraException("no empty value for attribute type " + attributeType);
+        }
+    }
+
+    @Override
+    public HashJoin newOperator() {
+        return new HashJoin(this);
+    }
+
+    public static Map<String, Object> getOperatorMetadata() {
+        return ImmutableMap.<String, Object>builder()
+            .put(PropertyNameConstants.USER_FRIENDLY_NAME, "Join: Hash")
+            .put(PropertyNameConstants.OPERATOR_DESCRIPTION,
+                    "Join two tables on equal values, or on values within a range, of an attribute of each table")
+            .put(PropertyNameConstants.OPERATOR_GROUP_NAME, OperatorGroupConstants.JOIN_GROUP)
+            .build();
+    }
+
+}
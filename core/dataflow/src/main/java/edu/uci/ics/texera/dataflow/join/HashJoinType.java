@@ -0,0 +1,49 @@
+package edu.uci.ics.texera.dataflow.join;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import edu.uci.ics.texera.api.exception.TexeraException;
+
+/**
+ * HashJoinType: which tuples the HashJoin operator outputs. <br>
+ *
+ * INNER: <br>
+ * Only the pairs of inner and outer tuples that join. <br>
+ *
+ * LEFT_OUTER: <br>
+ * The pairs that join, and every outer tuple without an inner tuple to join with,
+ *   whose inner attributes are empty values (see HashJoinPredicate.getEmptyField()). <br>
+ *
+ */
+public enum HashJoinType {
+
+    INNER(HashJoinTypeName.INNER),
+
+    LEFT_OUTER(HashJoinTypeName.LEFT_OUTER);
+
+    public final String name;
+
+    private HashJoinType(String name) {
+        this.name = name;
+    }
+
+    // use the name string instead of enum string in JSON
+    @JsonValue
+    public String getName() {
+        return this.name;
+    }
+
+    public static HashJoinType fromName(String name) {
+        for (HashJoinType joinType : HashJoinType.values()) {
+            if (name.equalsIgnoreCase(joinType.getName()) || name.equalsIgnoreCase(joinType.toString())) {
+                return joinType;
+            }
+        }
+        throw new TexeraException("Cannot convert " + name + " to HashJoinType");
+    }
+
+    public class HashJoinTypeName {
+        public static final String INNER = "inner";
+        public static final String LEFT_OUTER = "left outer";
+    }
+}
@@ -0,0 +1,35 @@
+package edu.uci.ics.texera.dataflow.join;
+
+import java.util.List;
+
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.tuple.Tuple;
+
+/**
+ * IJoinCandidateIndex is an index of the inner tuples of a join, built by the join predicate
+ *   (see IJoinPredicate.createCandidateIndex()),
+ *   which the Join operator uses to find the inner tuples that may join with an outer tuple.
+ *
+ * The candidates are a superset of the inner tuples that join with the outer tuple,
+ *   the Join operator still calls joinTuples on each of them.
+ */
+public interface IJoinCandidateIndex {
+
+    /**
+     * Adds an inner tuple to the index, the inner tuples are added in the order of the inner operator.
+     *
+     * @param innerTuple
+     * @throws DataflowException
+     */
+    void addInnerTuple(Tuple innerTuple) throws DataflowException;
+
+    /**
+     * Returns the inner tuples that may join with the outer tuple, in the order they were added.
+     *
+     * @param outerTuple
+     * @return
+     * @throws DataflowException
+     */
+    List<Tuple> getCandidates(Tuple outerTuple) throws DataflowException;
+
+}
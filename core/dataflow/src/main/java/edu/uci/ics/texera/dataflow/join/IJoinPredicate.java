@@ -1,5 +1,10 @@
 package edu.uci.ics.texera.dataflow.join;
 
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import edu.uci.ics.texera.api.dataflow.IPredicate;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.schema.Schema;
@@ -21,4 +26,25 @@ public interface IJoinPredicate extends IPredicate {
 	String getInnerAttributeName();
 	
 	String getOuterAttributeName();
-}
\ No newline at end of file
+	
+	/**
+	 * Returns the attributes whose values must be equal in the inner tuple and the outer tuple
+	 *   for joinTuples to join them.
+	 * The Join operator hashes the inner tuples on these attributes, and only tries the pairs of tuples with equal values.
+	 * An empty list means that any pair of tuples may join.
+	 */
+	@JsonIgnore
+	default List<String> getEquiJoinAttributeNames() {
+	    return Collections.emptyList();
+	}
+	
+	/**
+	 * Creates an index of the inner tuples, which the Join operator probes for the inner tuples
+	 *   that may join with each outer tuple, instead of hashing them on the equi-join attributes.
+	 * 
+	 * @return a new candidate index, or null if the predicate doesn't have one
+	 */
+	default IJoinCandidateIndex createCandidateIndex() {
+	    return null;
+	}
+}
\ No newline at end of file
@@ -1,68 +1,111 @@
 package edu.uci.ics.texera.dataflow.join;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
-import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.field.IField;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.common.ISpillable;
+import edu.uci.ics.texera.dataflow.common.MemoryBudget;
+import edu.uci.ics.texera.dataflow.common.TupleCodec;
 
 
 /**
  * The Join operator is an operator which intends to perform a "join" over the
  * the outputs of two other operators based on certain conditions defined
  * using the JoinPredicate.
- * 
+ *
  * The JoinPredicate currently takes:
  * ID attribute -> Which serves as the document/tuple ID. Only for the tuples
  * whose IDs match, we perform the join.
  * Join Attribute -> The attribute to perform Join on.
  * and Threshold -> The value within which the difference of span starts and
  * the difference of span ends should be for the join to take place.
- * 
+ *
  * Join takes two operators: innerOperator and outerOperator.
- * Each operator has a stream of output tuples, Join performs join on 
+ * Each operator has a stream of output tuples, Join performs join on
  * two tuples' span lists only if two tuples have the same ID.
- * 
+ *
  * Two operators usually have the same schema, but they don't necessarily have to.
  * Join requires two operators to share ID attribute and attribute to join.
  * For other attributes, join will perform an intersection on them.
- * 
+ *
  * Join assumes two tuples are the same if their ID are same.
- * If some attribute values of two tuples are different, if the attribute is the 
+ * If some attribute values of two tuples are different, if the attribute is the
  * join attribute, the tuple is discarded. If the attribute is not join attribute,
  * then one of the values will be chosen to become the output value.
- * 
+ *
+ * Join builds a hash table of the inner tuples on the equi-join attributes of the predicate
+ * (see IJoinPredicate.getEquiJoinAttributeNames(), the _ID and the join attribute for JoinDistancePredicate),
+ * and probes it with each outer tuple, so the predicate is only called on the pairs of tuples with equal values.
+ * A predicate without equi-join attributes puts all the inner tuples in one bucket, which is a nested loop join.
+ *
+ * If the memory of the inner tuples can't be reserved from the memory budget (see MemoryBudget, which is shared
+ * by the operators of a plan), Join falls back to a grace hash join:
+ * both inputs are hash-partitioned on the equi-join attributes into temporary files (see TupleSpillFile),
+ * and the partitions are joined one at a time, each with the hash table of its inner tuples.
+ * Without equi-join attributes the inner tuples can't be partitioned, and they are kept in memory.
+ *
+ * If the predicate creates a candidate index (see IJoinPredicate.createCandidateIndex(), the q-gram index
+ * of SimilarityJoinPredicate), the inner tuples are added to the index instead of the hash table,
+ * and the predicate is only called on the candidates the index finds for each outer tuple.
+ * The candidate index is kept in memory.
+ *
  * @author Sripad Kowshik Subramanyam (sripadks)
  * @author Zuozhi Wang
  *
  */
-public class Join implements IOperator {
+public class Join implements IOperator, ISpillable {
+
+    // the number of partitions each input is split into when the inner tuples don't fit in the memory budget
+    public static final int SPILL_PARTITION_COUNT = 16;
+
+    public static final long DEFAULT_MEMORY_BUDGET = MemoryBudget.DEFAULT_LIMIT;
 
     private IOperator innerOperator;
     private IOperator outerOperator;
     private IJoinPredicate joinPredicate;
-    
-    private List<Tuple> innerTupleList = null;
-    // Cursor to maintain the position of tuple to be obtained from innerTupleList.
-    private Integer innerTupleListCursor = 0;
+
+    private List<String> equiJoinAttributeNames;
+
+    // the inner tuples grouped by their values of the equi-join attributes
+    private Map<List<Object>, List<Tuple>> innerTupleTable = null;
+    private long innerTupleTableSize = 0;
+    // the index of the inner tuples if the predicate has one, null otherwise
+    private IJoinCandidateIndex candidateIndex = null;
+    private int innerTupleCount = 0;
+
+    // the inner tuples with the same key as the current outer tuple
+    private List<Tuple> matchingInnerTuples = Collections.emptyList();
+    // Cursor to maintain the position of tuple to be obtained from matchingInnerTuples.
+    private int matchingInnerTupleCursor = 0;
     private Tuple currentOuterTuple;
     private Schema outputSchema;
 
+    // the partitions of the inputs if the inner tuples don't fit in memory, null otherwise
+    private MemoryBudget memoryBudget = new MemoryBudget();
+    private List<TupleSpillFile> innerPartitions = null;
+    private List<TupleSpillFile> outerPartitions = null;
+    private int partitionCursor = -1;
+
     private int cursor = CLOSED;
-    
+
     private int resultCursor = -1;
     private int limit = Integer.MAX_VALUE;
     private int offset = 0;
-    
+
     /**
      * Constructs a Join operator using a predicate which specifies the fields and
      *   constraints over which join happens.
-     * 
+     *
      * @param joinPredicate
      */
     public Join(IJoinPredicate joinPredicate) {
@@ -74,22 +117,23 @@ public class Join implements IOperator {
         if (cursor != CLOSED) {
         	return;
         }
-        
+
         if (innerOperator == null) {
             throw new DataflowException("Inner Input Operator is not set.");
         }
         if (outerOperator == null) {
             throw new DataflowException("Outer Input Operator is not set.");
         }
-        
+
         // generate output schema from schema of inner and outer operator
         innerOperator.open();
         Schema innerOperatorSchema = innerOperator.getOutputSchema();
-        
+
         outerOperator.open();
         Schema outerOperatorSchema = outerOperator.getOutputSchema();
-        
+
         this.outputSchema = joinPredicate.generateOutputSchema(innerOperatorSchema, outerOperatorSchema);
+        this.equiJoinAttributeNames = joinPredicate.getEquiJoinAttributeNames();
 
         cursor = OPENED;
     }
@@ -98,7 +142,7 @@ public class Join implements IOperator {
      * Gets the next tuple which is a joint of two tuples which passed the
      * criteria set in the JoinPredicate. <br>
      * Example in JoinPredicate.java
-     * 
+     *
      * @return nextTuple
      */
     @Override
@@ -106,23 +150,14 @@ public class Join implements IOperator {
     	if (cursor == CLOSED) {
             throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
         }
-    	
-        // load all tuples from inner operator into memory in the first time
-    	if (innerTupleList == null) {
-    	    innerTupleList = new ArrayList<>();
-    	    Tuple tuple;
-            while ((tuple = innerOperator.getNextTuple()) != null) {
-                innerTupleList.add(tuple);
-            }
+
+        // hash all tuples from inner operator in the first time
+    	if (innerTupleTable == null) {
+    	    buildInnerTupleTable();
     	}
-    	
-    	// load the first outer tuple
-    	currentOuterTuple = outerOperator.getNextTuple();
-    	
-    	// return null if either
-    	//   inner tuple list is empty, or
-    	//   all outer tuples have been consumed
-    	if (innerTupleList.isEmpty() || currentOuterTuple == null) {
+
+    	// return null if the inner operator has no tuples to join
+    	if (innerTupleCount == 0) {
     	    return null;
     	}
 
@@ -149,36 +184,184 @@ public class Join implements IOperator {
     }
 
     /*
-     * Called from getNextTuple() method in order to obtain the next tuple 
-     * that satisfies the predicate. 
-     * 
+     * Called from getNextTuple() method in order to obtain the next tuple
+     * that satisfies the predicate.
+     *
      * It returns null if there's no more tuples.
      */
     private Tuple computeNextMatchingTuple() throws Exception {
-        if (innerTupleList.isEmpty()) {
-            return null;
+        while (true) {
+            // try the remaining inner tuples with the same key as the current outer tuple
+            while (matchingInnerTupleCursor < matchingInnerTuples.size()) {
+                Tuple nextTuple = joinPredicate.joinTuples(
+                        matchingInnerTuples.get(matchingInnerTupleCursor), currentOuterTuple, outputSchema);
+                matchingInnerTupleCursor++;
+                if (nextTuple != null) {
+                    return nextTuple;
+                }
+            }
+
+            // get next outer tuple, and the inner tuples with its key
+            currentOuterTuple = getNextOuterTuple();
+            if (currentOuterTuple == null) {
+                return null;
+            }
+            if (candidateIndex != null) {
+                matchingInnerTuples = candidateIndex.getCandidates(currentOuterTuple);
+            } else {
+                List<Object> key = getEquiJoinKey(currentOuterTuple);
+                matchingInnerTuples = key == null ? Collections.emptyList()
+                        : innerTupleTable.getOrDefault(key, Collections.emptyList());
+            }
+            matchingInnerTupleCursor = 0;
+        }
+    }
+
+    /*
+     * Reads all the inner tuples into the candidate index or the hash table,
+     *   or into the partition files once the hash table takes more than the memory budget.
+     */
+    private void buildInnerTupleTable() throws TexeraException {
+        innerTupleTable = new HashMap<>();
+        innerTupleTableSize = 0;
+        innerTupleCount = 0;
+        candidateIndex = joinPredicate.createCandidateIndex();
+        Tuple tuple;
+        while ((tuple = innerOperator.getNextTuple()) != null) {
+            if (candidateIndex != null) {
+                candidateIndex.addInnerTuple(tuple);
+                innerTupleCount++;
+                continue;
+            }
+            List<Object> key = getEquiJoinKey(tuple);
+            // a tuple without a value of an equi-join attribute never joins
+            if (key == null) {
+                continue;
+            }
+            innerTupleCount++;
+            if (innerPartitions != null) {
+                innerPartitions.get(getPartition(key)).write(tuple);
+                continue;
+            }
+            long tupleSize = TupleCodec.estimateSize(tuple);
+            if (memoryBudget.tryReserve(tupleSize)) {
+                innerTupleTableSize += tupleSize;
+            } else if (! equiJoinAttributeNames.isEmpty()) {
+                spillInnerTupleTable();
+                innerPartitions.get(getPartition(key)).write(tuple);
+                continue;
+            }
+            innerTupleTable.computeIfAbsent(key, k -> new ArrayList<>()).add(tuple);
+        }
+        if (innerPartitions != null) {
+            partitionOuterTuples();
+        }
+    }
+
+    /*
+     * Moves the inner tuples in the hash table to the partition files.
+     */
+    private void spillInnerTupleTable() throws TexeraException {
+        innerPartitions = new ArrayList<>();
+        for (int i = 0; i < SPILL_PARTITION_COUNT; i++) {
+            innerPartitions.add(new TupleSpillFile(innerOperator.getOutputSchema()));
+        }
+        for (Map.Entry<List<Object>, List<Tuple>> entry : innerTupleTable.entrySet()) {
+            TupleSpillFile partition = innerPartitions.get(getPartition(entry.getKey()));
+            for (Tuple innerTuple : entry.getValue()) {
+                partition.write(innerTuple);
+            }
+        }
+        innerTupleTable.clear();
+        memoryBudget.release(innerTupleTableSize);
+        innerTupleTableSize = 0;
+    }
+
+    /*
+     * Writes all the outer tuples to the partition files, by the same hash of the key as the inner tuples.
+     */
+    private void partitionOuterTuples() throws TexeraException {
+        outerPartitions = new ArrayList<>();
+        for (int i = 0; i < SPILL_PARTITION_COUNT; i++) {
+            outerPartitions.add(new TupleSpillFile(outerOperator.getOutputSchema()));
+        }
+        Tuple tuple;
+        while ((tuple = outerOperator.getNextTuple()) != null) {
+            List<Object> key = getEquiJoinKey(tuple);
+            if (key != null) {
+                outerPartitions.get(getPartition(key)).write(tuple);
+            }
         }
-        
-        Tuple nextTuple = null;
-        while (nextTuple == null) {
-            // if reach the end of inner tuple list
-            if (innerTupleListCursor >= innerTupleList.size()) {
-                // get next outer tuple
-                currentOuterTuple = outerOperator.getNextTuple();
-                if (currentOuterTuple == null) {
-                    return null;
+    }
+
+    /*
+     * Gets the next outer tuple from the outer operator,
+     *   or, if the inputs are partitioned, from the outer partition being joined.
+     * When an outer partition is used up, the hash table is built from the next inner partition.
+     */
+    private Tuple getNextOuterTuple() throws TexeraException {
+        if (outerPartitions == null) {
+            return outerOperator.getNextTuple();
+        }
+        while (true) {
+            if (partitionCursor >= 0) {
+                Tuple tuple = outerPartitions.get(partitionCursor).read();
+                if (tuple != null) {
+                    return tuple;
                 }
-                // reset cursor if outerTuple is not null
-                innerTupleListCursor = 0;
+                innerPartitions.get(partitionCursor).delete();
+                outerPartitions.get(partitionCursor).delete();
+                innerTupleTable.clear();
+                memoryBudget.release(innerTupleTableSize);
+                innerTupleTableSize = 0;
+            }
+            partitionCursor++;
+            // the outer partition of a partition without inner tuples is deleted without being read
+            while (partitionCursor < SPILL_PARTITION_COUNT
+                    && innerPartitions.get(partitionCursor).getTupleCount() == 0) {
+                innerPartitions.get(partitionCursor).delete();
+                outerPartitions.get(partitionCursor).delete();
+                partitionCursor++;
+            }
+            if (partitionCursor >= SPILL_PARTITION_COUNT) {
+                return null;
+            }
+
+            // the partition can't be spilled again, so the memory of its hash table is reserved
+            //   even if the budget has run out, and released when the partition is joined
+            TupleSpillFile innerPartition = innerPartitions.get(partitionCursor);
+            Tuple innerTuple;
+            while ((innerTuple = innerPartition.read()) != null) {
+                long tupleSize = TupleCodec.estimateSize(innerTuple);
+                memoryBudget.reserve(tupleSize);
+                innerTupleTableSize += tupleSize;
+                innerTupleTable.computeIfAbsent(getEquiJoinKey(innerTuple), k -> new ArrayList<>()).add(innerTuple);
             }
-            // compute next tuple
-            nextTuple = joinPredicate.joinTuples(
-                    innerTupleList.get(innerTupleListCursor), currentOuterTuple, outputSchema);
-            // increment cursor
-            innerTupleListCursor++;
         }
-        
-    	return nextTuple;
+    }
+
+    /*
+     * Returns the values of the equi-join attributes of a tuple,
+     *   or null if the tuple doesn't have a value of an attribute.
+     */
+    private List<Object> getEquiJoinKey(Tuple tuple) {
+        List<Object> key = new ArrayList<>(equiJoinAttributeNames.size());
+        for (String attributeName : equiJoinAttributeNames) {
+            IField field = tuple.getField(attributeName);
+            if (field == null || field.getValue() == null) {
+                return null;
+            }
+            key.add(field.getValue());
+        }
+        return key;
+    }
+
+    /*
+     * Returns the spill partition of a join key, which HashJoin also uses.
+     */
+    static int getPartition(Object key) {
+        // the hash table of a partition uses the low bits of the hash code, which are the same in a partition
+        return Math.floorMod(Integer.rotateLeft(key.hashCode(), 16), SPILL_PARTITION_COUNT);
     }
 
     @Override
@@ -193,30 +376,50 @@ public class Join implements IOperator {
         } catch (Exception e) {
             throw new DataflowException(e.getMessage(), e);
         }
-        
-        // Set the inner tuple list back to null on close.
-        innerTupleList = null;
-        innerTupleListCursor = 0;
+
+        // Set the inner tuple table back to null on close.
+        innerTupleTable = null;
+        memoryBudget.release(innerTupleTableSize);
+        innerTupleTableSize = 0;
+        candidateIndex = null;
+        innerTupleCount = 0;
+        matchingInnerTuples = Collections.emptyList();
+        matchingInnerTupleCursor = 0;
+        currentOuterTuple = null;
+        deletePartitions(innerPartitions);
+        deletePartitions(outerPartitions);
+        innerPartitions = null;
+        outerPartitions = null;
+        partitionCursor = -1;
         cursor = CLOSED;
     }
 
+    private static void deletePartitions(List<TupleSpillFile> partitions) throws TexeraException {
+        if (partitions == null) {
+            return;
+        }
+        for (TupleSpillFile partition : partitions) {
+            partition.delete();
+        }
+    }
+
+
 
-    
     public void setInnerInputOperator(IOperator innerInputOperator) {
         this.innerOperator = innerInputOperator;
     }
-    
+
     public IOperator getInnerInputOperator() {
         return this.innerOperator;
     }
-    
+
     public void setOuterInputOperator(IOperator outerInputOperator) {
         this.outerOperator = outerInputOperator;
     }
-    
+
     public IOperator getOuterInputOperator() {
         return this.outerOperator;
-    }    
+    }
 
     @Override
     public Schema getOutputSchema() {
@@ -226,19 +429,45 @@ public class Join implements IOperator {
     public void setLimit(int limit) {
         this.limit = limit;
     }
-    
+
     public int getLimit() {
         return limit;
     }
-    
+
     public void setOffset(int offset) {
         this.offset = offset;
     }
-    
+
     public int getOffset() {
         return offset;
     }
-    
+
+    @Override
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Sets a memory budget of its own (estimated in bytes) the inner tuples can take,
+     *   before the inputs are partitioned into temporary files.
+     *
+     * @param memoryLimit
+     */
+    public void setMemoryBudget(long memoryLimit) {
+        setMemoryBudget(new MemoryBudget(memoryLimit));
+    }
+
+    public MemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @return true if the inputs have been partitioned into temporary files
+     */
+    public boolean isSpilled() {
+        return innerPartitions != null;
+    }
+
     public IJoinPredicate getPredicate() {
         return this.joinPredicate;
     }
@@ -1,12 +1,13 @@
 package edu.uci.ics.texera.dataflow.join;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableMap;
 
@@ -137,6 +138,15 @@ public class JoinDistancePredicate extends PredicateBase implements IJoinPredica
         return this.threshold;
     }
     
+    /**
+     * Two tuples only join if they have the same _ID and the same value of the join attribute (see joinTuples).
+     */
+    @JsonIgnore
+    @Override
+    public List<String> getEquiJoinAttributeNames() {
+        return Arrays.asList(SchemaConstants._ID, this.joinAttributeName);
+    }
+    
     @Override
     public Schema generateOutputSchema(Schema innerOperatorSchema, Schema outerOperatorSchema) throws DataflowException {
         return generateIntersectionSchema(innerOperatorSchema, outerOperatorSchema);
@@ -229,39 +239,38 @@ public class JoinDistancePredicate extends PredicateBase implements IJoinPredica
 	        outerSpanList = spanFieldOfOuterTuple.getValue();
 	    }
 	
-	    Iterator<Span> outerSpanIter = outerSpanList.iterator();
+	    List<Span> outerJoinSpans = getJoinAttributeSpans(outerSpanList);
+	    List<Span> innerJoinSpans = getJoinAttributeSpans(innerSpanList);
+	    if (outerJoinSpans.isEmpty() || innerJoinSpans.isEmpty()) {
+	        return null;
+	    }
 	
-	    // TODO Currently we are using two loops to go over two span lists.
-	    // We can optimize it by sorting the spans based on the start position
-	    // and then doing a "sort merge" of the two lists.
-	    // (Also probably weed out the spans with fields that don't agree with
-	    // the ones specified in the JoinPredicate during "sort merge"?)
-	    while (outerSpanIter.hasNext()) {
-	        Span outerSpan = outerSpanIter.next();
-	        // Check if the field matches the filed over which we want to join.
-	        // If not return null.
-	        if (!outerSpan.getAttributeName().equals(this.joinAttributeName)) {
-	            continue;
-	        }
-	        Iterator<Span> innerSpanIter = innerSpanList.iterator();
-	        while (innerSpanIter.hasNext()) {
-	            Span innerSpan = innerSpanIter.next();
-	            if (!innerSpan.getAttributeName().equals(this.joinAttributeName)) {
-	                continue;
-	            }
-	            Integer threshold = this.getThreshold();
-	            if (Math.abs(outerSpan.getStart() - innerSpan.getStart()) <= threshold
-	                    && Math.abs(outerSpan.getEnd() - innerSpan.getEnd()) <= threshold) {
-	                Integer newSpanStartIndex = Math.min(innerSpan.getStart(), outerSpan.getStart());
-	                Integer newSpanEndIndex = Math.max(innerSpan.getEnd(), outerSpan.getEnd());
-	                String attributeName = this.joinAttributeName;
-	                String fieldValue = (String) innerTuple.getField(attributeName).getValue();
-	                String newFieldValue = fieldValue.substring(newSpanStartIndex, newSpanEndIndex);
-	                String spanKey = outerSpan.getKey() + "_" + innerSpan.getKey();
-	                Span newSpan = new Span(attributeName, newSpanStartIndex, newSpanEndIndex, spanKey, newFieldValue);
-	                newJoinSpanList.add(newSpan);
-	            }
-	        }
+	    // the offsets of the spans, by their positions in the span lists
+	    int[] outerStarts = new int[outerJoinSpans.size()];
+	    int[] outerEnds = new int[outerJoinSpans.size()];
+	    for (int i = 0; i < outerJoinSpans.size(); i++) {
+	        outerStarts[i] = outerJoinSpans.get(i).getStart();
+	        outerEnds[i] = outerJoinSpans.get(i).getEnd();
+	    }
+	    int[] innerStarts = new int[innerJoinSpans.size()];
+	    int[] innerEnds = new int[innerJoinSpans.size()];
+	    for (int i = 0; i < innerJoinSpans.size(); i++) {
+	        innerStarts[i] = innerJoinSpans.get(i).getStart();
+	        innerEnds[i] = innerJoinSpans.get(i).getEnd();
+	    }
+	
+	    long[] joinedPairs = sweepSpanPairs(outerStarts, outerEnds, innerStarts, innerEnds, this.getThreshold());
+	
+	    String fieldValue = (String) innerTuple.getField(this.joinAttributeName).getValue();
+	    for (long joinedPair : joinedPairs) {
+	        Span outerSpan = outerJoinSpans.get((int) (joinedPair >>> 32));
+	        Span innerSpan = innerJoinSpans.get((int) joinedPair);
+	        Integer newSpanStartIndex = Math.min(innerSpan.getStart(), outerSpan.getStart());
+	        Integer newSpanEndIndex = Math.max(innerSpan.getEnd(), outerSpan.getEnd());
+	        String newFieldValue = fieldValue.substring(newSpanStartIndex, newSpanEndIndex);
+	        String spanKey = outerSpan.getKey() + "_" + innerSpan.getKey();
+	        Span newSpan = new Span(this.joinAttributeName, newSpanStartIndex, newSpanEndIndex, spanKey, newFieldValue);
+	        newJoinSpanList.add(newSpan);
 	    }
 	
 	    if (newJoinSpanList.isEmpty()) {
@@ -282,6 +291,80 @@ public class JoinDistancePredicate extends PredicateBase implements IJoinPredica
 	    return new Tuple(outputSchema, outputFields.stream().toArray(IField[]::new));
 	}
 
+	/**
+	 * Returns the spans of the join attribute in a span list.
+	 */
+	private List<Span> getJoinAttributeSpans(List<Span> spanList) {
+	    return spanList.stream()
+	            .filter(span -> span.getAttributeName().equals(this.joinAttributeName))
+	            .collect(Collectors.toList());
+	}
+	
+	/**
+	 * Finds the pairs of an outer span and an inner span whose starts and ends are both within the threshold,
+	 *   by a sweep over the spans sorted by their start offsets.
+	 * 
+	 * The inner spans with a start within the threshold of the start of an outer span are a window
+	 *   of the sorted inner spans, which only moves forward as the outer spans go forward,
+	 *   so the sweep takes O((n+m) log(n+m) + number of spans in the windows).
+	 * 
+	 * A pair is encoded as (outer index << 32 | inner index), where an index is the position in the arrays,
+	 *   and the pairs are returned in the order of the outer index and then the inner index,
+	 *   which is the order of the nested loops over the two span lists.
+	 * 
+	 * @param outerStarts
+	 * @param outerEnds
+	 * @param innerStarts
+	 * @param innerEnds
+	 * @param threshold
+	 * @return the encoded pairs
+	 */
+	static long[] sweepSpanPairs(int[] outerStarts, int[] outerEnds, int[] innerStarts, int[] innerEnds, int threshold) {
+	    int[] outerOrder = sortByStart(outerStarts);
+	    int[] innerOrder = sortByStart(innerStarts);
+	
+	    long[] pairs = new long[Math.max(outerStarts.length, innerStarts.length)];
+	    int pairCount = 0;
+	    int windowStart = 0;
+	    for (int outerIndex : outerOrder) {
+	        long outerStart = outerStarts[outerIndex];
+	        // the inner spans starting before the window of this outer span are before the windows of the next ones too
+	        while (windowStart < innerOrder.length && innerStarts[innerOrder[windowStart]] < outerStart - threshold) {
+	            windowStart++;
+	        }
+	        for (int k = windowStart; k < innerOrder.length && innerStarts[innerOrder[k]] <= outerStart + threshold; k++) {
+	            int innerIndex = innerOrder[k];
+	            if (Math.abs((long) outerEnds[outerIndex] - innerEnds[innerIndex]) <= threshold) {
+	                if (pairCount == pairs.length) {
+	                    pairs = Arrays.copyOf(pairs, pairs.length * 2);
+	                }
+	                pairs[pairCount++] = ((long) outerIndex << 32) | innerIndex;
+	            }
+	        }
+	    }
+	
+	    pairs = Arrays.copyOf(pairs, pairCount);
+	    Arrays.sort(pairs);
+	    return pairs;
+	}
+	
+	/**
+	 * Returns the indexes of the offsets in the ascending order of the offsets (which are not negative),
+	 *   sorted as primitive (offset << 32 | index) keys.
+	 */
+	private static int[] sortByStart(int[] starts) {
+	    long[] keys = new long[starts.length];
+	    for (int i = 0; i < starts.length; i++) {
+	        keys[i] = ((long) starts[i] << 32) | i;
+	    }
+	    Arrays.sort(keys);
+	    int[] order = new int[starts.length];
+	    for (int i = 0; i < keys.length; i++) {
+	        order[i] = (int) keys[i];
+	    }
+	    return order;
+	}
+
 	/**
 	 * Used to compare the value's of a field from the inner and outer tuples'.
 	 * 
@@ -0,0 +1,262 @@
+package edu.uci.ics.texera.dataflow.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.join.SimilarityJoinPredicate.SimilarityFunc;
+
+/**
+ * SimilarityJoinIndex is the candidate index of SimilarityJoinPredicate (see IJoinCandidateIndex).
+ *
+ * It indexes the distinct span values of the inner tuples by their q-grams and by their lengths,
+ *   and finds the inner span values which may be similar to an outer span value by filtering (filter-and-verify),
+ *   before the similarity function is computed on them.
+ *
+ * The filters hold for the default similarity, 1 - normalized Levenshtein distance,
+ *   where similarity >= t means that the edit distance k <= (1 - t) * max(|a|, |b|):
+ *   length filter: min(|a|, |b|) >= t * max(|a|, |b|), since k >= ||a| - |b||,
+ *   count filter: a and b share at least max(|a|, |b|) - q + 1 - k * q q-grams, since an edit destroys at most q q-grams.
+ * If the count bound is not positive (short strings or a low threshold), all the values of a length are candidates.
+ *
+ * With another similarity function (see SimilarityJoinPredicate.setSimilarityFunction()), nothing is filtered,
+ *   but each pair of distinct span values is still only verified once for each outer value.
+ */
+class SimilarityJoinIndex implements IJoinCandidateIndex {
+
+    public static final int GRAM_LENGTH = 2;
+
+    // the outer span values whose similar inner values are cached
+    private static final int MAX_CACHED_OUTER_VALUES = 10000;
+
+    private static final double EPSILON = 1e-9;
+
+    private final String innerJoinAttrName;
+    private final String outerJoinAttrName;
+    private final double threshold;
+    private final SimilarityFunc similarityFunc;
+    private final boolean filtering;
+
+    private final List<Tuple> innerTuples = new ArrayList<>();
+
+    // the distinct inner span values, and the inner tuples (by their positions) with each value
+    private final List<String> innerValues = new ArrayList<>();
+    private final Map<String, Integer> innerValueIds = new HashMap<>();
+    private final List<List<Integer>> innerValueTuples = new ArrayList<>();
+
+    // q-gram -> (value id, count of the q-gram in the value) pairs, in the order of the value ids
+    private final Map<String, int[]> gramPostings = new HashMap<>();
+    private final Map<String, Integer> gramPostingSizes = new HashMap<>();
+    // length -> value ids
+    private final NavigableMap<Integer, List<Integer>> lengthBuckets = new TreeMap<>();
+
+    private final Map<String, int[]> similarValueCache = new HashMap<>();
+
+    // the common q-gram counts of the inner values with the current outer value
+    private int[] commonGramCounts = new int[0];
+
+    public SimilarityJoinIndex(String innerJoinAttrName, String outerJoinAttrName, double threshold,
+            SimilarityFunc similarityFunc, boolean filtering) {
+        this.innerJoinAttrName = innerJoinAttrName;
+        this.outerJoinAttrName = outerJoinAttrName;
+        this.threshold = threshold;
+        this.similarityFunc = similarityFunc;
+        this.filtering = filtering;
+    }
+
+    @Override
+    public void addInnerTuple(Tuple innerTuple) throws DataflowException {
+        int tuplePosition = innerTuples.size();
+        innerTuples.add(innerTuple);
+        for (String value : getSpanValues(innerTuple, innerJoinAttrName)) {
+            Integer valueId = innerValueIds.get(value);
+            if (valueId == null) {
+                valueId = addInnerValue(value);
+            }
+            innerValueTuples.get(valueId).add(tuplePosition);
+        }
+    }
+
+    @Override
+    public List<Tuple> getCandidates(Tuple outerTuple) throws DataflowException {
+        if (threshold == 0) {
+            return Collections.emptyList();
+        }
+        Set<Integer> tuplePositions = new HashSet<>();
+        for (String outerValue : getSpanValues(outerTuple, outerJoinAttrName)) {
+            for (int valueId : getSimilarValues(outerValue)) {
+                tuplePositions.addAll(innerValueTuples.get(valueId));
+            }
+        }
+        return tuplePositions.stream().sorted().map(innerTuples::get).collect(Collectors.toList());
+    }
+
+    /**
+     * Checks the length filter, which any two similar strings pass if the default similarity function is used.
+     *
+     * @param length1
+     * @param length2
+     * @param threshold
+     * @return false if the strings of the lengths can't be similar
+     */
+    public static boolean passesLengthFilter(int length1, int length2, double threshold) {
+        return Math.min(length1, length2) >= threshold * Math.max(length1, length2) - EPSILON;
+    }
+
+    /*
+     * Returns the ids of the inner values similar to the outer value.
+     */
+    private int[] getSimilarValues(String outerValue) {
+        int[] similarValues = similarValueCache.get(outerValue);
+        if (similarValues != null) {
+            return similarValues;
+        }
+
+        List<Integer> similarValueList = new ArrayList<>();
+        if (! filtering) {
+            for (int valueId = 0; valueId < innerValues.size(); valueId++) {
+                verify(valueId, outerValue, similarValueList);
+            }
+        } else {
+            Set<Integer> verifiedValues = new HashSet<>();
+            int outerLength = outerValue.length();
+            int minLength = (int) Math.ceil(threshold * outerLength - EPSILON);
+            int maxLength = (int) Math.min(Integer.MAX_VALUE, Math.floor(outerLength / threshold + EPSILON));
+
+            // the values sharing q-grams with the outer value, which pass the count filter
+            List<Integer> touchedValues = countCommonGrams(outerValue);
+            for (int valueId : touchedValues) {
+                int innerLength = innerValues.get(valueId).length();
+                if (innerLength >= minLength && innerLength <= maxLength
+                        && commonGramCounts[valueId] >= getCommonGramBound(innerLength, outerLength)) {
+                    verifiedValues.add(valueId);
+                    verify(valueId, outerValue, similarValueList);
+                }
+            }
+            for (int valueId : touchedValues) {
+                commonGramCounts[valueId] = 0;
+            }
+
+            // the values of the lengths for which the count filter doesn't hold
+            for (Map.Entry<Integer, List<Integer>> lengthBucket : lengthBuckets.subMap(minLength, true, maxLength, true).entrySet()) {
+                if (getCommonGramBound(lengthBucket.getKey(), outerLength) > 0) {
+                    continue;
+                }
+                for (int valueId : lengthBucket.getValue()) {
+                    if (! verifiedValues.contains(valueId)) {
+                        verify(valueId, outerValue, similarValueList);
+                    }
+                }
+            }
+        }
+
+        similarValues = similarValueList.stream().mapToInt(Integer::intValue).toArray();
+        if (similarValueCache.size() >= MAX_CACHED_OUTER_VALUES) {
+            similarValueCache.clear();
+        }
+        similarValueCache.put(outerValue, similarValues);
+        return similarValues;
+    }
+
+    private void verify(int valueId, String outerValue, List<Integer> similarValueList) {
+        if (similarityFunc.calculateSimilarity(innerValues.get(valueId), outerValue) >= threshold) {
+            similarValueList.add(valueId);
+        }
+    }
+
+    /*
+     * The least number of q-grams two similar strings of the lengths share.
+     */
+    private int getCommonGramBound(int length1, int length2) {
+        int maxLength = Math.max(length1, length2);
+        int maxEditDistance = (int) Math.floor((1 - threshold) * maxLength + EPSILON);
+        return maxLength - GRAM_LENGTH + 1 - maxEditDistance * GRAM_LENGTH;
+    }
+
+    /*
+     * Counts the common q-grams of the outer value with each inner value into commonGramCounts,
+     *   and returns the ids of the inner values with a common q-gram.
+     */
+    private List<Integer> countCommonGrams(String outerValue) {
+        List<Integer> touchedValues = new ArrayList<>();
+        for (Map.Entry<String, Integer> outerGram : getGramCounts(outerValue).entrySet()) {
+            int[] postings = gramPostings.get(outerGram.getKey());
+            if (postings == null) {
+                continue;
+            }
+            int postingSize = gramPostingSizes.get(outerGram.getKey());
+            for (int i = 0; i < postingSize; i += 2) {
+                int valueId = postings[i];
+                if (commonGramCounts[valueId] == 0) {
+                    touchedValues.add(valueId);
+                }
+                commonGramCounts[valueId] += Math.min(postings[i + 1], outerGram.getValue());
+            }
+        }
+        return touchedValues;
+    }
+
+    private int addInnerValue(String value) {
+        int valueId = innerValues.size();
+        innerValues.add(value);
+        innerValueIds.put(value, valueId);
+        innerValueTuples.add(new ArrayList<>());
+        if (commonGramCounts.length <= valueId) {
+            commonGramCounts = Arrays.copyOf(commonGramCounts, Math.max(16, valueId * 2));
+        }
+        if (! filtering) {
+            return valueId;
+        }
+
+        lengthBuckets.computeIfAbsent(value.length(), k -> new ArrayList<>()).add(valueId);
+        for (Map.Entry<String, Integer> gram : getGramCounts(value).entrySet()) {
+            int[] postings = gramPostings.get(gram.getKey());
+            int postingSize = gramPostingSizes.getOrDefault(gram.getKey(), 0);
+            if (postings == null) {
+                postings = new int[4];
+            } else if (postingSize + 2 > postings.length) {
+                postings = Arrays.copyOf(postings, postings.length * 2);
+            }
+            postings[postingSize] = valueId;
+            postings[postingSize + 1] = gram.getValue();
+            gramPostings.put(gram.getKey(), postings);
+            gramPostingSizes.put(gram.getKey(), postingSize + 2);
+        }
+        return valueId;
+    }
+
+    private static Map<String, Integer> getGramCounts(String value) {
+        Map<String, Integer> gramCounts = new HashMap<>();
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            gramCounts.merge(value.substring(i, i + GRAM_LENGTH), 1, Integer::sum);
+        }
+        return gramCounts;
+    }
+
+    /*
+     * Returns the distinct values of the spans of the attribute in a tuple.
+     */
+    private static Set<String> getSpanValues(Tuple tuple, String attributeName) {
+        ListField<Span> spanListField = tuple.getField(SchemaConstants.SPAN_LIST);
+        return spanListField.getValue().stream()
+                .filter(span -> span.getAttributeName().equals(attributeName))
+                .map(span -> span.getValue())
+                .filter(value -> value != null)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+}
@@ -67,6 +67,8 @@ public class SimilarityJoinPredicate extends PredicateBase implements IJoinPredi
     String outerJoinAttrName;
     
     private SimilarityFunc similarityFunc;
+    // the filters of the candidate index only hold for the default similarity function
+    private boolean defaultSimilarityFunc = true;
     
     @FunctionalInterface
     public static interface SimilarityFunc {
@@ -183,6 +185,10 @@ public class SimilarityJoinPredicate extends PredicateBase implements IJoinPredi
         Set<String> resultValueSet = new HashSet<>();
         for (String innerString : innerSpanValueSet) {
             for (String outerString : outerSpanValueSet) {
+                if (defaultSimilarityFunc && ! SimilarityJoinIndex.passesLengthFilter(
+                        innerString.length(), outerString.length(), this.similarityThreshold)) {
+                    continue;
+                }
                 if (this.similarityFunc.calculateSimilarity(innerString, outerString) >= this.similarityThreshold ) {
                     resultValueSet.add(innerString);
                     resultValueSet.add(outerString);
@@ -254,6 +260,17 @@ public class SimilarityJoinPredicate extends PredicateBase implements IJoinPredi
     @JsonIgnore
     public void setSimilarityFunction(SimilarityFunc similarityFunc) {
         this.similarityFunc = similarityFunc;
+        this.defaultSimilarityFunc = false;
+    }
+    
+    /**
+     * Creates a q-gram index of the inner span values (see SimilarityJoinIndex),
+     *   so the Join operator only tries the inner tuples with a span value that may be similar.
+     */
+    @Override
+    public IJoinCandidateIndex createCandidateIndex() {
+        return new SimilarityJoinIndex(innerJoinAttrName, outerJoinAttrName, similarityThreshold,
+                similarityFunc, defaultSimilarityFunc);
     }
     
     @Override
@@ -0,0 +1,97 @@
+package edu.uci.ics.texera.dataflow.join;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.common.TupleCodec;
+
+/**
+ * TupleSpillFile is a temporary file of tuples with the same schema,
+ *   which the Join operator writes a partition of its input to when the input doesn't fit in memory.
+ *
+ * The tuples are written with the binary encoding of TupleCodec, and read back using the schema.
+ * The tuples are first all written, then read once in the order they were written.
+ */
+class TupleSpillFile {
+
+    private final Schema schema;
+    private final Path path;
+
+    private DataOutputStream writer;
+    private DataInputStream reader;
+    private int tupleCount = 0;
+    private int readCount = 0;
+
+    public TupleSpillFile(Schema schema) throws DataflowException {
+        this.schema = schema;
+        try {
+            this.path = Files.createTempFile("texera-join-", ".spill");
+            this.writer = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    public void write(Tuple tuple) throws DataflowException {
+        if (writer == null) {
+            throw new DataflowException("spill file is already being read");
+        }
+        TupleCodec.write(writer, tuple);
+        tupleCount++;
+    }
+
+    /**
+     * Reads the next tuple written to the file, the first call finishes writing the file.
+     *
+     * @return the next tuple, or null if all the tuples have been read
+     * @throws DataflowException
+     */
+    public Tuple read() throws DataflowException {
+        try {
+            if (reader == null) {
+                writer.close();
+                writer = null;
+                reader = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+            }
+            if (readCount == tupleCount) {
+                return null;
+            }
+            readCount++;
+            return TupleCodec.read(reader, schema);
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    public int getTupleCount() {
+        return tupleCount;
+    }
+
+    /**
+     * Closes and deletes the file.
+     */
+    public void delete() throws DataflowException {
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+            if (reader != null) {
+                reader.close();
+                reader = null;
+            }
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+}
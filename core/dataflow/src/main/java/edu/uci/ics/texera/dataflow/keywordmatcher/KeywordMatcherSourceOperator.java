@@ -1,7 +1,9 @@
 package edu.uci.ics.texera.dataflow.keywordmatcher;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
@@ -22,7 +24,9 @@ import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.dataflow.common.IProjectionPushdown;
 import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
 import edu.uci.ics.texera.storage.DataReader;
 import edu.uci.ics.texera.storage.RelationManager;
@@ -34,7 +38,8 @@ import edu.uci.ics.texera.storage.RelationManager;
  * @author Zhenfeng Qi
  *
  */
-public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator implements ISourceOperator {
+public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator 
+        implements ISourceOperator, IProjectionPushdown {
 
     private final KeywordPredicate predicate;
 
@@ -90,6 +95,11 @@ public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator im
         return this.keywordMatcher.getNextTuple();
     }
 
+    @Override
+    protected TupleBatch computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return this.keywordMatcher.getNextBatch(maxSize);
+    }
+
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         return this.keywordMatcher.processOneInputTuple(inputTuple);
@@ -107,6 +117,16 @@ public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator im
     public void setInputOperator(IOperator inputOperator) {
     }
 
+    /**
+     * Only the required attributes and the attributes to match on are read from the table.
+     */
+    @Override
+    public void setRequiredAttributes(Collection<String> requiredAttributes) {
+        List<String> attributesToRead = new ArrayList<>(requiredAttributes);
+        attributesToRead.addAll(this.predicate.getAttributeNames());
+        this.dataReader.setRequiredAttributes(attributesToRead);
+    }
+
     public KeywordPredicate getPredicate() {
         return this.predicate;
     }
@@ -23,13 +23,19 @@ import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.Utils;
+import edu.uci.ics.texera.dataflow.common.ISpillable;
+import edu.uci.ics.texera.dataflow.common.MemoryBudget;
+import edu.uci.ics.texera.dataflow.common.SpillableTupleBuffer;
 
-public class NltkSentimentOperator implements IOperator {
+public class NltkSentimentOperator implements IOperator, ISpillable {
     private final NltkSentimentOperatorPredicate predicate;
     private IOperator inputOperator;
     private Schema outputSchema;
     
-    private List<Tuple> tupleBuffer;
+    // the tuples of the current batch, spilled to disk if they don't fit in the memory budget
+    private SpillableTupleBuffer tupleBuffer;
+    private int bufferCursor;
+    private MemoryBudget memoryBudget = new MemoryBudget();
     HashMap<String, Integer> idClassMap;
     
     private int cursor = CLOSED;
@@ -90,7 +96,8 @@ public class NltkSentimentOperator implements IOperator {
     }
     
     private boolean computeTupleBuffer() {
-        tupleBuffer = new ArrayList<Tuple>();
+        tupleBuffer = new SpillableTupleBuffer(inputOperator.getOutputSchema(), memoryBudget);
+        bufferCursor = 0;
         //write [ID,text] to a CSV file.
         List<String[]> csvData = new ArrayList<>();
         int i = 0;
@@ -108,6 +115,7 @@ public class NltkSentimentOperator implements IOperator {
             }
         }
         if (tupleBuffer.isEmpty()) {
+            tupleBuffer = null;
             return false;
         }
         try {
@@ -176,9 +184,10 @@ public class NltkSentimentOperator implements IOperator {
     }
     
     private Tuple popupOneTuple() {
-        Tuple outputTuple = tupleBuffer.get(0);
-        tupleBuffer.remove(0);
-        if (tupleBuffer.isEmpty()) {
+        Tuple outputTuple = tupleBuffer.get(bufferCursor);
+        bufferCursor++;
+        if (bufferCursor == tupleBuffer.size()) {
+            tupleBuffer.clear();
             tupleBuffer = null;
         }
         
@@ -198,9 +207,18 @@ public class NltkSentimentOperator implements IOperator {
         if (inputOperator != null) {
             inputOperator.close();
         }
+        if (tupleBuffer != null) {
+            tupleBuffer.clear();
+            tupleBuffer = null;
+        }
         cursor = CLOSED;
     }
     
+    @Override
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+    
     @Override
     public Schema getOutputSchema() {
         return this.outputSchema;
@@ -9,14 +9,27 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.dataflow.ISink;
 import edu.uci.ics.texera.api.dataflow.ISourceOperator;
+import edu.uci.ics.texera.api.engine.PipelineStage;
 import edu.uci.ics.texera.api.engine.Plan;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.PlanGenException;
 import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.dataflow.common.IProjectionPushdown;
+import edu.uci.ics.texera.dataflow.common.ISpillable;
+import edu.uci.ics.texera.dataflow.common.MemoryBudget;
+import edu.uci.ics.texera.dataflow.common.ParallelOperator;
 import edu.uci.ics.texera.dataflow.common.PredicateBase;
 import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
+import edu.uci.ics.texera.dataflow.comparablematcher.ComparablePredicate;
 import edu.uci.ics.texera.dataflow.connector.OneToNBroadcastConnector;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionaryPredicate;
+import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenPredicate;
+import edu.uci.ics.texera.dataflow.join.HashJoin;
 import edu.uci.ics.texera.dataflow.join.Join;
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordPredicate;
+import edu.uci.ics.texera.dataflow.projection.ProjectionPredicate;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
 import edu.uci.ics.texera.api.schema.Schema;
 
 
@@ -246,14 +259,66 @@ public class LogicalPlan {
      * @throws PlanGenException, if the operator graph is invalid.
      */
     public Plan buildQueryPlan() throws PlanGenException {
-        System.out.println("2.buildQueryPlan");
-        buildOperators();
+        return buildQueryPlan(false);
+    }
+    
+    /**
+     * Builds and returns the query plan from the operator graph.
+     * 
+     * If pipelined is true, a PipelineStage is inserted on every link of the graph,
+     *   so that each operator runs on its own worker and pushes its results 
+     *   to its consumer through a bounded queue.
+     * The operators themselves are not changed.
+     * 
+     * @param pipelined, whether each operator should run on its own worker
+     * @return the plan generated from the operator graph
+     * @throws PlanGenException, if the operator graph is invalid.
+     */
+    public Plan buildQueryPlan(boolean pipelined) throws PlanGenException {
+        return buildQueryPlan(pipelined, 1);
+    }
+    
+    /**
+     * Builds and returns the query plan from the operator graph.
+     * 
+     * If parallelism is greater than 1, every stateless operator (see {@link ParallelOperator#isParallelizable})
+     *   is replaced by a ParallelOperator running that many copies of it, preserving the order of the tuples.
+     * 
+     * @param pipelined, whether each operator should run on its own worker
+     * @param parallelism, the number of copies of each stateless operator
+     * @return the plan generated from the operator graph
+     * @throws PlanGenException, if the operator graph is invalid.
+     */
+    public Plan buildQueryPlan(boolean pipelined, int parallelism) throws PlanGenException {
+        return buildQueryPlan(pipelined, parallelism, MemoryBudget.DEFAULT_LIMIT);
+    }
+    
+    /**
+     * Builds and returns the query plan from the operator graph.
+     * 
+     * The operators and connectors buffering tuples (see {@link ISpillable}) share a memory budget of memoryLimit,
+     *   and spill the tuples which don't fit in it to temporary files.
+     * 
+     * @param pipelined, whether each operator should run on its own worker
+     * @param parallelism, the number of copies of each stateless operator
+     * @param memoryLimit, the memory (estimated in bytes) the buffered tuples of the plan can take
+     * @return the plan generated from the operator graph
+     * @throws PlanGenException, if the operator graph is invalid.
+     */
+    public Plan buildQueryPlan(boolean pipelined, int parallelism, long memoryLimit) throws PlanGenException {
+        PlanGenUtils.planGenAssert(parallelism >= 1, "parallelism must be at least 1, got " + parallelism);
+        PlanGenUtils.planGenAssert(memoryLimit >= 0, "memory limit must be at least 0, got " + memoryLimit);
+        // the memory budget shared by the operators and connectors of the plan
+        MemoryBudget memoryBudget = new MemoryBudget(memoryLimit);
+        buildOperators(parallelism);
         validateOperatorGraph();
-        connectOperators(operatorObjectMap);
+        pushDownProjections();
+        setMemoryBudgets(memoryBudget);
+        List<PipelineStage> pipelineStages = connectOperators(operatorObjectMap, pipelined, memoryBudget);
 
         ISink sink = findSinkOperator(operatorObjectMap);
         
-        Plan queryPlan = new Plan(sink);
+        Plan queryPlan = new Plan(sink, pipelineStages);
         return queryPlan;
     }
     
@@ -261,13 +326,115 @@ public class LogicalPlan {
      * Build the operator objects from operator properties.
      */
     private void buildOperators() throws PlanGenException {
+        buildOperators(1);
+    }
+    
+    /*
+     * Build the operator objects from operator properties, 
+     *   stateless operators are wrapped in a ParallelOperator if parallelism is greater than 1.
+     */
+    private void buildOperators(int parallelism) throws PlanGenException {
         operatorObjectMap = new HashMap<>();
         for (String operatorID : operatorPredicateMap.keySet()) {
-            IOperator operator = operatorPredicateMap.get(operatorID).newOperator();
+            PredicateBase predicate = operatorPredicateMap.get(operatorID);
+            IOperator operator;
+            if (parallelism > 1 && ParallelOperator.isParallelizable(predicate)) {
+                operator = new ParallelOperator(
+                        () -> (AbstractSingleInputOperator) ParallelOperator.copyPredicate(predicate).newOperator(),
+                        parallelism, true);
+            } else {
+                operator = predicate.newOperator();
+            }
             operatorObjectMap.put(operatorID, operator);
         }
     }
 
+    /*
+     * Tells every source operator which supports projection pushdown 
+     *   the attributes needed by its downstream operators, so that it doesn't read the other attributes.
+     * 
+     * This function assumes that the operator graph is valid.
+     */
+    private void pushDownProjections() {
+        for (String operatorID : adjacencyList.keySet()) {
+            IOperator operator = operatorObjectMap.get(operatorID);
+            if (! (operator instanceof IProjectionPushdown)) {
+                continue;
+            }
+            Set<String> requiredAttributes = getRequiredOutputAttributes(operatorID);
+            if (requiredAttributes != null) {
+                ((IProjectionPushdown) operator).setRequiredAttributes(requiredAttributes);
+            }
+        }
+    }
+    
+    /*
+     * Passes the memory budget of the plan to every operator which buffers tuples.
+     */
+    private void setMemoryBudgets(MemoryBudget memoryBudget) {
+        for (IOperator operator : operatorObjectMap.values()) {
+            if (operator instanceof ISpillable) {
+                ((ISpillable) operator).setMemoryBudget(memoryBudget);
+            }
+        }
+    }
+    
+    /*
+     * Returns the attributes of an operator's output which are needed by its downstream operators,
+     *   or null if all the attributes might be needed.
+     */
+    private Set<String> getRequiredOutputAttributes(String operatorID) {
+        LinkedHashSet<String> outputOperatorIDs = adjacencyList.get(operatorID);
+        if (outputOperatorIDs.isEmpty()) {
+            return null;
+        }
+        Set<String> requiredAttributes = new HashSet<>();
+        for (String outputOperatorID : outputOperatorIDs) {
+            Set<String> requiredInputAttributes = getRequiredInputAttributes(outputOperatorID);
+            if (requiredInputAttributes == null) {
+                return null;
+            }
+            requiredAttributes.addAll(requiredInputAttributes);
+        }
+        return requiredAttributes;
+    }
+    
+    /*
+     * Returns the attributes of an operator's input which are needed by the operator and its downstream operators,
+     *   or null if all the attributes might be needed.
+     * 
+     * Only the projection operator and the matchers (which only read their own attributes 
+     *   and pass the other attributes through) are known, all the other operators might need all the attributes.
+     */
+    private Set<String> getRequiredInputAttributes(String operatorID) {
+        PredicateBase predicate = operatorPredicateMap.get(operatorID);
+        if (predicate instanceof ProjectionPredicate) {
+            return new HashSet<>(((ProjectionPredicate) predicate).getProjectionFields());
+        }
+        
+        List<String> attributesToRead;
+        if (predicate instanceof KeywordPredicate) {
+            attributesToRead = ((KeywordPredicate) predicate).getAttributeNames();
+        } else if (predicate instanceof RegexPredicate) {
+            attributesToRead = ((RegexPredicate) predicate).getAttributeNames();
+        } else if (predicate instanceof DictionaryPredicate) {
+            attributesToRead = ((DictionaryPredicate) predicate).getAttributeNames();
+        } else if (predicate instanceof FuzzyTokenPredicate) {
+            attributesToRead = ((FuzzyTokenPredicate) predicate).getAttributeNames();
+        } else if (predicate instanceof ComparablePredicate) {
+            attributesToRead = Arrays.asList(((ComparablePredicate) predicate).getAttributeName());
+        } else {
+            return null;
+        }
+        
+        Set<String> requiredAttributes = getRequiredOutputAttributes(operatorID);
+        if (requiredAttributes == null) {
+            return null;
+        }
+        requiredAttributes.addAll(attributesToRead);
+        return requiredAttributes;
+    }
+
     /*
      * Validates the operator graph.
      * The operator graph must meet all of the following requirements:
@@ -460,15 +627,39 @@ public class LogicalPlan {
      * the corresponding "setInputOperator" function to connect operators.
      */
     private void connectOperators(HashMap<String, IOperator> operatorObjectMap) throws PlanGenException {
+        connectOperators(operatorObjectMap, false, new MemoryBudget());
+    }
+    
+    /*
+     * Connects IOperator objects together according to the operator graph.
+     * 
+     * If pipelined is true, the output of every operator is wrapped in a PipelineStage before 
+     *   it's connected to its consumer(s). For an operator with multiple outputs, 
+     *   the stage is placed before the OneToNBroadcastConnector.
+     * 
+     * The OneToNBroadcastConnectors added share the memory budget of the plan.
+     * 
+     * Returns the list of pipeline stages created.
+     */
+    private List<PipelineStage> connectOperators(HashMap<String, IOperator> operatorObjectMap, boolean pipelined,
+            MemoryBudget memoryBudget) throws PlanGenException {
         //System.out.println("3.1.connectOperators");
+        List<PipelineStage> pipelineStages = new ArrayList<>();
         for (String vertex : adjacencyList.keySet()) {
             IOperator currentOperator = operatorObjectMap.get(vertex);
             int outputArity = adjacencyList.get(vertex).size();
             
+            if (pipelined && outputArity > 0) {
+                PipelineStage pipelineStage = new PipelineStage(currentOperator);
+                pipelineStages.add(pipelineStage);
+                currentOperator = pipelineStage;
+            }
+            
             // automatically adds a OneToNBroadcastConnector if the output arity > 1
             if (outputArity > 1) {
                 OneToNBroadcastConnector oneToNConnector = new OneToNBroadcastConnector(outputArity);
                 oneToNConnector.setInputOperator(currentOperator);
+                oneToNConnector.setMemoryBudget(memoryBudget);
                 int counter = 0;
                 for (String adjacentVertex : adjacencyList.get(vertex)) {
                     IOperator adjacentOperator = operatorObjectMap.get(adjacentVertex);
@@ -482,6 +673,7 @@ public class LogicalPlan {
                 }
             }         
         }
+        return pipelineStages;
     }
 
     /*
@@ -496,6 +688,13 @@ public class LogicalPlan {
             } else {
                 join.setOuterInputOperator(src);
             }
+        } else if (dest instanceof HashJoin) {
+            HashJoin hashJoin = (HashJoin) dest;
+            if (hashJoin.getInnerInputOperator() == null) {
+                hashJoin.setInnerInputOperator(src);
+            } else {
+                hashJoin.setOuterInputOperator(src);
+            }
         // invokes "setInputOperator" for all other operators
         } else {
             try {
@@ -11,6 +11,7 @@ import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionaryPredicate;
 import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionarySourcePredicate;
 import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenPredicate;
 import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenSourcePredicate;
+import edu.uci.ics.texera.dataflow.join.HashJoinPredicate;
 import edu.uci.ics.texera.dataflow.join.JoinDistancePredicate;
 import edu.uci.ics.texera.dataflow.join.SimilarityJoinPredicate;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordPredicate;
@@ -57,6 +58,7 @@ public class OperatorArityConstants {
 
         fixedInputArityMap.put(JoinDistancePredicate.class, 2);
         fixedInputArityMap.put(SimilarityJoinPredicate.class, 2);
+        fixedInputArityMap.put(HashJoinPredicate.class, 2);
 
         fixedInputArityMap.put(NlpEntityPredicate.class, 1);
         fixedInputArityMap.put(NlpSentimentPredicate.class, 1);
@@ -98,6 +100,7 @@ public class OperatorArityConstants {
 
         fixedOutputArityMap.put(JoinDistancePredicate.class, 1);
         fixedOutputArityMap.put(SimilarityJoinPredicate.class, 1);
+        fixedOutputArityMap.put(HashJoinPredicate.class, 1);
 
         fixedOutputArityMap.put(NlpEntityPredicate.class, 1);
         fixedOutputArityMap.put(NlpSentimentPredicate.class, 1);
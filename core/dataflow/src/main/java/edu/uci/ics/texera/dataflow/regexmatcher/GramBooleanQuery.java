@@ -50,10 +50,16 @@ public class GramBooleanQuery {
      *            existing query tree
      * @param list,
      *            a list of strings to be combined with the query tree
+     * @param gramLength,
+     *            the length of the grams the strings are split into
      * @return new query tree
      */
+    static GramBooleanQuery combine(GramBooleanQuery query, List<String> list, int gramLength) {
+        return computeConjunction(query, listNode(list, gramLength));
+    }
+
     static GramBooleanQuery combine(GramBooleanQuery query, List<String> list) {
-        return computeConjunction(query, listNode(list));
+        return combine(query, list, TranslatorUtils.DEFAULT_GRAM_LENGTH);
     }
 
     /*
@@ -64,14 +70,14 @@ public class GramBooleanQuery {
      * 
      * The relation of strings in a list is OR. <br>
      */
-    private static GramBooleanQuery listNode(List<String> literalList) {
-        if (TranslatorUtils.minLenOfString(literalList) < TranslatorUtils.GRAM_LENGTH) {
+    private static GramBooleanQuery listNode(List<String> literalList, int gramLength) {
+        if (TranslatorUtils.minLenOfString(literalList) < gramLength) {
             return new GramBooleanQuery(QueryOp.ANY);
         }
 
         GramBooleanQuery listNode = new GramBooleanQuery(QueryOp.OR);
         for (String literal : literalList) {
-            listNode.subQuerySet.add(literalNode(literal));
+            listNode.subQuerySet.add(literalNode(literal, gramLength));
         }
         return listNode;
     }
@@ -84,9 +90,9 @@ public class GramBooleanQuery {
      * 
      * The relation of grams in a string is AND. <br>
      */
-    private static GramBooleanQuery literalNode(String literal) {
+    private static GramBooleanQuery literalNode(String literal, int gramLength) {
         GramBooleanQuery literalNode = new GramBooleanQuery(QueryOp.AND);
-        for (String gram : literalToNGram(literal)) {
+        for (String gram : literalToNGram(literal, gramLength)) {
             literalNode.subQuerySet.add(newLeafNode(gram));
         }
         return literalNode;
@@ -98,9 +104,8 @@ public class GramBooleanQuery {
      * list. <br> For example, for literal "texera", its tri-gram list should be
      * ["tex", "ext", "xtd", "tdb"]
      */
-    private static List<String> literalToNGram(String literal) {
+    private static List<String> literalToNGram(String literal, int gramLength) {
         ArrayList<String> nGrams = new ArrayList<>();
-        int gramLength = TranslatorUtils.GRAM_LENGTH;
         if (literal.length() >= gramLength) {
             for (int i = 0; i <= literal.length() - gramLength; ++i) {
                 nGrams.add(literal.substring(i, i + gramLength));
@@ -0,0 +1,66 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import edu.uci.ics.texera.api.exception.TexeraException;
+
+/**
+ * RegexEngine: the engine which matches a regex without labels. <br>
+ * 
+ * JAVA (default): <br>
+ * java.util.regex, which supports all the java regex syntax, including back references and look-arounds,
+ * but it backtracks, and some regexes take exponential time on long documents. <br>
+ * 
+ * RE2J: <br>
+ * com.google.re2j, which runs in linear time of the document size, 
+ * but doesn't support back references, look-arounds, and possessive quantifiers. <br>
+ * 
+ * AUTO: <br>
+ * Uses re2j if it supports the regex and doesn't use a construct where the engines differ,
+ * otherwise uses java regex. <br>
+ * 
+ * The engines differ in: <br>
+ * "." (re2j only excludes "\n", java regex also excludes "\r", U+0085, U+2028 and U+2029), <br>
+ * "$" (java regex also matches before a line terminator at the end of the text), <br>
+ * "\s" (java regex also matches U+000B), "\v" (re2j only matches U+000B), 
+ * "\b" (java regex may treat non-ASCII letters as word chars), <br>
+ * ignoring case (re2j folds Unicode, for example "k" matches the Kelvin sign U+212A, java regex only folds ASCII), <br>
+ * inline flags like "(?i)" and "(?m)", which change the constructs above, <br>
+ * nested classes and intersections like "[a-z&&[^aeiou]]" (re2j reads "[" and "&" as chars of the class). <br>
+ * 
+ */
+public enum RegexEngine {
+    
+    JAVA(RegexEngineName.JAVA),
+    
+    RE2J(RegexEngineName.RE2J),
+    
+    AUTO(RegexEngineName.AUTO);
+    
+    public final String name;
+    
+    private RegexEngine(String name) {
+        this.name = name;
+    }
+    
+    // use the name string instead of enum string in JSON
+    @JsonValue
+    public String getName() {
+        return this.name;
+    }
+    
+    public static RegexEngine fromName(String name) {
+        for (RegexEngine regexEngine : RegexEngine.values()) {
+            if (name.equalsIgnoreCase(regexEngine.getName()) || name.equalsIgnoreCase(regexEngine.toString())) {
+                return regexEngine;
+            }
+        }
+        throw new TexeraException("Cannot convert " + name + " to RegexEngine");
+    }
+    
+    public class RegexEngineName {
+        public static final String JAVA = "java";
+        public static final String RE2J = "re2j";
+        public static final String AUTO = "auto";
+    }
+}
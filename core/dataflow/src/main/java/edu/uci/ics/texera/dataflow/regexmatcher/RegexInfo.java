@@ -18,6 +18,8 @@ class RegexInfo {
     List<String> prefix = null;
     List<String> suffix = null;
     GramBooleanQuery match = null;
+    // the length of the grams in the query tree
+    final int gramLength;
 
     /**
      * This initializes RegexInfo: <br>
@@ -25,11 +27,12 @@ class RegexInfo {
      * exact, prefix, suffix to empty ArrayList <br>
      * match with operator ANY <br>
      */
-    RegexInfo() {
-        this(GramBooleanQuery.QueryOp.ANY);
+    RegexInfo(int gramLength) {
+        this(GramBooleanQuery.QueryOp.ANY, gramLength);
     }
 
-    RegexInfo(GramBooleanQuery.QueryOp operator) {
+    RegexInfo(GramBooleanQuery.QueryOp operator, int gramLength) {
+        this.gramLength = gramLength;
         emptyable = false;
         exact = new ArrayList<String>();
         prefix = new ArrayList<String>();
@@ -42,8 +45,8 @@ class RegexInfo {
      *         shouldn't be called unless something goes wrong. It is used to
      *         handle error cases.
      */
-    static RegexInfo matchNone() {
-        RegexInfo regexInfo = new RegexInfo(GramBooleanQuery.QueryOp.NONE);
+    static RegexInfo matchNone(int gramLength) {
+        RegexInfo regexInfo = new RegexInfo(GramBooleanQuery.QueryOp.NONE, gramLength);
         return regexInfo;
     }
 
@@ -51,8 +54,8 @@ class RegexInfo {
      * 
      * @return RegexInfo describing a regex that matches ANY string
      */
-    static RegexInfo matchAny() {
-        RegexInfo regexInfo = new RegexInfo(GramBooleanQuery.QueryOp.ANY);
+    static RegexInfo matchAny(int gramLength) {
+        RegexInfo regexInfo = new RegexInfo(GramBooleanQuery.QueryOp.ANY, gramLength);
         regexInfo.emptyable = true;
         regexInfo.prefix.add("");
         regexInfo.suffix.add("");
@@ -63,8 +66,8 @@ class RegexInfo {
      * 
      * @return RegexInfo describing a regex that matches an EMPTY string
      */
-    static RegexInfo emptyString() {
-        RegexInfo regexInfo = new RegexInfo(GramBooleanQuery.QueryOp.ANY);
+    static RegexInfo emptyString(int gramLength) {
+        RegexInfo regexInfo = new RegexInfo(GramBooleanQuery.QueryOp.ANY, gramLength);
         regexInfo.emptyable = true;
         regexInfo.exact.add("");
         return regexInfo;
@@ -75,8 +78,8 @@ class RegexInfo {
      *         For anyChar, prefix, suffix, and exact are null (unknown),
      *         because we don't know the exact character.
      */
-    static RegexInfo anyChar() {
-        RegexInfo regexInfo = new RegexInfo(GramBooleanQuery.QueryOp.ANY);
+    static RegexInfo anyChar(int gramLength) {
+        RegexInfo regexInfo = new RegexInfo(GramBooleanQuery.QueryOp.ANY, gramLength);
         regexInfo.emptyable = false;
         return regexInfo;
     }
@@ -105,14 +108,13 @@ class RegexInfo {
      */
     RegexInfo simplify(boolean force) {
         TranslatorUtils.removeDuplicateAffix(exact, false);
-        int gramLength = TranslatorUtils.GRAM_LENGTH;
 
         if (exact.size() > TranslatorUtils.MAX_EXACT_SIZE
                 || (TranslatorUtils.minLenOfString(exact) >= gramLength && force)
                 || TranslatorUtils.minLenOfString(exact) >= gramLength + 1) {
             // Add exact to match (query tree)
             // Transfer information from exact to prefix and suffix
-            match = GramBooleanQuery.combine(match, exact);
+            match = GramBooleanQuery.combine(match, exact, gramLength);
             for (String str : exact) {
                 if (str.length() < gramLength) {
                     prefix.add(str);
@@ -150,10 +152,9 @@ class RegexInfo {
      */
     void simplifyAffix(List<String> strList, boolean isSuffix) {
         TranslatorUtils.removeDuplicateAffix(strList, isSuffix);
-        int gramLength = TranslatorUtils.GRAM_LENGTH;
 
         // Add the current prefix/suffix set to "match" query.
-        match = GramBooleanQuery.combine(match, strList);
+        match = GramBooleanQuery.combine(match, strList, gramLength);
 
         // This loop reduces the length of prefix/suffix. It cuts all
         // strings longer than {@code gramLength}, and continues to cut strings
@@ -192,4 +193,4 @@ class RegexInfo {
 
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
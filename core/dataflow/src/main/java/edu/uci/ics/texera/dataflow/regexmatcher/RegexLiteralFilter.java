@@ -0,0 +1,365 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.google.re2j.PublicParser;
+import com.google.re2j.PublicRE2;
+import com.google.re2j.PublicRegexp;
+import com.google.re2j.PublicSimplify;
+
+import edu.uci.ics.texera.dataflow.dictionarymatcher.ACAutomaton;
+
+/**
+ * RegexLiteralFilter rejects the field values which can't match a regex without running the regex,
+ *   by checking the literals which every match of the regex must contain.
+ *
+ * For example, every match of "\d+ mg of (aspirin|ibuprofen)" contains either " mg of aspirin" or " mg of ibuprofen",
+ *   so a field value containing neither of them is rejected by a single scan.
+ *   One literal is searched with String.indexOf(), several literals with an aho-corasick automaton.
+ *
+ * The literals are extracted from the abstract syntax tree parsed by re2j,
+ *   the same tree RegexToGramQueryTranslator translates to a gram query.
+ * The filter is conservative: it never rejects a field value the regex matches.
+ *   A regex re2j can't parse, or which java regex reads differently from re2j
+ *   (octal escapes, "\v", nested or intersected character classes), gets no filter.
+ *
+ */
+public class RegexLiteralFilter {
+
+    // the literals of a concatenation are expanded up to this many strings (e.g. "[ab]c[de]" to 4 strings)
+    private static final int MAX_EXACT_SIZE = 16;
+    // a character class of more characters isn't expanded
+    private static final int MAX_CHAR_CLASS_SIZE = 4;
+    // a disjunction of more literals isn't used as a filter
+    private static final int MAX_LITERAL_SET_SIZE = 64;
+    // shorter literals hardly reject any field value
+    private static final int MIN_LITERAL_LENGTH = 2;
+
+    /*
+     * What the analysis knows about a sub-regex:
+     *   exact: all the strings the sub-regex matches, or null if there are too many of them.
+     *   required: a set of literals, one of which every match of the sub-regex contains, or null if none is known.
+     */
+    private static class LiteralInfo {
+        List<String> exact;
+        List<String> required;
+
+        static LiteralInfo none() {
+            return new LiteralInfo();
+        }
+
+        static LiteralInfo exact(List<String> exact) {
+            LiteralInfo info = new LiteralInfo();
+            info.exact = exact;
+            return info;
+        }
+
+        static LiteralInfo required(List<String> required) {
+            LiteralInfo info = new LiteralInfo();
+            info.required = required;
+            return info;
+        }
+
+        List<String> best() {
+            return exact != null ? exact : required;
+        }
+    }
+
+    private final List<String> literals;
+    private final boolean caseInsensitive;
+    private final ACAutomaton literalAutomaton;
+
+    private RegexLiteralFilter(List<String> literals, boolean caseInsensitive) {
+        this.literals = Collections.unmodifiableList(literals);
+        this.caseInsensitive = caseInsensitive;
+        this.literalAutomaton = (literals.size() == 1 && ! caseInsensitive) ? null : new ACAutomaton(literals, caseInsensitive);
+    }
+
+    /**
+     * Builds the filter of a regex.
+     *
+     * @param regex, the java regex
+     * @param ignoreCase, if the regex is matched case insensitively
+     * @return the filter, or null if the regex has no literal worth checking
+     */
+    public static RegexLiteralFilter create(String regex, boolean ignoreCase) {
+        if (hasJavaOnlySyntax(regex)) {
+            return null;
+        }
+        PublicRegexp re;
+        try {
+            int flags = ignoreCase ? PublicRE2.PERL | PublicRE2.FOLD_CASE : PublicRE2.PERL;
+            re = PublicSimplify.simplify(PublicParser.parse(regex, flags));
+        } catch (com.google.re2j.PatternSyntaxException e) {
+            return null;
+        }
+
+        // an inline (?i) makes the whole filter case insensitive, which only lets more field values through
+        boolean caseInsensitive = ignoreCase || hasFoldCase(re);
+        List<String> literals = analyze(re, caseInsensitive).best();
+        if (literals == null || literals.isEmpty() || minLength(literals) < MIN_LITERAL_LENGTH) {
+            return null;
+        }
+        return new RegexLiteralFilter(new ArrayList<>(literals), caseInsensitive);
+    }
+
+    /**
+     * @param fieldValue
+     * @return false if the regex can't match the field value, true if it may
+     */
+    public boolean mayMatch(String fieldValue) {
+        if (literalAutomaton == null) {
+            return fieldValue.indexOf(literals.get(0)) >= 0;
+        }
+        return literalAutomaton.matchesAny(fieldValue);
+    }
+
+    /**
+     * @return the literals one of which every match of the regex contains
+     */
+    public List<String> getLiterals() {
+        return literals;
+    }
+
+    public boolean isCaseInsensitive() {
+        return caseInsensitive;
+    }
+
+    private static LiteralInfo analyze(PublicRegexp re, boolean caseInsensitive) {
+        switch (re.getOp()) {
+        case EMPTY_MATCH:
+        case BEGIN_LINE:
+        case END_LINE:
+        case BEGIN_TEXT:
+        case END_TEXT:
+        case WORD_BOUNDARY:
+        case NO_WORD_BOUNDARY:
+            return LiteralInfo.exact(Collections.singletonList(""));
+        case LITERAL: {
+            // re2j keeps the smallest rune of the case folding orbit of a case insensitive literal,
+            //   which is only the upper case of the original rune for ascii
+            boolean foldCase = (re.getFlags() & PublicRE2.FOLD_CASE) != 0;
+            StringBuilder literal = new StringBuilder();
+            for (int rune : re.getRunes()) {
+                if (foldCase && rune > 127) {
+                    return LiteralInfo.none();
+                }
+                literal.appendCodePoint(rune);
+            }
+            return LiteralInfo.exact(Collections.singletonList(fold(literal.toString(), caseInsensitive)));
+        }
+        case CHAR_CLASS:
+            return analyzeCharClass(re.getRunes(), caseInsensitive);
+        case CAPTURE:
+            return analyze(re.getSubs()[0], caseInsensitive);
+        case CONCAT:
+            return analyzeConcat(re.getSubs(), caseInsensitive);
+        case ALTERNATE:
+            return analyzeAlternate(re.getSubs(), caseInsensitive);
+        case QUEST: {
+            List<String> subExact = analyze(re.getSubs()[0], caseInsensitive).exact;
+            return subExact == null ? LiteralInfo.none() : LiteralInfo.exact(union(subExact, Collections.singletonList("")));
+        }
+        case PLUS:
+            return LiteralInfo.required(analyze(re.getSubs()[0], caseInsensitive).best());
+        case REPEAT:
+            if (re.getMin() == 0) {
+                return LiteralInfo.none();
+            }
+            return LiteralInfo.required(analyze(re.getSubs()[0], caseInsensitive).best());
+        default:
+            // STAR, ANY_CHAR, ANY_CHAR_NOT_NL, NO_MATCH
+            return LiteralInfo.none();
+        }
+    }
+
+    /*
+     * A class with a whitespace isn't expanded, because java's "\s" has one more char ("\x0B") than re2j's,
+     *   e.g. "[^\S\n]" would be 4 chars in re2j but 5 in java.
+     */
+    private static LiteralInfo analyzeCharClass(int[] runes, boolean caseInsensitive) {
+        Set<String> chars = new LinkedHashSet<>();
+        for (int i = 0; i + 1 < runes.length; i += 2) {
+            if (runes[i + 1] - runes[i] >= MAX_CHAR_CLASS_SIZE * 2) {
+                return LiteralInfo.none();
+            }
+            for (int rune = runes[i]; rune <= runes[i + 1]; rune++) {
+                if (Character.isWhitespace(rune)) {
+                    return LiteralInfo.none();
+                }
+                chars.add(fold(new String(Character.toChars(rune)), caseInsensitive));
+            }
+        }
+        if (chars.isEmpty() || chars.size() > MAX_CHAR_CLASS_SIZE) {
+            return LiteralInfo.none();
+        }
+        return LiteralInfo.exact(new ArrayList<>(chars));
+    }
+
+    /*
+     * The exact strings of consecutive sub-regexes are multiplied as long as the product is small,
+     *   the best of those products and of the literals required by the sub-regexes is required by the concatenation.
+     */
+    private static LiteralInfo analyzeConcat(PublicRegexp[] subs, boolean caseInsensitive) {
+        List<String> run = Collections.singletonList("");
+        List<String> best = null;
+        boolean allExact = true;
+        for (PublicRegexp sub : subs) {
+            LiteralInfo subInfo = analyze(sub, caseInsensitive);
+            if (run != null && subInfo.exact != null && run.size() * subInfo.exact.size() <= MAX_EXACT_SIZE) {
+                run = product(run, subInfo.exact);
+                continue;
+            }
+            allExact = false;
+            best = better(best, run);
+            best = better(best, subInfo.best());
+            run = subInfo.exact;
+        }
+        if (allExact) {
+            return LiteralInfo.exact(run);
+        }
+        return LiteralInfo.required(better(best, run));
+    }
+
+    /*
+     * Every match of an alternation contains a literal required by one of the alternatives.
+     */
+    private static LiteralInfo analyzeAlternate(PublicRegexp[] subs, boolean caseInsensitive) {
+        List<String> exact = Collections.emptyList();
+        List<String> required = Collections.emptyList();
+        for (PublicRegexp sub : subs) {
+            LiteralInfo subInfo = analyze(sub, caseInsensitive);
+            exact = (exact == null || subInfo.exact == null) ? null : union(exact, subInfo.exact);
+            required = (required == null || subInfo.best() == null) ? null : union(required, subInfo.best());
+            if (exact != null && exact.size() > MAX_EXACT_SIZE) {
+                exact = null;
+            }
+            if (required != null && required.size() > MAX_LITERAL_SET_SIZE) {
+                required = null;
+            }
+        }
+        return exact != null ? LiteralInfo.exact(exact) : LiteralInfo.required(required);
+    }
+
+    /*
+     * A set of literals is better if its shortest literal is longer, or if it has fewer literals.
+     *   A set containing the empty string rejects nothing.
+     */
+    private static List<String> better(List<String> x, List<String> y) {
+        if (x == null || x.isEmpty()) {
+            return y;
+        }
+        if (y == null || y.isEmpty()) {
+            return x;
+        }
+        int xLength = minLength(x);
+        int yLength = minLength(y);
+        if (xLength != yLength) {
+            return xLength > yLength ? x : y;
+        }
+        return x.size() <= y.size() ? x : y;
+    }
+
+    private static List<String> product(List<String> x, List<String> y) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String xStr : x) {
+            for (String yStr : y) {
+                result.add(xStr + yStr);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static List<String> union(List<String> x, List<String> y) {
+        Set<String> result = new LinkedHashSet<>(x);
+        result.addAll(y);
+        return new ArrayList<>(result);
+    }
+
+    private static int minLength(List<String> strings) {
+        int minLength = Integer.MAX_VALUE;
+        for (String str : strings) {
+            minLength = Math.min(minLength, str.length());
+        }
+        return minLength;
+    }
+
+    /*
+     * Folds the case the same way as ACAutomaton, one char at a time.
+     */
+    private static String fold(String str, boolean caseInsensitive) {
+        if (! caseInsensitive) {
+            return str;
+        }
+        char[] folded = new char[str.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = Character.toLowerCase(str.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    private static boolean hasFoldCase(PublicRegexp re) {
+        if ((re.getFlags() & PublicRE2.FOLD_CASE) != 0) {
+            return true;
+        }
+        if (re.getSubs() != null) {
+            for (PublicRegexp sub : re.getSubs()) {
+                if (hasFoldCase(sub)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Checks the syntax which java regex and re2j both accept but read differently:
+     *   octal escapes ("\0101" is "A" in java), "\v" (any vertical whitespace in java),
+     *   and nested ("[a[b]]") or intersected ("[a-z&&[^b]]") character classes.
+     */
+    static boolean hasJavaOnlySyntax(String regex) {
+        boolean inCharClass = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\' && i + 1 < regex.length()) {
+                char escaped = regex.charAt(++i);
+                if (escaped == '0' || escaped == 'v') {
+                    return true;
+                }
+                if (escaped == 'Q') {
+                    int quoteEnd = regex.indexOf("\\E", i + 1);
+                    i = quoteEnd < 0 ? regex.length() : quoteEnd + 1;
+                }
+            } else if (! inCharClass && c == '[') {
+                inCharClass = true;
+                // a "]" right after "[" or "[^" is a literal
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (inCharClass && c == '[') {
+                if (i + 1 >= regex.length() || regex.charAt(i + 1) != ':') {
+                    return true;
+                }
+                // a posix class like [:alpha:]
+                int posixEnd = regex.indexOf(":]", i + 2);
+                if (posixEnd < 0) {
+                    return true;
+                }
+                i = posixEnd + 1;
+            } else if (inCharClass && c == '&' && i + 1 < regex.length() && regex.charAt(i + 1) == '&') {
+                return true;
+            } else if (inCharClass && c == ']') {
+                inCharClass = false;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,198 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.uci.ics.texera.api.exception.DataflowException;
+
+/**
+ * RegexMatchBudget bounds the work of a regex operator on one tuple,
+ *   by a time limit, and/or a limit on the number of steps of the regex engine.
+ *
+ * The field values are matched through a CharSequence wrapper (see limit()),
+ *   a step is one character read by the regex engine, so a backtracking java regex
+ *   counts the characters it reads again, and the linear-time re2j engine counts about one step per character.
+ * The wrapper checks the clock every CLOCK_CHECK_INTERVAL steps,
+ *   and throws an Overrun from inside the engine when the budget of the tuple runs out.
+ *
+ * An operator calls startTuple() before matching the regexes on a tuple, and handleOverrun() when it catches an Overrun,
+ *   which counts the overrun and decides what to do with the tuple by the overrun action ({@code RegexOverrunAction}).
+ * The counters of the overruns are kept for the lifetime of the operator.
+ *
+ * A RegexMatchBudget is used by one operator, it's not thread-safe.
+ */
+public class RegexMatchBudget {
+
+    // the clock is checked once every this many steps
+    public static final int CLOCK_CHECK_INTERVAL = 1024;
+
+    /**
+     * Thrown from inside the regex engine when the budget of a tuple runs out.
+     * It doesn't fill in the stack trace, which would be as deep as the backtracking of the engine.
+     */
+    public static class Overrun extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private Overrun(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    // 0 means no limit
+    private final long timeoutMillis;
+    private final long stepLimit;
+    private final RegexOverrunAction overrunAction;
+
+    // the steps and the deadline of the current tuple
+    private long steps = 0;
+    private long deadline = 0;
+
+    private long overrunCount = 0;
+    private long skippedTupleCount = 0;
+    private long truncatedTupleCount = 0;
+
+    /**
+     * @param timeoutMillis, the time limit of a tuple in milliseconds, null or 0 for no limit
+     * @param stepLimit, the limit of the steps of a tuple, null or 0 for no limit
+     * @param overrunAction, what to do with a tuple over the budget, null for skipping the tuple
+     */
+    public RegexMatchBudget(Integer timeoutMillis, Integer stepLimit, RegexOverrunAction overrunAction) {
+        if ((timeoutMillis != null && timeoutMillis < 0) || (stepLimit != null && stepLimit < 0)) {
+            throw new DataflowException("the time limit and the step limit of a regex match must not be negative");
+        }
+        this.timeoutMillis = timeoutMillis == null ? 0 : timeoutMillis;
+        this.stepLimit = stepLimit == null ? 0 : stepLimit;
+        this.overrunAction = overrunAction == null ? RegexOverrunAction.SKIP : overrunAction;
+    }
+
+    /**
+     * @return true if the budget has a time limit or a step limit
+     */
+    public boolean isLimited() {
+        return timeoutMillis > 0 || stepLimit > 0;
+    }
+
+    /**
+     * Starts the budget of a new tuple, which is shared by all the field values and the regexes matched on the tuple.
+     */
+    public void startTuple() {
+        steps = 0;
+        if (timeoutMillis > 0) {
+            deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        }
+    }
+
+    /**
+     * Returns the text for the regex engine to match on a field value,
+     *   which throws an Overrun when the budget of the current tuple runs out.
+     * If the budget has no limit, the field value itself is returned.
+     *
+     * @param fieldValue
+     * @return
+     */
+    public CharSequence limit(String fieldValue) {
+        if (! isLimited()) {
+            return fieldValue;
+        }
+        return new LimitedCharSequence(fieldValue);
+    }
+
+    /**
+     * Counts an overrun and decides what to do with the tuple by the overrun action.
+     *
+     * @param overrun, the overrun caught by the operator
+     * @return true if the tuple keeps the matches found before the overrun, false if the tuple is skipped
+     * @throws DataflowException, if the overrun action is FAIL
+     */
+    public boolean handleOverrun(Overrun overrun) throws DataflowException {
+        overrunCount++;
+        switch (overrunAction) {
+        case TRUNCATE:
+            truncatedTupleCount++;
+            return true;
+        case FAIL:
+            throw new DataflowException(overrun.getMessage(), overrun);
+        default:
+            skippedTupleCount++;
+            return false;
+        }
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public long getStepLimit() {
+        return stepLimit;
+    }
+
+    public RegexOverrunAction getOverrunAction() {
+        return overrunAction;
+    }
+
+    /**
+     * @return the number of tuples whose regex match exceeded the budget
+     */
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * @return the number of tuples dropped because their regex match exceeded the budget
+     */
+    public long getSkippedTupleCount() {
+        return skippedTupleCount;
+    }
+
+    /**
+     * @return the number of tuples output with the matches found before the budget ran out
+     */
+    public long getTruncatedTupleCount() {
+        return truncatedTupleCount;
+    }
+
+    private void step() {
+        steps++;
+        if (stepLimit > 0 && steps > stepLimit) {
+            throw new Overrun(String.format("the regex match on a tuple exceeded the limit of %d steps", stepLimit));
+        }
+        if (timeoutMillis > 0 && steps % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+            throw new Overrun(String.format("the regex match on a tuple exceeded the time limit of %d ms", timeoutMillis));
+        }
+    }
+
+    /*
+     * A field value which counts the characters read by the regex engine.
+     * The sub-sequences are only taken for the results (for example, Matcher.group()), they are not limited.
+     */
+    private class LimitedCharSequence implements CharSequence {
+
+        private final String value;
+
+        LimitedCharSequence(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int length() {
+            return value.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            step();
+            return value.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return value.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+}
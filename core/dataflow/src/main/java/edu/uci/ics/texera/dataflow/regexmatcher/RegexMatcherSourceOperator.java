@@ -1,6 +1,11 @@
 package edu.uci.ics.texera.dataflow.regexmatcher;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
 import org.apache.lucene.queryparser.classic.ParseException;
@@ -12,12 +17,27 @@ import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.dataflow.common.IProjectionPushdown;
 import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
 import edu.uci.ics.texera.storage.DataReader;
 import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
 
-public class RegexMatcherSourceOperator extends AbstractSingleInputOperator implements ISourceOperator {
+/**
+ * RegexMatcherSourceOperator reads the candidate tuples of a table with a gram query translated from the regex,
+ *   and verifies the regex on them with RegexMatcher.
+ * 
+ * If the table keeps an n-gram index (see RelationManager.createTable()), the regex is translated 
+ *   with the gram length of the n-gram index and the gram query is run on it, whether useIndex is set or not.
+ * Otherwise, if useIndex is set, the gram query (with the default gram length) is run on the table's own index,
+ *   which is only complete if the table's analyzer is an n-gram analyzer of the same length, 
+ *   and if it's not set, all the tuples of the table are read.
+ */
+public class RegexMatcherSourceOperator extends AbstractSingleInputOperator 
+        implements ISourceOperator, IProjectionPushdown {
     
     private final RegexSourcePredicate predicate;
 
@@ -28,13 +48,15 @@ public class RegexMatcherSourceOperator extends AbstractSingleInputOperator impl
         //System.out.println("4.1RegexMatcherSourceOperator");
         this.predicate = predicate;
         
-        if (this.predicate.isUseIndex()) {
+        if (this.predicate.isUseIndex() || getNGramIndexGramLength(this.predicate) > 0) {
             this.dataReader = RelationManager.getInstance().getTableDataReader(this.predicate.getTableName(), 
                     createLuceneQuery(this.predicate));
         } else {
             this.dataReader = RelationManager.getInstance().getTableDataReader(this.predicate.getTableName(), 
                     new MatchAllDocsQuery());
         }
+        // the regex is verified on every candidate document, the ranking of the candidates doesn't matter
+        this.dataReader.setStreaming(true);
         
         regexMatcher = new RegexMatcher(this.predicate);
         regexMatcher.setInputOperator(dataReader);
@@ -52,6 +74,11 @@ public class RegexMatcherSourceOperator extends AbstractSingleInputOperator impl
         return this.regexMatcher.getNextTuple();
     }
 
+    @Override
+    protected TupleBatch computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return this.regexMatcher.getNextBatch(maxSize);
+    }
+
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         return this.regexMatcher.processOneInputTuple(inputTuple);
@@ -61,29 +88,69 @@ public class RegexMatcherSourceOperator extends AbstractSingleInputOperator impl
     protected void cleanUp() throws TexeraException {
     }
     
+    /**
+     * Only the required attributes and the attributes to match on are read from the table.
+     */
+    @Override
+    public void setRequiredAttributes(Collection<String> requiredAttributes) {
+        List<String> attributesToRead = new ArrayList<>(requiredAttributes);
+        attributesToRead.addAll(this.predicate.getAttributeNames());
+        this.dataReader.setRequiredAttributes(attributesToRead);
+    }
+
     public static Query createLuceneQuery(RegexSourcePredicate predicate) throws StorageException {
         Query luceneQuery;
         String queryString;
         
+        int nGramIndexGramLength = getNGramIndexGramLength(predicate);
+        int gramLength = nGramIndexGramLength > 0 ? nGramIndexGramLength : TranslatorUtils.DEFAULT_GRAM_LENGTH;
+        
         // Try to apply translator. If it fails, use scan query.
         try {
-            queryString = RegexToGramQueryTranslator.translate(predicate.getRegex()).getLuceneQueryString();
+            queryString = RegexToGramQueryTranslator.translate(predicate.getRegex(), gramLength).getLuceneQueryString();
         } catch (com.google.re2j.PatternSyntaxException e) {
             queryString = DataflowUtils.LUCENE_SCAN_QUERY;
         }
 
         // Try to parse the query string. It if fails, raise an exception.
         try {
-            luceneQuery = new MultiFieldQueryParser(
-                    predicate.getAttributeNames().stream().toArray(String[]::new), 
-                    RelationManager.getInstance().getTableAnalyzer(predicate.getTableName()))
-                    .parse(queryString);
+            if (nGramIndexGramLength > 0) {
+                luceneQuery = new MultiFieldQueryParser(
+                        predicate.getAttributeNames().stream().map(StorageUtils::getNGramFieldName).toArray(String[]::new),
+                        LuceneAnalyzerConstants.getNGramAnalyzer(nGramIndexGramLength))
+                        .parse(queryString);
+            } else {
+                luceneQuery = new MultiFieldQueryParser(
+                        predicate.getAttributeNames().stream().toArray(String[]::new), 
+                        RelationManager.getInstance().getTableAnalyzer(predicate.getTableName()))
+                        .parse(queryString);
+            }
         } catch (ParseException e) {
             throw new StorageException (e);
         }
         
         return luceneQuery;
     }
+    
+    /*
+     * Returns the gram length of the table's n-gram index if it can filter the tuples for the predicate, 
+     *   which means all the attributes to match on are TEXT attributes, otherwise returns 0.
+     */
+    private static int getNGramIndexGramLength(RegexSourcePredicate predicate) throws StorageException {
+        RelationManager relationManager = RelationManager.getInstance();
+        int nGramIndexGramLength = relationManager.getTableNGramIndexGramLength(predicate.getTableName());
+        if (nGramIndexGramLength == 0) {
+            return 0;
+        }
+        Schema tableSchema = relationManager.getTableSchema(predicate.getTableName());
+        for (String attributeName : predicate.getAttributeNames()) {
+            if (! tableSchema.containsAttribute(attributeName) 
+                    || tableSchema.getAttribute(attributeName).getType() != AttributeType.TEXT) {
+                return 0;
+            }
+        }
+        return nGramIndexGramLength;
+    }
 
     public Schema transformToOutputSchema(Schema... inputSchema) {
         if (inputSchema == null || inputSchema.length == 0) {
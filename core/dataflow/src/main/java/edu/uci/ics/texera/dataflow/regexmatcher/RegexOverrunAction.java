@@ -0,0 +1,55 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import edu.uci.ics.texera.api.exception.TexeraException;
+
+/**
+ * RegexOverrunAction: what a regex operator does with a tuple 
+ * when matching its regexes on the tuple exceeds the budget of the operator ({@code RegexMatchBudget}). <br>
+ * 
+ * SKIP: <br>
+ * The tuple is dropped, as if the regexes had no matches in it. <br>
+ * 
+ * TRUNCATE: <br>
+ * The tuple keeps the matches found before the budget ran out. <br>
+ * 
+ * FAIL: <br>
+ * The operator throws a DataflowException, which fails the plan. <br>
+ * 
+ */
+public enum RegexOverrunAction {
+    
+    SKIP(RegexOverrunActionName.SKIP),
+    
+    TRUNCATE(RegexOverrunActionName.TRUNCATE),
+    
+    FAIL(RegexOverrunActionName.FAIL);
+    
+    public final String name;
+    
+    private RegexOverrunAction(String name) {
+        this.name = name;
+    }
+    
+    // use the name string instead of enum string in JSON
+    @JsonValue
+    public String getName() {
+        return this.name;
+    }
+    
+    public static RegexOverrunAction fromName(String name) {
+        for (RegexOverrunAction overrunAction : RegexOverrunAction.values()) {
+            if (name.equalsIgnoreCase(overrunAction.getName()) || name.equalsIgnoreCase(overrunAction.toString())) {
+                return overrunAction;
+            }
+        }
+        throw new TexeraException("Cannot convert " + name + " to RegexOverrunAction");
+    }
+    
+    public class RegexOverrunActionName {
+        public static final String SKIP = "skip";
+        public static final String TRUNCATE = "truncate";
+        public static final String FAIL = "fail";
+    }
+}
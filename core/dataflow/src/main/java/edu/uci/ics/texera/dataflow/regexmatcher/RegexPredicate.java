@@ -32,6 +32,11 @@ public class RegexPredicate extends PredicateBase {
 
     private String spanListName;
     private final Boolean ignoreCase;
+    private final RegexEngine regexEngine;
+    private final Boolean adaptivePlan;
+    private final Integer timeoutMillis;
+    private final Integer stepLimit;
+    private final RegexOverrunAction overrunAction;
     
     /*
      * This constructor is only for internal use.
@@ -40,14 +45,48 @@ public class RegexPredicate extends PredicateBase {
         this(regex, attributeNames, null, spanListName);
     }
     public RegexPredicate(RegexPredicate that) {
-        this(that.regex, that.attributeNames, that.ignoreCase, that.spanListName);
+        this(that.regex, that.attributeNames, that.ignoreCase, that.regexEngine, that.adaptivePlan,
+                that.timeoutMillis, that.stepLimit, that.overrunAction, that.spanListName);
     }
+    
+    /*
+     * This constructor is for internal use. It's not a JSON entry point.
+     */
+    public RegexPredicate(String regex, List<String> attributeNames, Boolean ignoreCase, String spanListName) {
+        this(regex, attributeNames, ignoreCase, null, spanListName);
+    }
+    
+    /*
+     * This constructor is for internal use. It's not a JSON entry point.
+     */
+    public RegexPredicate(String regex, List<String> attributeNames, Boolean ignoreCase, RegexEngine regexEngine,
+            String spanListName) {
+        this(regex, attributeNames, ignoreCase, regexEngine, null, spanListName);
+    }
+    
+    /*
+     * This constructor is for internal use. It's not a JSON entry point.
+     */
+    public RegexPredicate(String regex, List<String> attributeNames, Boolean ignoreCase, RegexEngine regexEngine,
+            Boolean adaptivePlan, String spanListName) {
+        this(regex, attributeNames, ignoreCase, regexEngine, adaptivePlan, null, null, null, spanListName);
+    }
+    
     /**
      * RegexPredicate is used to create a RegexMatcher.
      * 
      * @param regex, the regex to be used
      * @param attributeNames, a list of attribute names to match regex on
      * @param ignoreCase, optional, ignores regex case, default false
+     * @param regexEngine, optional, the engine to match a regex without labels ({@code RegexEngine}), default java
+     * @param adaptivePlan, optional, matches a regex without labels with a plan of its sub-regexes
+     *   chosen from their statistics ({@code SubRegexPlanOptimizer}), default false
+     * @param timeoutMillis, optional, the time limit of matching the regex on a tuple in milliseconds, 
+     *   default 0 (no limit)
+     * @param stepLimit, optional, the limit of the characters read by the regex engine on a tuple 
+     *   ({@code RegexMatchBudget}), default 0 (no limit)
+     * @param overrunAction, optional, what to do with a tuple over the time or step limit 
+     *   ({@code RegexOverrunAction}), default skip
      * @param spanListName, the name of the attribute where the results will be put in
      */
     @JsonCreator
@@ -63,6 +102,31 @@ public class RegexPredicate extends PredicateBase {
                     defaultValue = "false")
             Boolean ignoreCase,
             
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_ENGINE, required = false,
+                    defaultValue = RegexEngine.RegexEngineName.JAVA)
+            RegexEngine regexEngine,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_ADAPTIVE_PLAN, required = false,
+                    defaultValue = "false")
+            Boolean adaptivePlan,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_TIMEOUT_MILLIS, required = false,
+                    defaultValue = "0")
+            Integer timeoutMillis,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_STEP_LIMIT, required = false,
+                    defaultValue = "0")
+            Integer stepLimit,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_OVERRUN_ACTION, required = false,
+                    defaultValue = RegexOverrunAction.RegexOverrunActionName.SKIP)
+            RegexOverrunAction overrunAction,
+            
             @JsonProperty(value = PropertyNameConstants.SPAN_LIST_NAME, required = false)
             String spanListName) {
         
@@ -77,6 +141,34 @@ public class RegexPredicate extends PredicateBase {
         } else {
             this.ignoreCase = ignoreCase;
         }
+        if (regexEngine == null) {
+            this.regexEngine = RegexEngine.JAVA;
+        } else {
+            this.regexEngine = regexEngine;
+        }
+        if (adaptivePlan == null) {
+            this.adaptivePlan = false;
+        } else {
+            this.adaptivePlan = adaptivePlan;
+        }
+        if (timeoutMillis == null) {
+            this.timeoutMillis = 0;
+        } else {
+            this.timeoutMillis = timeoutMillis;
+        }
+        if (stepLimit == null) {
+            this.stepLimit = 0;
+        } else {
+            this.stepLimit = stepLimit;
+        }
+        if (this.timeoutMillis < 0 || this.stepLimit < 0) {
+            throw new TexeraException("the time limit and the step limit of a regex match must not be negative");
+        }
+        if (overrunAction == null) {
+            this.overrunAction = RegexOverrunAction.SKIP;
+        } else {
+            this.overrunAction = overrunAction;
+        }
         if (spanListName == null || spanListName.trim().isEmpty()) {
             this.spanListName = null;
         } else {
@@ -109,6 +201,31 @@ public class RegexPredicate extends PredicateBase {
     public Boolean isIgnoreCase() {
         return this.ignoreCase;
     }
+    
+    @JsonProperty(PropertyNameConstants.REGEX_ENGINE)
+    public RegexEngine getRegexEngine() {
+        return this.regexEngine;
+    }
+    
+    @JsonProperty(PropertyNameConstants.REGEX_ADAPTIVE_PLAN)
+    public Boolean isAdaptivePlan() {
+        return this.adaptivePlan;
+    }
+    
+    @JsonProperty(PropertyNameConstants.REGEX_TIMEOUT_MILLIS)
+    public Integer getRegexTimeoutMillis() {
+        return this.timeoutMillis;
+    }
+    
+    @JsonProperty(PropertyNameConstants.REGEX_STEP_LIMIT)
+    public Integer getRegexStepLimit() {
+        return this.stepLimit;
+    }
+    
+    @JsonProperty(PropertyNameConstants.REGEX_OVERRUN_ACTION)
+    public RegexOverrunAction getRegexOverrunAction() {
+        return this.overrunAction;
+    }
 
     @Override
     public IOperator newOperator() {
@@ -27,6 +27,35 @@ public class RegexSourcePredicate extends RegexPredicate {
             String spanListName) {
         this(regex, attributeNames, null, tableName, null, spanListName);
     }
+    
+    /*
+     * This constructor is for internal use. It's not a JSON entry point.
+     */
+    public RegexSourcePredicate(
+            String regex, 
+            List<String> attributeNames, 
+            Boolean ignoreCase, 
+            String tableName,
+            Boolean useIndex,
+            String spanListName) {
+        this(regex, attributeNames, ignoreCase, null, null, tableName, useIndex, spanListName);
+    }
+    
+    /*
+     * This constructor is for internal use. It's not a JSON entry point.
+     */
+    public RegexSourcePredicate(
+            String regex, 
+            List<String> attributeNames, 
+            Boolean ignoreCase, 
+            RegexEngine regexEngine,
+            Boolean adaptivePlan,
+            String tableName,
+            Boolean useIndex,
+            String spanListName) {
+        this(regex, attributeNames, ignoreCase, regexEngine, adaptivePlan, null, null, null, 
+                tableName, useIndex, spanListName);
+    }
 
     /**
      * RegexSourcePredicate is used to create a RegexSourceOperator.
@@ -34,6 +63,15 @@ public class RegexSourcePredicate extends RegexPredicate {
      * @param regex, the regex to be used
      * @param attributeNames, a list of attribute names to match regex on
      * @param ignoreCase, optional, ignores regex case, default false
+     * @param regexEngine, optional, the engine to match a regex without labels ({@code RegexEngine}), default java
+     * @param adaptivePlan, optional, matches a regex without labels with a plan of its sub-regexes
+     *   chosen from their statistics ({@code SubRegexPlanOptimizer}), default false
+     * @param timeoutMillis, optional, the time limit of matching the regex on a tuple in milliseconds, 
+     *   default 0 (no limit)
+     * @param stepLimit, optional, the limit of the characters read by the regex engine on a tuple 
+     *   ({@code RegexMatchBudget}), default 0 (no limit)
+     * @param overrunAction, optional, what to do with a tuple over the time or step limit 
+     *   ({@code RegexOverrunAction}), default skip
      * @param tableName, the name of the source table
      * @param useIndex, optional, use the gram-based regex index query, default true
      * @param spanListName, the name of the attribute where the results will be put in
@@ -51,6 +89,31 @@ public class RegexSourcePredicate extends RegexPredicate {
                     defaultValue = "false")
             Boolean ignoreCase, 
             
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_ENGINE, required = false,
+                    defaultValue = RegexEngine.RegexEngineName.JAVA)
+            RegexEngine regexEngine,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_ADAPTIVE_PLAN, required = false,
+                    defaultValue = "false")
+            Boolean adaptivePlan,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_TIMEOUT_MILLIS, required = false,
+                    defaultValue = "0")
+            Integer timeoutMillis,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_STEP_LIMIT, required = false,
+                    defaultValue = "0")
+            Integer stepLimit,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_OVERRUN_ACTION, required = false,
+                    defaultValue = RegexOverrunAction.RegexOverrunActionName.SKIP)
+            RegexOverrunAction overrunAction,
+            
             @JsonProperty(value = PropertyNameConstants.TABLE_NAME, required = true)
             String tableName,
             
@@ -61,7 +124,8 @@ public class RegexSourcePredicate extends RegexPredicate {
             
             @JsonProperty(value = PropertyNameConstants.SPAN_LIST_NAME, required = true)
             String spanListName) {
-        super(regex, attributeNames, ignoreCase, spanListName);
+        super(regex, attributeNames, ignoreCase, regexEngine, adaptivePlan, timeoutMillis, stepLimit, overrunAction, 
+                spanListName);
 
         if (tableName == null || tableName.isEmpty()) {
             throw new TexeraException(PropertyNameConstants.EMPTY_NAME_EXCEPTION);
@@ -38,13 +38,13 @@ public class RegexToGramQueryTranslator {
      * 
      * @param regex,
      *            the regex string to be translated.
+     * @param gramLength,
+     *            the length of the grams in the n-gram index to be queried.
      * @return GamBooleanQeruy, a boolean query of n-grams.
      */
     public static GramBooleanQuery translate(String regex, int gramLength)
             throws com.google.re2j.PatternSyntaxException {
 
-        TranslatorUtils.GRAM_LENGTH = gramLength;
-
         // Since the inverted index relies on lower-case grams, we need to
         // convert the characters to lower case.
         regex = regex.toLowerCase();
@@ -52,11 +52,9 @@ public class RegexToGramQueryTranslator {
         PublicRegexp re = PublicParser.parse(regex, PublicRE2.PERL);
         re = PublicSimplify.simplify(re);
 
-        RegexInfo regexInfo = analyze(re);
+        RegexInfo regexInfo = analyze(re, gramLength);
         regexInfo.simplify(true);
 
-        TranslatorUtils.GRAM_LENGTH = TranslatorUtils.DEFAULT_GRAM_LENGTH;
-
         TranslatorUtils.escapeSpecialCharacters(regexInfo.match);
 
         return regexInfo.match;
@@ -68,10 +66,11 @@ public class RegexToGramQueryTranslator {
      * RE2J, and return a {@code RegexInfo} object for given regex.
      * 
      * @param PublicRegexp
+     * @param gramLength
      * @return RegexInfo
      */
-    private static RegexInfo analyze(PublicRegexp re) {
-        RegexInfo info = new RegexInfo();
+    private static RegexInfo analyze(PublicRegexp re, int gramLength) {
+        RegexInfo info = new RegexInfo(gramLength);
         // FOLD_CASE means case insensitive
         boolean isCaseSensitive = (re.getFlags() & PublicRE2.FOLD_CASE) != PublicRE2.FOLD_CASE;
         switch (re.getOp()) {
@@ -81,7 +80,7 @@ public class RegexToGramQueryTranslator {
         case NO_MATCH:
         case VERTICAL_BAR:
         case LEFT_PAREN: {
-            return RegexInfo.matchNone();
+            return RegexInfo.matchNone(gramLength);
         }
         // The following cases are treated as
         // a regex that matches an empty string.
@@ -92,26 +91,26 @@ public class RegexToGramQueryTranslator {
         case END_LINE:
         case BEGIN_TEXT:
         case END_TEXT: {
-            return RegexInfo.emptyString();
+            return RegexInfo.emptyString(gramLength);
         }
         // A regex that matches any character
         case ANY_CHAR:
         case ANY_CHAR_NOT_NL: {
-            return RegexInfo.anyChar();
+            return RegexInfo.anyChar(gramLength);
         }
         // regexp1 | regexp2
         case ALTERNATE:
-            return fold((x, y) -> alternate(x, y), re.getSubs(), RegexInfo.matchAny());
+            return fold((x, y) -> alternate(x, y), re.getSubs(), RegexInfo.matchAny(gramLength), gramLength);
         // regexp1 regexp2
         case CONCAT:
-            return fold((x, y) -> concat(x, y), re.getSubs(), RegexInfo.matchNone());
+            return fold((x, y) -> concat(x, y), re.getSubs(), RegexInfo.matchNone(gramLength), gramLength);
         // (regexp1)
         case CAPTURE:
-            return analyze(re.getSubs()[0]).simplify(false);
+            return analyze(re.getSubs()[0], gramLength).simplify(false);
         // [a-z]
         case CHAR_CLASS:
             if (re.getRunes().length == 0) {
-                return RegexInfo.matchNone();
+                return RegexInfo.matchNone(gramLength);
             } else if (re.getRunes().length == 1) {
                 String exactStr;
                 if (isCaseSensitive) {
@@ -135,7 +134,7 @@ public class RegexToGramQueryTranslator {
                 count += re.getRunes()[i + 1] - re.getRunes()[i];
                 // If the class is too large, it's okay to overestimate.
                 if (count > 100) {
-                    return RegexInfo.matchAny();
+                    return RegexInfo.matchAny(gramLength);
                 }
 
                 for (int codePoint = re.getRunes()[i]; codePoint <= re.getRunes()[i + 1]; codePoint++) {
@@ -147,7 +146,7 @@ public class RegexToGramQueryTranslator {
         // abcd
         case LITERAL:
             if (re.getRunes().length == 0) {
-                return RegexInfo.emptyString();
+                return RegexInfo.emptyString(gramLength);
             }
             // convert runes to string
             String literal = "";
@@ -160,7 +159,7 @@ public class RegexToGramQueryTranslator {
                     literal += Character.toString((char) rune).toLowerCase();
                 }
             }
-            info = new RegexInfo();
+            info = new RegexInfo(gramLength);
             info.exact.add(literal);
             info.simplify(false);
             return info;
@@ -170,7 +169,7 @@ public class RegexToGramQueryTranslator {
             // When min is greater than zero, we treat REPEAT as PLUS, and let
             // it fall through.
             if (re.getMin() == 0) {
-                return RegexInfo.matchAny();
+                return RegexInfo.matchAny(gramLength);
             }
             // !!!!! intentionally FALL THROUGH to PLUS !!!!!
             // regexp+ (repeat one more more times)
@@ -179,7 +178,7 @@ public class RegexToGramQueryTranslator {
             // "expr",
             // except that "exact" is null, because we don't know the number of
             // repetitions.
-            info = analyze(re.getSubs()[0]);
+            info = analyze(re.getSubs()[0], gramLength);
             if (!info.exact.isEmpty()) {
                 info.prefix.addAll(info.exact);
                 info.suffix.addAll(info.exact);
@@ -191,12 +190,12 @@ public class RegexToGramQueryTranslator {
             // The regexInfo of "(expr)?" shoud be either the same as the info
             // of "expr",
             // or the same as the info of an empty string.
-            return alternate(analyze(re.getSubs()[0]), RegexInfo.emptyString());
+            return alternate(analyze(re.getSubs()[0], gramLength), RegexInfo.emptyString(gramLength));
         // regexp* (repeat zero or more tims)
         case STAR:
-            return RegexInfo.matchAny();
+            return RegexInfo.matchAny(gramLength);
         default:
-            return RegexInfo.matchAny();
+            return RegexInfo.matchAny(gramLength);
         }
     }
 
@@ -209,18 +208,18 @@ public class RegexToGramQueryTranslator {
      * @return xyInfo
      */
     private static RegexInfo alternate(RegexInfo xInfo, RegexInfo yInfo) {
-        RegexInfo xyInfo = new RegexInfo();
+        RegexInfo xyInfo = new RegexInfo(xInfo.gramLength);
 
         if (!xInfo.exact.isEmpty() && !yInfo.exact.isEmpty()) {
             xyInfo.exact = TranslatorUtils.union(xInfo.exact, yInfo.exact, false);
         } else if (!xInfo.exact.isEmpty()) {
             xyInfo.prefix = TranslatorUtils.union(xInfo.exact, yInfo.prefix, false);
             xyInfo.suffix = TranslatorUtils.union(xInfo.exact, yInfo.suffix, true);
-            xInfo.match = GramBooleanQuery.combine(xInfo.match, xInfo.exact);
+            xInfo.match = GramBooleanQuery.combine(xInfo.match, xInfo.exact, xInfo.gramLength);
         } else if (!yInfo.exact.isEmpty()) {
             xyInfo.prefix = TranslatorUtils.union(xInfo.prefix, yInfo.exact, false);
             xyInfo.suffix = TranslatorUtils.union(xInfo.suffix, yInfo.exact, true);
-            yInfo.match = GramBooleanQuery.combine(yInfo.match, yInfo.exact);
+            yInfo.match = GramBooleanQuery.combine(yInfo.match, yInfo.exact, yInfo.gramLength);
         } else {
             xyInfo.prefix = TranslatorUtils.union(xInfo.prefix, yInfo.prefix, false);
             xyInfo.suffix = TranslatorUtils.union(xInfo.suffix, yInfo.suffix, true);
@@ -243,7 +242,7 @@ public class RegexToGramQueryTranslator {
      * @return xyInfo
      */
     private static RegexInfo concat(RegexInfo xInfo, RegexInfo yInfo) {
-        RegexInfo xyInfo = new RegexInfo();
+        RegexInfo xyInfo = new RegexInfo(xInfo.gramLength);
 
         xyInfo.match = GramBooleanQuery.computeConjunction(xInfo.match, yInfo.match);
 
@@ -271,10 +270,10 @@ public class RegexToGramQueryTranslator {
 
         if (xInfo.exact.isEmpty() && yInfo.exact.isEmpty() && xInfo.suffix.size() <= TranslatorUtils.MAX_SET_SIZE
                 && yInfo.prefix.size() <= TranslatorUtils.MAX_SET_SIZE && TranslatorUtils.minLenOfString(xInfo.suffix)
-                        + TranslatorUtils.minLenOfString(yInfo.prefix) >= TranslatorUtils.GRAM_LENGTH) {
+                        + TranslatorUtils.minLenOfString(yInfo.prefix) >= xyInfo.gramLength) {
 
             xyInfo.match = GramBooleanQuery.combine(xyInfo.match,
-                    TranslatorUtils.cartesianProduct(xInfo.suffix, yInfo.prefix, false));
+                    TranslatorUtils.cartesianProduct(xInfo.suffix, yInfo.prefix, false), xyInfo.gramLength);
         }
 
         xyInfo.simplify(false);
@@ -290,18 +289,20 @@ public class RegexToGramQueryTranslator {
      * @param subExpressions
      * @param zero,
      *            returned when the array of regex is empty
+     * @param gramLength
      * @return
      */
-    private static RegexInfo fold(TranslatorUtils.IFold iFold, PublicRegexp[] subExpressions, RegexInfo zero) {
+    private static RegexInfo fold(TranslatorUtils.IFold iFold, PublicRegexp[] subExpressions, RegexInfo zero,
+            int gramLength) {
         if (subExpressions.length == 0) {
             return zero;
         } else if (subExpressions.length == 1) {
-            return analyze(subExpressions[0]);
+            return analyze(subExpressions[0], gramLength);
         }
 
-        RegexInfo info = iFold.foldFunc(analyze(subExpressions[0]), analyze(subExpressions[1]));
+        RegexInfo info = iFold.foldFunc(analyze(subExpressions[0], gramLength), analyze(subExpressions[1], gramLength));
         for (int i = 2; i < subExpressions.length; i++) {
-            info = iFold.foldFunc(info, analyze(subExpressions[i]));
+            info = iFold.foldFunc(info, analyze(subExpressions[i], gramLength));
         }
         return info;
     }
@@ -1,127 +1,90 @@
 package edu.uci.ics.texera.dataflow.regexmatcher;
 
-
-//import com.google.re2j.Pattern;
-import java.util.regex.*;
-
 import java.util.List;
-
-public class SubRegex extends AbstractSubSequence{
-    public enum ComplexityLevel{
-        High,
-        Medium,
-        Low
-    }
-    Pattern regexPatern;
-    Pattern startWithRegexPattern;
-    Pattern startToEndRegexPattern;
-    Pattern endWithRegexPattern;
-    RegexPredicate predicate;
-    ComplexityLevel complexity;
-    SubRegex reverseSubRegex;
-    Double selectivity;
-    int minLength;
-    int maxlength;
-    int originalSubId;
-
-    public Double getSelectivity() {
-        return selectivity;
-    }
-
-    public SubRegex(){
-        super(-1, -1);
-        super.setOriginalSubCount(-1);
-        originalSubId = 0;
-        regexPatern = null;
-        startWithRegexPattern = null;
-        startToEndRegexPattern = null;
-        endWithRegexPattern = null;
-        this.complexity = ComplexityLevel.High;
-        reverseSubRegex = null;
-        minLength = 0;
-        maxlength = 0;
-        selectivity = 0d;
-
-    }
-
-
-    public RegexPredicate getsubRegexPredicate() {
-        return predicate;
-    }
-
-    public void setRegex(RegexPredicate predicate) {
+import java.util.regex.Pattern;
+
+/**
+ * A SubRegex is a piece of a regex which is a concatenation at the top level,
+ *   the pieces [getStart(), getEnd()) of the regex (see SubRegexPlanOptimizer).
+ *
+ * Every match of the regex contains a match of each of its sub-regexes,
+ *   so a field value in which a sub-regex doesn't occur can't match the regex.
+ *
+ * The stats of a sub-regex are the selectivity and the cost of checking if it occurs in a field value.
+ */
+public class SubRegex extends AbstractSubSequence {
+
+    // the length of a sub-regex without an upper bound
+    public static final int UNBOUNDED = -1;
+
+    private final RegexPredicate predicate;
+    private final Pattern regexPattern;
+    private final int minLength;
+    private final int maxLength;
+    // the maximum length of the regex before this sub-regex, UNBOUNDED if it's unknown
+    private final int maxPrefixLength;
+
+    public SubRegex(RegexPredicate predicate, int start, int length, int minLength, int maxLength, int maxPrefixLength) {
+        super(start, length);
         this.predicate = predicate;
+        this.regexPattern = predicate.isIgnoreCase() ?
+                Pattern.compile(predicate.getRegex(), Pattern.CASE_INSENSITIVE)
+                : Pattern.compile(predicate.getRegex());
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.maxPrefixLength = maxPrefixLength;
+        this.stats = new RegexStats(1);
     }
 
-    public void setSelectivity(Double selectivity) {
-        this.selectivity = selectivity;
+    public RegexPredicate getSubRegexPredicate() {
+        return predicate;
     }
 
-    public SubRegex(RegexPredicate predicate, int startingCSRIndex, int numberOfCSRs, ComplexityLevel complexity, int  originalSubId, int minLength, int maxlength){
-        super(startingCSRIndex, numberOfCSRs);
-        super.setOriginalSubCount(0);
-        regexPatern = regexPatern.compile(predicate.getRegex());
-        startWithRegexPattern = startWithRegexPattern.compile("^" + predicate.getRegex());
-        startToEndRegexPattern = startToEndRegexPattern.compile("^" + predicate.getRegex() + "$");
-        endWithRegexPattern = endWithRegexPattern.compile(predicate.getRegex() + "$");
-        this.predicate = predicate;
-        this.complexity = complexity;
-        this.reverseSubRegex = reverseSubRegex;
-        this.minLength = minLength;
-        this.maxlength = maxlength;
-        stats = new RegexStats(this.predicate.getAttributeNames().size());
-        this.originalSubId = originalSubId;
-        selectivity = 0d;
-
+    public Pattern getRegexPattern() {
+        return regexPattern;
     }
 
-    public void setOriginalSubCount(int count){
-        super.setOriginalSubCount(count);
-        if(reverseSubRegex != null){
-            reverseSubRegex.setOriginalSubCount(count);
-        }
+    public int getMinLength() {
+        return minLength;
     }
 
-    public void setReverseSubRegex(SubRegex reverse){
-        reverseSubRegex = reverse;
+    public int getMaxLength() {
+        return maxLength;
     }
 
-    public SubRegex getReverseSubRegex(){
-        return reverseSubRegex;
+    public int getMaxPrefixLength() {
+        return maxPrefixLength;
     }
 
-    public String toString(){
-        return toStringShort() + "///" + complexity + "///" + predicate.getRegex();
+    /**
+     * @param fieldValue
+     * @return true if the sub-regex occurs in the field value
+     */
+    public boolean occursIn(CharSequence fieldValue) {
+        return regexPattern.matcher(fieldValue).find();
     }
 
-    public static String getPlanSignature(List<SubRegex> plan){
-        String signature = "";
-        for(SubRegex s: plan){
-            signature += s.toStringShort();
-        }
-        return signature;
+    public void resetStats() {
+        this.stats = new RegexStats(1);
     }
 
-    public boolean isReverseExecutionFaster(){
-        // No reverse available or there is no stats collected for reverse
-        if(getReverseSubRegex() == null || getReverseSubRegex().stats.getSize() == 0){
-            return false;
-        }
-        return getReverseSubRegex().stats.getExpectedCost() < stats.getExpectedCost();
+    public String toString() {
+        return toStringShort() + predicate.getRegex();
     }
 
-    public double getExpectedCost(){
-        if(isReverseExecutionFaster()){
-            return getReverseSubRegex().stats.getExpectedCost();
-        }else{
-            return stats.getExpectedCost();
+    public static String getPlanSignature(List<SubRegex> plan) {
+        StringBuilder signature = new StringBuilder();
+        for (SubRegex s : plan) {
+            signature.append(s.toStringShort());
         }
+        return signature.toString();
     }
 
     @Override
     public boolean isSubRegex() {
         return true;
     }
+
     @Override
     public List<String> getAttributeNames() {
         return predicate.getAttributeNames();
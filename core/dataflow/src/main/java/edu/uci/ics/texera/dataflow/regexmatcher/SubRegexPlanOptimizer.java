@@ -0,0 +1,693 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.re2j.PublicParser;
+import com.google.re2j.PublicRE2;
+import com.google.re2j.PublicRegexp;
+
+import edu.uci.ics.texera.api.span.Span;
+
+/**
+ * SubRegexPlanOptimizer matches a regex without labels with a plan chosen from the statistics of its sub-regexes.
+ *
+ * The regex is split at the top level into sub-regexes: each run of literals, and each other piece with its quantifier.
+ *   For example, "\d+ mg of (aspirin|ibuprofen)" is split into "\d+", " mg of " and "(aspirin|ibuprofen)".
+ *   The split is done on the java regex itself, so a sub-regex means exactly what it means in the regex.
+ *   A regex with a top level alternation, inline flags, back references or "\G" isn't split.
+ *
+ * A plan has two parts:
+ *   filters: the sub-regexes checked first, in order. A field value in which one of them doesn't occur can't match.
+ *   verification: how the matches of the regex are found, either
+ *     forward: java regex scans the whole field value, or
+ *     driven by a sub-regex: the regex is searched from the next occurrence of the driver,
+ *       minus the maximum length of the regex before the driver. This skips the text where no match can start,
+ *       and the driver can be at the end of the regex (e.g. "[a-z]{1,20}ing" is driven by "ing").
+ *   Both verifications find exactly the matches of Matcher.find(), so every plan gives the same results.
+ *
+ * The statistics (the selectivity and the cost) are collected in a warm-up window of WARM_UP_FIELD_VALUES field values,
+ *   in which every filter and every verification runs on each field value.
+ *   These runs are timed with a budget of their own (each one gets the whole budget of a tuple),
+ *   and the matches are found with the current plan, so only the current plan is charged to the budget of the tuple.
+ *   The cheapest plan is chosen at the end of the window, and the statistics are collected again
+ *   every RegexMatcher.MAX_VALUES_FOR_STAT_COLLECTION field values, so the plan follows the data.
+ */
+public class SubRegexPlanOptimizer {
+
+    // the number of field values in each window of statistics collection
+    public static final int WARM_UP_FIELD_VALUES = 100;
+    // a regex split into more sub-regexes only uses the longest ones as filters and drivers
+    public static final int MAX_CANDIDATE_SUB_REGEXES = 8;
+
+    private static final Pattern REPETITION = Pattern.compile("\\{\\d+(,\\d*)?\\}");
+
+    /*
+     * A piece of the regex, or a run of literal pieces, with the bounds of the length of its matches.
+     * A literal run also takes the zero-width assertions (anchors, word boundaries, look-arounds) next to it.
+     */
+    static class Piece {
+        final String regex;
+        final int minLength;
+        final int maxLength;
+        final boolean literal;
+
+        Piece(String regex, int minLength, int maxLength, boolean literal) {
+            this.regex = regex;
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+            this.literal = literal;
+        }
+    }
+
+    /*
+     * A verification: forward (driver == null) or driven by a sub-regex, with its statistics.
+     */
+    private class Verification {
+        final SubRegex driver;
+        RegexStats stats = new RegexStats(1);
+
+        Verification(SubRegex driver) {
+            this.driver = driver;
+        }
+
+        List<Span> match(String attributeName, CharSequence fieldValue) {
+            if (driver == null) {
+                return RegexMatcher.computeMatchingResultsWithPattern(attributeName, fieldValue, predicate, regexPattern);
+            }
+            return computeMatchingResultsWithDriver(attributeName, fieldValue, driver);
+        }
+
+        String getSignature() {
+            return driver == null ? "forward" : "driver " + driver.toStringShort().trim();
+        }
+    }
+
+    /*
+     * The filters and the verification of a plan, with its expected cost of a field value (in nanoseconds).
+     */
+    private static class SubRegexPlan {
+        final List<SubRegex> filters;
+        final Verification verification;
+        final double expectedCost;
+
+        SubRegexPlan(List<SubRegex> filters, Verification verification, double expectedCost) {
+            this.filters = filters;
+            this.verification = verification;
+            this.expectedCost = expectedCost;
+        }
+
+        String getSignature() {
+            return "filters " + SubRegex.getPlanSignature(filters) + "; " + verification.getSignature();
+        }
+    }
+
+    private final RegexPredicate predicate;
+    private final Pattern regexPattern;
+    private final List<SubRegex> subRegexes;
+    private final List<SubRegex> candidateSubRegexes;
+    private final List<Verification> verifications;
+    // the budget of each run of a filter or a verification in the warm-up window
+    private final RegexMatchBudget statsBudget;
+
+    private SubRegexPlan currentPlan;
+    private long fieldValueCount = 0;
+    private int planSwitchCount = 0;
+
+    private SubRegexPlanOptimizer(RegexPredicate predicate, Pattern regexPattern, List<SubRegex> subRegexes,
+            List<SubRegex> candidateSubRegexes) {
+        this.predicate = predicate;
+        this.regexPattern = regexPattern;
+        this.subRegexes = subRegexes;
+        this.candidateSubRegexes = candidateSubRegexes;
+        this.statsBudget = new RegexMatchBudget(predicate.getRegexTimeoutMillis(), predicate.getRegexStepLimit(), null);
+
+        this.verifications = new ArrayList<>();
+        this.verifications.add(new Verification(null));
+        for (SubRegex subRegex : candidateSubRegexes) {
+            if (subRegex.getMaxPrefixLength() != SubRegex.UNBOUNDED) {
+                this.verifications.add(new Verification(subRegex));
+            }
+        }
+        // before the first window ends, every field value is matched forward
+        this.currentPlan = new SubRegexPlan(Collections.emptyList(), verifications.get(0), 0);
+    }
+
+    /**
+     * Splits the regex into sub-regexes.
+     *
+     * @param predicate, the predicate of a regex without labels
+     * @param regexPattern, the compiled java pattern of the regex
+     * @return the optimizer, or null if the regex can't be split into at least two sub-regexes
+     */
+    public static SubRegexPlanOptimizer create(RegexPredicate predicate, Pattern regexPattern) {
+        List<String> pieces = splitIntoPieces(predicate.getRegex());
+        if (pieces == null || pieces.size() < 2) {
+            return null;
+        }
+
+        // merge the runs of literals, with the zero-width assertions around them
+        List<Piece> subRegexPieces = new ArrayList<>();
+        Piece run = null;
+        for (String pieceRegex : pieces) {
+            Piece piece = analyzePiece(pieceRegex, predicate.isIgnoreCase());
+            if (run != null && run.literal && piece.literal) {
+                run = new Piece(run.regex + piece.regex, run.minLength + piece.minLength,
+                        run.maxLength + piece.maxLength, true);
+                subRegexPieces.set(subRegexPieces.size() - 1, run);
+            } else {
+                run = piece;
+                subRegexPieces.add(run);
+            }
+        }
+        if (subRegexPieces.size() < 2) {
+            return null;
+        }
+
+        List<SubRegex> subRegexes = new ArrayList<>();
+        int maxPrefixLength = 0;
+        for (int i = 0; i < subRegexPieces.size(); i++) {
+            Piece piece = subRegexPieces.get(i);
+            // a predicate doesn't take a blank regex, so a run of whitespace literals is quoted
+            String subRegexString = piece.regex.trim().isEmpty() ? Pattern.quote(piece.regex) : piece.regex;
+            RegexPredicate subRegexPredicate = new RegexPredicate(subRegexString,
+                    predicate.getAttributeNames(), predicate.isIgnoreCase(), predicate.getSpanListName());
+            SubRegex subRegex = new SubRegex(subRegexPredicate, i, 1, piece.minLength, piece.maxLength, maxPrefixLength);
+            subRegex.setOriginalSubCount(subRegexPieces.size());
+            subRegexes.add(subRegex);
+            if (maxPrefixLength != SubRegex.UNBOUNDED) {
+                maxPrefixLength = piece.maxLength == SubRegex.UNBOUNDED ? SubRegex.UNBOUNDED : maxPrefixLength + piece.maxLength;
+            }
+        }
+
+        // a sub-regex matching the empty string occurs in every field value
+        List<SubRegex> candidateSubRegexes = new ArrayList<>();
+        for (SubRegex subRegex : subRegexes) {
+            if (subRegex.getMinLength() > 0) {
+                candidateSubRegexes.add(subRegex);
+            }
+        }
+        if (candidateSubRegexes.isEmpty()) {
+            return null;
+        }
+        if (candidateSubRegexes.size() > MAX_CANDIDATE_SUB_REGEXES) {
+            candidateSubRegexes.sort(Comparator.comparingInt(SubRegex::getMinLength).reversed());
+            candidateSubRegexes = new ArrayList<>(candidateSubRegexes.subList(0, MAX_CANDIDATE_SUB_REGEXES));
+            candidateSubRegexes.sort(Comparator.comparingInt(SubRegex::getStart));
+        }
+
+        return new SubRegexPlanOptimizer(predicate, regexPattern, subRegexes, candidateSubRegexes);
+    }
+
+    /**
+     * Finds the matches of the regex in a field value with the current plan.
+     *
+     * @param attributeName
+     * @param fieldValue, the field value, limited by the budget of the tuple (see RegexMatchBudget.limit())
+     * @return the same spans as RegexMatcher.computeMatchingResultsWithPattern()
+     */
+    public List<Span> computeMatchingResults(String attributeName, CharSequence fieldValue) {
+        long windowPosition = fieldValueCount % RegexMatcher.MAX_VALUES_FOR_STAT_COLLECTION;
+        fieldValueCount++;
+        if (windowPosition >= WARM_UP_FIELD_VALUES) {
+            return computeMatchingResultsWithPlan(attributeName, fieldValue, currentPlan);
+        }
+
+        if (windowPosition == 0) {
+            resetStats();
+        }
+        collectStats(attributeName, fieldValue.toString());
+        List<Span> matchingResults = computeMatchingResultsWithPlan(attributeName, fieldValue, currentPlan);
+        if (windowPosition == WARM_UP_FIELD_VALUES - 1) {
+            SubRegexPlan newPlan = choosePlan();
+            if (! newPlan.getSignature().equals(currentPlan.getSignature())) {
+                planSwitchCount++;
+            }
+            currentPlan = newPlan;
+        }
+        return matchingResults;
+    }
+
+    public List<SubRegex> getSubRegexes() {
+        return Collections.unmodifiableList(subRegexes);
+    }
+
+    /**
+     * @return the filters and the verification of the current plan, e.g. "filters [1,2) ; driver [1,2)"
+     */
+    public String getCurrentPlanSignature() {
+        return currentPlan.getSignature();
+    }
+
+    /**
+     * @return the number of times the plan has changed after a window of statistics collection
+     */
+    public int getPlanSwitchCount() {
+        return planSwitchCount;
+    }
+
+    private static List<Span> computeMatchingResultsWithPlan(String attributeName, CharSequence fieldValue, SubRegexPlan plan) {
+        for (SubRegex filter : plan.filters) {
+            if (! filter.occursIn(fieldValue)) {
+                return new ArrayList<>();
+            }
+        }
+        return plan.verification.match(attributeName, fieldValue);
+    }
+
+    /*
+     * Runs every filter and every verification on the field value, and records their selectivities and costs.
+     * Each run starts the stats budget over, and a run over the budget counts as a success with the cost so far,
+     *   since it didn't reject the field value.
+     */
+    private void collectStats(String attributeName, String fieldValue) {
+        for (SubRegex subRegex : candidateSubRegexes) {
+            statsBudget.startTuple();
+            long startTime = System.nanoTime();
+            boolean occurs;
+            try {
+                occurs = subRegex.occursIn(statsBudget.limit(fieldValue));
+            } catch (RegexMatchBudget.Overrun overrun) {
+                occurs = true;
+            }
+            long cost = System.nanoTime() - startTime;
+            if (occurs) {
+                subRegex.getStats().addStatsSubRegexSuccess(cost, fieldValue.length());
+            } else {
+                subRegex.getStats().addStatsSubRegexFailure(cost, fieldValue.length());
+            }
+        }
+
+        for (Verification verification : verifications) {
+            statsBudget.startTuple();
+            long startTime = System.nanoTime();
+            boolean matches;
+            try {
+                matches = ! verification.match(attributeName, statsBudget.limit(fieldValue)).isEmpty();
+            } catch (RegexMatchBudget.Overrun overrun) {
+                matches = true;
+            }
+            long cost = System.nanoTime() - startTime;
+            if (matches) {
+                verification.stats.addStatsSubRegexSuccess(cost, fieldValue.length());
+            } else {
+                verification.stats.addStatsSubRegexFailure(cost, fieldValue.length());
+            }
+        }
+    }
+
+    private void resetStats() {
+        for (SubRegex subRegex : candidateSubRegexes) {
+            subRegex.resetStats();
+        }
+        for (Verification verification : verifications) {
+            verification.stats = new RegexStats(1);
+        }
+    }
+
+    /*
+     * For each verification, the filters are taken in the order of their rank (the cost per rejected field value),
+     *   and the number of filters with the lowest expected cost is chosen:
+     *   cost = cost(f1) + sel(f1) * cost(f2) + ... + sel(f1) * ... * sel(fm) * cost(verification)
+     */
+    private SubRegexPlan choosePlan() {
+        List<SubRegex> rankedFilters = new ArrayList<>(candidateSubRegexes);
+        rankedFilters.sort(Comparator.comparingDouble(SubRegexPlanOptimizer::getRank));
+
+        SubRegexPlan bestPlan = null;
+        for (Verification verification : verifications) {
+            List<SubRegex> filters = new ArrayList<>(rankedFilters);
+            // the driver of a verification is found first anyway
+            filters.remove(verification.driver);
+
+            double filterCost = 0;
+            double passRate = 1;
+            for (int filterCount = 0; filterCount <= filters.size(); filterCount++) {
+                double cost = filterCost + passRate * verification.stats.getExpectedCost();
+                if (bestPlan == null || cost < bestPlan.expectedCost) {
+                    bestPlan = new SubRegexPlan(new ArrayList<>(filters.subList(0, filterCount)), verification, cost);
+                }
+                if (filterCount < filters.size()) {
+                    RegexStats filterStats = filters.get(filterCount).getStats();
+                    filterCost += passRate * filterStats.getExpectedCost();
+                    passRate *= filterStats.getSelectivity();
+                }
+            }
+        }
+        return bestPlan;
+    }
+
+    private static double getRank(SubRegex subRegex) {
+        double rejectionRate = 1 - subRegex.getStats().getSelectivity();
+        if (rejectionRate <= 0) {
+            return Double.MAX_VALUE;
+        }
+        return subRegex.getStats().getExpectedCost() / rejectionRate;
+    }
+
+    /*
+     * A match starting at s contains an occurrence of the driver starting at most (the max prefix length) after s,
+     *   and Matcher.find() from a driver occurrence reports the leftmost one at or after that position.
+     *   So searching the regex from (the next driver occurrence - the max prefix length)
+     *   finds the same match as searching it from the end of the previous match.
+     */
+    List<Span> computeMatchingResultsWithDriver(String attributeName, CharSequence fieldValue, SubRegex driver) {
+        List<Span> matchingResults = new ArrayList<>();
+        Matcher regexMatcher = regexPattern.matcher(fieldValue);
+        Matcher driverMatcher = driver.getRegexPattern().matcher(fieldValue);
+        int position = 0;
+        while (position <= fieldValue.length() && driverMatcher.find(position)) {
+            int searchStart = Math.max(position, driverMatcher.start() - driver.getMaxPrefixLength());
+            if (! regexMatcher.find(searchStart)) {
+                break;
+            }
+            int start = regexMatcher.start();
+            int end = regexMatcher.end();
+            matchingResults.add(new Span(attributeName, start, end, predicate.getRegex(),
+                    fieldValue.subSequence(start, end).toString()));
+            // as Matcher.find(), the search after an empty match starts at the next char
+            position = end == start ? end + 1 : end;
+        }
+        return matchingResults;
+    }
+
+    /*
+     * Splits a java regex into the pieces of its top level concatenation: an atom with its quantifier.
+     * Returns null if the regex can't be split without changing the meaning of a piece.
+     */
+    static List<String> splitIntoPieces(String regex) {
+        List<String> pieces = new ArrayList<>();
+        int i = 0;
+        while (i < regex.length()) {
+            int atomEnd = skipAtom(regex, i);
+            if (atomEnd < 0) {
+                return null;
+            }
+            int pieceEnd = skipQuantifier(regex, atomEnd);
+            pieces.add(regex.substring(i, pieceEnd));
+            i = pieceEnd;
+        }
+        return pieces;
+    }
+
+    private static int skipAtom(String regex, int i) {
+        char c = regex.charAt(i);
+        switch (c) {
+        case '\\':
+            return skipEscape(regex, i);
+        case '[':
+            return skipCharClass(regex, i);
+        case '(':
+            return skipGroup(regex, i);
+        case '|':
+        case ')':
+        case '*':
+        case '+':
+        case '?':
+            return -1;
+        default:
+            if (Character.isHighSurrogate(c) && i + 1 < regex.length() && Character.isLowSurrogate(regex.charAt(i + 1))) {
+                return i + 2;
+            }
+            return i + 1;
+        }
+    }
+
+    /*
+     * A back reference or "\G" depends on the rest of the regex.
+     */
+    private static boolean isContextEscape(char c) {
+        return (c >= '1' && c <= '9') || c == 'k' || c == 'G';
+    }
+
+    private static int skipEscape(String regex, int i) {
+        if (i + 1 >= regex.length()) {
+            return -1;
+        }
+        char c = regex.charAt(i + 1);
+        if (isContextEscape(c)) {
+            return -1;
+        }
+        switch (c) {
+        case 'Q': {
+            int quoteEnd = regex.indexOf("\\E", i + 2);
+            return quoteEnd < 0 ? regex.length() : quoteEnd + 2;
+        }
+        case 'p':
+        case 'P':
+        case 'x':
+        case 'N':
+            if (i + 2 < regex.length() && regex.charAt(i + 2) == '{') {
+                int braceEnd = regex.indexOf('}', i + 3);
+                return braceEnd < 0 ? -1 : braceEnd + 1;
+            }
+            return Math.min(regex.length(), c == 'x' ? i + 4 : i + 3);
+        case 'u':
+            return Math.min(regex.length(), i + 6);
+        case 'c':
+            return Math.min(regex.length(), i + 3);
+        case '0': {
+            // up to 3 octal digits, the digits java doesn't read as octal are literals anyway
+            int j = i + 2;
+            while (j < regex.length() && j < i + 5 && regex.charAt(j) >= '0' && regex.charAt(j) <= '7') {
+                j++;
+            }
+            return j;
+        }
+        default:
+            return i + 2;
+        }
+    }
+
+    /*
+     * Java allows nested classes, e.g. "[a-z&&[^aeiou]]".
+     */
+    private static int skipCharClass(String regex, int i) {
+        int depth = 0;
+        int j = i;
+        while (j < regex.length()) {
+            char c = regex.charAt(j);
+            if (c == '\\') {
+                if (j + 1 < regex.length() && regex.charAt(j + 1) == 'Q') {
+                    int quoteEnd = regex.indexOf("\\E", j + 2);
+                    if (quoteEnd < 0) {
+                        return -1;
+                    }
+                    j = quoteEnd + 2;
+                } else {
+                    j += 2;
+                }
+            } else if (c == '[') {
+                depth++;
+                j++;
+                // a "]" right after "[" or "[^" is a literal
+                if (j < regex.length() && regex.charAt(j) == '^') {
+                    j++;
+                }
+                if (j < regex.length() && regex.charAt(j) == ']') {
+                    j++;
+                }
+            } else if (c == ']') {
+                depth--;
+                j++;
+                if (depth == 0) {
+                    return j;
+                }
+            } else {
+                j++;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipGroup(String regex, int i) {
+        // inline flags at the top level, e.g. "(?i)", change the meaning of the following pieces
+        if (regex.startsWith("(?", i)) {
+            int j = i + 2;
+            while (j < regex.length() && (Character.isLetter(regex.charAt(j)) || regex.charAt(j) == '-')) {
+                j++;
+            }
+            if (j < regex.length() && regex.charAt(j) == ')') {
+                return -1;
+            }
+        }
+        int depth = 0;
+        int j = i;
+        while (j < regex.length()) {
+            char c = regex.charAt(j);
+            if (c == '\\') {
+                if (j + 1 < regex.length() && isContextEscape(regex.charAt(j + 1))) {
+                    return -1;
+                }
+                if (j + 1 < regex.length() && regex.charAt(j + 1) == 'Q') {
+                    int quoteEnd = regex.indexOf("\\E", j + 2);
+                    if (quoteEnd < 0) {
+                        return -1;
+                    }
+                    j = quoteEnd + 2;
+                } else {
+                    j += 2;
+                }
+                continue;
+            }
+            if (c == '[') {
+                j = skipCharClass(regex, j);
+                if (j < 0) {
+                    return -1;
+                }
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+                if (depth == 0) {
+                    return j + 1;
+                }
+            }
+            j++;
+        }
+        return -1;
+    }
+
+    private static int skipQuantifier(String regex, int i) {
+        if (i >= regex.length()) {
+            return i;
+        }
+        char c = regex.charAt(i);
+        int j;
+        if (c == '?' || c == '*' || c == '+') {
+            j = i + 1;
+        } else if (c == '{') {
+            Matcher repetitionMatcher = REPETITION.matcher(regex).region(i, regex.length());
+            if (! repetitionMatcher.lookingAt()) {
+                return i;
+            }
+            j = repetitionMatcher.end();
+        } else {
+            return i;
+        }
+        // lazy or possessive
+        if (j < regex.length() && (regex.charAt(j) == '?' || regex.charAt(j) == '+')) {
+            j++;
+        }
+        return j;
+    }
+
+    /*
+     * Computes the minimum and the maximum length (in chars) of the strings a piece matches,
+     *   from the abstract syntax tree parsed by re2j. A char class or "." may match a surrogate pair,
+     *   and a piece re2j can't parse is unbounded.
+     */
+    static Piece analyzePiece(String pieceRegex, boolean ignoreCase) {
+        if (pieceRegex.startsWith("(?=") || pieceRegex.startsWith("(?!")
+                || pieceRegex.startsWith("(?<=") || pieceRegex.startsWith("(?<!")) {
+            return new Piece(pieceRegex, 0, 0, true);
+        }
+        try {
+            int flags = ignoreCase ? PublicRE2.PERL | PublicRE2.FOLD_CASE : PublicRE2.PERL;
+            PublicRegexp re = PublicParser.parse(pieceRegex, flags);
+            int maxLength = computeMaxLength(re);
+            return new Piece(pieceRegex, computeMinLength(re), maxLength,
+                    re.getOp() == PublicRegexp.PublicOp.LITERAL || maxLength == 0);
+        } catch (com.google.re2j.PatternSyntaxException e) {
+            return new Piece(pieceRegex, 0, SubRegex.UNBOUNDED, false);
+        }
+    }
+
+    private static int computeMinLength(PublicRegexp re) {
+        switch (re.getOp()) {
+        case LITERAL:
+            return re.getRunes().length;
+        case CHAR_CLASS:
+        case ANY_CHAR:
+        case ANY_CHAR_NOT_NL:
+            return 1;
+        case CAPTURE:
+        case PLUS:
+            return computeMinLength(re.getSubs()[0]);
+        case REPEAT:
+            return re.getMin() * computeMinLength(re.getSubs()[0]);
+        case CONCAT: {
+            int minLength = 0;
+            for (PublicRegexp sub : re.getSubs()) {
+                minLength += computeMinLength(sub);
+            }
+            return minLength;
+        }
+        case ALTERNATE: {
+            int minLength = Integer.MAX_VALUE;
+            for (PublicRegexp sub : re.getSubs()) {
+                minLength = Math.min(minLength, computeMinLength(sub));
+            }
+            return minLength == Integer.MAX_VALUE ? 0 : minLength;
+        }
+        default:
+            // empty match, anchors, word boundaries, star and quest
+            return 0;
+        }
+    }
+
+    private static int computeMaxLength(PublicRegexp re) {
+        switch (re.getOp()) {
+        case LITERAL: {
+            int maxLength = 0;
+            for (int rune : re.getRunes()) {
+                maxLength += Character.charCount(rune);
+            }
+            return maxLength;
+        }
+        case CHAR_CLASS: {
+            int[] runes = re.getRunes();
+            return runes.length > 0 && runes[runes.length - 1] > Character.MAX_VALUE ? 2 : 1;
+        }
+        case ANY_CHAR:
+        case ANY_CHAR_NOT_NL:
+            return 2;
+        case CAPTURE:
+        case QUEST:
+            return computeMaxLength(re.getSubs()[0]);
+        case STAR:
+        case PLUS:
+            return SubRegex.UNBOUNDED;
+        case REPEAT: {
+            int subMaxLength = computeMaxLength(re.getSubs()[0]);
+            if (re.getMax() < 0 || subMaxLength == SubRegex.UNBOUNDED) {
+                return SubRegex.UNBOUNDED;
+            }
+            long maxLength = (long) re.getMax() * subMaxLength;
+            return maxLength > Integer.MAX_VALUE / 2 ? SubRegex.UNBOUNDED : (int) maxLength;
+        }
+        case CONCAT: {
+            long maxLength = 0;
+            for (PublicRegexp sub : re.getSubs()) {
+                int subMaxLength = computeMaxLength(sub);
+                if (subMaxLength == SubRegex.UNBOUNDED) {
+                    return SubRegex.UNBOUNDED;
+                }
+                maxLength += subMaxLength;
+            }
+            return maxLength > Integer.MAX_VALUE / 2 ? SubRegex.UNBOUNDED : (int) maxLength;
+        }
+        case ALTERNATE: {
+            int maxLength = 0;
+            for (PublicRegexp sub : re.getSubs()) {
+                int subMaxLength = computeMaxLength(sub);
+                if (subMaxLength == SubRegex.UNBOUNDED) {
+                    return SubRegex.UNBOUNDED;
+                }
+                maxLength = Math.max(maxLength, subMaxLength);
+            }
+            return maxLength;
+        }
+        default:
+            // empty match, anchors and word boundaries
+            return 0;
+        }
+    }
+
+}
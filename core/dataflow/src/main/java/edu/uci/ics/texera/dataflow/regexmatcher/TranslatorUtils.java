@@ -29,7 +29,6 @@ public class TranslatorUtils {
     static final int MAX_SET_SIZE = 20;
 
     static final int DEFAULT_GRAM_LENGTH = 3;
-    static int GRAM_LENGTH = DEFAULT_GRAM_LENGTH;
 
     /**
      * This function interface provides a method to fold (concat / alternate)
@@ -2,9 +2,12 @@ package edu.uci.ics.texera.dataflow.regexmatcher.label;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -13,12 +16,24 @@ import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.ACAutomaton;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatchBudget;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatcher;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
 
 /**
  * Helper class for processing labeled regex.
  * 
+ * Each label in the regex is replaced by the values of the label's spans in the tuple.
+ *   The values of a label are written as a trie, e.g. {"lin", "lincoln", "lisa"} becomes "li(?:n(?:coln)?|sa)",
+ *   so java regex tries each prefix once instead of backtracking through a long alternation.
+ *   The rewritten pattern is cached by the values of the labels (in a bounded LRU cache),
+ *   because the tuples of a table often have the same label values.
+ * 
+ * A label which every match contains (not inside a group and not optional)
+ *   is searched first with an aho-corasick automaton of its values,
+ *   and a field value without any of them isn't matched with the regex.
+ * 
  * @author Bhushan Pagariya (bhushanpagariya)
  * @author Harshini Shah
  * @author Yashaswini Amaresh
@@ -27,13 +42,43 @@ import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
  */
 public class LabeledRegexProcessor {
     
+    // the number of rewritten patterns kept by a processor
+    public static final int LABELED_PATTERN_CACHE_SIZE = 256;
+    
+    /*
+     * The compiled pattern of the regex for some label values,
+     *   and the automata of the values of the labels every match contains.
+     */
+    private static class LabeledPattern {
+        final Pattern pattern;
+        final List<ACAutomaton> requiredLabelAutomata;
+        
+        LabeledPattern(Pattern pattern, List<ACAutomaton> requiredLabelAutomata) {
+            this.pattern = pattern;
+            this.requiredLabelAutomata = requiredLabelAutomata;
+        }
+    }
+    
     private RegexPredicate predicate;
     private String cleanedRegex;
     private ArrayList<String> labelList = new ArrayList<>();
+    // the labels which every match contains
+    private Set<String> requiredLabels;
+    
+    private final Map<Map<String, Set<String>>, LabeledPattern> patternCache = 
+            new LinkedHashMap<Map<String, Set<String>>, LabeledPattern>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Map<String, Set<String>>, LabeledPattern> eldest) {
+            return size() > LABELED_PATTERN_CACHE_SIZE;
+        }
+    };
     
     public LabeledRegexProcessor(RegexPredicate predicate) {
         this.predicate = predicate;
         preprocessRegex();
+        this.requiredLabels = findRequiredLabels(cleanedRegex, labelList);
     }
     
     private void preprocessRegex() {
@@ -54,19 +99,72 @@ public class LabeledRegexProcessor {
      * @return tuple with matching entries
      */
     public List<Span> computeMatchingResults(Tuple inputTuple) {
+        List<Span> matchingResults = new ArrayList<>();
+        addMatchingResults(inputTuple, new RegexMatchBudget(null, null, null), matchingResults);
+        return matchingResults;
+    }
+    
+    /**
+     * Adds the matching spans of the regex pattern as they are found,
+     *   the field values are matched through the budget of the tuple (see RegexMatchBudget.limit()).
+     * 
+     * @param inputTuple
+     * @param matchBudget, the budget of the tuple, which is started by the caller
+     * @param matchingResults, the list to add the spans to
+     */
+    public void addMatchingResults(Tuple inputTuple, RegexMatchBudget matchBudget, List<Span> matchingResults) {
         Map<String, Set<String>> labelValues = fetchLabelValues(inputTuple);
+        LabeledPattern labeledPattern = patternCache.get(labelValues);
+        if (labeledPattern == null) {
+            labeledPattern = compileLabeledPattern(labelValues);
+            patternCache.put(labelValues, labeledPattern);
+        }
+        
+        for (String attributeName : predicate.getAttributeNames()) {
+            String fieldValue = inputTuple.getField(attributeName).getValue().toString();
+            if (! containsRequiredLabels(fieldValue, labeledPattern)) {
+                continue;
+            }
+            Matcher javaMatcher = labeledPattern.pattern.matcher(matchBudget.limit(fieldValue));
+            while (javaMatcher.find()) {
+                int start = javaMatcher.start();
+                int end = javaMatcher.end();
+                matchingResults.add(
+                        new Span(attributeName, start, end, predicate.getRegex(), fieldValue.substring(start, end)));
+            }
+        }
+    }
+    
+    private static boolean containsRequiredLabels(String fieldValue, LabeledPattern labeledPattern) {
+        for (ACAutomaton labelAutomaton : labeledPattern.requiredLabelAutomata) {
+            if (! labelAutomaton.matchesAny(fieldValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private LabeledPattern compileLabeledPattern(Map<String, Set<String>> labelValues) {
         String regexWithVal = rewriteRegexWithLabelValues(labelValues);
         Pattern regexPattern = predicate.isIgnoreCase() ? 
                 Pattern.compile(regexWithVal, Pattern.CASE_INSENSITIVE)
                 : Pattern.compile(regexWithVal);
-                
-        return RegexMatcher.computeMatchingResultsWithPattern("", predicate, regexPattern);
+        
+        List<ACAutomaton> requiredLabelAutomata = new ArrayList<>();
+        for (String label : requiredLabels) {
+            Set<String> values = labelValues.get(label);
+            // an empty value is contained by any field value
+            if (! values.contains("")) {
+                requiredLabelAutomata.add(new ACAutomaton(values, predicate.isIgnoreCase()));
+            }
+        }
+        return new LabeledPattern(regexPattern, requiredLabelAutomata);
     }
     
     /**
      * Create Map of label id and corresponding attribute values
      * @param inputTuple
-     * @return map of label id and corresponding attribute values
+     * @return map of label id and corresponding attribute values (sorted, to be the key of the pattern cache)
      */
     private Map<String, Set<String>> fetchLabelValues(Tuple inputTuple) throws DataflowException {
         Map<String, Set<String>> labelSpanList = new HashMap<>();
@@ -77,8 +175,7 @@ public class LabeledRegexProcessor {
             ListField<Span> spanListField = inputTuple.getField(label);
             Set<String> labelValues = spanListField.getValue().stream()
                     .map(span -> span.getValue())
-                    .map(value -> escapeString(value))
-                    .collect(Collectors.toSet());
+                    .collect(Collectors.toCollection(TreeSet::new));
             labelSpanList.put(label, labelValues);
         }
         return labelSpanList;
@@ -91,25 +188,118 @@ public class LabeledRegexProcessor {
      * If the character is not a special character in regex,
      *   then escaping it will still be itself.
      */
-    private static String escapeString(String str) {
-        return str.chars()
-            .mapToObj(ch -> (Character.isLetterOrDigit(ch) ? "" : "\\") + String.valueOf((char) ch))
-            .collect(Collectors.joining());
+    private static void appendEscaped(StringBuilder regex, char ch) {
+        if (! Character.isLetterOrDigit(ch) && ! Character.isSurrogate(ch)) {
+            regex.append('\\');
+        }
+        regex.append(ch);
     }
     
     /**
      * Replace labels with actual values in labeled regex
-     * @param cleanedRegex
-     * @param labelValueList
+     * @param labelValues
      * @return regex with actual span values
      */
     private String rewriteRegexWithLabelValues(Map<String, Set<String>> labelValues) {
         String regexWithValue = cleanedRegex;
         for(Map.Entry<String, Set<String>> entry : labelValues.entrySet()){
-            String repVal = "(" + entry.getValue().stream().collect(Collectors.joining("|")) + ")";
-            regexWithValue = regexWithValue.replaceAll("<"+entry.getKey()+">", repVal);
+            String repVal = "(?:" + toTrieRegex(entry.getValue()) + ")";
+            regexWithValue = regexWithValue.replace("<"+entry.getKey()+">", repVal);
         }
         return regexWithValue;
     }
+    
+    /*
+     * Writes a set of values as a regex trie, a longer value is preferred over its prefix.
+     * A label without any value matches nothing.
+     */
+    static String toTrieRegex(Set<String> values) {
+        if (values.isEmpty()) {
+            return "(?!)";
+        }
+        StringBuilder regex = new StringBuilder();
+        appendTrie(regex, new ArrayList<>(new TreeSet<>(values)), 0);
+        return regex.toString();
+    }
+    
+    /*
+     * Appends the trie of the sorted values, which share their first depth chars.
+     */
+    private static void appendTrie(StringBuilder regex, List<String> sortedValues, int depth) {
+        boolean hasEnd = sortedValues.get(0).length() == depth;
+        // the values grouped by their char at depth, in order
+        Map<Character, List<String>> children = new TreeMap<>();
+        for (String value : sortedValues) {
+            if (value.length() > depth) {
+                children.computeIfAbsent(value.charAt(depth), key -> new ArrayList<>()).add(value);
+            }
+        }
+        if (children.isEmpty()) {
+            return;
+        }
+        if (children.size() == 1 && ! hasEnd) {
+            Map.Entry<Character, List<String>> child = children.entrySet().iterator().next();
+            appendEscaped(regex, child.getKey());
+            appendTrie(regex, child.getValue(), depth + 1);
+            return;
+        }
+        regex.append("(?:");
+        boolean first = true;
+        for (Map.Entry<Character, List<String>> child : children.entrySet()) {
+            if (! first) {
+                regex.append('|');
+            }
+            first = false;
+            appendEscaped(regex, child.getKey());
+            appendTrie(regex, child.getValue(), depth + 1);
+        }
+        regex.append(hasEnd ? ")?" : ")");
+    }
+    
+    /*
+     * Finds the labels which every match of the regex contains:
+     *   the labels outside of any group, which aren't followed by a quantifier allowing zero occurrences,
+     *   in a regex without a top level alternation.
+     */
+    static Set<String> findRequiredLabels(String cleanedRegex, List<String> labelList) {
+        Set<String> requiredLabels = new TreeSet<>();
+        int depth = 0;
+        boolean inCharClass = false;
+        for (int i = 0; i < cleanedRegex.length(); i++) {
+            char c = cleanedRegex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inCharClass) {
+                inCharClass = c != ']';
+            } else if (c == '[') {
+                inCharClass = true;
+                // a "]" right after "[" or "[^" is a literal
+                if (i + 1 < cleanedRegex.length() && cleanedRegex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < cleanedRegex.length() && cleanedRegex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                return new TreeSet<>();
+            } else if (c == '<' && depth == 0) {
+                int labelEnd = cleanedRegex.indexOf('>', i);
+                if (labelEnd < 0) {
+                    continue;
+                }
+                String label = cleanedRegex.substring(i + 1, labelEnd);
+                char next = labelEnd + 1 < cleanedRegex.length() ? cleanedRegex.charAt(labelEnd + 1) : ' ';
+                if (labelList.contains(label) && next != '?' && next != '*' && next != '{') {
+                    requiredLabels.add(label);
+                }
+                i = labelEnd;
+            }
+        }
+        return requiredLabels;
+    }
 
 }
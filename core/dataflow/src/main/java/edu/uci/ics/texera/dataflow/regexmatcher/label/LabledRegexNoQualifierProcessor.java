@@ -70,13 +70,12 @@ public class LabledRegexNoQualifierProcessor {
 
     /**
      * Sort the affixList in length decreasing order to filter valid tuples.
-     * @param tuple
-     * @param attribute
+     * @param fieldValue
      * @return
      */
-    private boolean filterTuple(Tuple tuple, String attribute) {
+    private boolean filterTuple(String fieldValue) {
         for (String affix : sortedAffixList) {
-            if (! tuple.getField(attribute).getValue().toString().contains(affix)) {
+            if (! fieldValue.contains(affix)) {
                 return false;
             }
         }
@@ -97,14 +96,14 @@ public class LabledRegexNoQualifierProcessor {
         
         List<Span> allAttrsMatchSpans = new ArrayList<>();
         for (String attribute : predicate.getAttributeNames()) {
-            boolean isValidTuple = filterTuple(tuple, attribute);
+            String fieldValue = tuple.getField(attribute).getValue().toString();
+
+            boolean isValidTuple = filterTuple(fieldValue);
 
             if (! isValidTuple) {
                 continue;
             }
 
-            String fieldValue = tuple.getField(attribute).getValue().toString();
-
             List<List<Integer>> matchList = new ArrayList<>();
             
             for (int i = 0; i < labelList.size(); i++) {
@@ -118,7 +117,7 @@ public class LabledRegexNoQualifierProcessor {
                 if (i == 0) {
                     List<Span> validSpans = relevantSpans.stream()
                             .filter(span -> span.getStart() >= prefix.length())
-                            .filter(span -> fieldValue.substring(span.getStart() - prefix.length(), span.getStart()).equals(prefix))
+                            .filter(span -> fieldValue.startsWith(prefix, span.getStart() - prefix.length()))
                             .collect(Collectors.toList());
                     matchList = validSpans.stream()
                             .map(span -> new ArrayList<Integer>(Arrays.asList(span.getStart() - prefix.length(), span.getStart())))
@@ -131,8 +130,7 @@ public class LabledRegexNoQualifierProcessor {
                 for (List<Integer> previousMatch : matchList) {
                     for (Span span : relevantSpans) {
                         if (previousMatch.get(1) == span.getStart()
-                                && span.getEnd() + suffix.length() <= fieldValue.length() 
-                                && fieldValue.substring(span.getEnd(), span.getEnd() + suffix.length()).equals(suffix)) {
+                                && fieldValue.startsWith(suffix, span.getEnd())) {
                             newMatchList.add(Arrays.asList(previousMatch.get(0), span.getEnd() + suffix.length()));
                         }
                     }
@@ -21,6 +21,7 @@ import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.dataflow.ISourceOperator;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
 import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatchBudget;
 
 /**
  * @author Qinhua Huang
@@ -44,6 +45,9 @@ import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
  * result list = <"banana">
  * 
  * If the old tuple has an ID field, remove it.
+ * 
+ * The work of splitting a tuple can be bounded by a time limit or a step limit (see RegexMatchBudget),
+ * a tuple over the limit is skipped, split at the matches found so far, or fails the operator.
  */
 public class RegexSplitOperator extends AbstractSingleInputOperator implements ISourceOperator{
 
@@ -51,6 +55,9 @@ public class RegexSplitOperator extends AbstractSingleInputOperator implements I
     Tuple currentTuple;
     
     private List<Span> currentSentenceList = new ArrayList<Span>();
+    
+    private Pattern pattern;
+    private RegexMatchBudget matchBudget;
 
     public RegexSplitOperator(RegexSplitPredicate predicate) {
         this.predicate = predicate;
@@ -75,6 +82,9 @@ public class RegexSplitOperator extends AbstractSingleInputOperator implements I
                     inputAttributeType));
         }
         
+        pattern = Pattern.compile(predicate.getRegex());
+        matchBudget = new RegexMatchBudget(predicate.getRegexTimeoutMillis(), predicate.getRegexStepLimit(),
+                predicate.getRegexOverrunAction());
 
     }
 
@@ -84,13 +94,18 @@ public class RegexSplitOperator extends AbstractSingleInputOperator implements I
         List<IField> outputFields = new ArrayList<>();
         
         if(predicate.getOutputType() == RegexOutputType.ONE_TO_ONE) {
-            currentTuple = inputOperator.getNextTuple();
-            if (currentTuple == null) 
-                return null;
+            List<Span> sentenceList = null;
+            // the tuples skipped by the match budget have no sentence list
+            while (sentenceList == null) {
+                currentTuple = inputOperator.getNextTuple();
+                if (currentTuple == null) 
+                    return null;
+                sentenceList = computeSentenceList(currentTuple);
+            }
             outputFields.addAll(currentTuple.getFields());
-            outputFields.add(new ListField<Span>(computeSentenceList(currentTuple)));
+            outputFields.add(new ListField<Span>(sentenceList));
         } else if(predicate.getOutputType() == RegexOutputType.ONE_TO_MANY) {
-            if(currentSentenceList.isEmpty()) {
+            while (currentSentenceList == null || currentSentenceList.isEmpty()) {
                 currentTuple = inputOperator.getNextTuple();
                 if (currentTuple == null) 
                     return null;
@@ -116,50 +131,59 @@ public class RegexSplitOperator extends AbstractSingleInputOperator implements I
         return new Tuple(outputSchema, outputFields);
     }
     
+    /*
+     * Returns the segments of the attribute to split, 
+     *   or null if the tuple is skipped because the regex match exceeds its budget.
+     */
     private List<Span> computeSentenceList(Tuple inputTuple) {
         String inputText = inputTuple.<IField>getField(predicate.getInputAttributeName()).getValue().toString();
         List<Span> textSpanList = new ArrayList<Span>();
         
         String attributeName = predicate.getInputAttributeName();
         
-        //Create a pattern using regex.
-        Pattern pattern = Pattern.compile(predicate.getRegex());
-        
         // Match the pattern in the text.
-        Matcher regexMatcher = pattern.matcher(inputText);
+        matchBudget.startTuple();
+        Matcher regexMatcher = pattern.matcher(matchBudget.limit(inputText));
         List<Integer> splitIndex = new ArrayList<Integer>();
         splitIndex.add(0);
         int endSplit;
         int startSplit;
-        while(regexMatcher.find()) {
-            if (predicate.getSplitType() == RegexSplitPredicate.SplitType.GROUP_RIGHT) {
-                endSplit = regexMatcher.start();
-                startSplit = endSplit;
-                if (startSplit != 0) {
-                    splitIndex.add(endSplit);
-                    splitIndex.add(startSplit);
-                }
-            } else if (predicate.getSplitType() == RegexSplitPredicate.SplitType.GROUP_LEFT) {
-                endSplit = regexMatcher.end();
-                startSplit = endSplit;
-                
-                splitIndex.add(endSplit);
-                splitIndex.add(startSplit);
+        try {
+            while(regexMatcher.find()) {
+                if (predicate.getSplitType() == RegexSplitPredicate.SplitType.GROUP_RIGHT) {
+                    endSplit = regexMatcher.start();
+                    startSplit = endSplit;
+                    if (startSplit != 0) {
+                        splitIndex.add(endSplit);
+                        splitIndex.add(startSplit);
+                    }
+                } else if (predicate.getSplitType() == RegexSplitPredicate.SplitType.GROUP_LEFT) {
+                    endSplit = regexMatcher.end();
+                    startSplit = endSplit;
                 
-            } else if (predicate.getSplitType() == RegexSplitPredicate.SplitType.STANDALONE) {
-                endSplit = regexMatcher.start();
-                startSplit = endSplit;
-                if (endSplit != 0) {
                     splitIndex.add(endSplit);
                     splitIndex.add(startSplit);
-                }
                 
-                endSplit = regexMatcher.end();
-                startSplit = endSplit;
-                if (endSplit < inputText.length() ) {
-                    splitIndex.add(endSplit); splitIndex.add(startSplit);
+                } else if (predicate.getSplitType() == RegexSplitPredicate.SplitType.STANDALONE) {
+                    endSplit = regexMatcher.start();
+                    startSplit = endSplit;
+                    if (endSplit != 0) {
+                        splitIndex.add(endSplit);
+                        splitIndex.add(startSplit);
+                    }
+                
+                    endSplit = regexMatcher.end();
+                    startSplit = endSplit;
+                    if (endSplit < inputText.length() ) {
+                        splitIndex.add(endSplit); splitIndex.add(startSplit);
+                    }
                 }
             }
+        } catch (RegexMatchBudget.Overrun overrun) {
+            // the text after the last match found is kept as the last segment
+            if (! matchBudget.handleOverrun(overrun)) {
+                return null;
+            }
         }
         splitIndex.add(inputText.length());
         
@@ -189,6 +213,13 @@ public class RegexSplitOperator extends AbstractSingleInputOperator implements I
         return this.predicate;
     }
     
+    /**
+     * @return the budget of a tuple, with the counters of the tuples over the budget
+     */
+    public RegexMatchBudget getMatchBudget() {
+        return this.matchBudget;
+    }
+    
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         throw new TexeraException("RegexSplit does not support process one tuple");
@@ -211,4 +242,4 @@ public class RegexSplitOperator extends AbstractSingleInputOperator implements I
         else
             return new Schema.Builder().add(inputSchema[0]).add(predicate.getResultAttributeName(), AttributeType.TEXT).build();
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
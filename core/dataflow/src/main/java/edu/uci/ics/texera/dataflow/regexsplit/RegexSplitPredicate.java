@@ -7,9 +7,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
 import com.google.common.collect.ImmutableMap;
 
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.dataflow.annotation.AdvancedOption;
 import edu.uci.ics.texera.dataflow.common.OperatorGroupConstants;
 import edu.uci.ics.texera.dataflow.common.PredicateBase;
 import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexOverrunAction;
 
 /**
  * @author Qinhua Huang
@@ -44,12 +47,29 @@ public class RegexSplitPredicate extends PredicateBase {
     private final SplitType splitType;
     private final RegexOutputType outputType;
     
+    private final Integer timeoutMillis;
+    private final Integer stepLimit;
+    private final RegexOverrunAction overrunAction;
+    
+    /*
+     * This constructor is for internal use. It's not a JSON entry point.
+     */
+    public RegexSplitPredicate(String splitRegex, String splitAttribute, RegexOutputType outputType, 
+            SplitType splitType, String resultAttributeName) {
+        this(splitRegex, splitAttribute, outputType, splitType, null, null, null, resultAttributeName);
+    }
+    
     /**
      * Construct a RegexSplitPredicate.
      * 
      * @param regex, the regex query
      * @param attributeToSplit, the attribute name to perform split operation on
      * @param splitType, a type to indicate where the regex pattern merge into. 
+     * @param timeoutMillis, optional, the time limit of matching the regex on a tuple in milliseconds, 
+     *   default 0 (no limit)
+     * @param stepLimit, optional, the limit of the characters read by the regex engine on a tuple, default 0 (no limit)
+     * @param overrunAction, optional, what to do with a tuple over the time or step limit: 
+     *   skip the tuple, split it at the matches found so far, or fail, default skip
      */
     @JsonCreator
     public RegexSplitPredicate(
@@ -66,6 +86,21 @@ public class RegexSplitPredicate extends PredicateBase {
             @JsonProperty(value=PropertyNameConstants.SPLIT_TYPE, required=true)
             SplitType splitType,
             
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_TIMEOUT_MILLIS, required = false,
+                    defaultValue = "0")
+            Integer timeoutMillis,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_STEP_LIMIT, required = false,
+                    defaultValue = "0")
+            Integer stepLimit,
+            
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_OVERRUN_ACTION, required = false,
+                    defaultValue = RegexOverrunAction.RegexOverrunActionName.SKIP)
+            RegexOverrunAction overrunAction,
+            
             @JsonProperty(value = PropertyNameConstants.RESULT_ATTRIBUTE_NAME, required = true)
             String resultAttributeName) {
         
@@ -75,6 +110,13 @@ public class RegexSplitPredicate extends PredicateBase {
         
         this.splitType = splitType;
         this.resultAttributeName = resultAttributeName;
+        
+        this.timeoutMillis = timeoutMillis == null ? 0 : timeoutMillis;
+        this.stepLimit = stepLimit == null ? 0 : stepLimit;
+        if (this.timeoutMillis < 0 || this.stepLimit < 0) {
+            throw new TexeraException("the time limit and the step limit of a regex match must not be negative");
+        }
+        this.overrunAction = overrunAction == null ? RegexOverrunAction.SKIP : overrunAction;
     }
     @JsonProperty(PropertyNameConstants.REGEX_OUTPUT_TYPE)
     public RegexOutputType getOutputType() {
@@ -101,6 +143,21 @@ public class RegexSplitPredicate extends PredicateBase {
         return this.resultAttributeName;
     }
     
+    @JsonProperty(PropertyNameConstants.REGEX_TIMEOUT_MILLIS)
+    public Integer getRegexTimeoutMillis() {
+        return this.timeoutMillis;
+    }
+    
+    @JsonProperty(PropertyNameConstants.REGEX_STEP_LIMIT)
+    public Integer getRegexStepLimit() {
+        return this.stepLimit;
+    }
+    
+    @JsonProperty(PropertyNameConstants.REGEX_OVERRUN_ACTION)
+    public RegexOverrunAction getRegexOverrunAction() {
+        return this.overrunAction;
+    }
+    
     @Override
     public RegexSplitOperator newOperator() {
         return new RegexSplitOperator(this);
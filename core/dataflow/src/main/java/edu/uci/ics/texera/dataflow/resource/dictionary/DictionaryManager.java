@@ -1,11 +1,32 @@
 package edu.uci.ics.texera.dataflow.resource.dictionary;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.MatchAllDocsQuery;
@@ -15,6 +36,11 @@ import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.field.StringField;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.ACAutomaton;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.CompiledDictionary;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.Dictionary;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.MultiRegexAutomaton;
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
 import edu.uci.ics.texera.storage.DataReader;
 import edu.uci.ics.texera.storage.DataWriter;
 import edu.uci.ics.texera.storage.RelationManager;
@@ -26,6 +52,35 @@ public class DictionaryManager {
     private static DictionaryManager instance = null;
     private RelationManager relationManager = null;
 
+    // the version of the serialized form of CompiledDictionary, it's part of the key of a compiled dictionary
+    private static final int COMPILED_DICTIONARY_VERSION = 2;
+
+    // the only classes which can be read from a compiled dictionary file: the classes of CompiledDictionary's fields
+    private static final Set<String> COMPILED_DICTIONARY_CLASSES = new HashSet<>(Arrays.asList(
+            CompiledDictionary.class.getName(), ACAutomaton.class.getName(), MultiRegexAutomaton.class.getName(),
+            KeywordMatchingType.class.getName(), Enum.class.getName(), Number.class.getName(), Integer.class.getName(),
+            String.class.getName(), java.util.regex.Pattern.class.getName(),
+            ArrayList.class.getName(), java.util.HashMap.class.getName(), HashSet.class.getName(),
+            java.util.LinkedHashSet.class.getName(),
+            "java.util.Collections$UnmodifiableCollection", "java.util.Collections$UnmodifiableList",
+            "java.util.Collections$UnmodifiableRandomAccessList", "java.util.Collections$UnmodifiableSet",
+            "java.util.Collections$UnmodifiableMap",
+            "[C", "[I", "[Z", "[Ljava.lang.String;"));
+
+    // the files of the compiled dictionaries on the disk are deleted by eviction and by deleteDictionary()
+    private static final Object compiledDictionaryFileLock = new Object();
+
+    // the most recently used compiled dictionaries, the others are read back from the disk when they are used again
+    private static final Map<String, CompiledDictionary> compiledDictionaryCache = 
+            new LinkedHashMap<String, CompiledDictionary>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledDictionary> eldest) {
+                    return size() > DictionaryManagerConstants.COMPILED_DICTIONARY_CACHE_SIZE;
+                }
+            };
+
     private DictionaryManager() throws StorageException {
         relationManager = RelationManager.getInstance();
     }
@@ -68,9 +123,13 @@ public class DictionaryManager {
     public void destroyDictionaryManager() throws TexeraException {
         relationManager.deleteTable(DictionaryManagerConstants.TABLE_NAME);
         StorageUtils.deleteDirectory(DictionaryManagerConstants.DICTIONARY_DIR);
+        clearCompiledDictionaries();
     }
     
     public List<String> addDictionary(String fileName, String dictionaryContent) throws StorageException {
+        // the compiled forms of the previous content of the dictionary are not used any more
+        deleteCompiledDictionaries(fileName);
+
         // write metadata info
         DataWriter dataWriter = relationManager.getTableDataWriter(DictionaryManagerConstants.TABLE_NAME);
         dataWriter.open();
@@ -122,6 +181,59 @@ public class DictionaryManager {
         return dictionaries;
     }
     
+    /**
+     * Deletes a dictionary: its metadata, its file, and its compiled forms on the disk and in memory.
+     *
+     * @param dictionaryName
+     * @throws StorageException
+     */
+    public void deleteDictionary(String dictionaryName) throws StorageException {
+        deleteCompiledDictionaries(dictionaryName);
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(DictionaryManagerConstants.TABLE_NAME);
+        dataWriter.open();
+        dataWriter.deleteTuple(new TermQuery(new Term(DictionaryManagerConstants.NAME, dictionaryName)));
+        dataWriter.close();
+
+        try {
+            Files.deleteIfExists(DictionaryManagerConstants.DICTIONARY_DIR_PATH.resolve(dictionaryName));
+        } catch (IOException e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /*
+     * Deletes the compiled forms of the entries of a stored dictionary (as the entries listed by getDictionary()),
+     *   for all the keyword matching types and analyzers.
+     */
+    private void deleteCompiledDictionaries(String dictionaryName) throws StorageException {
+        Path filePath = DictionaryManagerConstants.DICTIONARY_DIR_PATH.resolve(dictionaryName);
+        if (! Files.exists(filePath)) {
+            return;
+        }
+        List<String> entries;
+        try {
+            entries = Arrays.asList(Files.lines(filePath).collect(Collectors.joining(",")).split(","));
+        } catch (IOException e) {
+            throw new StorageException(e);
+        }
+        if (entries.stream().allMatch(entry -> entry.trim().isEmpty())) {
+            return;
+        }
+        String entriesKey = getDictionaryEntriesKey(new Dictionary(entries).getDictionaryEntries());
+
+        synchronized (compiledDictionaryCache) {
+            compiledDictionaryCache.keySet().removeIf(key -> key.startsWith(entriesKey));
+        }
+        synchronized (compiledDictionaryFileLock) {
+            for (Path compiledFilePath : listCompiledDictionaryFiles()) {
+                if (compiledFilePath.getFileName().toString().startsWith(entriesKey)) {
+                    deleteCompiledDictionaryFile(compiledFilePath);
+                }
+            }
+        }
+    }
+
     public String getDictionary(String dictionaryName) throws StorageException {
         DataReader dataReader = relationManager.getTableDataReader(DictionaryManagerConstants.TABLE_NAME, 
                 new TermQuery(new Term(DictionaryManagerConstants.NAME, dictionaryName)));
@@ -138,5 +250,252 @@ public class DictionaryManager {
             throw new StorageException(e);
         }
     }
+
+    /**
+     * Gets the compiled form of a dictionary for a keyword matching type and an analyzer.
+     *
+     * A dictionary is compiled only once: the compiled dictionaries are kept in an LRU cache in memory,
+     *   and serialized to the disk, so they survive the eviction from the cache and the restart of the server.
+     *   The files on the disk are also an LRU cache, bounded by COMPILED_DICTIONARY_DISK_CACHE_BYTES.
+     * They are identified by the hash of their entries, the matching type and the analyzer,
+     *   so a dictionary whose content changes (for example, uploaded again with the same name) is compiled again.
+     *
+     * @param dictionary
+     * @param keywordMatchingType
+     * @param luceneAnalyzerStr
+     * @return the compiled dictionary, shared by all the callers, which must not modify it
+     */
+    public static CompiledDictionary getCompiledDictionary(Dictionary dictionary, KeywordMatchingType keywordMatchingType,
+            String luceneAnalyzerStr) {
+        String key = getCompiledDictionaryKey(dictionary.getDictionaryEntries(), keywordMatchingType, luceneAnalyzerStr);
+        synchronized (compiledDictionaryCache) {
+            CompiledDictionary compiledDictionary = compiledDictionaryCache.get(key);
+            if (compiledDictionary != null) {
+                return compiledDictionary;
+            }
+        }
+
+        // compile outside of the lock, two threads compiling the same dictionary get equivalent results
+        CompiledDictionary compiledDictionary = readCompiledDictionary(key);
+        if (compiledDictionary == null) {
+            compiledDictionary = CompiledDictionary.compile(
+                    dictionary.getDictionaryEntries(), keywordMatchingType, luceneAnalyzerStr);
+            writeCompiledDictionary(key, compiledDictionary);
+        }
+        synchronized (compiledDictionaryCache) {
+            compiledDictionaryCache.put(key, compiledDictionary);
+        }
+        return compiledDictionary;
+    }
+
+    /**
+     * Removes all the compiled dictionaries, both in memory and on the disk.
+     *
+     * @throws StorageException
+     */
+    public static void clearCompiledDictionaries() throws StorageException {
+        clearCompiledDictionaryCache();
+        synchronized (compiledDictionaryFileLock) {
+            StorageUtils.deleteDirectory(DictionaryManagerConstants.COMPILED_DICTIONARY_DIR);
+        }
+    }
+
+    /*
+     * Removes the compiled dictionaries in memory only, the next use of a dictionary reads it from the disk.
+     */
+    static void clearCompiledDictionaryCache() {
+        synchronized (compiledDictionaryCache) {
+            compiledDictionaryCache.clear();
+        }
+    }
+
+    /*
+     * The key of a compiled dictionary: the key of its entries, followed by
+     *   the SHA-256 hash (in hex) of the matching type and the analyzer.
+     * The analyzer is ignored by the types which don't tokenize the entries.
+     */
+    private static String getCompiledDictionaryKey(List<String> dictionaryEntries, KeywordMatchingType keywordMatchingType,
+            String luceneAnalyzerStr) {
+        boolean tokenized = keywordMatchingType == KeywordMatchingType.CONJUNCTION_INDEXBASED
+                || keywordMatchingType == KeywordMatchingType.PHRASE_INDEXBASED;
+        MessageDigest digest = newDigest();
+        updateDigest(digest, keywordMatchingType.toString());
+        updateDigest(digest, tokenized ? luceneAnalyzerStr : "");
+        return getDictionaryEntriesKey(dictionaryEntries) + "-" + toHex(digest.digest());
+    }
+
+    /*
+     * The key of the entries of a dictionary: the SHA-256 hash (in hex) of the version and the entries,
+     *   the compiled forms of the entries for all the matching types and analyzers start with it.
+     */
+    private static String getDictionaryEntriesKey(List<String> dictionaryEntries) {
+        MessageDigest digest = newDigest();
+        updateDigest(digest, Integer.toString(COMPILED_DICTIONARY_VERSION));
+        for (String entry : dictionaryEntries) {
+            updateDigest(digest, entry);
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new StorageException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static void updateDigest(MessageDigest digest, String value) {
+        // the length prefix keeps the boundaries of the values
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static Path getCompiledDictionaryPath(String key) {
+        return DictionaryManagerConstants.COMPILED_DICTIONARY_DIR_PATH.resolve(
+                key + DictionaryManagerConstants.COMPILED_DICTIONARY_FILE_SUFFIX);
+    }
+
+    /*
+     * Reads a compiled dictionary from the disk, returns null if it's not there or can't be read.
+     * The file is only trusted to contain the classes of a compiled dictionary,
+     *   an outdated class (with another serialVersionUID) or any other class makes it a miss.
+     */
+    private static CompiledDictionary readCompiledDictionary(String key) {
+        Path filePath = getCompiledDictionaryPath(key);
+        if (! Files.exists(filePath)) {
+            return null;
+        }
+        CompiledDictionary compiledDictionary;
+        try (ObjectInputStream input = new CompiledDictionaryInputStream(
+                new GZIPInputStream(new BufferedInputStream(Files.newInputStream(filePath))))) {
+            compiledDictionary = (CompiledDictionary) input.readObject();
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            // a corrupted, outdated or unexpected file, compile the dictionary again
+            synchronized (compiledDictionaryFileLock) {
+                deleteCompiledDictionaryFile(filePath);
+            }
+            return null;
+        }
+        // the last modified time orders the files for the eviction
+        try {
+            Files.setLastModifiedTime(filePath, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // the file may be evicted a bit earlier
+        }
+        return compiledDictionary;
+    }
+
+    /*
+     * An ObjectInputStream which only resolves the classes of a compiled dictionary.
+     */
+    private static class CompiledDictionaryInputStream extends ObjectInputStream {
+
+        private CompiledDictionaryInputStream(InputStream input) throws IOException {
+            super(input);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass classDescriptor) throws IOException, ClassNotFoundException {
+            if (! COMPILED_DICTIONARY_CLASSES.contains(classDescriptor.getName())) {
+                throw new InvalidClassException(classDescriptor.getName(), "not a class of a compiled dictionary");
+            }
+            return super.resolveClass(classDescriptor);
+        }
+    }
+
+    /*
+     * Writes a compiled dictionary to the disk. 
+     * The file is written to a temporary file first, so a reader never sees a partial file.
+     * Failing to write only loses the disk cache, so the errors are ignored.
+     */
+    private static void writeCompiledDictionary(String key, CompiledDictionary compiledDictionary) {
+        Path tempFilePath = null;
+        try {
+            Files.createDirectories(DictionaryManagerConstants.COMPILED_DICTIONARY_DIR_PATH);
+            tempFilePath = Files.createTempFile(DictionaryManagerConstants.COMPILED_DICTIONARY_DIR_PATH, key, ".tmp");
+            try (ObjectOutputStream output = new ObjectOutputStream(
+                    new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFilePath))))) {
+                output.writeObject(compiledDictionary);
+            }
+            Files.move(tempFilePath, getCompiledDictionaryPath(key), 
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            evictCompiledDictionaryFiles(DictionaryManagerConstants.COMPILED_DICTIONARY_DISK_CACHE_BYTES);
+        } catch (IOException e) {
+            try {
+                if (tempFilePath != null) {
+                    Files.deleteIfExists(tempFilePath);
+                }
+            } catch (IOException deleteException) {
+                // nothing else to clean up
+            }
+        }
+    }
+
+    /*
+     * Deletes the least recently used compiled dictionary files until their total size is at most maxBytes.
+     */
+    static void evictCompiledDictionaryFiles(long maxBytes) {
+        synchronized (compiledDictionaryFileLock) {
+            List<Path> filePaths = listCompiledDictionaryFiles();
+            Map<Path, Long> fileSizes = new LinkedHashMap<>();
+            Map<Path, Long> fileTimes = new LinkedHashMap<>();
+            long totalBytes = 0;
+            for (Path filePath : filePaths) {
+                try {
+                    fileSizes.put(filePath, Files.size(filePath));
+                    fileTimes.put(filePath, Files.getLastModifiedTime(filePath).toMillis());
+                    totalBytes += fileSizes.get(filePath);
+                } catch (IOException e) {
+                    // deleted in the meantime
+                }
+            }
+            if (totalBytes <= maxBytes) {
+                return;
+            }
+            List<Path> leastRecentlyUsed = new ArrayList<>(fileSizes.keySet());
+            leastRecentlyUsed.sort(Comparator.comparing(fileTimes::get));
+            for (Path filePath : leastRecentlyUsed) {
+                if (totalBytes <= maxBytes) {
+                    break;
+                }
+                deleteCompiledDictionaryFile(filePath);
+                totalBytes -= fileSizes.get(filePath);
+            }
+        }
+    }
+
+    private static List<Path> listCompiledDictionaryFiles() {
+        List<Path> filePaths = new ArrayList<>();
+        if (! Files.isDirectory(DictionaryManagerConstants.COMPILED_DICTIONARY_DIR_PATH)) {
+            return filePaths;
+        }
+        try (DirectoryStream<Path> directory = Files.newDirectoryStream(
+                DictionaryManagerConstants.COMPILED_DICTIONARY_DIR_PATH, 
+                "*" + DictionaryManagerConstants.COMPILED_DICTIONARY_FILE_SUFFIX)) {
+            directory.forEach(filePaths::add);
+        } catch (IOException e) {
+            // the disk cache is only an optimization
+        }
+        return filePaths;
+    }
+
+    private static void deleteCompiledDictionaryFile(Path filePath) {
+        try {
+            Files.deleteIfExists(filePath);
+        } catch (IOException e) {
+            // it will be overwritten by the next write, or deleted by the next eviction
+        }
+    }
     
 }
@@ -16,6 +16,15 @@ public class DictionaryManagerConstants {
     public static final Path DICTIONARY_DIR_PATH = Utils.getTexeraHomePath().resolve("user-resources").resolve("dictionaries");
     public static final String DICTIONARY_DIR = DICTIONARY_DIR_PATH.toString();
 
+    // the compiled dictionaries cached on the disk, see DictionaryManager.getCompiledDictionary()
+    public static final Path COMPILED_DICTIONARY_DIR_PATH = Utils.getTexeraHomePath().resolve("user-resources").resolve("compiled-dictionaries");
+    public static final String COMPILED_DICTIONARY_DIR = COMPILED_DICTIONARY_DIR_PATH.toString();
+    public static final String COMPILED_DICTIONARY_FILE_SUFFIX = ".compiled";
+    // the number of compiled dictionaries kept in memory
+    public static final int COMPILED_DICTIONARY_CACHE_SIZE = 32;
+    // the total size of the compiled dictionary files kept on the disk
+    public static final long COMPILED_DICTIONARY_DISK_CACHE_BYTES = 256L * 1024 * 1024;
+
     public static final String NAME = "name";
     public static final Attribute NAME_ATTR = new Attribute(NAME, AttributeType.STRING);
     
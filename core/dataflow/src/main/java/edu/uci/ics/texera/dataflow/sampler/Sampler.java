@@ -6,11 +6,16 @@ import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Random;
+import java.util.stream.IntStream;
 
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.dataflow.common.ISpillable;
+import edu.uci.ics.texera.dataflow.common.MemoryBudget;
+import edu.uci.ics.texera.dataflow.common.SpillableTupleBuffer;
+import edu.uci.ics.texera.dataflow.common.TupleCodec;
 import edu.uci.ics.texera.dataflow.sampler.SamplerPredicate.SampleType;
 
 /**
@@ -26,17 +31,35 @@ import edu.uci.ics.texera.dataflow.sampler.SamplerPredicate.SampleType;
  * 
  * 2. Example: SampleType.RANDOM_SAMPLE mode.
  * Tuples source: A, B，C，D，E，F，G，H
- * The result is in randomly distributed.
- * One possible result: E, B, H
+ * The result is in randomly distributed, and its tuples keep the order of the tuple source.
+ * One possible result: B, E, H
+ * 
+ * In first k-arrival mode, the tuples are output as they arrive without being buffered.
+ * In random mode, the reservoir has k slots, and a tuple entering the reservoir replaces
+ * the tuple in its slot. A slot keeps its tuple on the heap if its memory can be reserved
+ * from the memory budget, otherwise the tuple is spilled to a file, which is compacted to the
+ * tuples still in the reservoir when it grows over twice their number.
+ * The sampled tuples are output in the order of their arrival.
  */
-public class Sampler extends AbstractSingleInputOperator implements ISourceOperator{
+public class Sampler extends AbstractSingleInputOperator implements ISourceOperator, ISpillable {
     private SamplerPredicate predicate;
-    private List<Tuple> sampleBuffer;
+    private MemoryBudget memoryBudget = new MemoryBudget();
+    // the slots of the reservoir: the tuple of a slot on the heap and its reserved memory,
+    //   or its position in spillBuffer (-1 if it's on the heap), and its arrival order
+    private Tuple[] slotTuples;
+    private long[] slotSizes;
+    private int[] slotSpillPositions;
+    private int[] slotArrivals;
+    private int slotCount;
+    // the spilled tuples, which don't reserve memory from the budget
+    private SpillableTupleBuffer spillBuffer;
+    // the slots in the order of the arrival of their tuples, once the reservoir is constructed
+    private int[] outputSlots;
     private int bufferCursor;
     
     public Sampler(SamplerPredicate predicate) {
         this.predicate = predicate;
-        this.sampleBuffer = null;
+        this.outputSlots = null;
         this.bufferCursor = -1;
     }
     
@@ -46,51 +69,126 @@ public class Sampler extends AbstractSingleInputOperator implements ISourceOpera
     }
     
     private void constructSampleBuffer() throws TexeraException {
-        sampleBuffer = new ArrayList<Tuple>();
+        int initialSlots = Math.min(predicate.getSampleSize(), 1024);
+        slotTuples = new Tuple[initialSlots];
+        slotSizes = new long[initialSlots];
+        slotSpillPositions = new int[initialSlots];
+        slotArrivals = new int[initialSlots];
+        slotCount = 0;
+        spillBuffer = new SpillableTupleBuffer(outputSchema, new MemoryBudget(0));
         
-        Random random = new Random(System.currentTimeMillis());
+        Random random = new Random();
         
         Tuple tuple;
         int count = 0;
         while ((tuple = inputOperator.getNextTuple()) != null) {
             if (count < predicate.getSampleSize()) {
-                sampleBuffer.add(tuple);
-            } else {
-                /* In SampleType.FIRST_K_ARRIVAL mode, when the samleBuffer is full,
-                 * it will finish constructing the buffer tuples and return.
-                 */
-                if (this.predicate.getSampleType() == SampleType.FIRST_K_ARRIVAL) {
-                    break;
+                if (slotCount == slotTuples.length) {
+                    growSlots();
                 }
+                slotCount++;
+                putInSlot(slotCount - 1, tuple, count);
+            } else {
                 /*
                  *  In SampleType.RANDOM_SAMPLE mode, the reservoir sampling algorithm is
                  *  used to sample tuples.
-                 *  When the buffer is full, the ith incoming tuple is chosen to replace
-                 *  tuple the buffer with probability of bufferSize / i.
+                 *  When the reservoir is full, the ith incoming tuple (counting from 1) replaces
+                 *  a random tuple of the reservoir with probability of sampleSize / i.
                  */
-                if (this.predicate.getSampleType() == SampleType.RANDOM_SAMPLE) {
-                    int randomPos = random.nextInt(count);
-                    if (randomPos < predicate.getSampleSize()) {
-                        sampleBuffer.set(randomPos, tuple);
-                    }
+                int randomPos = random.nextInt(count + 1);
+                if (randomPos < predicate.getSampleSize()) {
+                    putInSlot(randomPos, tuple, count);
                 }
             }
             count++;
         }
+        compactSpillBuffer();
+        outputSlots = IntStream.range(0, slotCount).boxed()
+                .sorted(Comparator.comparingInt(slot -> slotArrivals[slot]))
+                .mapToInt(Integer::intValue).toArray();
+    }
+    
+    private void growSlots() {
+        int newLength = (int) Math.min(predicate.getSampleSize(), 2L * slotTuples.length);
+        slotTuples = Arrays.copyOf(slotTuples, newLength);
+        slotSizes = Arrays.copyOf(slotSizes, newLength);
+        slotSpillPositions = Arrays.copyOf(slotSpillPositions, newLength);
+        slotArrivals = Arrays.copyOf(slotArrivals, newLength);
+    }
+    
+    /*
+     * Puts a tuple in a slot of the reservoir in place of the tuple there, 
+     *   on the heap if its memory can be reserved, otherwise in the spill file.
+     */
+    private void putInSlot(int slot, Tuple tuple, int arrival) throws TexeraException {
+        memoryBudget.release(slotSizes[slot]);
+        slotTuples[slot] = null;
+        slotSizes[slot] = 0;
+        slotArrivals[slot] = arrival;
+        
+        long tupleSize = TupleCodec.estimateSize(tuple);
+        if (memoryBudget.tryReserve(tupleSize)) {
+            slotTuples[slot] = tuple;
+            slotSizes[slot] = tupleSize;
+            slotSpillPositions[slot] = -1;
+            return;
+        }
+        slotSpillPositions[slot] = spillBuffer.size();
+        spillBuffer.add(tuple);
+        // the replaced tuples are dropped from the file once they take more than half of it
+        if (spillBuffer.size() > 2 * slotCount) {
+            compactSpillBuffer();
+        }
+    }
+    
+    /*
+     * Rewrites the spill file with only the tuples still in the reservoir, in the order they were spilled.
+     */
+    private void compactSpillBuffer() throws TexeraException {
+        int[] spilledSlots = IntStream.range(0, slotCount).filter(slot -> slotSpillPositions[slot] >= 0).boxed()
+                .sorted(Comparator.comparingInt(slot -> slotSpillPositions[slot]))
+                .mapToInt(Integer::intValue).toArray();
+        if (spilledSlots.length == spillBuffer.size()) {
+            return;
+        }
+        SpillableTupleBuffer compactedBuffer = new SpillableTupleBuffer(outputSchema, new MemoryBudget(0));
+        for (int slot : spilledSlots) {
+            Tuple tuple = spillBuffer.get(slotSpillPositions[slot]);
+            slotSpillPositions[slot] = compactedBuffer.size();
+            compactedBuffer.add(tuple);
+        }
+        spillBuffer.clear();
+        spillBuffer = compactedBuffer;
     }
     
     @Override
     protected Tuple computeNextMatchingTuple() throws TexeraException {
-        if (sampleBuffer == null) {
+        /* In SampleType.FIRST_K_ARRIVAL mode, the first k tuples are output
+         * as they arrive, and the rest of the input is not read.
+         */
+        if (this.predicate.getSampleType() == SampleType.FIRST_K_ARRIVAL) {
+            if (bufferCursor == -1) {
+                bufferCursor = 0;
+            }
+            if (bufferCursor == predicate.getSampleSize()) {
+                return null;
+            }
+            bufferCursor++;
+            return inputOperator.getNextTuple();
+        }
+        
+        if (outputSlots == null) {
             constructSampleBuffer();
             this.bufferCursor = 0;
         }
-        if (bufferCursor == sampleBuffer.size()) {
+        if (bufferCursor == outputSlots.length) {
             return null;
         }
         
         // Compute one result tuple.
-        Tuple resultTuple = sampleBuffer.get(bufferCursor);
+        int slot = outputSlots[bufferCursor];
+        Tuple resultTuple = slotSpillPositions[slot] < 0 ? slotTuples[slot] 
+                : spillBuffer.get(slotSpillPositions[slot]);
         bufferCursor++;
         
         return resultTuple;
@@ -98,10 +196,29 @@ public class Sampler extends AbstractSingleInputOperator implements ISourceOpera
     
     @Override
     protected void cleanUp() throws TexeraException {
-        sampleBuffer = null;
+        if (slotSizes != null) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                memoryBudget.release(slotSizes[slot]);
+            }
+        }
+        if (spillBuffer != null) {
+            spillBuffer.clear();
+        }
+        slotTuples = null;
+        slotSizes = null;
+        slotSpillPositions = null;
+        slotArrivals = null;
+        slotCount = 0;
+        spillBuffer = null;
+        outputSlots = null;
         bufferCursor = -1;
     }
     
+    @Override
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+    
     public SamplerPredicate getPredicate() {
         return this.predicate;
     }
@@ -116,4 +233,4 @@ public class Sampler extends AbstractSingleInputOperator implements ISourceOpera
             throw new TexeraException(String.format(ErrorMessages.NUMBER_OF_ARGUMENTS_DOES_NOT_MATCH, 1, inputSchema.length));
         return inputSchema[0];
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
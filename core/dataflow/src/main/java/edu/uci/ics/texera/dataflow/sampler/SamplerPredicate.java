@@ -18,6 +18,7 @@ import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
 public class SamplerPredicate extends PredicateBase {
 
     public enum SampleType {
+        // the sampled tuples are output in the order of their arrival, not in a random order
         RANDOM_SAMPLE("random"),
 
         FIRST_K_ARRIVAL("firstk");
@@ -7,6 +7,7 @@ import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
 
 /**
  * Created by chenli on 5/11/16.
@@ -46,11 +47,25 @@ public abstract class AbstractSink implements ISink {
         if (cursor == CLOSED) {
             throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
         }
-        Tuple nextTuple;
+        TupleBatch nextBatch;
 
-        while ((nextTuple = inputOperator.getNextTuple()) != null) {
+        while ((nextBatch = inputOperator.getNextBatch(TupleBatch.DEFAULT_BATCH_SIZE)) != null) {
+            processOneBatch(nextBatch);
+            cursor += nextBatch.size();
+        }
+    }
+
+    /**
+     * Processes a batch of tuples coming from the subtree.
+     * By default it calls processOneTuple() on each tuple, 
+     * a subclass can override it to handle the whole batch at once.
+     *
+     * @param nextBatch
+     *            A batch of tuples that needs to be processed during each iteration
+     */
+    protected void processOneBatch(TupleBatch nextBatch) throws TexeraException {
+        for (Tuple nextTuple : nextBatch) {
             processOneTuple(nextTuple);
-            cursor++;
         }
     }
 
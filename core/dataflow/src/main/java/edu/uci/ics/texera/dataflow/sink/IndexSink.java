@@ -6,6 +6,7 @@ import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
 import edu.uci.ics.texera.storage.DataWriter;
 import edu.uci.ics.texera.storage.RelationManager;
 
@@ -42,6 +43,11 @@ public class IndexSink extends AbstractSink {
         dataWriter.insertTuple(nextTuple);
     }
 
+    @Override
+    protected void processOneBatch(TupleBatch nextBatch) throws TexeraException {
+        dataWriter.insertTuples(nextBatch);
+    }
+
     public void close() throws TexeraException {
         if (this.dataWriter != null) {
             this.dataWriter.close();
@@ -11,6 +11,7 @@ import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
 import edu.uci.ics.texera.dataflow.source.asterix.AsterixSource;
 
 /**
@@ -109,6 +110,33 @@ public class TupleSink implements ISink {
 
     }
 
+    @Override
+    public TupleBatch getNextBatch(int maxSize) throws TexeraException {
+        if (cursor == CLOSED) {
+            return null;
+        }
+        TupleBatch resultBatch = new TupleBatch(maxSize);
+        while (resultBatch.isEmpty()) {
+            // the number of tuples (including the ones skipped by offset) still allowed by limit
+            long remaining = (long) predicate.getLimit() + predicate.getOffset() - cursor;
+            if (remaining <= 0) {
+                return null;
+            }
+            TupleBatch inputBatch = inputOperator.getNextBatch((int) Math.min(maxSize, remaining));
+            if (inputBatch == null) {
+                return null;
+            }
+            for (Tuple inputTuple : inputBatch) {
+                cursor++;
+                if (cursor > predicate.getOffset()) {
+                    resultBatch.add(new Tuple.Builder(inputTuple)
+                            .removeIfExists(SchemaConstants.PAYLOAD, AsterixSource.RAW_DATA).build());
+                }
+            }
+        }
+        return resultBatch;
+    }
+
     @Override
     public void close() throws TexeraException {
         if (cursor == CLOSED) {
@@ -128,9 +156,9 @@ public class TupleSink implements ISink {
     public List<Tuple> collectAllTuples() throws TexeraException {
         this.open();
         ArrayList<Tuple> results = new ArrayList<>();
-        Tuple tuple;
-        while ((tuple = this.getNextTuple()) != null) {
-            results.add(tuple);
+        TupleBatch batch;
+        while ((batch = this.getNextBatch(TupleBatch.DEFAULT_BATCH_SIZE)) != null) {
+            results.addAll(batch.getTuples());
         }
         this.close();
         return results;
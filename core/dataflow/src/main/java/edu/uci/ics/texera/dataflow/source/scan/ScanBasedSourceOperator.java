@@ -1,22 +1,26 @@
 package edu.uci.ics.texera.dataflow.source.scan;
 
+import java.util.Collection;
+
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
 
 import org.apache.lucene.search.MatchAllDocsQuery;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.dataflow.ISourceOperator;
+import edu.uci.ics.texera.dataflow.common.IProjectionPushdown;
 import edu.uci.ics.texera.storage.DataReader;
 import edu.uci.ics.texera.storage.RelationManager;
 
 /**
  * Created by chenli on 3/28/16.
  */
-public class ScanBasedSourceOperator implements ISourceOperator {
+public class ScanBasedSourceOperator implements ISourceOperator, IProjectionPushdown {
 
     private DataReader dataReader;
     
@@ -28,6 +32,8 @@ public class ScanBasedSourceOperator implements ISourceOperator {
                     predicate.getTableName(), new MatchAllDocsQuery());
             // TODO add an option to set if payload is added in the future.
             this.dataReader.setPayloadAdded(true);
+            // a scan doesn't need scores, so documents are read lazily in index order
+            this.dataReader.setStreaming(true);
         } catch (StorageException e) {
             throw new DataflowException(e);
         }
@@ -59,6 +65,18 @@ public class ScanBasedSourceOperator implements ISourceOperator {
         }
     }
 
+    @Override
+    public TupleBatch getNextBatch(int maxSize) throws TexeraException {
+        if (! isOpen) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        try {
+            return dataReader.getNextBatch(maxSize);
+        } catch (Exception e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
     @Override
     public void close() throws TexeraException {
         if (! isOpen) {
@@ -72,6 +90,11 @@ public class ScanBasedSourceOperator implements ISourceOperator {
         }
     }
 
+    @Override
+    public void setRequiredAttributes(Collection<String> requiredAttributes) {
+        this.dataReader.setRequiredAttributes(requiredAttributes);
+    }
+
     @Override
     public Schema getOutputSchema() {
         return dataReader.getOutputSchema();
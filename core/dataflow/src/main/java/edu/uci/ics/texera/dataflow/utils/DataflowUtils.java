@@ -23,6 +23,9 @@ import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
 public class DataflowUtils {
     
     public static final String LUCENE_SCAN_QUERY = "*:*";
+    
+    // the standard analyzer which keeps the stop words, shared (and never closed) like the analyzers of LuceneAnalyzerConstants
+    private static final Analyzer STANDARD_ANALYZER_WITH_STOPWORDS = new StandardAnalyzer(CharArraySet.EMPTY_SET);
 
     public static ArrayList<String> tokenizeQuery(String luceneAnalyzerStr, String query) {
         return tokenizeQuery(LuceneAnalyzerConstants.getLuceneAnalyzer(luceneAnalyzerStr), query);
@@ -37,14 +40,14 @@ public class DataflowUtils {
      */
     public static ArrayList<String> tokenizeQuery(Analyzer luceneAnalyzer, String query) {
         ArrayList<String> result = new ArrayList<String>();
-        TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(query));
-        CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
-        try {
+        // the token stream is reused by the next call on the same thread, it must be closed even if tokenizing fails
+        try (TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(query))) {
+            CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
             tokenStream.reset();
             while (tokenStream.incrementToken()) {
                 result.add(term.toString());
             }
-            tokenStream.close();
+            tokenStream.end();
         } catch (IOException e) {
             throw new DataflowException(e);
         }
@@ -56,8 +59,7 @@ public class DataflowUtils {
         
         if (luceneAnalyzerStr.equals(LuceneAnalyzerConstants.standardAnalyzerString())) {
             // use an empty stop word list for standard analyzer
-            CharArraySet emptyStopwords = new CharArraySet(1, true);
-            luceneAnalyzer = new StandardAnalyzer(emptyStopwords);
+            luceneAnalyzer = STANDARD_ANALYZER_WITH_STOPWORDS;
         } else if (luceneAnalyzerStr.equals(LuceneAnalyzerConstants.chineseAnalyzerString())) {
             // use the default smart chinese analyzer
             // because the smart chinese analyzer's default stopword list is simply a list of punctuations
@@ -68,10 +70,8 @@ public class DataflowUtils {
         }
 
         ArrayList<String> result = new ArrayList<String>();
-        TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(query));
-        CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
-
-        try {
+        try (TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(query))) {
+            CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
             tokenStream.reset();
             while (tokenStream.incrementToken()) {
                 String token = term.toString();
@@ -81,11 +81,9 @@ public class DataflowUtils {
                 String actualQueryToken = query.substring(tokenIndex, tokenIndex + token.length());
                 result.add(actualQueryToken);
             }
-            tokenStream.close();
+            tokenStream.end();
         } catch (IOException e) {
             throw new DataflowException(e);
-        } finally {
-            luceneAnalyzer.close();
         }
         
         return result;
@@ -110,8 +108,7 @@ public class DataflowUtils {
     public static List<Span> generatePayload(String attributeName, String fieldValue, Analyzer luceneAnalyzer) {
         List<Span> payload = new ArrayList<>();
 
-        try {
-            TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(fieldValue));
+        try (TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(fieldValue))) {
             OffsetAttribute offsetAttribute = tokenStream.addAttribute(OffsetAttribute.class);
             CharTermAttribute charTermAttribute = tokenStream.addAttribute(CharTermAttribute.class);
             PositionIncrementAttribute positionIncrementAttribute =
@@ -130,7 +127,7 @@ public class DataflowUtils {
 
                 payload.add(new Span(attributeName, charStart, charEnd, analyzedTermStr, originalTermStr, tokenPosition));
             }
-            tokenStream.close();
+            tokenStream.end();
         } catch (IOException e) {
             throw new DataflowException(e);
         }
@@ -106,7 +106,6 @@ public class WordCountIndexSource implements ISourceOperator {
                 }
             }
             
-            luceneIndexReader.close();
             dataReader.close();
             
             sortedWordCountMap = wordCountMap.entrySet().stream()
@@ -0,0 +1,141 @@
+package edu.uci.ics.texera.dataflow.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.constants.test.TestConstants;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
+import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.Dictionary;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionaryMatcher;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionaryPredicate;
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatcher;
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordPredicate;
+import edu.uci.ics.texera.dataflow.sampler.SamplerPredicate;
+import edu.uci.ics.texera.dataflow.sampler.SamplerPredicate.SampleType;
+import edu.uci.ics.texera.dataflow.source.tuple.TupleSourceOperator;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+public class ParallelOperatorTest {
+
+    private static final int REPEAT = 500;
+
+    private static List<Tuple> getInputTuples() {
+        List<Tuple> inputTuples = new ArrayList<>();
+        for (int i = 0; i < REPEAT; i++) {
+            inputTuples.addAll(TestConstants.getSamplePeopleTuples());
+        }
+        return inputTuples;
+    }
+
+    private static KeywordPredicate getKeywordPredicate() {
+        return new KeywordPredicate("angry", Arrays.asList(TestConstants.DESCRIPTION),
+                LuceneAnalyzerConstants.standardAnalyzerString(), KeywordMatchingType.SUBSTRING_SCANBASED, "spanList");
+    }
+
+    private static List<Tuple> collectResults(AbstractSingleInputOperator operator) {
+        operator.setInputOperator(new TupleSourceOperator(getInputTuples(), TestConstants.SCHEMA_PEOPLE));
+        operator.open();
+        List<Tuple> results = new ArrayList<>();
+        Tuple tuple;
+        while ((tuple = operator.getNextTuple()) != null) {
+            results.add(tuple);
+        }
+        operator.close();
+        return removeID(results);
+    }
+
+    /*
+     * TupleSourceOperator gives the input tuples random IDs on each run.
+     */
+    private static List<Tuple> removeID(List<Tuple> tuples) {
+        return Tuple.Builder.removeIfExists(tuples, SchemaConstants._ID);
+    }
+
+    @Test
+    public void testSameResultsInOrder() throws Exception {
+        List<Tuple> expectedResults = collectResults(new KeywordMatcher(getKeywordPredicate()));
+        List<Tuple> parallelResults = collectResults(
+                new ParallelOperator(() -> new KeywordMatcher(getKeywordPredicate()), 4, true, 7));
+
+        Assert.assertFalse(expectedResults.isEmpty());
+        Assert.assertEquals(expectedResults, parallelResults);
+    }
+
+    @Test
+    public void testSameResultsWithoutOrder() throws Exception {
+        List<Tuple> expectedResults = collectResults(new KeywordMatcher(getKeywordPredicate()));
+        List<Tuple> parallelResults = collectResults(
+                new ParallelOperator(() -> new KeywordMatcher(getKeywordPredicate()), 4, false, 7));
+
+        Assert.assertTrue(TestUtils.equals(expectedResults, parallelResults));
+    }
+
+    @Test
+    public void testLimitAndOffset() throws Exception {
+        List<Tuple> expectedResults = collectResults(new KeywordMatcher(getKeywordPredicate()));
+
+        ParallelOperator parallelOperator = new ParallelOperator(
+                () -> new KeywordMatcher(getKeywordPredicate()), 3, true, 5);
+        parallelOperator.setOffset(10);
+        parallelOperator.setLimit(25);
+        List<Tuple> parallelResults = collectResults(parallelOperator);
+
+        Assert.assertEquals(expectedResults.subList(10, 35), parallelResults);
+    }
+
+    @Test
+    public void testGetNextBatchWithLimitAndOffset() throws Exception {
+        List<Tuple> expectedResults = collectResults(new KeywordMatcher(getKeywordPredicate()));
+
+        KeywordMatcher keywordMatcher = new KeywordMatcher(getKeywordPredicate());
+        keywordMatcher.setInputOperator(new TupleSourceOperator(getInputTuples(), TestConstants.SCHEMA_PEOPLE));
+        keywordMatcher.setOffset(3);
+        keywordMatcher.setLimit(100);
+        keywordMatcher.open();
+        List<Tuple> batchResults = new ArrayList<>();
+        TupleBatch batch;
+        while ((batch = keywordMatcher.getNextBatch(7)) != null) {
+            Assert.assertTrue(batch.size() <= 7);
+            batchResults.addAll(batch.getTuples());
+        }
+        keywordMatcher.close();
+
+        Assert.assertEquals(expectedResults.subList(3, 103), removeID(batchResults));
+    }
+
+    /*
+     * Each copy gets its own predicate, so the copies don't share the dictionary.
+     */
+    @Test
+    public void testCopiesWithOwnPredicates() throws Exception {
+        DictionaryPredicate predicate = new DictionaryPredicate(new Dictionary(Arrays.asList("angry", "short")),
+                Arrays.asList(TestConstants.DESCRIPTION), LuceneAnalyzerConstants.standardAnalyzerString(),
+                KeywordMatchingType.SUBSTRING_SCANBASED, "spanList");
+        DictionaryPredicate predicateCopy = (DictionaryPredicate) ParallelOperator.copyPredicate(predicate);
+        Assert.assertEquals(predicate, predicateCopy);
+        Assert.assertNotSame(predicate.getDictionary(), predicateCopy.getDictionary());
+
+        List<Tuple> expectedResults = collectResults(new DictionaryMatcher(predicate));
+        List<Tuple> parallelResults = collectResults(new ParallelOperator(
+                () -> new DictionaryMatcher((DictionaryPredicate) ParallelOperator.copyPredicate(predicate)), 4, true, 7));
+
+        Assert.assertFalse(expectedResults.isEmpty());
+        Assert.assertEquals(expectedResults, parallelResults);
+    }
+
+    @Test
+    public void testIsParallelizable() throws Exception {
+        Assert.assertTrue(ParallelOperator.isParallelizable(getKeywordPredicate()));
+        Assert.assertFalse(ParallelOperator.isParallelizable(
+                new SamplerPredicate(10, SampleType.FIRST_K_ARRIVAL)));
+    }
+
+}
@@ -25,6 +25,8 @@ import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionaryPredicate;
 import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionarySourcePredicate;
 import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenPredicate;
 import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenSourcePredicate;
+import edu.uci.ics.texera.dataflow.join.HashJoinPredicate;
+import edu.uci.ics.texera.dataflow.join.HashJoinType;
 import edu.uci.ics.texera.dataflow.join.JoinDistancePredicate;
 import edu.uci.ics.texera.dataflow.join.SimilarityJoinPredicate;
 import edu.uci.ics.texera.dataflow.common.JsonSchemaHelper;
@@ -163,6 +165,12 @@ public class PredicateBaseTest {
         testPredicate(similarityJoinPredicate);
     }
     
+    @Test
+    public void testHashJoin() throws Exception {
+        HashJoinPredicate hashJoinPredicate = new HashJoinPredicate("attr1", "attr2", HashJoinType.LEFT_OUTER, 2.0);
+        testPredicate(hashJoinPredicate);
+    }
+    
     @Test
     public void testKeyword() throws Exception {
         KeywordPredicate keywordPredicate = new KeywordPredicate(
@@ -0,0 +1,138 @@
+package edu.uci.ics.texera.dataflow.common;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.test.TestConstants;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.field.DateTimeField;
+import edu.uci.ics.texera.api.field.IDField;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+
+public class SpillableTupleBufferTest {
+
+    private static final Schema SPAN_SCHEMA = new Schema(
+            new Attribute("_id", AttributeType._ID_TYPE),
+            new Attribute("title", AttributeType.STRING),
+            new Attribute("updated", AttributeType.DATETIME),
+            new Attribute("spanList", AttributeType.LIST));
+
+    private static List<Tuple> getSpanTuples(int count) {
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            List<Span> spans = new ArrayList<>();
+            for (int j = 0; j < i % 3; j++) {
+                spans.add(new Span("title", j, j + 5, "key" + j, j == 0 ? null : "value" + j, j));
+            }
+            tuples.add(new Tuple(SPAN_SCHEMA, new IDField("id" + i), new StringField(i % 2 == 0 ? "title" + i : null),
+                    new DateTimeField(LocalDateTime.of(2017, 1, 1, 0, 0, 1, 123456789).plusHours(i)),
+                    new ListField<>(spans)));
+        }
+        return tuples;
+    }
+
+    private static List<Tuple> readAll(SpillableTupleBuffer buffer) {
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < buffer.size(); i++) {
+            tuples.add(buffer.get(i));
+        }
+        return tuples;
+    }
+
+    /*
+     * With a budget of 0, every tuple is encoded to the temporary file and read back.
+     */
+    @Test
+    public void testSpilledTuplesSameAsAdded() throws Exception {
+        List<Tuple> tuples = new ArrayList<>(TestConstants.getSamplePeopleTuples());
+        SpillableTupleBuffer buffer = new SpillableTupleBuffer(TestConstants.SCHEMA_PEOPLE, new MemoryBudget(0));
+        tuples.forEach(buffer::add);
+        Assert.assertTrue(buffer.isSpilled());
+        Assert.assertEquals(tuples, readAll(buffer));
+
+        List<Tuple> spanTuples = getSpanTuples(10);
+        SpillableTupleBuffer spanBuffer = new SpillableTupleBuffer(SPAN_SCHEMA, new MemoryBudget(0));
+        spanTuples.forEach(spanBuffer::add);
+        Assert.assertEquals(spanTuples, readAll(spanBuffer));
+
+        buffer.clear();
+        spanBuffer.clear();
+    }
+
+    /*
+     * The tuples added before the budget runs out stay on the heap,
+     *   and the budget is shared and released by clear().
+     */
+    @Test
+    public void testPartlySpilled() throws Exception {
+        List<Tuple> tuples = getSpanTuples(100);
+        long limit = 0;
+        for (Tuple tuple : tuples.subList(0, 30)) {
+            limit += TupleCodec.estimateSize(tuple);
+        }
+        MemoryBudget memoryBudget = new MemoryBudget(limit);
+        SpillableTupleBuffer buffer = new SpillableTupleBuffer(SPAN_SCHEMA, memoryBudget);
+        tuples.forEach(buffer::add);
+
+        Assert.assertTrue(buffer.isSpilled());
+        Assert.assertEquals(limit, memoryBudget.getReservedBytes());
+        Assert.assertEquals(tuples, readAll(buffer));
+
+        buffer.clear();
+        Assert.assertEquals(0, memoryBudget.getReservedBytes());
+        Assert.assertFalse(buffer.isSpilled());
+        Assert.assertTrue(buffer.isEmpty());
+    }
+
+    /*
+     * Readers at different positions interleave, more of them than the file readers kept open,
+     *   and tuples are added between the reads.
+     */
+    @Test
+    public void testInterleavedReaders() throws Exception {
+        List<Tuple> tuples = getSpanTuples(200);
+        SpillableTupleBuffer buffer = new SpillableTupleBuffer(SPAN_SCHEMA, new MemoryBudget(0));
+        tuples.subList(0, 100).forEach(buffer::add);
+
+        int[] cursors = new int[] {0, 10, 20, 30, 40, 50};
+        for (int round = 0; round < 100; round++) {
+            buffer.add(tuples.get(100 + round));
+            for (int i = 0; i < cursors.length; i++) {
+                Assert.assertEquals(tuples.get(cursors[i]), buffer.get(cursors[i]));
+                cursors[i]++;
+            }
+        }
+        Assert.assertEquals(tuples.get(199), buffer.get(199));
+        buffer.clear();
+    }
+
+    @Test(expected = DataflowException.class)
+    public void testOutOfBound() throws Exception {
+        SpillableTupleBuffer buffer = new SpillableTupleBuffer(SPAN_SCHEMA, new MemoryBudget());
+        getSpanTuples(3).forEach(buffer::add);
+        buffer.get(3);
+    }
+
+    @Test(expected = DataflowException.class)
+    public void testListOfNonSpans() throws Exception {
+        Schema schema = new Schema(new Attribute("numbers", AttributeType.LIST));
+        SpillableTupleBuffer buffer = new SpillableTupleBuffer(schema, new MemoryBudget(0));
+        try {
+            buffer.add(new Tuple(schema, new ListField<>(Arrays.asList(1, 2, 3))));
+        } finally {
+            buffer.clear();
+        }
+    }
+
+}
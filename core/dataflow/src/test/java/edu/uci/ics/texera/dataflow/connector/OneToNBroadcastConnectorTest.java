@@ -17,6 +17,7 @@ import org.junit.Test;
 
 import edu.uci.ics.texera.api.constants.test.TestConstants;
 import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.dataflow.common.MemoryBudget;
 import edu.uci.ics.texera.dataflow.projection.ProjectionOperator;
 import edu.uci.ics.texera.dataflow.projection.ProjectionPredicate;
 import edu.uci.ics.texera.dataflow.source.scan.ScanBasedSourceOperator;
@@ -165,4 +166,42 @@ public class OneToNBroadcastConnectorTest {
     }
 
 
+    /*
+     * This tests the outputs read at different paces with a memory budget of 0,
+     *   so that all the cached tuples are spilled to disk.
+     */
+    @Test
+    public void testInterleavedOutputsSpilled() throws Exception {
+        IOperator sourceOperator = new ScanBasedSourceOperator(
+                new ScanSourcePredicate(PEOPLE_TABLE));
+        
+        OneToNBroadcastConnector connector = new OneToNBroadcastConnector(2);
+        connector.setInputOperator(sourceOperator);
+        connector.setMemoryBudget(new MemoryBudget(0));
+        IOperator output1 = connector.getOutputOperator(0);
+        IOperator output2 = connector.getOutputOperator(1);
+        
+        output1.open();
+        output2.open();
+        
+        List<Tuple> output1Results = new ArrayList<>();
+        List<Tuple> output2Results = new ArrayList<>();
+        Tuple nextTuple = null;
+        while ((nextTuple = output1.getNextTuple()) != null) {
+            output1Results.add(nextTuple);
+            if (output1Results.size() % 2 == 0) {
+                output2Results.add(output2.getNextTuple());
+            }
+        }
+        while ((nextTuple = output2.getNextTuple()) != null) {
+            output2Results.add(nextTuple);
+        }
+        
+        output1.close();
+        output2.close();
+        
+        Assert.assertEquals(output1Results, output2Results);
+        Assert.assertTrue(TestUtils.equals(TestConstants.getSamplePeopleTuples(), output1Results));
+    }
+
 }
@@ -5,7 +5,9 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by Chang on 10/4/17.
@@ -100,5 +102,59 @@ public class ACTrieTest {
         Assert.assertTrue(exactResults.size() == 7);
     }
 
+    /**
+     * Test the offsets and keywords reported by the compiled automaton,
+     * including a state with enough children to be binary searched.
+     * @throws Exception
+     */
+    @Test
+    public void testACAutomatonEmits() throws Exception {
+        ACAutomaton automaton = new ACAutomaton(
+                Arrays.asList("a1", "a2", "a3", "a4", "a5", "a6", "a7", "a8", "a9", "aX", "X", "Xa"), true);
+        List<String> exactResults = new ArrayList<>();
+        String text = "a9xA";
+        automaton.match(text, (keywordIndex, start, end) -> 
+                exactResults.add(automaton.getKeyword(keywordIndex) + "@" + start + "-" + end));
+        Assert.assertEquals(Arrays.asList("a9@0-2", "X@2-3", "Xa@2-4"), exactResults);
+    }
+
+    /**
+     * Test keywords which only differ in case are all reported when matching case-insensitively.
+     * @throws Exception
+     */
+    @Test
+    public void testACAutomatonCaseVariants() throws Exception {
+        ACAutomaton automaton = new ACAutomaton(Arrays.asList("Beta", "beta", "BETA", "beta"), true);
+        Assert.assertEquals(3, automaton.getKeywordCount());
+        List<String> exactResults = new ArrayList<>();
+        automaton.match("alpha bEtA", (keywordIndex, start, end) -> exactResults.add(automaton.getKeyword(keywordIndex)));
+        Collections.sort(exactResults);
+        Assert.assertEquals(Arrays.asList("BETA", "Beta", "beta"), exactResults);
+    }
+
+    /**
+     * Test one automaton shared by several threads.
+     * @throws Exception
+     */
+    @Test
+    public void testACAutomatonSharedByThreads() throws Exception {
+        ACAutomaton automaton = new ACAutomaton(Arrays.asList("begin", "ing", "dark", "ness"), true);
+        String text = "At the beginning, there is always darkness. But darkness is only at the beginning.";
+        AtomicInteger totalResults = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    automaton.match(text, (keywordIndex, start, end) -> totalResults.incrementAndGet());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(4 * 100 * 8, totalResults.get());
+    }
 
 }
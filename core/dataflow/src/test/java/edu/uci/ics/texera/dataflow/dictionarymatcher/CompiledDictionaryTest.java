@@ -0,0 +1,74 @@
+package edu.uci.ics.texera.dataflow.dictionarymatcher;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.dataflow.resource.dictionary.DictionaryManager;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+public class CompiledDictionaryTest {
+
+    @AfterClass
+    public static void cleanUp() throws Exception {
+        DictionaryManager.clearCompiledDictionaries();
+    }
+
+    @Test
+    public void testCompileTokens() throws Exception {
+        CompiledDictionary compiledDictionary = CompiledDictionary.compile(Arrays.asList("lin lin to be panda", "panda bear"),
+                KeywordMatchingType.PHRASE_INDEXBASED, LuceneAnalyzerConstants.standardAnalyzerString());
+
+        Assert.assertEquals(Arrays.asList("lin", "lin", "panda"), compiledDictionary.getTokenListsNoStopwords().get(0));
+        Assert.assertEquals(Arrays.asList("lin", "lin", "to", "be", "panda"), compiledDictionary.getTokenListsWithStopwords().get(0));
+        Assert.assertEquals(Arrays.asList(0, 1), compiledDictionary.getEntryTokenIndex().get("panda"));
+        Assert.assertEquals(Arrays.asList("panda", "panda"), compiledDictionary.getLongestTokens());
+        Assert.assertTrue(compiledDictionary.getDictionaryEntrySet().contains("panda bear"));
+    }
+
+    @Test
+    public void testCompiledDictionaryIsShared() throws Exception {
+        Dictionary dictionary = new Dictionary(Arrays.asList("tom hanks", "george lin lin"));
+        String analyzer = LuceneAnalyzerConstants.standardAnalyzerString();
+
+        CompiledDictionary conjunction = DictionaryManager.getCompiledDictionary(
+                dictionary, KeywordMatchingType.CONJUNCTION_INDEXBASED, analyzer);
+        Assert.assertSame(conjunction, DictionaryManager.getCompiledDictionary(
+                new Dictionary(Arrays.asList("tom hanks", "george lin lin")), KeywordMatchingType.CONJUNCTION_INDEXBASED, analyzer));
+        Assert.assertNotSame(conjunction, DictionaryManager.getCompiledDictionary(
+                dictionary, KeywordMatchingType.PHRASE_INDEXBASED, analyzer));
+        Assert.assertNotSame(conjunction, DictionaryManager.getCompiledDictionary(
+                new Dictionary(Arrays.asList("tom hanks")), KeywordMatchingType.CONJUNCTION_INDEXBASED, analyzer));
+    }
+
+    @Test
+    public void testSerializeCompiledDictionary() throws Exception {
+        CompiledDictionary compiledDictionary = CompiledDictionary.compile(Arrays.asList("he", "hers", "she"),
+                KeywordMatchingType.SUBSTRING_SCANBASED, LuceneAnalyzerConstants.standardAnalyzerString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(compiledDictionary);
+        }
+        CompiledDictionary readDictionary;
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            readDictionary = (CompiledDictionary) input.readObject();
+        }
+
+        Assert.assertEquals(compiledDictionary.getDictionaryEntries(), readDictionary.getDictionaryEntries());
+        List<String> matches = new ArrayList<>();
+        readDictionary.getSubstringAutomaton().match("uSHErs", (keywordIndex, start, end) ->
+                matches.add(readDictionary.getSubstringAutomaton().getKeyword(keywordIndex) + ":" + start));
+        Assert.assertEquals(Arrays.asList("she:1", "he:2", "hers:2"), matches);
+    }
+
+}
@@ -12,6 +12,7 @@ import org.junit.Test;
 
 import edu.uci.ics.texera.api.constants.test.TestConstants;
 import edu.uci.ics.texera.api.constants.test.TestConstantsChinese;
+import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.field.DateField;
 import edu.uci.ics.texera.api.field.DoubleField;
 import edu.uci.ics.texera.api.field.IField;
@@ -27,6 +28,7 @@ import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.TestUtils;
 import edu.uci.ics.texera.dataflow.dictionarymatcher.Dictionary;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.storage.RelationManager;
 
 /**
  * @author rajeshyarlagadda
@@ -1236,5 +1238,101 @@ public class DictionaryMatcherTest {
         Assert.assertTrue(contains);
     }
 
+    /*
+     * A large dictionary is searched with one index query, the entries which don't occur
+     *   in the table don't change the results of the entries which do.
+     */
+    @Test
+    public void testLargeDictionaryUsingKeywordAndPhrase() throws Exception {
+        List<String> matchingEntries = Arrays.asList("lin clooney", "tall angry", "brown");
+        List<String> entries = new ArrayList<>(matchingEntries);
+        for (int i = 0; i < 2000; i++) {
+            entries.add("filler" + i + " word" + i);
+        }
+        List<String> attributeNames = Arrays.asList(TestConstants.FIRST_NAME, TestConstants.LAST_NAME,
+                TestConstants.DESCRIPTION);
+
+        for (KeywordMatchingType matchingType : Arrays.asList(KeywordMatchingType.CONJUNCTION_INDEXBASED,
+                KeywordMatchingType.PHRASE_INDEXBASED)) {
+            List<Tuple> expectedResults = DictionaryMatcherTestHelper.getQueryResults(PEOPLE_TABLE,
+                    new Dictionary(matchingEntries), attributeNames, matchingType);
+            List<Tuple> returnedResults = DictionaryMatcherTestHelper.getQueryResults(PEOPLE_TABLE,
+                    new Dictionary(entries), attributeNames, matchingType);
+            Assert.assertFalse(expectedResults.isEmpty());
+            Assert.assertTrue(TestUtils.equals(expectedResults, returnedResults));
+        }
+    }
+
+    /*
+     * The index query uses the tokens produced by the analyzer, the entries aren't lower-cased by the operator.
+     */
+    @Test
+    public void testMixedCaseEntryUsingKeyword() throws Exception {
+        List<String> attributeNames = Arrays.asList(TestConstants.LAST_NAME, TestConstants.DESCRIPTION);
+        List<Tuple> expectedResults = DictionaryMatcherTestHelper.getQueryResults(PEOPLE_TABLE,
+                new Dictionary(Arrays.asList("clooney")), attributeNames, KeywordMatchingType.CONJUNCTION_INDEXBASED);
+        List<Tuple> returnedResults = DictionaryMatcherTestHelper.getQueryResults(PEOPLE_TABLE,
+                new Dictionary(Arrays.asList("CLOONEY")), attributeNames, KeywordMatchingType.CONJUNCTION_INDEXBASED);
+        Assert.assertEquals(1, returnedResults.size());
+        Assert.assertEquals(expectedResults.get(0).getField(TestConstants.DESCRIPTION),
+                returnedResults.get(0).getField(TestConstants.DESCRIPTION));
+    }
+
+    /*
+     * An entry which only has stopwords can't match a TEXT attribute, it's rejected.
+     */
+    @Test(expected = DataflowException.class)
+    public void testStopwordOnlyEntryUsingKeyword() throws Exception {
+        Dictionary dictionary = new Dictionary(Arrays.asList("lin clooney", "the"));
+        DictionaryMatcherTestHelper.getDictionarySourceResults(PEOPLE_TABLE, dictionary,
+                Arrays.asList(TestConstants.DESCRIPTION), KeywordMatchingType.CONJUNCTION_INDEXBASED,
+                Integer.MAX_VALUE, 0);
+    }
+
+    /*
+     * Closing the source twice is allowed, and it can be opened again.
+     */
+    @Test
+    public void testSourceCloseTwiceAndReopen() throws Exception {
+        Dictionary dictionary = new Dictionary(Arrays.asList("lin clooney", "angry"));
+        DictionarySourcePredicate predicate = new DictionarySourcePredicate(dictionary,
+                Arrays.asList(TestConstants.LAST_NAME, TestConstants.DESCRIPTION),
+                RelationManager.getInstance().getTableAnalyzerString(PEOPLE_TABLE),
+                KeywordMatchingType.PHRASE_INDEXBASED, PEOPLE_TABLE, RESULTS);
+        DictionaryMatcherSourceOperator dictionarySource = new DictionaryMatcherSourceOperator(predicate);
+
+        List<List<Tuple>> runs = new ArrayList<>();
+        for (int run = 0; run < 2; run++) {
+            List<Tuple> results = new ArrayList<>();
+            Tuple tuple;
+            dictionarySource.open();
+            while ((tuple = dictionarySource.getNextTuple()) != null) {
+                results.add(tuple);
+            }
+            dictionarySource.close();
+            dictionarySource.close();
+            dictionary.resetCursor();
+            runs.add(results);
+        }
+        Assert.assertFalse(runs.get(0).isEmpty());
+        Assert.assertTrue(TestUtils.equals(runs.get(0), runs.get(1)));
+    }
+
+    /*
+     * A REGEX entry matches like java regex, which takes the first alternative leading to a match,
+     *   not the longest match at a start offset.
+     */
+    @Test
+    public void testRegexQueryLeftmostFirst() throws Exception {
+        Dictionary dictionary = new Dictionary(Arrays.asList("lin|lin clooney"));
+        List<Tuple> returnedResults = DictionaryMatcherTestHelper.getQueryResults(PEOPLE_TABLE, dictionary,
+                Arrays.asList(TestConstants.LAST_NAME), KeywordMatchingType.REGEX);
+
+        Assert.assertEquals(1, returnedResults.size());
+        ListField<Span> spanListField = returnedResults.get(0).getField(RESULTS);
+        Assert.assertEquals(Arrays.asList(new Span(TestConstants.LAST_NAME, 0, 3, "lin|lin clooney", "lin")),
+                spanListField.getValue());
+    }
+
 }
 
@@ -0,0 +1,147 @@
+package edu.uci.ics.texera.dataflow.dictionarymatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MultiRegexAutomatonTest {
+
+    /*
+     * Returns the matches as "entryIndex:start-end", in the order of the regexes.
+     */
+    private static List<String> match(MultiRegexAutomaton automaton, String text) {
+        List<String> matches = new ArrayList<>();
+        automaton.newRunner().match(text, (entryIndex, start, end) -> matches.add(entryIndex + ":" + start + "-" + end));
+        matches.sort((m1, m2) -> Integer.compare(Integer.parseInt(m1.split(":")[0]), Integer.parseInt(m2.split(":")[0])));
+        return matches;
+    }
+
+    private static List<String> matchWithJavaRegex(List<String> regexes, String text) {
+        List<String> matches = new ArrayList<>();
+        for (int i = 0; i < regexes.size(); i++) {
+            Matcher matcher = Pattern.compile(regexes.get(i), Pattern.CASE_INSENSITIVE).matcher(text);
+            while (matcher.find()) {
+                matches.add(i + ":" + matcher.start() + "-" + matcher.end());
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * The automaton finds the same matches as java regex.
+     */
+    @Test
+    public void testSameMatchesAsJavaRegex() {
+        List<String> regexes = Arrays.asList("\\w+\\sjohn", "Tall\\s*\\w{4},", "<[^>]*>", "aa",
+                "(?:ab)+c", "[0-9]{3}-\\d{4}", "x.y");
+        MultiRegexAutomaton automaton = new MultiRegexAutomaton(regexes);
+        Assert.assertEquals(0, automaton.getFallbackEntries().length);
+
+        for (String text : Arrays.asList("christian john wayne", "Tall Fair, TALL fair,", "aaaaab <b<c> ABABC",
+                "call 555-1234 or 5551234", "x\ny xzy", "<< >a> <<<")) {
+            Assert.assertEquals(matchWithJavaRegex(regexes, text), match(automaton, text));
+        }
+    }
+
+    /**
+     * Regexes which can't be translated, or match the empty string, are left to java regex.
+     */
+    @Test
+    public void testFallbackEntries() {
+        List<String> regexes = Arrays.asList("^tom", "tom\\b", "a*?b", "(\\w)\\1", "[^a-z]", "x*", "tom|hanks");
+        MultiRegexAutomaton automaton = new MultiRegexAutomaton(regexes);
+        Assert.assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5}, automaton.getFallbackEntries());
+        Assert.assertEquals(1, automaton.getAutomatonEntryCount());
+        Assert.assertEquals(Arrays.asList("6:0-3", "6:4-9"), match(automaton, "Tom Hanks"));
+    }
+
+    /**
+     * A regex with a match which is a prefix of another match is left to java regex,
+     *   which takes the first match found at a start offset, not the longest one.
+     */
+    @Test
+    public void testLeftmostFirstMatch() {
+        List<String> regexes = Arrays.asList("a+(?:ab)?", "new|new york", "b+", "Tall\\s*\\w{4,5}", "[a-z]+\\d");
+        MultiRegexAutomaton automaton = new MultiRegexAutomaton(regexes);
+        Assert.assertArrayEquals(new int[] {0, 1, 2, 3}, automaton.getFallbackEntries());
+        Assert.assertEquals(Arrays.asList("0:0-2"), matchWithJavaRegex(regexes.subList(0, 1), "aab"));
+        Assert.assertEquals(Arrays.asList("0:0-3"), matchWithJavaRegex(regexes.subList(1, 2), "new york"));
+    }
+
+    /**
+     * A match is only reported once no match can start before it,
+     *   and a regex with an earlier match ending inside it can still match after that match.
+     */
+    @Test
+    public void testCandidateBlockedByEarlierStart() {
+        List<String> regexes = Arrays.asList("\\([^)]*\\)|\\[[^\\]]*\\]|\\{[^}]*\\}");
+        MultiRegexAutomaton automaton = new MultiRegexAutomaton(regexes);
+        Assert.assertEquals(0, automaton.getFallbackEntries().length);
+        for (String text : Arrays.asList("([{]{}", "([{]{}()", "([[[] [{} ({}", "{([]", "x((([[])")) {
+            Assert.assertEquals(matchWithJavaRegex(regexes, text), match(automaton, text));
+        }
+    }
+
+    /**
+     * The runner reads the text once, a regex which keeps a match open to the end of the text
+     *   doesn't make it scan the rest of the text from every start offset.
+     */
+    @Test(timeout = 10000)
+    public void testLinearScan() {
+        MultiRegexAutomaton automaton = new MultiRegexAutomaton(Arrays.asList("<[^>]*>", "\\([^)]*\\)"));
+        Assert.assertEquals(0, automaton.getFallbackEntries().length);
+        char[] text = new char[1000000];
+        Arrays.fill(text, '<');
+        Assert.assertEquals(Arrays.asList(), match(automaton, new String(text)));
+        text[text.length - 1] = '>';
+        Assert.assertEquals(Arrays.asList("0:0-1000000"), match(automaton, new String(text)));
+    }
+
+    /**
+     * Random regexes in the automaton find the same matches as java regex on random texts.
+     */
+    @Test
+    public void testRandomRegexesSameAsJavaRegex() {
+        List<String> atoms = Arrays.asList("a", "b", "[ab]", "\\(", "\\)", "(?:ab|b)", "a+", "b*", "[^)]*", ".", "(?:a|ba)", "\\s");
+        String chars = "abAB() ";
+        Random random = new Random(0);
+        int automatonRegexes = 0;
+        for (int r = 0; r < 500; r++) {
+            StringBuilder regex = new StringBuilder();
+            for (int k = random.nextInt(4); k >= 0; k--) {
+                regex.append(atoms.get(random.nextInt(atoms.size())));
+            }
+            List<String> regexes = Arrays.asList(regex.toString());
+            MultiRegexAutomaton automaton = new MultiRegexAutomaton(regexes);
+            if (automaton.getAutomatonEntryCount() == 0) {
+                continue;
+            }
+            automatonRegexes++;
+            for (int t = 0; t < 20; t++) {
+                StringBuilder text = new StringBuilder();
+                for (int i = random.nextInt(30); i > 0; i--) {
+                    text.append(chars.charAt(random.nextInt(chars.length())));
+                }
+                Assert.assertEquals(regex + " on " + text, matchWithJavaRegex(regexes, text.toString()),
+                        match(automaton, text.toString()));
+            }
+        }
+        Assert.assertTrue(automatonRegexes > 100);
+    }
+
+    @Test
+    public void testToBricsRegex() {
+        Assert.assertEquals("(ab)+[0-9]", MultiRegexAutomaton.toBricsRegex("(?:ab)+\\d"));
+        Assert.assertEquals("\\\"a\\\"\\<\\>", MultiRegexAutomaton.toBricsRegex("\"a\"<>"));
+        Assert.assertNull(MultiRegexAutomaton.toBricsRegex("a+?"));
+        Assert.assertNull(MultiRegexAutomaton.toBricsRegex("(?i)a"));
+        Assert.assertNull(MultiRegexAutomaton.toBricsRegex("a$"));
+    }
+
+}
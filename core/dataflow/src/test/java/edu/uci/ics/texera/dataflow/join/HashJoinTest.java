@@ -0,0 +1,278 @@
+package edu.uci.ics.texera.dataflow.join;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.field.DateField;
+import edu.uci.ics.texera.api.field.DoubleField;
+import edu.uci.ics.texera.api.field.IntegerField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.dataflow.common.MemoryBudget;
+import edu.uci.ics.texera.dataflow.source.tuple.TupleSourceOperator;
+
+public class HashJoinTest {
+
+    // a lookup table of drugs, and the drug names extracted from documents
+    private static final Schema DRUG_SCHEMA = new Schema(
+            new Attribute("name", AttributeType.STRING),
+            new Attribute("drugClass", AttributeType.STRING),
+            new Attribute("approved", AttributeType.DATE));
+    private static final Schema MENTION_SCHEMA = new Schema(
+            new Attribute("drug", AttributeType.TEXT),
+            new Attribute("document", AttributeType.INTEGER),
+            new Attribute("published", AttributeType.DATE));
+
+    private static final Schema NUMBER_SCHEMA = new Schema(
+            new Attribute("number", AttributeType.INTEGER),
+            new Attribute("label", AttributeType.STRING));
+
+    private static List<Tuple> getDrugTuples() {
+        return Arrays.asList(
+                new Tuple(DRUG_SCHEMA, new StringField("aspirin"), new StringField("NSAID"),
+                        new DateField(LocalDate.of(1950, 1, 1))),
+                new Tuple(DRUG_SCHEMA, new StringField("ibuprofen"), new StringField("NSAID"),
+                        new DateField(LocalDate.of(1974, 5, 15))),
+                new Tuple(DRUG_SCHEMA, new StringField("metformin"), new StringField("biguanide"),
+                        new DateField(LocalDate.of(1994, 12, 29))));
+    }
+
+    private static List<Tuple> getMentionTuples() {
+        return Arrays.asList(
+                new Tuple(MENTION_SCHEMA, new TextField("aspirin"), new IntegerField(1),
+                        new DateField(LocalDate.of(1950, 1, 2))),
+                new Tuple(MENTION_SCHEMA, new TextField("warfarin"), new IntegerField(2),
+                        new DateField(LocalDate.of(1974, 5, 14))),
+                new Tuple(MENTION_SCHEMA, new TextField("metformin"), new IntegerField(3),
+                        new DateField(LocalDate.of(2000, 1, 1))),
+                new Tuple(MENTION_SCHEMA, new TextField("aspirin"), new IntegerField(4),
+                        new DateField(LocalDate.of(2001, 1, 1))));
+    }
+
+    /*
+     * Joins the drug names extracted from documents (TEXT) with the lookup table (STRING).
+     */
+    @Test
+    public void testInnerEquiJoin() throws Exception {
+        HashJoinPredicate predicate = new HashJoinPredicate("name", "drug", HashJoinType.INNER, null);
+        List<Tuple> results = getResults(predicate, getDrugTuples(), getMentionTuples(), HashJoin.DEFAULT_MEMORY_BUDGET);
+
+        Schema outputSchema = predicate.generateOutputSchema(
+                new TupleSourceOperator(getDrugTuples(), DRUG_SCHEMA).getOutputSchema(),
+                new TupleSourceOperator(getMentionTuples(), MENTION_SCHEMA).getOutputSchema());
+        List<Tuple> expectedResults = Arrays.asList(
+                predicate.mergeTuples(getDrugTuples().get(0), getMentionTuples().get(0), outputSchema),
+                predicate.mergeTuples(getDrugTuples().get(2), getMentionTuples().get(2), outputSchema),
+                predicate.mergeTuples(getDrugTuples().get(0), getMentionTuples().get(3), outputSchema));
+
+        Assert.assertTrue(TestUtils.equals(expectedResults, results));
+    }
+
+    /*
+     * The mention without a drug in the lookup table is output with empty drug attributes.
+     */
+    @Test
+    public void testLeftOuterEquiJoin() throws Exception {
+        HashJoinPredicate predicate = new HashJoinPredicate("name", "drug", HashJoinType.LEFT_OUTER, null);
+        List<Tuple> results = getResults(predicate, getDrugTuples(), getMentionTuples(), HashJoin.DEFAULT_MEMORY_BUDGET);
+
+        Assert.assertEquals(4, results.size());
+        Tuple unmatchedTuple = results.stream()
+                .filter(tuple -> tuple.getField("outer_drug").getValue().equals("warfarin")).findAny().get();
+        Assert.assertEquals("", unmatchedTuple.getField("inner_name").getValue());
+        Assert.assertEquals(LocalDate.MIN, unmatchedTuple.getField("inner_approved").getValue());
+        Assert.assertEquals(2, (int) unmatchedTuple.getField("outer_document").getValue());
+    }
+
+    /*
+     * Joins the mentions published within a day of the approval of a drug.
+     */
+    @Test
+    public void testDateBandJoin() throws Exception {
+        HashJoinPredicate predicate = new HashJoinPredicate("approved", "published", HashJoinType.INNER, 1.0);
+        List<Tuple> results = getResults(predicate, getDrugTuples(), getMentionTuples(), HashJoin.DEFAULT_MEMORY_BUDGET);
+
+        Assert.assertEquals(2, results.size());
+        for (Tuple tuple : results) {
+            LocalDate approved = (LocalDate) tuple.getField("inner_approved").getValue();
+            LocalDate published = (LocalDate) tuple.getField("outer_published").getValue();
+            Assert.assertTrue(Math.abs(approved.toEpochDay() - published.toEpochDay()) <= 1);
+        }
+    }
+
+    @Test(expected = DataflowException.class)
+    public void testBandJoinOnString() throws Exception {
+        getResults(new HashJoinPredicate("name", "drug", HashJoinType.INNER, 1.0),
+                getDrugTuples(), getMentionTuples(), HashJoin.DEFAULT_MEMORY_BUDGET);
+    }
+
+    /*
+     * NaN isn't equal to any number, so it doesn't join with NaN either,
+     *   in the hash table, in the partitions of a spilled join, and in the Join operator.
+     */
+    @Test
+    public void testNaNDoesNotJoin() throws Exception {
+        Schema doubleSchema = new Schema(
+                new Attribute("number", AttributeType.DOUBLE),
+                new Attribute("label", AttributeType.STRING));
+        List<Tuple> innerTuples = Arrays.asList(
+                new Tuple(doubleSchema, new DoubleField(Double.NaN), new StringField("inner0")),
+                new Tuple(doubleSchema, new DoubleField(1.0), new StringField("inner1")),
+                new Tuple(doubleSchema, new DoubleField(Double.NaN), new StringField("inner2")));
+        List<Tuple> outerTuples = Arrays.asList(
+                new Tuple(doubleSchema, new DoubleField(Double.NaN), new StringField("outer0")),
+                new Tuple(doubleSchema, new DoubleField(1.0), new StringField("outer1")));
+
+        for (long memoryBudget : new long[] {HashJoin.DEFAULT_MEMORY_BUDGET, 0}) {
+            Assert.assertEquals(1, getResults(new HashJoinPredicate("number", "number", HashJoinType.INNER, null),
+                    innerTuples, outerTuples, memoryBudget).size());
+            // the outer tuple with NaN is output without an inner tuple
+            Assert.assertEquals(2, getResults(new HashJoinPredicate("number", "number", HashJoinType.LEFT_OUTER, null),
+                    innerTuples, outerTuples, memoryBudget).size());
+        }
+
+        Join join = new Join(new HashJoinPredicate("number"));
+        join.setInnerInputOperator(new TupleSourceOperator(innerTuples, doubleSchema));
+        join.setOuterInputOperator(new TupleSourceOperator(outerTuples, doubleSchema));
+        Assert.assertEquals(1, collect(join).size());
+    }
+
+    /*
+     * Compares the results with the Join operator, which calls the predicate on every pair of tuples,
+     *   for random inputs of different sizes (so either can be the build side),
+     *   with the default memory budget and with a budget small enough to partition the inputs.
+     */
+    @Test
+    public void testSameAsNestedLoopJoin() throws Exception {
+        Random random = new Random(0);
+        for (int round = 0; round < 20; round++) {
+            List<Tuple> innerTuples = getRandomNumberTuples(random, random.nextInt(200));
+            List<Tuple> outerTuples = getRandomNumberTuples(random, random.nextInt(200));
+            for (Double bandWidth : Arrays.asList(null, 0.0, 3.0)) {
+                for (HashJoinType joinType : HashJoinType.values()) {
+                    HashJoinPredicate predicate = new HashJoinPredicate("number", "number", joinType, bandWidth);
+                    List<Tuple> expectedResults = getNestedLoopResults(predicate, innerTuples, outerTuples);
+
+                    Assert.assertTrue(TestUtils.equals(expectedResults,
+                            getResults(predicate, innerTuples, outerTuples, HashJoin.DEFAULT_MEMORY_BUDGET)));
+                    Assert.assertTrue(TestUtils.equals(expectedResults,
+                            getResults(predicate, innerTuples, outerTuples, 1000)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSpilledEquiJoin() throws Exception {
+        Random random = new Random(1);
+        List<Tuple> innerTuples = getRandomNumberTuples(random, 100);
+        List<Tuple> outerTuples = getRandomNumberTuples(random, 300);
+        HashJoin hashJoin = new HashJoin(new HashJoinPredicate("number"));
+        hashJoin.setInnerInputOperator(new TupleSourceOperator(innerTuples, NUMBER_SCHEMA));
+        hashJoin.setOuterInputOperator(new TupleSourceOperator(outerTuples, NUMBER_SCHEMA));
+        hashJoin.setMemoryBudget(1000);
+        hashJoin.open();
+        hashJoin.getNextTuple();
+        Assert.assertTrue(hashJoin.isSpilled());
+        hashJoin.close();
+        Assert.assertFalse(hashJoin.isSpilled());
+    }
+
+    /*
+     * The table of a spilled partition reserves its memory from the budget until the partition is joined.
+     */
+    @Test
+    public void testSpilledPartitionsReserveMemory() throws Exception {
+        Random random = new Random(1);
+        List<Tuple> innerTuples = getRandomNumberTuples(random, 100);
+        List<Tuple> outerTuples = getRandomNumberTuples(random, 300);
+        HashJoin hashJoin = new HashJoin(new HashJoinPredicate("number"));
+        hashJoin.setInnerInputOperator(new TupleSourceOperator(innerTuples, NUMBER_SCHEMA));
+        hashJoin.setOuterInputOperator(new TupleSourceOperator(outerTuples, NUMBER_SCHEMA));
+        MemoryBudget memoryBudget = new MemoryBudget(1000);
+        hashJoin.setMemoryBudget(memoryBudget);
+        hashJoin.open();
+        Assert.assertNotNull(hashJoin.getNextTuple());
+        Assert.assertTrue(hashJoin.isSpilled());
+        Assert.assertTrue(memoryBudget.getReservedBytes() > 0);
+        while (hashJoin.getNextTuple() != null) {
+            Assert.assertTrue(memoryBudget.getReservedBytes() > 0);
+        }
+        Assert.assertEquals(0, memoryBudget.getReservedBytes());
+        hashJoin.close();
+        Assert.assertEquals(0, memoryBudget.getReservedBytes());
+    }
+
+    private static List<Tuple> getRandomNumberTuples(Random random, int count) {
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tuples.add(new Tuple(NUMBER_SCHEMA, new IntegerField(random.nextInt(100)), new StringField("label" + i)));
+        }
+        return tuples;
+    }
+
+    /*
+     * Joins the tuples with the Join operator, and adds the unmatched outer tuples of a left outer join.
+     */
+    private static List<Tuple> getNestedLoopResults(HashJoinPredicate predicate,
+            List<Tuple> innerTuples, List<Tuple> outerTuples) throws Exception {
+        Join join = new Join(predicate);
+        TupleSourceOperator innerSource = new TupleSourceOperator(innerTuples, NUMBER_SCHEMA);
+        TupleSourceOperator outerSource = new TupleSourceOperator(outerTuples, NUMBER_SCHEMA);
+        join.setInnerInputOperator(innerSource);
+        join.setOuterInputOperator(outerSource);
+        List<Tuple> results = collect(join);
+        if (predicate.getJoinType() == HashJoinType.LEFT_OUTER) {
+            Schema outputSchema = predicate.generateOutputSchema(innerSource.getOutputSchema(), outerSource.getOutputSchema());
+            for (Tuple outerTuple : outerTuples) {
+                boolean matched = false;
+                for (Tuple innerTuple : innerTuples) {
+                    matched = matched || predicate.joinTuples(innerTuple, outerTuple, outputSchema) != null;
+                }
+                if (! matched) {
+                    results.add(predicate.mergeTuples(null, outerTuple, outputSchema));
+                }
+            }
+        }
+        return results;
+    }
+
+    private static List<Tuple> getResults(HashJoinPredicate predicate, List<Tuple> innerTuples, List<Tuple> outerTuples,
+            long memoryBudget) throws Exception {
+        HashJoin hashJoin = predicate.newOperator();
+        hashJoin.setInnerInputOperator(new TupleSourceOperator(innerTuples, innerTuples.isEmpty()
+                ? NUMBER_SCHEMA : innerTuples.get(0).getSchema()));
+        hashJoin.setOuterInputOperator(new TupleSourceOperator(outerTuples, outerTuples.isEmpty()
+                ? NUMBER_SCHEMA : outerTuples.get(0).getSchema()));
+        hashJoin.setMemoryBudget(memoryBudget);
+        return collect(hashJoin);
+    }
+
+    private static List<Tuple> collect(IOperator operator) throws Exception {
+        List<Tuple> results = new ArrayList<>();
+        operator.open();
+        try {
+            Tuple tuple;
+            while ((tuple = operator.getNextTuple()) != null) {
+                results.add(tuple);
+            }
+        } finally {
+            operator.close();
+        }
+        return results;
+    }
+
+}
@@ -1,7 +1,9 @@
 package edu.uci.ics.texera.dataflow.join;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 
 import org.junit.After;
@@ -23,6 +25,7 @@ import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.dataflow.common.MemoryBudget;
 import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenSourcePredicate;
 import edu.uci.ics.texera.dataflow.join.Join;
 import edu.uci.ics.texera.dataflow.join.JoinDistancePredicate;
@@ -894,4 +897,77 @@ public class JoinDistanceTest {
         }
     }
 
-}
\ No newline at end of file
+    
+    /*
+     * This case tests that the join gives the same results when the inner tuples don't fit in the memory budget,
+     *   and both inputs are partitioned into temporary files.
+     */
+    @Test
+    public void testSpilledJoinSameResults() throws Exception {
+        JoinTestHelper.insertToTable(BOOK_TABLE, JoinTestConstants.bookGroup1);
+        
+        List<Tuple> expectedResults = JoinTestHelper.getJoinDistanceResults(
+                JoinTestHelper.getKeywordSource(BOOK_TABLE, "actually", conjunction),
+                JoinTestHelper.getKeywordSource(BOOK_TABLE, "typical", conjunction),
+                new JoinDistancePredicate(JoinTestConstants.REVIEW, 90), Integer.MAX_VALUE, 0);
+        
+        Join join = new Join(new JoinDistancePredicate(JoinTestConstants.REVIEW, 90));
+        join.setInnerInputOperator(JoinTestHelper.getKeywordSource(BOOK_TABLE, "actually", conjunction));
+        join.setOuterInputOperator(JoinTestHelper.getKeywordSource(BOOK_TABLE, "typical", conjunction));
+        MemoryBudget memoryBudget = new MemoryBudget(1);
+        join.setMemoryBudget(memoryBudget);
+        
+        Tuple tuple;
+        List<Tuple> resultList = new ArrayList<>();
+        join.open();
+        while ((tuple = join.getNextTuple()) != null) {
+            // the hash table of the partition being joined reserves its memory
+            Assert.assertTrue(memoryBudget.getReservedBytes() > 0);
+            resultList.add(tuple);
+        }
+        Assert.assertTrue(join.isSpilled());
+        Assert.assertEquals(0, memoryBudget.getReservedBytes());
+        join.close();
+        
+        Assert.assertFalse(expectedResults.isEmpty());
+        Assert.assertTrue(TestUtils.equals(expectedResults, resultList));
+    }
+
+    /*
+     * This case tests that the sweep over the sorted spans finds the same pairs of spans,
+     *   in the same order, as the nested loops over the two span lists.
+     */
+    @Test
+    public void testSpanSweepSameAsNestedLoops() throws Exception {
+        Random random = new Random(0);
+        for (int round = 0; round < 100; round++) {
+            int[] outerStarts = new int[random.nextInt(50)];
+            int[] outerEnds = new int[outerStarts.length];
+            int[] innerStarts = new int[random.nextInt(50)];
+            int[] innerEnds = new int[innerStarts.length];
+            for (int i = 0; i < outerStarts.length; i++) {
+                outerStarts[i] = random.nextInt(500);
+                outerEnds[i] = outerStarts[i] + random.nextInt(20);
+            }
+            for (int i = 0; i < innerStarts.length; i++) {
+                innerStarts[i] = random.nextInt(500);
+                innerEnds[i] = innerStarts[i] + random.nextInt(20);
+            }
+            int threshold = random.nextInt(30);
+            
+            List<Long> expectedPairs = new ArrayList<>();
+            for (int i = 0; i < outerStarts.length; i++) {
+                for (int j = 0; j < innerStarts.length; j++) {
+                    if (Math.abs(outerStarts[i] - innerStarts[j]) <= threshold 
+                            && Math.abs(outerEnds[i] - innerEnds[j]) <= threshold) {
+                        expectedPairs.add(((long) i << 32) | j);
+                    }
+                }
+            }
+            
+            long[] pairs = JoinDistancePredicate.sweepSpanPairs(outerStarts, outerEnds, innerStarts, innerEnds, threshold);
+            Assert.assertEquals(expectedPairs, Arrays.stream(pairs).boxed().collect(Collectors.toList()));
+        }
+    }
+
+}
\ No newline at end of file
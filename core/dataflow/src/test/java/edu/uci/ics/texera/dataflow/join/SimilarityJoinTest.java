@@ -21,8 +21,10 @@ import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatcher;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 
 /**
@@ -228,5 +230,71 @@ public class SimilarityJoinTest {
         Assert.assertTrue(results.isEmpty());
     }
 
+    /*
+     * Tests that the q-gram index of the Similarity Join Predicate finds all the inner tuples
+     *   with a similar span value, by comparing it with joining all pairs of random tuples,
+     *   both with the default similarity function and with another one.
+     */
+    @Test
+    public void testCandidateIndexSameAsAllPairs() throws TexeraException {
+        Random random = new Random(0);
+        Schema schema = new Schema.Builder().add(SchemaConstants.SPAN_LIST_ATTRIBUTE).build();
+        String attributeName = JoinTestConstants.NEWS_BODY;
+        
+        for (int round = 0; round < 20; round++) {
+            List<Tuple> innerTuples = new ArrayList<>();
+            List<Tuple> outerTuples = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                innerTuples.add(getRandomSpanTuple(random, schema, attributeName));
+                outerTuples.add(getRandomSpanTuple(random, schema, attributeName));
+            }
+            
+            for (double threshold : new double[] {0.1, 0.5, 0.7, 0.8, 1}) {
+                SimilarityJoinPredicate defaultPredicate = new SimilarityJoinPredicate(attributeName, threshold);
+                SimilarityJoinPredicate prefixPredicate = new SimilarityJoinPredicate(attributeName, threshold);
+                prefixPredicate.setSimilarityFunction((string1, string2) ->
+                        string1.charAt(0) == string2.charAt(0) ? 1.0 : 0.0);
+                
+                for (SimilarityJoinPredicate predicate : Arrays.asList(defaultPredicate, prefixPredicate)) {
+                    IJoinCandidateIndex candidateIndex = predicate.createCandidateIndex();
+                    for (Tuple innerTuple : innerTuples) {
+                        candidateIndex.addInnerTuple(innerTuple);
+                    }
+                    for (Tuple outerTuple : outerTuples) {
+                        List<Tuple> expectedInnerTuples = new ArrayList<>();
+                        for (Tuple innerTuple : innerTuples) {
+                            if (predicate.joinTuples(innerTuple, outerTuple, schema) != null) {
+                                expectedInnerTuples.add(innerTuple);
+                            }
+                        }
+                        List<Tuple> innerTuplesFound = new ArrayList<>();
+                        for (Tuple innerTuple : candidateIndex.getCandidates(outerTuple)) {
+                            if (predicate.joinTuples(innerTuple, outerTuple, schema) != null) {
+                                innerTuplesFound.add(innerTuple);
+                            }
+                        }
+                        Assert.assertEquals(expectedInnerTuples, innerTuplesFound);
+                    }
+                }
+            }
+        }
+    }
+    
+    /*
+     * Generates a tuple with a few spans of random words of a small alphabet, so that many of them are similar.
+     */
+    private static Tuple getRandomSpanTuple(Random random, Schema schema, String attributeName) {
+        List<Span> spanList = new ArrayList<>();
+        int spanCount = 1 + random.nextInt(3);
+        for (int i = 0; i < spanCount; i++) {
+            StringBuilder value = new StringBuilder();
+            int length = 1 + random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                value.append((char) ('a' + random.nextInt(4)));
+            }
+            spanList.add(new Span(attributeName, 0, length, "key", value.toString()));
+        }
+        return new Tuple(schema, new ListField<>(spanList));
+    }
 
 }
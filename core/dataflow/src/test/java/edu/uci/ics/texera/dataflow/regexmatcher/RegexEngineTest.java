@@ -0,0 +1,131 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.test.TestConstants;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.dataflow.source.tuple.TupleSourceOperator;
+
+public class RegexEngineTest {
+
+    /*
+     * The regex is compiled by the engine when the operator is opened.
+     */
+    private static void openAndClose(RegexPredicate predicate) {
+        RegexMatcher regexMatcher = new RegexMatcher(predicate);
+        regexMatcher.setInputOperator(
+                new TupleSourceOperator(TestConstants.getSamplePeopleTuples(), TestConstants.SCHEMA_PEOPLE));
+        regexMatcher.open();
+        regexMatcher.close();
+    }
+
+    @Test
+    public void testFromName() throws Exception {
+        Assert.assertEquals(RegexEngine.RE2J, RegexEngine.fromName("re2j"));
+        Assert.assertEquals(RegexEngine.JAVA, RegexEngine.fromName("java"));
+        Assert.assertEquals(RegexEngine.JAVA,
+                new RegexPredicate("abc", Arrays.asList(TestConstants.DESCRIPTION), "spanList").getRegexEngine());
+    }
+
+    @Test
+    public void testSameSpansAsJavaRegex() throws Exception {
+        String fieldValue = "Tom is singing, Mary is reading, 555-1234 and 555-4321 are calling";
+        for (String regex : Arrays.asList("[a-z]+ing", "\\d{3}-\\d{4}", "(tom|mary)\\s+is", "\\bare\\b")) {
+            RegexPredicate predicate = new RegexPredicate(regex, Arrays.asList(TestConstants.DESCRIPTION),
+                    true, RegexEngine.RE2J, "spanList");
+            List<Span> javaSpans = RegexMatcher.computeMatchingResultsWithPattern(TestConstants.DESCRIPTION, fieldValue, predicate,
+                    Pattern.compile(regex, Pattern.CASE_INSENSITIVE));
+            List<Span> re2jSpans = RegexMatcher.computeMatchingResultsWithRe2jPattern(TestConstants.DESCRIPTION, fieldValue, predicate,
+                    com.google.re2j.Pattern.compile(regex, com.google.re2j.Pattern.CASE_INSENSITIVE));
+            Assert.assertFalse(javaSpans.isEmpty());
+            Assert.assertEquals(javaSpans, re2jSpans);
+        }
+    }
+
+    /*
+     * A back reference can't be matched in linear time, so re2j rejects it.
+     */
+    @Test(expected = DataflowException.class)
+    public void testRe2jRejectsBackReference() throws Exception {
+        openAndClose(new RegexPredicate("(an)\\1", Arrays.asList(TestConstants.DESCRIPTION),
+                false, RegexEngine.RE2J, "spanList"));
+    }
+
+    @Test
+    public void testAutoFallsBackToJavaRegex() throws Exception {
+        openAndClose(new RegexPredicate("(an)\\1", Arrays.asList(TestConstants.DESCRIPTION),
+                false, RegexEngine.AUTO, "spanList"));
+        openAndClose(new RegexPredicate("(?<=an)gry", Arrays.asList(TestConstants.DESCRIPTION),
+                false, RegexEngine.AUTO, "spanList"));
+    }
+
+    private static List<Span> matchWithJava(String regex, String fieldValue, boolean ignoreCase) {
+        RegexPredicate predicate = new RegexPredicate(regex, Arrays.asList(TestConstants.DESCRIPTION),
+                ignoreCase, RegexEngine.JAVA, "spanList");
+        return RegexMatcher.computeMatchingResultsWithPattern(TestConstants.DESCRIPTION, fieldValue, predicate,
+                ignoreCase ? Pattern.compile(regex, Pattern.CASE_INSENSITIVE) : Pattern.compile(regex));
+    }
+
+    private static List<Span> matchWithRe2j(String regex, String fieldValue, boolean ignoreCase) {
+        RegexPredicate predicate = new RegexPredicate(regex, Arrays.asList(TestConstants.DESCRIPTION),
+                ignoreCase, RegexEngine.RE2J, "spanList");
+        return RegexMatcher.computeMatchingResultsWithRe2jPattern(TestConstants.DESCRIPTION, fieldValue, predicate,
+                RegexMatcher.compileRe2jPattern(predicate));
+    }
+
+    private static void assertEnginesDiffer(String regex, String fieldValue, boolean ignoreCase) {
+        Assert.assertFalse(regex, matchWithJava(regex, fieldValue, ignoreCase).equals(matchWithRe2j(regex, fieldValue, ignoreCase)));
+        Assert.assertNull(regex, RegexMatcher.compileRe2jPattern(new RegexPredicate(regex,
+                Arrays.asList(TestConstants.DESCRIPTION), ignoreCase, RegexEngine.AUTO, "spanList")));
+    }
+
+    /*
+     * The constructs which the engines match differently are matched by java regex with AUTO.
+     */
+    @Test
+    public void testAutoUsesJavaRegexWhereEnginesDiffer() throws Exception {
+        // "." and the other line terminators
+        assertEnginesDiffer("a.b", "a\rb a\u2028b", false);
+        // "$" before a final line terminator
+        assertEnginesDiffer("end$", "the end\n", false);
+        // "\s" and the vertical tab
+        assertEnginesDiffer("a\\sb", "a\u000Bb", false);
+        assertEnginesDiffer("a\\Sb", "a\u000Bb", false);
+        // "\v" is the vertical tab in re2j, a vertical whitespace in java regex
+        assertEnginesDiffer("a\\vb", "a\nb", false);
+        // unicode case folding
+        assertEnginesDiffer("k", "\u212A", true);
+        assertEnginesDiffer("(?i)k", "\u212A", false);
+        // class intersections and nested classes
+        assertEnginesDiffer("[a-z&&[^aeiou]]+", "bad", false);
+        assertEnginesDiffer("[a[bc]]", "b", false);
+
+        for (String regex : Arrays.asList("\\bare\\b", "a\\Bb", "(?m)^a", "[.$]")) {
+            Assert.assertNotNull(RegexMatcher.compileRe2jPattern(new RegexPredicate(regex,
+                    Arrays.asList(TestConstants.DESCRIPTION), false, RegexEngine.RE2J, "spanList")));
+            Assert.assertEquals(regex, "[.$]".equals(regex), RegexMatcher.hasSameMatchesInRe2j(regex, false));
+        }
+    }
+
+    /*
+     * The other regexes supported by re2j are matched by re2j with AUTO, with the same matches.
+     */
+    @Test
+    public void testAutoUsesRe2j() throws Exception {
+        String fieldValue = "Tom is singing, Mary is reading, 555-1234 and 555-4321 are calling. a]b [x]";
+        for (String regex : Arrays.asList("[a-z]+ing", "\\d{3}-\\d{4}", "(Tom|Mary) ?is", "[]a]+", "[^]a]+",
+                "\\Q.\\E", "(?:a|b)\\]")) {
+            Assert.assertNotNull(regex, RegexMatcher.compileRe2jPattern(new RegexPredicate(regex,
+                    Arrays.asList(TestConstants.DESCRIPTION), false, RegexEngine.AUTO, "spanList")));
+            Assert.assertFalse(regex, matchWithJava(regex, fieldValue, false).isEmpty());
+            Assert.assertEquals(regex, matchWithJava(regex, fieldValue, false), matchWithRe2j(regex, fieldValue, false));
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RegexLiteralFilterTest {
+
+    @Test
+    public void testOneRequiredLiteral() throws Exception {
+        RegexLiteralFilter filter = RegexLiteralFilter.create("\\d+ mg of aspirin", false);
+        Assert.assertEquals(Arrays.asList(" mg of aspirin"), filter.getLiterals());
+        Assert.assertTrue(filter.mayMatch("take 20 mg of aspirin daily"));
+        Assert.assertFalse(filter.mayMatch("take 20 mg of ibuprofen daily"));
+        Assert.assertFalse(filter.mayMatch("take 20 mg of Aspirin daily"));
+    }
+
+    @Test
+    public void testAlternativeLiterals() throws Exception {
+        RegexLiteralFilter filter = RegexLiteralFilter.create("(aspirin|ibuprofen) \\d+", true);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("aspirin ", "ibuprofen ")), new HashSet<>(filter.getLiterals()));
+        Assert.assertTrue(filter.mayMatch("IBUPROFEN 200 mg"));
+        Assert.assertTrue(filter.mayMatch("Aspirin 20 mg"));
+        Assert.assertFalse(filter.mayMatch("paracetamol 500 mg"));
+    }
+
+    @Test
+    public void testLiteralAfterRepetition() throws Exception {
+        RegexLiteralFilter filter = RegexLiteralFilter.create("[a-z]+ing", false);
+        Assert.assertEquals(Arrays.asList("ing"), filter.getLiterals());
+        Assert.assertFalse(filter.mayMatch("tom is angry"));
+    }
+
+    @Test
+    public void testNoFilter() throws Exception {
+        // no literal
+        Assert.assertNull(RegexLiteralFilter.create(".*", false));
+        Assert.assertNull(RegexLiteralFilter.create("\\d{3}-\\d{4}", false));
+        // too short
+        Assert.assertNull(RegexLiteralFilter.create("a", false));
+        // optional
+        Assert.assertNull(RegexLiteralFilter.create("(aspirin)?\\d+", false));
+        // re2j can't parse a back reference
+        Assert.assertNull(RegexLiteralFilter.create("(ab)\\1", false));
+        // java reads nested and intersected classes and octal escapes differently from re2j
+        Assert.assertNull(RegexLiteralFilter.create("[a[b]]cd", false));
+        Assert.assertNull(RegexLiteralFilter.create("[a-z&&[^b]]cd", false));
+        Assert.assertNull(RegexLiteralFilter.create("\\0101bc", false));
+    }
+
+    @Test
+    public void testJavaOnlySyntax() throws Exception {
+        Assert.assertFalse(RegexLiteralFilter.hasJavaOnlySyntax("[[:alpha:]]+ing"));
+        Assert.assertFalse(RegexLiteralFilter.hasJavaOnlySyntax("[]a]\\[b"));
+        Assert.assertFalse(RegexLiteralFilter.hasJavaOnlySyntax("\\Q[a[b]]\\E"));
+        Assert.assertTrue(RegexLiteralFilter.hasJavaOnlySyntax("[^a[b]]"));
+        Assert.assertTrue(RegexLiteralFilter.hasJavaOnlySyntax("a\\vb"));
+    }
+
+}
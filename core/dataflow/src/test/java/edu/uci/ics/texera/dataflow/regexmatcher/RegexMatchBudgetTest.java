@@ -0,0 +1,181 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.test.TestConstants;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.dataflow.source.tuple.TupleSourceOperator;
+
+public class RegexMatchBudgetTest {
+
+    // "(.*a){12}b" backtracks polynomially on a run of "a" without "b",
+    //   which java regex can't cut short as it does for "(a|aa)+b"
+    private static final String BACKTRACKING_REGEX = "(.*a){12}b";
+
+    private static final String RUN_OF_A = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+
+    private static final String RESULTS = "spanList";
+
+    @Test
+    public void testStepLimit() throws Exception {
+        RegexMatchBudget budget = new RegexMatchBudget(null, 1000, RegexOverrunAction.SKIP);
+        Assert.assertTrue(budget.isLimited());
+        budget.startTuple();
+        Matcher matcher = Pattern.compile(BACKTRACKING_REGEX).matcher(budget.limit(RUN_OF_A));
+        try {
+            matcher.find();
+            Assert.fail("the match should exceed the step limit");
+        } catch (RegexMatchBudget.Overrun overrun) {
+            Assert.assertFalse(budget.handleOverrun(overrun));
+        }
+        Assert.assertEquals(1, budget.getOverrunCount());
+        Assert.assertEquals(1, budget.getSkippedTupleCount());
+
+        // the budget starts over on the next tuple
+        budget.startTuple();
+        matcher = Pattern.compile("a+b").matcher(budget.limit("aab"));
+        Assert.assertTrue(matcher.find());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        RegexMatchBudget budget = new RegexMatchBudget(10, null, RegexOverrunAction.TRUNCATE);
+        budget.startTuple();
+        Matcher matcher = Pattern.compile(BACKTRACKING_REGEX).matcher(budget.limit(RUN_OF_A));
+        try {
+            matcher.find();
+            Assert.fail("the match should exceed the time limit");
+        } catch (RegexMatchBudget.Overrun overrun) {
+            Assert.assertTrue(budget.handleOverrun(overrun));
+        }
+        Assert.assertEquals(1, budget.getTruncatedTupleCount());
+    }
+
+    @Test
+    public void testNoLimit() throws Exception {
+        RegexMatchBudget budget = new RegexMatchBudget(0, 0, null);
+        Assert.assertFalse(budget.isLimited());
+        Assert.assertEquals(RegexOverrunAction.SKIP, budget.getOverrunAction());
+        String fieldValue = "tom";
+        Assert.assertSame(fieldValue, budget.limit(fieldValue));
+    }
+
+    @Test(expected = DataflowException.class)
+    public void testNegativeLimit() throws Exception {
+        new RegexMatchBudget(-1, null, null);
+    }
+
+    /*
+     * The tuples over the budget are dropped by SKIP, and output without their matches by TRUNCATE.
+     */
+    @Test
+    public void testRegexMatcherOverrunActions() throws Exception {
+        List<Tuple> data = new ArrayList<>(TestConstants.getSamplePeopleTuples());
+        List<String> attributeNames = Arrays.asList(TestConstants.DESCRIPTION);
+
+        RegexMatcher skipMatcher = new RegexMatcher(new RegexPredicate("[a-z]+", attributeNames, false,
+                RegexEngine.JAVA, false, null, 1, RegexOverrunAction.SKIP, RESULTS));
+        Assert.assertTrue(getResults(skipMatcher, data).isEmpty());
+        Assert.assertEquals(data.size(), skipMatcher.getMatchBudget().getSkippedTupleCount());
+
+        RegexMatcher truncateMatcher = new RegexMatcher(new RegexPredicate("[a-z]+", attributeNames, false,
+                RegexEngine.JAVA, false, null, 1, RegexOverrunAction.TRUNCATE, RESULTS));
+        // the matcher outputs only the tuples with matches, and none are found before the budget runs out
+        Assert.assertTrue(getResults(truncateMatcher, data).isEmpty());
+        Assert.assertEquals(data.size(), truncateMatcher.getMatchBudget().getTruncatedTupleCount());
+
+        // a budget large enough for the tuples doesn't change the results
+        Assert.assertTrue(TestUtils.equals(
+                getResults(new RegexMatcher(new RegexPredicate("[a-z]+", attributeNames, RESULTS)), data),
+                getResults(new RegexMatcher(new RegexPredicate("[a-z]+", attributeNames, false,
+                        RegexEngine.JAVA, false, 60000, 1000000, RegexOverrunAction.FAIL, RESULTS)), data)));
+    }
+
+    @Test(expected = DataflowException.class)
+    public void testRegexMatcherFail() throws Exception {
+        RegexMatcher regexMatcher = new RegexMatcher(new RegexPredicate("[a-z]+",
+                Arrays.asList(TestConstants.DESCRIPTION), false, RegexEngine.JAVA, false, null, 1,
+                RegexOverrunAction.FAIL, RESULTS));
+        getResults(regexMatcher, TestConstants.getSamplePeopleTuples());
+    }
+
+    /*
+     * In the warm-up window of the sub-regex plan, only the current plan is charged to the budget of the tuple,
+     *   so a tuple which fits in the budget with the current plan isn't dropped for the other plans timed.
+     */
+    @Test
+    public void testBudgetInWarmUpWindow() throws Exception {
+        String regex = "\\d+ mg of (aspirin|ibuprofen)";
+        Schema schema = new Schema(new Attribute("content", AttributeType.TEXT));
+        String fieldValue = "the patient took 200 mg of ibuprofen, then 100 mg of aspirin after dinner";
+        List<Tuple> data = Arrays.asList(new Tuple(schema, new TextField(fieldValue)));
+
+        // the steps of the current plan, which matches forward before the first window ends
+        int[] steps = new int[1];
+        CharSequence countedFieldValue = new CharSequence() {
+            @Override
+            public int length() {
+                return fieldValue.length();
+            }
+
+            @Override
+            public char charAt(int index) {
+                steps[0]++;
+                return fieldValue.charAt(index);
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return fieldValue.subSequence(start, end);
+            }
+
+            @Override
+            public String toString() {
+                return fieldValue;
+            }
+        };
+        RegexPredicate unlimitedPredicate = new RegexPredicate(regex, Arrays.asList("content"), false,
+                RegexEngine.JAVA, true, RESULTS);
+        RegexMatcher.computeMatchingResultsWithPattern("content", countedFieldValue, unlimitedPredicate, Pattern.compile(regex));
+
+        RegexMatcher regexMatcher = new RegexMatcher(new RegexPredicate(regex, Arrays.asList("content"), false,
+                RegexEngine.JAVA, true, null, steps[0], RegexOverrunAction.FAIL, RESULTS));
+        List<Tuple> results = getResults(regexMatcher, data, schema);
+        Assert.assertNotNull(regexMatcher.getPlanOptimizer());
+        Assert.assertTrue(TestUtils.equals(getResults(new RegexMatcher(unlimitedPredicate), data, schema), results));
+        Assert.assertEquals(0, regexMatcher.getMatchBudget().getOverrunCount());
+    }
+
+    private static List<Tuple> getResults(RegexMatcher regexMatcher, List<Tuple> data) {
+        return getResults(regexMatcher, data, TestConstants.SCHEMA_PEOPLE);
+    }
+
+    private static List<Tuple> getResults(RegexMatcher regexMatcher, List<Tuple> data, Schema schema) {
+        regexMatcher.setInputOperator(new TupleSourceOperator(data, schema));
+        List<Tuple> results = new ArrayList<>();
+        regexMatcher.open();
+        try {
+            Tuple tuple;
+            while ((tuple = regexMatcher.getNextTuple()) != null) {
+                results.add(tuple);
+            }
+        } finally {
+            regexMatcher.close();
+        }
+        return results;
+    }
+
+}
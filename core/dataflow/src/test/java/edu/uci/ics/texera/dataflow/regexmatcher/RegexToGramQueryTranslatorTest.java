@@ -137,6 +137,28 @@ public class RegexToGramQueryTranslatorTest {
         Assert.assertEquals(exactQuery, expectedQuery);
     }
 
+    // the gram length is a parameter of each translation
+    @Test
+    public void testGramLength() {
+        String regex = "abcd";
+
+        GramBooleanQuery bigramQuery = RegexToGramQueryTranslator.translate(regex, 2);
+        GramBooleanQuery expectedBigramQuery = new GramBooleanQuery(GramBooleanQuery.QueryOp.AND);
+        expectedBigramQuery.subQuerySet.addAll(getLeafNodeList("ab", "bc", "cd"));
+        Assert.assertEquals(expectedBigramQuery, bigramQuery);
+
+        GramBooleanQuery fourGramQuery = RegexToGramQueryTranslator.translate(regex, 4);
+        Assert.assertEquals(GramBooleanQuery.newLeafNode("abcd"), fourGramQuery);
+
+        // "ab" can form a gram of length 2
+        Assert.assertEquals(GramBooleanQuery.newLeafNode("ab"), RegexToGramQueryTranslator.translate("ab", 2));
+
+        // translating with another gram length doesn't change the default one
+        GramBooleanQuery expectedQuery = new GramBooleanQuery(GramBooleanQuery.QueryOp.AND);
+        expectedQuery.subQuerySet.addAll(getLeafNodeList("abc", "bcd"));
+        Assert.assertEquals(expectedQuery, RegexToGramQueryTranslator.translate(regex));
+    }
+
     @Test
     public void testLiteral4() {
         String regex = "ucirvine";
@@ -333,4 +355,4 @@ public class RegexToGramQueryTranslatorTest {
         Assert.assertEquals(exactQuery, expectedQuery);
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
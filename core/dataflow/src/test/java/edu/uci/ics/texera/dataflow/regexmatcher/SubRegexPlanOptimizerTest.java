@@ -0,0 +1,163 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.test.TestConstants;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.source.tuple.TupleSourceOperator;
+
+public class SubRegexPlanOptimizerTest {
+
+    private static final String ATTRIBUTE_NAME = "content";
+
+    private static SubRegexPlanOptimizer createOptimizer(String regex, boolean ignoreCase) {
+        RegexPredicate predicate = new RegexPredicate(regex, Arrays.asList(ATTRIBUTE_NAME), ignoreCase, null);
+        return SubRegexPlanOptimizer.create(predicate, compile(regex, ignoreCase));
+    }
+
+    private static Pattern compile(String regex, boolean ignoreCase) {
+        return ignoreCase ? Pattern.compile(regex, Pattern.CASE_INSENSITIVE) : Pattern.compile(regex);
+    }
+
+    private static List<Span> matchForward(String regex, boolean ignoreCase, String fieldValue) {
+        RegexPredicate predicate = new RegexPredicate(regex, Arrays.asList(ATTRIBUTE_NAME), ignoreCase, null);
+        return RegexMatcher.computeMatchingResultsWithPattern(ATTRIBUTE_NAME, fieldValue, predicate,
+                compile(regex, ignoreCase));
+    }
+
+    private static List<String> getSubRegexStrings(SubRegexPlanOptimizer optimizer) {
+        return optimizer.getSubRegexes().stream()
+                .map(subRegex -> subRegex.getSubRegexPredicate().getRegex()).collect(Collectors.toList());
+    }
+
+    /*
+     * Generates field values from the words, with the given chance of a word which the regexes match.
+     */
+    private static List<String> generateFieldValues(int count, double matchChance, Random random) {
+        List<String> words = Arrays.asList("tom", "is", "singing", "20", "mg", "of", "aspirin", "555-1234", "Mary", "a");
+        List<String> matchingWords = Arrays.asList("20 mg of aspirin", "is reading", "Mary 555-4321");
+        List<String> fieldValues = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder fieldValue = new StringBuilder();
+            int wordCount = random.nextInt(20);
+            for (int j = 0; j < wordCount; j++) {
+                if (random.nextDouble() < matchChance) {
+                    fieldValue.append(matchingWords.get(random.nextInt(matchingWords.size())));
+                } else {
+                    fieldValue.append(words.get(random.nextInt(words.size())));
+                }
+                fieldValue.append(' ');
+            }
+            fieldValues.add(fieldValue.toString());
+        }
+        return fieldValues;
+    }
+
+    @Test
+    public void testSplitIntoPieces() throws Exception {
+        Assert.assertEquals(Arrays.asList("a", "b", "[c-d]+", "(e|f)?", "\\.", "[[a]b]", "\\Qx)\\E", "\\x{41}{2,}?"),
+                SubRegexPlanOptimizer.splitIntoPieces("ab[c-d]+(e|f)?\\.[[a]b]\\Qx)\\E\\x{41}{2,}?"));
+        Assert.assertEquals(Arrays.asList("(?i:a)", "b"), SubRegexPlanOptimizer.splitIntoPieces("(?i:a)b"));
+
+        // the pieces of these regexes don't mean the same on their own
+        Assert.assertNull(SubRegexPlanOptimizer.splitIntoPieces("ab|cd"));
+        Assert.assertNull(SubRegexPlanOptimizer.splitIntoPieces("(ab)c\\1"));
+        Assert.assertNull(SubRegexPlanOptimizer.splitIntoPieces("(?i)ab"));
+        Assert.assertNull(SubRegexPlanOptimizer.splitIntoPieces("\\Gab"));
+    }
+
+    @Test
+    public void testSubRegexes() throws Exception {
+        SubRegexPlanOptimizer optimizer = createOptimizer("\\d+ mg of (aspirin|ibuprofen)", false);
+        Assert.assertEquals(Arrays.asList("\\d+", " mg of ", "(aspirin|ibuprofen)"), getSubRegexStrings(optimizer));
+        Assert.assertEquals(0, optimizer.getSubRegexes().get(0).getMaxPrefixLength());
+        Assert.assertEquals(SubRegex.UNBOUNDED, optimizer.getSubRegexes().get(1).getMaxPrefixLength());
+        Assert.assertEquals(9, optimizer.getSubRegexes().get(2).getMaxLength());
+
+        optimizer = createOptimizer("[a-z]{1,20}ing", false);
+        Assert.assertEquals(Arrays.asList("[a-z]{1,20}", "ing"), getSubRegexStrings(optimizer));
+        Assert.assertEquals(20, optimizer.getSubRegexes().get(1).getMaxPrefixLength());
+
+        // a run of literals, or a single piece, is matched as it is
+        Assert.assertNull(createOptimizer("\\bcancer\\b", false));
+        Assert.assertNull(createOptimizer("[a-z]+", false));
+    }
+
+    /*
+     * Every driver finds exactly the matches of the regex.
+     */
+    @Test
+    public void testDriversFindSameSpans() throws Exception {
+        List<String> regexes = Arrays.asList("[a-z]{1,20}ing", "\\d{3}-\\d{4}", "[A-Z][a-z]{0,9} \\d{3}-\\d{4}",
+                "\\d+ mg of (aspirin|ibuprofen)", "(is|are) [a-z]*ing", "a?b+", "\\bis\\b\\s*");
+        List<String> fieldValues = generateFieldValues(200, 0.2, new Random(0));
+        for (String regex : regexes) {
+            for (boolean ignoreCase : Arrays.asList(false, true)) {
+                SubRegexPlanOptimizer optimizer = createOptimizer(regex, ignoreCase);
+                Assert.assertNotNull(regex, optimizer);
+                for (SubRegex subRegex : optimizer.getSubRegexes()) {
+                    if (subRegex.getMaxPrefixLength() == SubRegex.UNBOUNDED) {
+                        continue;
+                    }
+                    for (String fieldValue : fieldValues) {
+                        Assert.assertEquals(matchForward(regex, ignoreCase, fieldValue),
+                                optimizer.computeMatchingResultsWithDriver(ATTRIBUTE_NAME, fieldValue, subRegex));
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * The plans chosen after the warm-up windows find exactly the matches of the regex,
+     *   as the field values change from rarely matching to mostly matching.
+     */
+    @Test
+    public void testPlansFindSameSpans() throws Exception {
+        List<String> regexes = Arrays.asList("[a-z]{1,20}ing", "[A-Z][a-z]{0,9} \\d{3}-\\d{4}",
+                "\\d+ mg of (aspirin|ibuprofen)", "(is|are) [a-z]*ing");
+        Random random = new Random(0);
+        List<String> fieldValues = generateFieldValues(RegexMatcher.MAX_VALUES_FOR_STAT_COLLECTION, 0.01, random);
+        fieldValues.addAll(generateFieldValues(RegexMatcher.MAX_VALUES_FOR_STAT_COLLECTION, 0.5, random));
+        for (String regex : regexes) {
+            SubRegexPlanOptimizer optimizer = createOptimizer(regex, false);
+            for (String fieldValue : fieldValues) {
+                Assert.assertEquals(matchForward(regex, false, fieldValue),
+                        optimizer.computeMatchingResults(ATTRIBUTE_NAME, fieldValue));
+            }
+        }
+    }
+
+    @Test
+    public void testRegexMatcherWithAdaptivePlan() throws Exception {
+        String regex = "[a-z]{1,20}ing";
+        List<String> attributeNames = Arrays.asList(TestConstants.FIRST_NAME, TestConstants.DESCRIPTION);
+        Assert.assertEquals(
+                getRegexMatcherResults(new RegexPredicate(regex, attributeNames, false, RegexEngine.JAVA, false, "spanList")),
+                getRegexMatcherResults(new RegexPredicate(regex, attributeNames, false, RegexEngine.JAVA, true, "spanList")));
+    }
+
+    private static List<Tuple> getRegexMatcherResults(RegexPredicate predicate) {
+        RegexMatcher regexMatcher = new RegexMatcher(predicate);
+        regexMatcher.setInputOperator(
+                new TupleSourceOperator(TestConstants.getSamplePeopleTuples(), TestConstants.SCHEMA_PEOPLE));
+        List<Tuple> results = new ArrayList<>();
+        regexMatcher.open();
+        Tuple tuple;
+        while ((tuple = regexMatcher.getNextTuple()) != null) {
+            results.add(tuple);
+        }
+        regexMatcher.close();
+        return results;
+    }
+
+}
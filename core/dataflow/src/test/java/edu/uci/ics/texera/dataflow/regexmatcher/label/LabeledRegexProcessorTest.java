@@ -0,0 +1,47 @@
+package edu.uci.ics.texera.dataflow.regexmatcher.label;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LabeledRegexProcessorTest {
+
+    @Test
+    public void testTrieRegex() throws Exception {
+        Assert.assertEquals("li(?:n(?:coln)?|sa)",
+                LabeledRegexProcessor.toTrieRegex(new HashSet<>(Arrays.asList("lisa", "lincoln", "lin"))));
+        Assert.assertEquals("(?:a(?:\\.b)?|c)?",
+                LabeledRegexProcessor.toTrieRegex(new HashSet<>(Arrays.asList("a.b", "a", "", "c"))));
+    }
+
+    @Test
+    public void testTrieRegexPrefersLongerValue() throws Exception {
+        Pattern pattern = Pattern.compile(
+                LabeledRegexProcessor.toTrieRegex(new HashSet<>(Arrays.asList("lin", "lincoln", "george lin lin"))));
+        Matcher matcher = pattern.matcher("lincoln and george lin lin");
+        Assert.assertTrue(matcher.find());
+        Assert.assertEquals("lincoln", matcher.group());
+        Assert.assertTrue(matcher.find());
+        Assert.assertEquals("george lin lin", matcher.group());
+        Assert.assertFalse(matcher.find());
+    }
+
+    @Test
+    public void testLabelWithoutValues() throws Exception {
+        Pattern pattern = Pattern.compile("x" + LabeledRegexProcessor.toTrieRegex(new HashSet<>()));
+        Assert.assertFalse(pattern.matcher("x").find());
+    }
+
+    @Test
+    public void testRequiredLabels() throws Exception {
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("a", "f")), LabeledRegexProcessor.findRequiredLabels(
+                "<a>.*<b>?x[<c>]<d>{0,2}(<e>)<f>+", Arrays.asList("a", "b", "c", "d", "e", "f")));
+        Assert.assertTrue(LabeledRegexProcessor.findRequiredLabels("<a>|<b>", Arrays.asList("a", "b")).isEmpty());
+    }
+
+}
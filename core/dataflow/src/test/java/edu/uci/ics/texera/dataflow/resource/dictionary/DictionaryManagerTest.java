@@ -0,0 +1,135 @@
+package edu.uci.ics.texera.dataflow.resource.dictionary;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.dataflow.dictionarymatcher.CompiledDictionary;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.Dictionary;
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+public class DictionaryManagerTest {
+
+    private static final String TEST_DICTIONARY = "dictionary_manager_test";
+
+    @After
+    public void cleanUp() throws Exception {
+        DictionaryManager.clearCompiledDictionaries();
+    }
+
+    private static CompiledDictionary compile(Dictionary dictionary, KeywordMatchingType keywordMatchingType) {
+        return DictionaryManager.getCompiledDictionary(dictionary, keywordMatchingType,
+                LuceneAnalyzerConstants.standardAnalyzerString());
+    }
+
+    private static List<Path> getCompiledDictionaryFiles() throws Exception {
+        if (! Files.exists(DictionaryManagerConstants.COMPILED_DICTIONARY_DIR_PATH)) {
+            return Arrays.asList();
+        }
+        return Files.list(DictionaryManagerConstants.COMPILED_DICTIONARY_DIR_PATH)
+                .filter(path -> path.toString().endsWith(DictionaryManagerConstants.COMPILED_DICTIONARY_FILE_SUFFIX))
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * A compiled dictionary file with other classes, or which is not a serialized object, is compiled again.
+     */
+    @Test
+    public void testUnreadableFileIsCompiledAgain() throws Exception {
+        Dictionary dictionary = new Dictionary(Arrays.asList("tom hanks", "george lin lin"));
+        compile(dictionary, KeywordMatchingType.SUBSTRING_SCANBASED);
+        List<Path> files = getCompiledDictionaryFiles();
+        Assert.assertEquals(1, files.size());
+
+        try (ObjectOutputStream output = new ObjectOutputStream(new GZIPOutputStream(Files.newOutputStream(files.get(0))))) {
+            output.writeObject(new Date());
+        }
+        DictionaryManager.clearCompiledDictionaryCache();
+        CompiledDictionary compiledDictionary = compile(dictionary, KeywordMatchingType.SUBSTRING_SCANBASED);
+        Assert.assertEquals(dictionary.getDictionaryEntries(), compiledDictionary.getDictionaryEntries());
+        Assert.assertNotNull(compiledDictionary.getSubstringAutomaton());
+
+        Files.write(files.get(0), "not a compiled dictionary".getBytes());
+        DictionaryManager.clearCompiledDictionaryCache();
+        compiledDictionary = compile(dictionary, KeywordMatchingType.SUBSTRING_SCANBASED);
+        Assert.assertEquals(dictionary.getDictionaryEntries(), compiledDictionary.getDictionaryEntries());
+
+        // the file is written again with the compiled dictionary
+        try (ObjectInputStream input = new ObjectInputStream(new GZIPInputStream(Files.newInputStream(files.get(0))))) {
+            CompiledDictionary writtenDictionary = (CompiledDictionary) input.readObject();
+            Assert.assertEquals(dictionary.getDictionaryEntries(), writtenDictionary.getDictionaryEntries());
+        }
+
+        // and it's read from the disk, which makes it recently used
+        DictionaryManager.clearCompiledDictionaryCache();
+        Files.setLastModifiedTime(files.get(0), FileTime.fromMillis(1000));
+        compiledDictionary = compile(dictionary, KeywordMatchingType.SUBSTRING_SCANBASED);
+        Assert.assertEquals(dictionary.getDictionaryEntries(), compiledDictionary.getDictionaryEntries());
+        Assert.assertTrue(Files.getLastModifiedTime(files.get(0)).toMillis() > 1000);
+    }
+
+    /*
+     * The least recently used files are evicted first, reading a file makes it recently used.
+     */
+    @Test
+    public void testEvictLeastRecentlyUsedFiles() throws Exception {
+        Dictionary dictionary1 = new Dictionary(Arrays.asList("tom hanks"));
+        Dictionary dictionary2 = new Dictionary(Arrays.asList("george lin lin"));
+        Dictionary dictionary3 = new Dictionary(Arrays.asList("brad pitt"));
+        compile(dictionary1, KeywordMatchingType.SUBSTRING_SCANBASED);
+        Path file1 = getCompiledDictionaryFiles().get(0);
+        compile(dictionary2, KeywordMatchingType.SUBSTRING_SCANBASED);
+        Path file2 = getCompiledDictionaryFiles().stream().filter(path -> ! path.equals(file1)).findFirst().get();
+        compile(dictionary3, KeywordMatchingType.SUBSTRING_SCANBASED);
+        Path file3 = getCompiledDictionaryFiles().stream().filter(path -> ! path.equals(file1) && ! path.equals(file2))
+                .findFirst().get();
+
+        Files.setLastModifiedTime(file1, FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(file2, FileTime.fromMillis(2000));
+        Files.setLastModifiedTime(file3, FileTime.fromMillis(3000));
+        DictionaryManager.clearCompiledDictionaryCache();
+        compile(dictionary1, KeywordMatchingType.SUBSTRING_SCANBASED);
+
+        long totalBytes = Files.size(file1) + Files.size(file2) + Files.size(file3);
+        DictionaryManager.evictCompiledDictionaryFiles(totalBytes - Files.size(file2));
+        Assert.assertTrue(Files.exists(file1));
+        Assert.assertFalse(Files.exists(file2));
+        Assert.assertTrue(Files.exists(file3));
+
+        DictionaryManager.evictCompiledDictionaryFiles(0);
+        Assert.assertEquals(0, getCompiledDictionaryFiles().size());
+    }
+
+    /*
+     * Deleting a dictionary deletes its compiled forms, in memory and on the disk.
+     */
+    @Test
+    public void testDeleteDictionary() throws Exception {
+        DictionaryManager dictionaryManager = DictionaryManager.getInstance();
+        dictionaryManager.addDictionary(TEST_DICTIONARY, "tom hanks, george lin lin");
+        Dictionary dictionary = new Dictionary(Arrays.asList(dictionaryManager.getDictionary(TEST_DICTIONARY).split(",")));
+        CompiledDictionary compiledDictionary = compile(dictionary, KeywordMatchingType.CONJUNCTION_INDEXBASED);
+        compile(dictionary, KeywordMatchingType.SUBSTRING_SCANBASED);
+        compile(new Dictionary(Arrays.asList("brad pitt")), KeywordMatchingType.SUBSTRING_SCANBASED);
+        Assert.assertEquals(3, getCompiledDictionaryFiles().size());
+
+        dictionaryManager.deleteDictionary(TEST_DICTIONARY);
+        Assert.assertFalse(dictionaryManager.getDictionaries().contains(TEST_DICTIONARY));
+        Assert.assertEquals(1, getCompiledDictionaryFiles().size());
+        Assert.assertNotSame(compiledDictionary, compile(dictionary, KeywordMatchingType.CONJUNCTION_INDEXBASED));
+    }
+
+}
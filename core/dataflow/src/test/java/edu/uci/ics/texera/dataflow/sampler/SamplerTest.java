@@ -11,11 +11,18 @@ import org.junit.Test;
 
 import edu.uci.ics.texera.api.constants.test.TestConstants;
 import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.IntegerField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.dataflow.common.MemoryBudget;
+import edu.uci.ics.texera.dataflow.common.TupleCodec;
 import edu.uci.ics.texera.dataflow.sampler.SamplerPredicate.SampleType;
 import edu.uci.ics.texera.dataflow.source.scan.ScanBasedSourceOperator;
 import edu.uci.ics.texera.dataflow.source.scan.ScanSourcePredicate;
+import edu.uci.ics.texera.dataflow.source.tuple.TupleSourceOperator;
 import edu.uci.ics.texera.storage.DataWriter;
 import edu.uci.ics.texera.storage.RelationManager;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
@@ -27,6 +34,7 @@ import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
 public class SamplerTest {
     
     public static final String SAMPLER_TABLE = "sampler_test";
+    private static final Schema NUMBER_SCHEMA = new Schema(new Attribute("number", AttributeType.INTEGER));
     private static int indexSize;
     @BeforeClass
     public static void setUp() throws TexeraException {
@@ -189,4 +197,95 @@ public class SamplerTest {
         Assert.assertEquals(results.size(), indexSize);
         Assert.assertTrue(containedInSamplerTable(results));
     }
+    
+    /*
+     * RANDOM_SAMPLE mode: the sampled tuples are output in the order of their arrival,
+     *   whichever tuples are sampled.
+     */
+    @Test
+    public void test9() throws TexeraException {
+        List<Tuple> tableTuples = computeSampleResults(SAMPLER_TABLE, indexSize, SampleType.FIRST_K_ARRIVAL);
+        for (int round = 0; round < 20; round++) {
+            List<Tuple> results = computeSampleResults(SAMPLER_TABLE, 3, SampleType.RANDOM_SAMPLE);
+            Assert.assertEquals(results.size(), 3);
+            int previousPosition = -1;
+            for (Tuple result : results) {
+                int position = tableTuples.indexOf(result);
+                Assert.assertTrue(position > previousPosition);
+                previousPosition = position;
+            }
+        }
+    }
+    
+    /*
+     * RANDOM_SAMPLE mode: only the k tuples in the reservoir reserve memory, not the tuples they replaced.
+     */
+    @Test
+    public void test10() throws TexeraException {
+        MemoryBudget memoryBudget = new MemoryBudget();
+        Sampler sampler = getNumberSampler(10000, 10, memoryBudget);
+        List<Tuple> results = new ArrayList<>();
+        Tuple tuple;
+        sampler.open();
+        while ((tuple = sampler.getNextTuple()) != null) {
+            results.add(tuple);
+        }
+        long sampleSize = 0;
+        for (Tuple result : results) {
+            sampleSize += TupleCodec.estimateSize(result);
+        }
+        Assert.assertEquals(results.size(), 10);
+        Assert.assertEquals(sampleSize, memoryBudget.getReservedBytes());
+        sampler.close();
+        Assert.assertEquals(0, memoryBudget.getReservedBytes());
+    }
+    
+    /*
+     * RANDOM_SAMPLE mode: the reservoir is spilled if it doesn't fit in the memory budget,
+     *   and the sampled tuples are still distinct and in the order of their arrival.
+     */
+    @Test
+    public void test11() throws TexeraException {
+        Sampler sampler = getNumberSampler(10000, 50, new MemoryBudget(0));
+        List<Integer> results = new ArrayList<>();
+        Tuple tuple;
+        sampler.open();
+        while ((tuple = sampler.getNextTuple()) != null) {
+            results.add(tuple.getField("number", IntegerField.class).getValue());
+        }
+        sampler.close();
+        Assert.assertEquals(results.size(), 50);
+        for (int i = 1; i < results.size(); i++) {
+            Assert.assertTrue(results.get(i) > results.get(i - 1));
+        }
+    }
+    
+    /*
+     * RANDOM_SAMPLE mode: every tuple is sampled with the same probability,
+     *   sampling 1 of 2 tuples gives the first one about half of the time.
+     */
+    @Test
+    public void test12() throws TexeraException {
+        int firstSampled = 0;
+        for (int round = 0; round < 2000; round++) {
+            Sampler sampler = getNumberSampler(2, 1, new MemoryBudget());
+            sampler.open();
+            if (sampler.getNextTuple().getField("number", IntegerField.class).getValue() == 0) {
+                firstSampled++;
+            }
+            sampler.close();
+        }
+        Assert.assertTrue(firstSampled > 900 && firstSampled < 1100);
+    }
+    
+    private static Sampler getNumberSampler(int tupleCount, int k, MemoryBudget memoryBudget) {
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < tupleCount; i++) {
+            tuples.add(new Tuple(NUMBER_SCHEMA, new IntegerField(i)));
+        }
+        Sampler sampler = new Sampler(new SamplerPredicate(k, SampleType.RANDOM_SAMPLE));
+        sampler.setInputOperator(new TupleSourceOperator(tuples, NUMBER_SCHEMA));
+        sampler.setMemoryBudget(memoryBudget);
+        return sampler;
+    }
 }
@@ -0,0 +1,102 @@
+package edu.uci.ics.texera.perftest.regexmatcher;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatcher;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
+
+/*
+ * RegexEngineBenchmark compares the two engines of RegexMatcher (see RegexEngine):
+ *   java regex and re2j, on a generated document of the given size.
+ * 
+ * The regexes are a typical regex of each kind, 
+ *   and a regex which makes java regex backtrack exponentially on the runs of "a" in the document.
+ * 
+ * Run it with:
+ *   mvn exec:java -Dexec.mainClass="edu.uci.ics.texera.perftest.regexmatcher.RegexEngineBenchmark"
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegexEngineBenchmark {
+    
+    private static final List<String> WORDS = Arrays.asList("patient", "protein", "cancer", "treatment", "gene",
+            "expression", "was", "the", "of", "in", "increased", "binding", "therapy", "cells", "and", "with");
+
+    @Param({"\\bcancer\\b", "[a-z]+ing", "\\d{3}-\\d{4}", "(pro|can)[a-z]*\\s+(of|in)\\s+\\w+", "(a|aa)+b"})
+    public String regex;
+    
+    @Param({"1000", "100000"})
+    public int documentLength;
+    
+    private String document;
+    private RegexPredicate predicate;
+    private Pattern javaPattern;
+    private com.google.re2j.Pattern re2jPattern;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        StringBuilder documentBuilder = new StringBuilder();
+        while (documentBuilder.length() < documentLength) {
+            int next = random.nextInt(100);
+            if (next == 0) {
+                documentBuilder.append(String.format("%03d-%04d", random.nextInt(1000), random.nextInt(10000)));
+            } else if (next == 1) {
+                // a run of "a" without "b", where "(a|aa)+b" backtracks
+                documentBuilder.append("aaaaaaaaaaaaaaaaaaaa");
+            } else {
+                documentBuilder.append(WORDS.get(random.nextInt(WORDS.size())));
+            }
+            documentBuilder.append(' ');
+        }
+        document = documentBuilder.toString();
+        
+        predicate = new RegexPredicate(regex, Arrays.asList("content"), "results");
+        javaPattern = Pattern.compile(regex);
+        re2jPattern = com.google.re2j.Pattern.compile(regex);
+    }
+    
+    @Benchmark
+    public List<Span> javaRegex() {
+        return RegexMatcher.computeMatchingResultsWithPattern("content", document, predicate, javaPattern);
+    }
+    
+    @Benchmark
+    public List<Span> re2jRegex() {
+        return RegexMatcher.computeMatchingResultsWithRe2jPattern("content", document, predicate, re2jPattern);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RegexEngineBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+}
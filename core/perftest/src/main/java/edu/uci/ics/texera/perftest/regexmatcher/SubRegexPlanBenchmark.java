@@ -0,0 +1,116 @@
+package edu.uci.ics.texera.perftest.regexmatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatcher;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
+import edu.uci.ics.texera.dataflow.regexmatcher.SubRegexPlanOptimizer;
+
+/*
+ * SubRegexPlanBenchmark compares matching a regex forward with java regex
+ *   and with the plan of its sub-regexes chosen by SubRegexPlanOptimizer,
+ *   on a collection of generated documents.
+ *
+ * The regexes have a selective sub-regex in the middle or at the end ("mg of", "ing", "-"),
+ *   so the plan can filter the documents and drive the search by it.
+ *
+ * Run it with:
+ *   mvn exec:java -Dexec.mainClass="edu.uci.ics.texera.perftest.regexmatcher.SubRegexPlanBenchmark"
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubRegexPlanBenchmark {
+
+    private static final List<String> WORDS = Arrays.asList("patient", "protein", "cancer", "treatment", "gene",
+            "expression", "was", "the", "of", "in", "increased", "binding", "therapy", "cells", "and", "with");
+
+    private static final int DOCUMENT_COUNT = 2000;
+
+    @Param({"\\d+ mg of [a-z]+", "[a-z]{1,20}ing\\s+[a-z]+", "[A-Z][a-z]+ \\d{3}-\\d{4}"})
+    public String regex;
+
+    @Param({"200", "5000"})
+    public int documentLength;
+
+    private List<String> documents;
+    private RegexPredicate predicate;
+    private Pattern javaPattern;
+    private SubRegexPlanOptimizer planOptimizer;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        documents = new ArrayList<>();
+        for (int i = 0; i < DOCUMENT_COUNT; i++) {
+            StringBuilder documentBuilder = new StringBuilder();
+            while (documentBuilder.length() < documentLength) {
+                int next = random.nextInt(200);
+                if (next == 0) {
+                    documentBuilder.append(random.nextInt(1000)).append(" mg of aspirin");
+                } else if (next == 1) {
+                    documentBuilder.append(String.format("Tom %03d-%04d", random.nextInt(1000), random.nextInt(10000)));
+                } else {
+                    documentBuilder.append(WORDS.get(random.nextInt(WORDS.size())));
+                }
+                documentBuilder.append(' ');
+            }
+            documents.add(documentBuilder.toString());
+        }
+
+        predicate = new RegexPredicate(regex, Arrays.asList("content"), "results");
+        javaPattern = Pattern.compile(regex);
+        planOptimizer = SubRegexPlanOptimizer.create(predicate, javaPattern);
+    }
+
+    @Benchmark
+    public int forward() {
+        int matchCount = 0;
+        for (String document : documents) {
+            matchCount += RegexMatcher.computeMatchingResultsWithPattern("content", document, predicate, javaPattern).size();
+        }
+        return matchCount;
+    }
+
+    @Benchmark
+    public int subRegexPlan() {
+        int matchCount = 0;
+        for (String document : documents) {
+            matchCount += planOptimizer.computeMatchingResults("content", document).size();
+        }
+        return matchCount;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SubRegexPlanBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+}
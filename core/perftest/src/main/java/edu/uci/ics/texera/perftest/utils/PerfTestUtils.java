@@ -1,10 +1,12 @@
 package edu.uci.ics.texera.perftest.utils;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -38,6 +40,9 @@ public class PerfTestUtils {
     public static String resultFolder = getResourcePath("/perftest-files/results").toString();
     public static String queryFolder = getResourcePath("/perftest-files/queries").toString();
     
+    private static final String INDEX_WRITE_RESULT_FILE = "index-write.csv";
+    private static final String INDEX_WRITE_HEADER = "Date, Record #, Index Type, Tuples, Time(sec), Tuples/sec";
+    
     public static Path getResourcePath(String resourcePath) {
         return Utils.getResourcePath(resourcePath, TexeraProject.TEXERA_PERFTEST);
     }
@@ -202,6 +207,9 @@ public class PerfTestUtils {
         RelationManager relationManager = RelationManager.getInstance();
         
         String tableName = fileName.replace(".txt", "");
+        
+        long startTime = System.currentTimeMillis();
+        int tupleCount;
                 
         if (indexType.equalsIgnoreCase("trigram")) {
             tableName = tableName + "_trigram";
@@ -209,18 +217,50 @@ public class PerfTestUtils {
             relationManager.createTable(tableName, getTrigramIndexPath(tableName), 
                     MedlineIndexWriter.SCHEMA_MEDLINE, LuceneAnalyzerConstants.nGramAnalyzerString(3));
             
-            MedlineIndexWriter.writeMedlineIndex(Paths.get(fileFolder, fileName), tableName);
+            tupleCount = MedlineIndexWriter.writeMedlineIndex(Paths.get(fileFolder, fileName), tableName);
             
         } else if (indexType.equalsIgnoreCase("standard")) {
             relationManager.deleteTable(tableName);
             relationManager.createTable(tableName, getIndexPath(tableName), 
                     MedlineIndexWriter.SCHEMA_MEDLINE, LuceneAnalyzerConstants.standardAnalyzerString());
-            MedlineIndexWriter.writeMedlineIndex(Paths.get(fileFolder, fileName), tableName);
+            tupleCount = MedlineIndexWriter.writeMedlineIndex(Paths.get(fileFolder, fileName), tableName);
         } else {
             System.out.println("Index is not successfully written.");
             System.out.println("IndexType has to be either \"standard\" or \"trigram\"  ");
+            return;
         }
         
+        double writeTime = (System.currentTimeMillis() - startTime) / 1000.0;
+        writeIndexResult(fileName, indexType, tupleCount, writeTime);
+    }
+    
+    /**
+     * Appends the throughput of writing an index to the result file, index-write.csv
+     * 
+     * @param fileName,
+     *            data file
+     * @param indexType,
+     *            indicates the types of index, trigram or standard
+     * @param tupleCount,
+     *            the number of tuples written
+     * @param writeTime,
+     *            the time of writing the index in seconds
+     * @throws IOException
+     */
+    public static void writeIndexResult(String fileName, String indexType, int tupleCount, double writeTime) 
+            throws IOException {
+        createFile(getResultPath(INDEX_WRITE_RESULT_FILE), INDEX_WRITE_HEADER);
+        BufferedWriter fileWriter = Files.newBufferedWriter(getResultPath(INDEX_WRITE_RESULT_FILE), 
+                StandardOpenOption.APPEND);
+        fileWriter.append("\n");
+        fileWriter.append(formatTime(System.currentTimeMillis()) + ",");
+        fileWriter.append(fileName + ",");
+        fileWriter.append(indexType + ",");
+        fileWriter.append(tupleCount + ",");
+        fileWriter.append(String.format("%.4f", writeTime) + ",");
+        fileWriter.append(String.format("%.2f", writeTime > 0 ? tupleCount / writeTime : 0.0));
+        fileWriter.flush();
+        fileWriter.close();
     }
 
     /**
@@ -4,23 +4,36 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
+import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiDocValues;
 import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.constants.SchemaConstants;
@@ -33,6 +46,7 @@ import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.*;
+import edu.uci.ics.texera.storage.utils.PayloadCodec;
 import edu.uci.ics.texera.storage.utils.StorageUtils;
 
 /**
@@ -40,7 +54,7 @@ import edu.uci.ics.texera.storage.utils.StorageUtils;
  *   and performs corresponding operations to Lucene.
  *   
  * DataReader can get tuples from the Lucene index folder by a lucene query,
- *   and return the tuples in an iterative way through "getNextTuple()"
+ *   and return the tuples in an iterative way through "getNextTuple()", or in batches through "getNextBatch()"
  * 
  * DataReader currently has the option to append a "payload" field to a tuple, the "payload" field is a list of spans. 
  * Each span contains the start, end, and token offset position of a token in the original document.
@@ -48,8 +62,19 @@ import edu.uci.ics.texera.storage.utils.StorageUtils;
  * 
  * The purpose of the "payload" field is to make subsequent keyword match, fuzzy token match, and dictionary match faster,
  * because they don't need to tokenize the tuple every time.
+ * If the table stores its payload (see DataWriter), the payload is decoded from the stored binary column,
+ * otherwise it's rebuilt from the term vectors.
  *   
  * 
+ * DataReader can also run in a streaming mode (see setStreaming()), 
+ * which iterates the matching documents lazily instead of collecting all hits in open().
+ * 
+ * DataReader can be restricted to the attributes required by its consumers (see setRequiredAttributes()),
+ * then only these stored fields are loaded.
+ * 
+ * DataReader doesn't open its own Lucene IndexReader, 
+ * it borrows the shared IndexReader of the table from IndexSearcherPool in open() and returns it in close().
+ * 
  * DataReader for a specific table is only accessible from RelationManager.
  * 
  * 
@@ -68,9 +93,27 @@ public class DataReader implements IOperator {
     private IndexSearcher luceneIndexSearcher;
     private ScoreDoc[] scoreDocs;
 
+    // streaming mode: the matching documents of the current segment are iterated lazily
+    private Weight luceneWeight;
+    private List<LeafReaderContext> leafContexts;
+    private int nextLeafIndex;
+    private LeafReaderContext currentLeaf;
+    private DocIdSetIterator currentLeafDocs;
+    private Bits currentLeafLiveDocs;
+
     private int cursor = CLOSED;
 
     private boolean payloadAdded;
+    private boolean streaming;
+    
+    // the attributes to read, in lower case, null means all the attributes
+    private Set<String> requiredAttributes;
+    // the stored fields to load, null means all the stored fields
+    private Set<String> fieldsToLoad;
+    
+    // the encoded payload columns of the TEXT attributes, which are empty if the table doesn't store its payload
+    private Map<String, BinaryDocValues> payloadValues;
+    private Map<String, Bits> payloadDocsWithField;
 
     /*
      * The package-only level constructor is only accessible inside the storage package.
@@ -93,16 +136,37 @@ public class DataReader implements IOperator {
             return;
         }
         try {
-            Directory indexDirectory = FSDirectory.open(this.dataStore.getDataDirectory());
-            luceneIndexReader = DirectoryReader.open(indexDirectory);
-            luceneIndexSearcher = new IndexSearcher(luceneIndexReader);
-
-            TopDocs topDocs = luceneIndexSearcher.search(query, Integer.MAX_VALUE);
-            scoreDocs = topDocs.scoreDocs;
+            // borrow the shared searcher of the table, which is returned in close()
+            luceneIndexSearcher = IndexSearcherPool.acquire(this.dataStore.getDataDirectory());
+            luceneIndexReader = luceneIndexSearcher.getIndexReader();
+
+            if (streaming) {
+                // scores are not needed, the documents are returned in index order
+                luceneWeight = luceneIndexSearcher.createNormalizedWeight(query, false);
+                leafContexts = luceneIndexReader.leaves();
+                nextLeafIndex = 0;
+                currentLeaf = null;
+                currentLeafDocs = null;
+                currentLeafLiveDocs = null;
+            } else {
+                TopDocs topDocs = luceneIndexSearcher.search(query, Integer.MAX_VALUE);
+                scoreDocs = topDocs.scoreDocs;
+            }
 
             inputSchema = this.dataStore.getSchema();
+            if (requiredAttributes != null) {
+                // only the required attributes (and _id) are read from the stored fields
+                inputSchema = new Schema(inputSchema.getAttributes().stream()
+                        .filter(attr -> attr.getName().equalsIgnoreCase(SchemaConstants._ID) 
+                                || requiredAttributes.contains(attr.getName().toLowerCase()))
+                        .toArray(Attribute[]::new));
+                fieldsToLoad = new HashSet<>(inputSchema.getAttributeNames());
+            } else {
+                fieldsToLoad = null;
+            }
             if (payloadAdded) {
                 outputSchema = new Schema.Builder(inputSchema).add(SchemaConstants.PAYLOAD_ATTRIBUTE).build();
+                openPayloadValues();
             } else {
                 outputSchema = inputSchema;
             }
@@ -122,10 +186,10 @@ public class DataReader implements IOperator {
 
         Tuple resultTuple;
         try {
-            if (cursor >= scoreDocs.length) {
+            int docID = nextDocID();
+            if (docID == DocIdSetIterator.NO_MORE_DOCS) {
                 return null;
             }
-            int docID = scoreDocs[cursor].doc;
             resultTuple = constructTuple(docID);
 
         } catch (IOException | ParseException e) {
@@ -136,12 +200,73 @@ public class DataReader implements IOperator {
         return resultTuple;
     }
 
+    @Override
+    public TupleBatch getNextBatch(int maxSize) throws StorageException {
+        if (cursor == CLOSED) {
+            throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+
+        TupleBatch resultBatch = new TupleBatch(maxSize);
+        try {
+            int docID;
+            while (resultBatch.size() < maxSize && (docID = nextDocID()) != DocIdSetIterator.NO_MORE_DOCS) {
+                resultBatch.add(constructTuple(docID));
+                cursor++;
+            }
+        } catch (IOException | ParseException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+
+        return resultBatch.isEmpty() ? null : resultBatch;
+    }
+
+    /*
+     * Returns the (index-wide) ID of the next matching document, or NO_MORE_DOCS if there's no more match.
+     */
+    private int nextDocID() throws IOException {
+        if (! streaming) {
+            return cursor < scoreDocs.length ? scoreDocs[cursor].doc : DocIdSetIterator.NO_MORE_DOCS;
+        }
+        while (true) {
+            if (currentLeafDocs != null) {
+                int leafDocID;
+                while ((leafDocID = currentLeafDocs.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+                    // scorers don't skip deleted documents
+                    if (currentLeafLiveDocs == null || currentLeafLiveDocs.get(leafDocID)) {
+                        return currentLeaf.docBase + leafDocID;
+                    }
+                }
+                currentLeafDocs = null;
+            }
+            if (nextLeafIndex >= leafContexts.size()) {
+                return DocIdSetIterator.NO_MORE_DOCS;
+            }
+            currentLeaf = leafContexts.get(nextLeafIndex++);
+            currentLeafLiveDocs = currentLeaf.reader().getLiveDocs();
+            if (query instanceof MatchAllDocsQuery) {
+                currentLeafDocs = DocIdSetIterator.all(currentLeaf.reader().maxDoc());
+            } else {
+                Scorer scorer = luceneWeight.scorer(currentLeaf);
+                currentLeafDocs = scorer == null ? null : scorer.iterator();
+            }
+        }
+    }
+
     @Override
     public void close() throws StorageException {
         cursor = CLOSED;
-        if (luceneIndexReader != null) {
+        scoreDocs = null;
+        luceneWeight = null;
+        leafContexts = null;
+        currentLeaf = null;
+        currentLeafDocs = null;
+        currentLeafLiveDocs = null;
+        payloadValues = null;
+        payloadDocsWithField = null;
+        if (luceneIndexSearcher != null) {
             try {
-                luceneIndexReader.close();
+                IndexSearcherPool.release(luceneIndexSearcher);
+                luceneIndexSearcher = null;
                 luceneIndexReader = null;
             } catch (IOException e) {
                 throw new StorageException(e.getMessage(), e);
@@ -150,11 +275,22 @@ public class DataReader implements IOperator {
     }
 
     private Tuple constructTuple(int docID) throws IOException, ParseException {
-        Document luceneDocument = luceneIndexSearcher.doc(docID);
+        Document luceneDocument;
+        if (fieldsToLoad == null) {
+            luceneDocument = luceneIndexSearcher.doc(docID);
+        } else {
+            // the visitor skips the stored fields which are not required without parsing them
+            DocumentStoredFieldVisitor fieldVisitor = new DocumentStoredFieldVisitor(fieldsToLoad);
+            luceneIndexSearcher.doc(docID, fieldVisitor);
+            luceneDocument = fieldVisitor.getDocument();
+        }
         ArrayList<IField> docFields = documentToFields(luceneDocument);
 
         if (payloadAdded) {
-            ArrayList<Span> payloadSpanList = buildPayloadFromTermVector(docFields, docID);
+            List<Span> payloadSpanList = decodeStoredPayload(docFields, docID);
+            if (payloadSpanList == null) {
+                payloadSpanList = buildPayloadFromTermVector(docFields, docID);
+            }
             ListField<Span> payloadField = new ListField<Span>(payloadSpanList);
             docFields.add(payloadField);
         }
@@ -173,6 +309,46 @@ public class DataReader implements IOperator {
         return fields;
     }
 
+    /*
+     * Gets the encoded payload columns of the TEXT attributes, if the table stores its payload.
+     */
+    private void openPayloadValues() throws IOException {
+        payloadValues = new HashMap<>();
+        payloadDocsWithField = new HashMap<>();
+        for (Attribute attr : inputSchema.getAttributes()) {
+            if (attr.getType() != AttributeType.TEXT) {
+                continue;
+            }
+            String payloadFieldName = PayloadCodec.getPayloadFieldName(attr.getName());
+            BinaryDocValues binaryDocValues = MultiDocValues.getBinaryValues(luceneIndexReader, payloadFieldName);
+            if (binaryDocValues != null) {
+                payloadValues.put(attr.getName(), binaryDocValues);
+                payloadDocsWithField.put(attr.getName(), MultiDocValues.getDocsWithField(luceneIndexReader, payloadFieldName));
+            }
+        }
+    }
+    
+    /*
+     * Decodes the payload from the encoded payload columns written by DataWriter.
+     * Returns null if the payload of any TEXT field of the document isn't stored.
+     */
+    private List<Span> decodeStoredPayload(List<IField> fields, int docID) {
+        List<Span> payloadSpanList = new ArrayList<>();
+        for (Attribute attr : inputSchema.getAttributes()) {
+            if (attr.getType() != AttributeType.TEXT) {
+                continue;
+            }
+            String attributeName = attr.getName();
+            BinaryDocValues binaryDocValues = payloadValues.get(attributeName);
+            if (binaryDocValues == null || ! payloadDocsWithField.get(attributeName).get(docID)) {
+                return null;
+            }
+            String fieldValue = fields.get(inputSchema.getIndex(attributeName)).getValue().toString();
+            payloadSpanList.addAll(PayloadCodec.decode(attributeName, fieldValue, binaryDocValues.get(docID)));
+        }
+        return payloadSpanList;
+    }
+
     private ArrayList<Span> buildPayloadFromTermVector(List<IField> fields, int docID) throws IOException {
         ArrayList<Span> payloadSpanList = new ArrayList<>();
 
@@ -226,6 +402,45 @@ public class DataReader implements IOperator {
     public void setPayloadAdded(boolean payloadAdded) {
         this.payloadAdded = payloadAdded;
     }
+    
+    public boolean isStreaming() {
+        return this.streaming;
+    }
+    
+    /**
+     * Sets the streaming mode, which must be set before open().
+     * 
+     * By default, DataReader runs the query and stores all the hits, ordered by score, in open(). 
+     * In streaming mode, the matching documents are iterated segment by segment without scoring,
+     *   and each document is only loaded when the next tuple is requested, 
+     *   so the time to the first tuple and the memory usage don't depend on the number of hits.
+     * The tuples are returned in index order.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public Set<String> getRequiredAttributes() {
+        return this.requiredAttributes;
+    }
+    
+    /**
+     * Sets the attributes needed by the operators consuming this DataReader, which must be set before open().
+     * 
+     * Only the required attributes (and the _id attribute) are loaded from the stored fields of a document,
+     *   and the output schema only contains these attributes (and the payload if it's added).
+     * If requiredAttributes is null (by default), all the attributes are read.
+     * 
+     * Attribute names are case insensitive. Attributes not in the table are ignored.
+     */
+    public void setRequiredAttributes(Collection<String> requiredAttributes) {
+        if (requiredAttributes == null) {
+            this.requiredAttributes = null;
+        } else {
+            this.requiredAttributes = requiredAttributes.stream()
+                    .map(attributeName -> attributeName.toLowerCase()).collect(Collectors.toSet());
+        }
+    }
 
     public Schema getOutputSchema() {
         return outputSchema;
@@ -240,6 +455,11 @@ public class DataReader implements IOperator {
         }
     }
     
+    /**
+     * Gets the IndexReader used by this DataReader.
+     * The IndexReader is shared with other DataReaders of the same table, 
+     *   it's only valid until this DataReader is closed and must not be closed by the caller.
+     */
     public IndexReader getLuceneIndexReader() {
         return this.luceneIndexReader;
     }
@@ -247,4 +467,4 @@ public class DataReader implements IOperator {
     public Schema transformToOutputSchema(Schema... inputSchema) throws DataflowException {
         throw new TexeraException(ErrorMessages.INVALID_FUNCTION_CALL);
     }
-}
\ No newline at end of file
+}
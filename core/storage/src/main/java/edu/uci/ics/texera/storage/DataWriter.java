@@ -2,14 +2,26 @@ package edu.uci.ics.texera.storage;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.AnalyzerWrapper;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.store.Directory;
@@ -24,6 +36,7 @@ import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
 import edu.uci.ics.texera.storage.utils.StorageUtils;
 
 /**
@@ -34,6 +47,17 @@ import edu.uci.ics.texera.storage.utils.StorageUtils;
  *   DataWriter will write tuples to a Lucene index folder.
  *   DataWriter will assign an random generated "_id" field to every tuple
  *   that is being inserted to the table.
+ *   If the table stores its payload, the tokens of every TEXT field are also encoded 
+ *   into a binary doc-values column (see PayloadCodec), so that DataReader doesn't need to rebuild the payload.
+ *   If the table keeps an n-gram index, every TEXT field is also indexed (but not stored) 
+ *   as the n-grams of a fixed length in a shadow field of the same document, 
+ *   which the regex source uses to filter the candidate tuples (see setNGramIndexGramLength()).
+ *   
+ * Bulk Write Operations:
+ *   insertTuples() builds and adds the documents of a batch of tuples on several threads
+ *   sharing the same Lucene IndexWriter (see setNumThreads()).
+ *   The RAM buffer size and the merge policy of the IndexWriter, 
+ *   and the generator of the "_id" field can be configured before the DataWriter is opened.
  *   
  * Delete Operations:
  *   DataWriter can handle deletions according to one or more Lucene queries.
@@ -51,6 +75,26 @@ import edu.uci.ics.texera.storage.utils.StorageUtils;
  *
  */
 public class DataWriter {
+    
+    // the key in the commit data of the index, which records if the table stores its payload
+    static final String PAYLOAD_STORED_KEY = "texera.payloadStored";
+    
+    // the key in the commit data of the index, which records the gram length of the table's n-gram index
+    static final String NGRAM_INDEX_GRAM_LENGTH_KEY = "texera.nGramIndexGramLength";
+    
+    // the default ID generator: random UUIDs from a cryptographically strong random number generator
+    public static final Supplier<String> SECURE_RANDOM_ID_GENERATOR = () -> UUID.randomUUID().toString();
+    
+    // a cheaper ID generator for bulk loading: (version 4) random UUIDs from a thread-local random number generator
+    public static final Supplier<String> FAST_RANDOM_ID_GENERATOR = () -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    };
+    
+    // the number of tuples handed to a thread at a time by insertTuples()
+    public static final int BULK_CHUNK_SIZE = 512;
 
     private Path indexDirectory;
     private Schema schema;
@@ -60,6 +104,20 @@ public class DataWriter {
     private IndexWriter luceneIndexWriter;
     
     private boolean isOpen = false;
+    
+    private boolean payloadStored = false;
+    
+    // 0 means the table doesn't keep an n-gram index
+    private int nGramIndexGramLength = 0;
+    
+    private double ramBufferSizeMB = IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB;
+    private MergePolicy mergePolicy = null;
+    private Supplier<String> idGenerator = SECURE_RANDOM_ID_GENERATOR;
+    private int numThreads = 1;
+    private ExecutorService bulkExecutor;
+    
+    // the schema of the inserted tuples which has already been checked against the table's schema
+    private Schema checkedTupleSchema;
 
     /*
      * The package-only level constructor is only accessible inside the storage package.
@@ -85,8 +143,16 @@ public class DataWriter {
         if (this.luceneIndexWriter == null || ! this.luceneIndexWriter.isOpen()) {
             try {
                 Directory directory = FSDirectory.open(this.indexDirectory);
-                IndexWriterConfig conf = new IndexWriterConfig(analyzer);
+                IndexWriterConfig conf = new IndexWriterConfig(new IndexAnalyzer());
+                conf.setRAMBufferSizeMB(ramBufferSizeMB);
+                if (mergePolicy != null) {
+                    conf.setMergePolicy(mergePolicy);
+                }
                 this.luceneIndexWriter = new IndexWriter(directory, conf);
+                this.payloadStored = Boolean.parseBoolean(
+                        this.luceneIndexWriter.getCommitData().get(PAYLOAD_STORED_KEY));
+                this.nGramIndexGramLength = parseNGramIndexGramLength(
+                        this.luceneIndexWriter.getCommitData().get(NGRAM_INDEX_GRAM_LENGTH_KEY));
                 this.isOpen = true;
             } catch (IOException e) {
                 throw new StorageException(e.getMessage(), e);
@@ -95,16 +161,145 @@ public class DataWriter {
     }
 
     public void close() throws StorageException {
+        if (this.bulkExecutor != null) {
+            this.bulkExecutor.shutdownNow();
+            this.bulkExecutor = null;
+        }
         if (this.luceneIndexWriter != null) {
             try {
                 this.luceneIndexWriter.close();
                 this.isOpen = false;
+                // make the committed changes visible to the DataReaders opened afterwards
+                IndexSearcherPool.refresh(this.indexDirectory);
             } catch (IOException e) {
                 throw new StorageException(e.getMessage(), e);
             }
         }
     }
 
+    /**
+     * Sets the RAM buffer size of the Lucene IndexWriter, which must be set before open().
+     * A larger buffer means fewer (and larger) flushed segments when loading a lot of tuples.
+     * 
+     * @param ramBufferSizeMB, the RAM buffer size in MB
+     */
+    public void setRAMBufferSizeMB(double ramBufferSizeMB) {
+        this.ramBufferSizeMB = ramBufferSizeMB;
+    }
+    
+    /**
+     * Sets the merge policy of the Lucene IndexWriter, which must be set before open().
+     * If it's not set, Lucene's default merge policy is used.
+     * 
+     * @param mergePolicy
+     */
+    public void setMergePolicy(MergePolicy mergePolicy) {
+        this.mergePolicy = mergePolicy;
+    }
+    
+    /**
+     * Sets the generator of the "_id" field of the inserted tuples. 
+     * The generator must be thread-safe and generate unique IDs. By default, SECURE_RANDOM_ID_GENERATOR is used.
+     * 
+     * @param idGenerator
+     */
+    public void setIdGenerator(Supplier<String> idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+    
+    /**
+     * Sets the number of threads used by insertTuples() to build and add the documents.
+     * 
+     * @param numThreads, 1 (by default) means all the documents are added on the calling thread
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new StorageException("the number of threads of a DataWriter must be positive");
+        }
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Returns true if the table stores the encoded payload of its TEXT fields.
+     * The option is kept in the index, and is known after the DataWriter is opened.
+     */
+    public boolean isPayloadStored() {
+        return this.payloadStored;
+    }
+    
+    /**
+     * Sets if the table stores the encoded payload of its TEXT fields, 
+     *   the option is saved in the index when the DataWriter is closed.
+     * It should only be changed when the table is empty (for example, when it's created),
+     *   otherwise DataReader falls back to rebuilding the payload for the documents written without it.
+     * 
+     * @param payloadStored
+     * @throws StorageException
+     */
+    public void setPayloadStored(boolean payloadStored) throws StorageException {
+        if (! isOpen) {
+            throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        this.payloadStored = payloadStored;
+        Map<String, String> commitData = new HashMap<>(this.luceneIndexWriter.getCommitData());
+        commitData.put(PAYLOAD_STORED_KEY, Boolean.toString(payloadStored));
+        this.luceneIndexWriter.setCommitData(commitData);
+    }
+
+    /**
+     * Returns the gram length of the table's n-gram index, or 0 if the table doesn't keep an n-gram index.
+     * The option is kept in the index, and is known after the DataWriter is opened.
+     */
+    public int getNGramIndexGramLength() {
+        return this.nGramIndexGramLength;
+    }
+    
+    /**
+     * Sets the gram length of the table's n-gram index, the option is saved in the index when the DataWriter is closed.
+     * 
+     * If it's positive, the value of every TEXT field is also indexed as its n-grams of this length 
+     *   in the field named by StorageUtils.getNGramFieldName(), maintained on every insert and update, 
+     *   so that a regex can be translated to a gram query on them with the same gram length,
+     *   whatever the analyzer of the table is.
+     * Unlike the payload, the n-gram index must be complete to be used as a filter, 
+     *   so it can only be changed when the table is empty (for example, when it's created).
+     * 
+     * @param gramLength, the length of the grams, 0 to not keep an n-gram index
+     * @throws StorageException
+     */
+    public void setNGramIndexGramLength(int gramLength) throws StorageException {
+        if (! isOpen) {
+            throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        if (gramLength < 0) {
+            throw new StorageException("the gram length of an n-gram index must not be negative");
+        }
+        if (gramLength == this.nGramIndexGramLength) {
+            return;
+        }
+        if (this.luceneIndexWriter.numDocs() > 0) {
+            throw new StorageException("the n-gram index of a table can only be changed when the table is empty");
+        }
+        this.nGramIndexGramLength = gramLength;
+        Map<String, String> commitData = new HashMap<>(this.luceneIndexWriter.getCommitData());
+        commitData.put(NGRAM_INDEX_GRAM_LENGTH_KEY, Integer.toString(gramLength));
+        this.luceneIndexWriter.setCommitData(commitData);
+    }
+    
+    /*
+     * Parses the gram length of the n-gram index in the commit data, a table created without it has no n-gram index.
+     */
+    static int parseNGramIndexGramLength(String gramLengthString) {
+        if (gramLengthString == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(gramLengthString));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     public void clearData() throws StorageException {
         if (! isOpen) {
             throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
@@ -121,23 +316,11 @@ public class DataWriter {
         if (! isOpen) {
             throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
         }
+        checkTupleSchema(tuple.getSchema());
         try {
-            // tuple must not contain _id field
-            if (tuple.getSchema().containsAttribute(SchemaConstants._ID)) {
-                throw new StorageException("Tuple must not contain _id field. _id must be generated by the system");
-            }
-            
             // generate a random ID for this tuple
-            IDField idField = new IDField(UUID.randomUUID().toString());
-            Tuple tupleWithID = getTupleWithID(tuple, idField);
-            
-            // make sure the tuple's schema agrees with the table's schema
-            if (! tupleWithID.getSchema().equals(this.schema)) {
-                throw new StorageException("Tuple's schema is not the same as the table's schema");
-            }
-            
-            Document document = getLuceneDocument(tupleWithID);
-            this.luceneIndexWriter.addDocument(document);
+            IDField idField = new IDField(idGenerator.get());
+            this.luceneIndexWriter.addDocument(getLuceneDocument(tuple, idField));
             this.dataStore.incrementNumDocuments(1);
             
             return idField;
@@ -147,6 +330,139 @@ public class DataWriter {
         }
     }
     
+    /**
+     * Inserts a batch of tuples.
+     * 
+     * If the number of threads is greater than 1, the tuples are split into chunks,
+     *   and the documents of the chunks are built and added to the index in parallel.
+     * At most two chunks per thread are in progress at the same time, 
+     *   so the tuples can be streamed from a large input.
+     * 
+     * @param tuples, the tuples to insert, which must not contain the _id field
+     * @return the IDs of the inserted tuples, in the order of the input tuples
+     * @throws StorageException
+     */
+    public List<IDField> insertTuples(Iterable<Tuple> tuples) throws StorageException {
+        if (! isOpen) {
+            throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        List<IDField> idFields = new ArrayList<>();
+        if (numThreads == 1) {
+            for (Tuple tuple : tuples) {
+                idFields.add(insertTuple(tuple));
+            }
+            return idFields;
+        }
+        
+        if (bulkExecutor == null) {
+            bulkExecutor = Executors.newFixedThreadPool(numThreads);
+        }
+        Deque<Future<Integer>> chunksInProgress = new ArrayDeque<>();
+        try {
+            List<Tuple> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+            List<IDField> chunkIDs = new ArrayList<>(BULK_CHUNK_SIZE);
+            for (Tuple tuple : tuples) {
+                checkTupleSchema(tuple.getSchema());
+                chunk.add(tuple);
+                chunkIDs.add(new IDField(idGenerator.get()));
+                if (chunk.size() == BULK_CHUNK_SIZE) {
+                    if (chunksInProgress.size() >= 2 * numThreads) {
+                        waitForChunk(chunksInProgress.poll());
+                    }
+                    chunksInProgress.add(submitChunk(chunk, chunkIDs));
+                    idFields.addAll(chunkIDs);
+                    chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+                    chunkIDs = new ArrayList<>(BULK_CHUNK_SIZE);
+                }
+            }
+            if (! chunk.isEmpty()) {
+                chunksInProgress.add(submitChunk(chunk, chunkIDs));
+                idFields.addAll(chunkIDs);
+            }
+            while (! chunksInProgress.isEmpty()) {
+                waitForChunk(chunksInProgress.poll());
+            }
+        } catch (StorageException e) {
+            // let the chunks in progress finish, the tuples of the batch added so far stay in the index
+            for (Future<Integer> chunkInProgress : chunksInProgress) {
+                try {
+                    chunkInProgress.get();
+                } catch (InterruptedException | ExecutionException ignored) {
+                }
+            }
+            // same as insertTuple(), an I/O failure closes the DataWriter
+            if (e.getCause() instanceof IOException) {
+                close();
+            }
+            throw e;
+        }
+        return idFields;
+    }
+    
+    /*
+     * Builds and adds the documents of a chunk of tuples on the bulk executor.
+     */
+    private Future<Integer> submitChunk(List<Tuple> chunk, List<IDField> chunkIDs) {
+        return bulkExecutor.submit(() -> {
+            for (int i = 0; i < chunk.size(); i++) {
+                this.luceneIndexWriter.addDocument(getLuceneDocument(chunk.get(i), chunkIDs.get(i)));
+            }
+            return chunk.size();
+        });
+    }
+    
+    private void waitForChunk(Future<Integer> chunkInProgress) throws StorageException {
+        try {
+            this.dataStore.incrementNumDocuments(chunkInProgress.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw new StorageException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+    
+    /*
+     * Makes sure a tuple to insert doesn't contain the _id field and agrees with the table's schema.
+     * The tuples of a batch usually share the same schema object, so a schema is only compared once.
+     */
+    private void checkTupleSchema(Schema tupleSchema) throws StorageException {
+        if (tupleSchema == checkedTupleSchema) {
+            return;
+        }
+        // tuple must not contain _id field
+        if (tupleSchema.containsAttribute(SchemaConstants._ID)) {
+            throw new StorageException("Tuple must not contain _id field. _id must be generated by the system");
+        }
+        // make sure the tuple's schema agrees with the table's schema
+        if (! Schema.Builder.getSchemaWithID(tupleSchema).equals(this.schema)) {
+            throw new StorageException("Tuple's schema is not the same as the table's schema");
+        }
+        checkedTupleSchema = tupleSchema;
+    }
+    
+    /*
+     * Converts a Texera tuple (without the _id field) and its ID to a Lucene document,
+     *   without building the tuple with the _id field.
+     */
+    private Document getLuceneDocument(Tuple tuple, IDField idField) throws IOException {
+        Document doc = new Document();
+        doc.add(StorageUtils.getLuceneField(AttributeType._ID_TYPE, SchemaConstants._ID, idField.getValue()));
+        List<IField> fields = tuple.getFields();
+        List<Attribute> attributes = tuple.getSchema().getAttributes();
+        for (int count = 0; count < fields.size(); count++) {
+            Attribute attr = attributes.get(count);
+            doc.add(StorageUtils.getLuceneField(attr.getType(), attr.getName(), fields.get(count).getValue()));
+        }
+        if (payloadStored) {
+            addPayloadFields(doc, tuple);
+        }
+        if (nGramIndexGramLength > 0) {
+            addNGramFields(doc, tuple);
+        }
+        return doc;
+    }
+    
     /**
      * Deletes a tuple by its ID field.
      * 
@@ -201,9 +517,15 @@ public class DataWriter {
                 newTuple = getTupleWithID(newTuple, idField);
             }
             
+            Document document = getLuceneDocument(newTuple);
+            if (payloadStored) {
+                addPayloadFields(document, newTuple);
+            }
+            if (nGramIndexGramLength > 0) {
+                addNGramFields(document, newTuple);
+            }
             this.luceneIndexWriter.updateDocument(
-                    new Term(SchemaConstants._ID, idField.getValue().toString()),
-                    getLuceneDocument(newTuple)); 
+                    new Term(SchemaConstants._ID, idField.getValue().toString()), document); 
         } catch (IOException e) {
             close();
             throw new StorageException(e);
@@ -226,6 +548,50 @@ public class DataWriter {
         return doc;
     }
     
+    /*
+     * Adds the encoded payload of every TEXT field to the Lucene document.
+     */
+    private void addPayloadFields(Document doc, Tuple tuple) throws IOException {
+        for (Attribute attr : tuple.getSchema().getAttributes()) {
+            if (attr.getType() == AttributeType.TEXT) {
+                String fieldValue = tuple.getField(attr.getName()).getValue().toString();
+                doc.add(StorageUtils.getLucenePayloadField(attr.getName(), fieldValue, analyzer));
+            }
+        }
+    }
+    
+    /*
+     * Adds the n-gram field of every TEXT field to the Lucene document.
+     */
+    private static void addNGramFields(Document doc, Tuple tuple) {
+        for (Attribute attr : tuple.getSchema().getAttributes()) {
+            if (attr.getType() == AttributeType.TEXT) {
+                String fieldValue = tuple.getField(attr.getName()).getValue().toString();
+                doc.add(StorageUtils.getLuceneNGramField(attr.getName(), fieldValue));
+            }
+        }
+    }
+    
+    /*
+     * The analyzer of the Lucene IndexWriter: the n-gram fields are analyzed by the n-gram analyzer 
+     *   of the table's n-gram index, and the other fields by the analyzer of the table.
+     */
+    private class IndexAnalyzer extends AnalyzerWrapper {
+        
+        IndexAnalyzer() {
+            super(Analyzer.PER_FIELD_REUSE_STRATEGY);
+        }
+
+        @Override
+        protected Analyzer getWrappedAnalyzer(String fieldName) {
+            if (nGramIndexGramLength > 0 && StorageUtils.isNGramFieldName(fieldName)) {
+                return LuceneAnalyzerConstants.getNGramAnalyzer(nGramIndexGramLength);
+            }
+            return analyzer;
+        }
+        
+    }
+    
     /*
      * Adds the _id to the front of the tuple, if the _id field doesn't exist in the tuple.
      */
@@ -244,4 +610,4 @@ public class DataWriter {
         return tupleWithID;
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package edu.uci.ics.texera.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+
+/**
+ * IndexSearcherPool keeps one Lucene SearcherManager for each index directory,
+ *   so that all the DataReaders of a table share the same IndexReader,
+ *   instead of opening (and warming up) a new one every time.
+ *
+ * A DataReader acquires a searcher in open() and releases it in close().
+ * The searchers are reference-counted: an IndexReader replaced by a refresh
+ *   is closed only after its last user releases it.
+ *
+ * DataWriter refreshes the searchers of a directory after it commits,
+ *   so that the changes are visible to the DataReaders opened afterwards.
+ * The searchers of a directory must be invalidated before the directory is deleted.
+ * Invalidating closes the searcher manager together with the Lucene Directory it was opened on,
+ *   the files already opened by the searchers in use stay readable until they are released.
+ *
+ * IndexSearcherPool is only accessible inside the storage package.
+ *
+ */
+class IndexSearcherPool {
+
+    /*
+     * A searcher manager with the Lucene Directory it was opened on, which are closed together.
+     */
+    private static class PooledSearcherManager {
+        private final Directory directory;
+        private final SearcherManager searcherManager;
+
+        private PooledSearcherManager(Directory directory, SearcherManager searcherManager) {
+            this.directory = directory;
+            this.searcherManager = searcherManager;
+        }
+
+        private void close() throws IOException {
+            try {
+                searcherManager.close();
+            } finally {
+                directory.close();
+            }
+        }
+    }
+
+    private static final ConcurrentHashMap<Path, PooledSearcherManager> searcherManagers = new ConcurrentHashMap<>();
+
+    private IndexSearcherPool() {
+    }
+
+    /**
+     * Acquires the current searcher of an index directory.
+     * The searcher must be released by release() after use.
+     *
+     * @param directory, the index directory
+     * @return
+     * @throws IOException
+     */
+    static IndexSearcher acquire(Path directory) throws IOException {
+        Path key = toKey(directory);
+        while (true) {
+            PooledSearcherManager searcherManager = getSearcherManager(key);
+            try {
+                return searcherManager.searcherManager.acquire();
+            } catch (AlreadyClosedException e) {
+                // the searcher manager is invalidated by another thread, try again with a new one
+                searcherManagers.remove(key, searcherManager);
+            }
+        }
+    }
+
+    /**
+     * Releases a searcher obtained from acquire().
+     *
+     * @param searcher
+     * @throws IOException
+     */
+    static void release(IndexSearcher searcher) throws IOException {
+        // same as SearcherManager.release(), which works even if the searcher manager is closed
+        searcher.getIndexReader().decRef();
+    }
+
+    /**
+     * Makes the latest commit of an index directory visible to the searchers acquired afterwards.
+     * It does nothing if no searcher of the directory has been acquired yet.
+     *
+     * @param directory, the index directory
+     */
+    static void refresh(Path directory) {
+        Path key = toKey(directory);
+        PooledSearcherManager searcherManager = searcherManagers.get(key);
+        if (searcherManager == null) {
+            return;
+        }
+        try {
+            searcherManager.searcherManager.maybeRefreshBlocking();
+        } catch (IOException | IllegalStateException e) {
+            // the index can't be reopened incrementally (for example, its files are replaced on the disk),
+            //   drop the searcher manager and let the next acquire() open the index from scratch
+            invalidate(directory);
+        }
+    }
+
+    /**
+     * Closes the searcher manager of an index directory, and the Lucene Directory it was opened on.
+     * Searchers acquired before stay usable until they are released.
+     *
+     * @param directory, the index directory
+     */
+    static void invalidate(Path directory) {
+        PooledSearcherManager searcherManager = searcherManagers.remove(toKey(directory));
+        if (searcherManager == null) {
+            return;
+        }
+        try {
+            searcherManager.close();
+        } catch (IOException e) {
+            // the searchers in use still hold their own references, nothing else to clean up
+        }
+    }
+
+    private static PooledSearcherManager getSearcherManager(Path key) throws IOException {
+        PooledSearcherManager searcherManager = searcherManagers.get(key);
+        if (searcherManager != null) {
+            return searcherManager;
+        }
+        // opening an IndexReader is expensive, make sure each directory is only opened once
+        synchronized (searcherManagers) {
+            searcherManager = searcherManagers.get(key);
+            if (searcherManager == null) {
+                Directory directory = FSDirectory.open(key);
+                try {
+                    searcherManager = new PooledSearcherManager(directory, new SearcherManager(directory, null));
+                } catch (IOException | RuntimeException e) {
+                    directory.close();
+                    throw e;
+                }
+                searcherManagers.put(key, searcherManager);
+            }
+            return searcherManager;
+        }
+    }
+
+    private static Path toKey(Path directory) {
+        return directory.toAbsolutePath().normalize();
+    }
+
+}
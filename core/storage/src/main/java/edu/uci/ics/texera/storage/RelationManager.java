@@ -3,13 +3,18 @@ package edu.uci.ics.texera.storage;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
@@ -30,6 +35,13 @@ public class RelationManager {
     
     private static volatile RelationManager singletonInstance = null;
     
+    // write-through cache of the catalog: table name (lower case) -> catalog information of the table
+    // the analyzers are not cached here, LuceneAnalyzerConstants.getLuceneAnalyzer() shares them by analyzer string
+    private final ConcurrentHashMap<String, CatalogCacheEntry> catalogCache = new ConcurrentHashMap<>();
+    // guards the catalog writes together with the cache updates, and the cache fills from the catalog,
+    //   so that a lookup racing with deleteTable() can't put the deleted table back into the cache
+    private final Object catalogLock = new Object();
+    
     private RelationManager() throws StorageException {
         if (! checkCatalogExistence()) {
             initializeCatalog();
@@ -54,8 +66,7 @@ public class RelationManager {
      * @return
      */
     public boolean checkTableExistence(String tableName) {
-        tableName = tableName.toLowerCase();
-        return getTableCatalogTuple(tableName) != null;
+        return getCatalogCacheEntry(tableName) != null;
     }
 
     /**
@@ -75,6 +86,47 @@ public class RelationManager {
      */
     public void createTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString)
             throws StorageException {
+        createTable(tableName, indexDirectory, schema, luceneAnalyzerString, false);
+    }
+    
+    /**
+     * Creates a new table, optionally storing the payload of its TEXT fields.
+     * 
+     * If payloadStored is true, DataWriter encodes the tokens of every TEXT field into a binary column at write time,
+     *   and DataReader decodes the payload from it, instead of rebuilding it from the term vectors.
+     * This makes reading tuples with payload much cheaper, at the cost of a larger index and slower writes.
+     * 
+     * @param tableName, the name of the table, must be unique, case is not sensitive
+     * @param indexDirectory, the directory to store the index and data, must not duplicate with other tables' directories
+     * @param schema, the schema of the table
+     * @param luceneAnalyzerString, the string representing the lucene analyzer used
+     * @param payloadStored, whether the payload of the TEXT fields is stored in the index
+     * @throws StorageException
+     */
+    public void createTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString,
+            boolean payloadStored) throws StorageException {
+        createTable(tableName, indexDirectory, schema, luceneAnalyzerString, payloadStored, 0);
+    }
+    
+    /**
+     * Creates a new table, optionally storing the payload of its TEXT fields, 
+     *   and optionally keeping an n-gram index of its TEXT fields.
+     * 
+     * If nGramIndexGramLength is positive, DataWriter also indexes every TEXT field as its n-grams of this length,
+     *   alongside the index built by the table's analyzer (see DataWriter.setNGramIndexGramLength()).
+     * The regex source then filters the tuples with a gram query on the n-gram index, 
+     *   before verifying the regex on the tuples, even if the table's analyzer is not an n-gram analyzer.
+     * 
+     * @param tableName, the name of the table, must be unique, case is not sensitive
+     * @param indexDirectory, the directory to store the index and data, must not duplicate with other tables' directories
+     * @param schema, the schema of the table
+     * @param luceneAnalyzerString, the string representing the lucene analyzer used
+     * @param payloadStored, whether the payload of the TEXT fields is stored in the index
+     * @param nGramIndexGramLength, the gram length of the n-gram index, 0 to not keep an n-gram index
+     * @throws StorageException
+     */
+    public void createTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString,
+            boolean payloadStored, int nGramIndexGramLength) throws StorageException {
         // convert the table name to lower case
         tableName = tableName.toLowerCase();
         // table should not exist
@@ -125,10 +177,17 @@ public class RelationManager {
         DataWriter dataWriter = new DataWriter(tableDataStore, luceneAnalyzer);
         dataWriter.open();
         dataWriter.clearData();
+        dataWriter.setPayloadStored(payloadStored);
+        dataWriter.setNGramIndexGramLength(nGramIndexGramLength);
         dataWriter.close();
         
-        // write table info to catalog
-        writeTableInfoToCatalog(tableName, indexDirectory, schema, luceneAnalyzerString);
+        synchronized (catalogLock) {
+            // write table info to catalog
+            writeTableInfoToCatalog(tableName, indexDirectory, schema, luceneAnalyzerString);
+            
+            // write table info to the catalog cache
+            catalogCache.put(tableName, new CatalogCacheEntry(indexDirectoryStr, tableSchema, luceneAnalyzerString));
+        }
 
     }
 
@@ -156,24 +215,31 @@ public class RelationManager {
         dataWriter.open();
         dataWriter.clearData();
         dataWriter.close();
-        StorageUtils.deleteDirectory(getTableDirectory(tableName));
+        String tableDirectory = getTableDirectory(tableName);
+        IndexSearcherPool.invalidate(Paths.get(tableDirectory));
+        StorageUtils.deleteDirectory(tableDirectory);
 
         // generate a query for the table name
         Query catalogTableNameQuery = new TermQuery(new Term(CatalogConstants.TABLE_NAME, tableName));
 
-        // delete the table from table catalog
-        DataWriter tableCatalogWriter = new DataWriter(CatalogConstants.TABLE_CATALOG_DATASTORE, 
-                LuceneAnalyzerConstants.getStandardAnalyzer());
-        tableCatalogWriter.open();
-        tableCatalogWriter.deleteTuple(catalogTableNameQuery);
-        tableCatalogWriter.close();
-                
-        // delete the table from schema catalog
-        DataWriter schemaCatalogWriter = new DataWriter(CatalogConstants.SCHEMA_CATALOG_DATASTORE,
-                LuceneAnalyzerConstants.getStandardAnalyzer());
-        schemaCatalogWriter.open();
-        schemaCatalogWriter.deleteTuple(catalogTableNameQuery);
-        schemaCatalogWriter.close();
+        synchronized (catalogLock) {
+            // delete the table from table catalog
+            DataWriter tableCatalogWriter = new DataWriter(CatalogConstants.TABLE_CATALOG_DATASTORE, 
+                    LuceneAnalyzerConstants.getStandardAnalyzer());
+            tableCatalogWriter.open();
+            tableCatalogWriter.deleteTuple(catalogTableNameQuery);
+            tableCatalogWriter.close();
+                    
+            // delete the table from schema catalog
+            DataWriter schemaCatalogWriter = new DataWriter(CatalogConstants.SCHEMA_CATALOG_DATASTORE,
+                    LuceneAnalyzerConstants.getStandardAnalyzer());
+            schemaCatalogWriter.open();
+            schemaCatalogWriter.deleteTuple(catalogTableNameQuery);
+            schemaCatalogWriter.close();
+            
+            // delete the table from the catalog cache
+            catalogCache.remove(tableName);
+        }
         
     }
     
@@ -230,6 +296,23 @@ public class RelationManager {
         return new DataReader(tableDataStore, tupleQuery);
     }
     
+    /**
+     * Gets a DataReader for a table based on a query, 
+     *   which only reads the required attributes (and the _id attribute) of the tuples.
+     * 
+     * @param tableName, the name of a table, case insensitive
+     * @param tupleQuery, the query to run on the table
+     * @param requiredAttributes, the attributes to read, case insensitive, null means all the attributes
+     * @return
+     * @throws StorageException
+     */
+    public DataReader getTableDataReader(String tableName, Query tupleQuery, Collection<String> requiredAttributes) 
+            throws StorageException {
+        DataReader dataReader = getTableDataReader(tableName, tupleQuery);
+        dataReader.setRequiredAttributes(requiredAttributes);
+        return dataReader;
+    }
+    
     /**
      * Gets the DataStore(directory and schema) of a table.
      * 
@@ -238,9 +321,39 @@ public class RelationManager {
      * @throws StorageException
      */
     public DataStore getTableDataStore(String tableName) throws StorageException {
-        String tableDirectory = getTableDirectory(tableName);
-        Schema tableSchema = getTableSchema(tableName);
-        return new DataStore(tableDirectory, tableSchema);
+        CatalogCacheEntry catalogCacheEntry = getCatalogCacheEntry(tableName);
+        
+        // if the entry is not found, then the table name is not found
+        if (catalogCacheEntry == null) {
+            throw new StorageException(String.format("The directory for table %s is not found.", tableName));
+        }
+        
+        // a new DataStore each time, because DataStore keeps a (mutable) document count
+        return new DataStore(catalogCacheEntry.tableDirectory, catalogCacheEntry.tableSchema);
+    }
+
+    /**
+     * Gets the gram length of the n-gram index of a table, as of the last commit of the table.
+     * 
+     * @param tableName, the name of the table, case insensitive
+     * @return the gram length, or 0 if the table doesn't keep an n-gram index
+     * @throws StorageException
+     */
+    public int getTableNGramIndexGramLength(String tableName) throws StorageException {
+        DataStore tableDataStore = getTableDataStore(tableName);
+        try {
+            IndexSearcher indexSearcher = IndexSearcherPool.acquire(tableDataStore.getDataDirectory());
+            try {
+                // the readers of the searcher pool are always opened from the index directory
+                DirectoryReader directoryReader = (DirectoryReader) indexSearcher.getIndexReader();
+                return DataWriter.parseNGramIndexGramLength(
+                        directoryReader.getIndexCommit().getUserData().get(DataWriter.NGRAM_INDEX_GRAM_LENGTH_KEY));
+            } finally {
+                IndexSearcherPool.release(indexSearcher);
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
     }
 
     /**
@@ -251,17 +364,14 @@ public class RelationManager {
      * @throws StorageException
      */
     public String getTableDirectory(String tableName) throws StorageException {
-        // get the tuples with tableName from the table catalog
-        Tuple tableCatalogTuple = getTableCatalogTuple(tableName);
+        CatalogCacheEntry catalogCacheEntry = getCatalogCacheEntry(tableName);
         
-        // if the tuple is not found, then the table name is not found
-        if (tableCatalogTuple == null) {
+        // if the entry is not found, then the table name is not found
+        if (catalogCacheEntry == null) {
             throw new StorageException(String.format("The directory for table %s is not found.", tableName));
         }
 
-        // get the directory field
-        IField directoryField = tableCatalogTuple.getField(CatalogConstants.TABLE_DIRECTORY);
-        return directoryField.getValue().toString();
+        return catalogCacheEntry.tableDirectory;
     }
 
     /**
@@ -272,25 +382,14 @@ public class RelationManager {
      * @throws StorageException
      */
     public Schema getTableSchema(String tableName) throws StorageException {
-        // get the tuples with tableName from the schema catalog
-        List<Tuple> tableAttributeTuples = getSchemaCatalogTuples(tableName);
-
-        // if the list is empty, then the schema is not found
-        if (tableAttributeTuples.isEmpty()) {
+        CatalogCacheEntry catalogCacheEntry = getCatalogCacheEntry(tableName);
+        
+        // if the entry is not found, then the schema is not found
+        if (catalogCacheEntry == null) {
             throw new StorageException(String.format("The schema of table %s is not found.", tableName));
         }
         
-        // convert the unordered list of tuples to an order list of attributes
-        List<Attribute> tableSchemaData = tableAttributeTuples.stream()
-                // sort the tuples based on the attributePosition field.
-                .sorted((tuple1, tuple2) -> Integer.compare((int) tuple1.getField(CatalogConstants.ATTR_POSITION).getValue(), 
-                        (int) tuple2.getField(CatalogConstants.ATTR_POSITION).getValue()))
-                // map one tuple to one attribute
-                .map(tuple -> new Attribute(tuple.getField(CatalogConstants.ATTR_NAME).getValue().toString(),
-                        convertAttributeType(tuple.getField(CatalogConstants.ATTR_TYPE).getValue().toString())))
-                .collect(Collectors.toList());
-        
-        return new Schema(tableSchemaData.stream().toArray(Attribute[]::new));
+        return catalogCacheEntry.tableSchema;
     }
     
     /**
@@ -301,40 +400,39 @@ public class RelationManager {
      * @throws StorageException
      */
     public String getTableAnalyzerString(String tableName) throws StorageException {
-        // get the tuples with tableName from the table catalog
-        Tuple tableCatalogTuple = getTableCatalogTuple(tableName);
+        CatalogCacheEntry catalogCacheEntry = getCatalogCacheEntry(tableName);
         
-        // if the tuple is not found, then the table name is not found
-        if (tableCatalogTuple == null) {
+        // if the entry is not found, then the table name is not found
+        if (catalogCacheEntry == null) {
             throw new StorageException(String.format("The analyzer for table %s is not found.", tableName));
         }
         
-        // get the lucene analyzer string
-        IField analyzerField = tableCatalogTuple.getField(CatalogConstants.TABLE_LUCENE_ANALYZER);
-        String analyzerString = analyzerField.getValue().toString();
-        
-        return analyzerString;
+        return catalogCacheEntry.luceneAnalyzerString;
     }
 
     /**
      * Gets the Lucene analyzer of a table.
+     * 
+     * The analyzer is shared by all the users of the analyzer string (see LuceneAnalyzerConstants),
+     *   it must not be closed by the caller.
      *   
      * @param tableName, the name of the table, case insensitive
      * @return
      * @throws StorageException
      */
     public Analyzer getTableAnalyzer(String tableName) throws StorageException {
-        String analyzerString = getTableAnalyzerString(tableName);
+        CatalogCacheEntry catalogCacheEntry = getCatalogCacheEntry(tableName);
+        
+        // if the entry is not found, then the table name is not found
+        if (catalogCacheEntry == null) {
+            throw new StorageException(String.format("The analyzer for table %s is not found.", tableName));
+        }
         
-        // convert a lucene analyzer string to an analyzer object
-        Analyzer luceneAnalyzer = null;
         try {
-            luceneAnalyzer = LuceneAnalyzerConstants.getLuceneAnalyzer(analyzerString);
+            return LuceneAnalyzerConstants.getLuceneAnalyzer(catalogCacheEntry.luceneAnalyzerString);
         } catch (DataflowException e) {
             throw new StorageException(e);
         }
-        
-        return luceneAnalyzer;
     }
     
     /*
@@ -364,6 +462,66 @@ public class RelationManager {
         dataWriter.close();
     }
     
+    /*
+     * Gets the catalog information of a table from the catalog cache.
+     * If the table is not cached, its information is read from the catalog and added to the cache.
+     * Returns null if the table doesn't exist.
+     */
+    private CatalogCacheEntry getCatalogCacheEntry(String tableName) throws StorageException {
+        tableName = tableName.toLowerCase();
+        
+        CatalogCacheEntry catalogCacheEntry = catalogCache.get(tableName);
+        if (catalogCacheEntry != null) {
+            return catalogCacheEntry;
+        }
+        
+        synchronized (catalogLock) {
+            catalogCacheEntry = catalogCache.get(tableName);
+            if (catalogCacheEntry == null) {
+                catalogCacheEntry = readCatalogCacheEntry(tableName);
+            }
+            if (catalogCacheEntry != null) {
+                catalogCache.put(tableName, catalogCacheEntry);
+            }
+            return catalogCacheEntry;
+        }
+    }
+    
+    /*
+     * Reads the catalog information of a table from the catalog.
+     * Returns null if the table doesn't exist.
+     */
+    private static CatalogCacheEntry readCatalogCacheEntry(String tableName) throws StorageException {
+        // get the tuple with tableName from the table catalog
+        Tuple tableCatalogTuple = getTableCatalogTuple(tableName);
+        if (tableCatalogTuple == null) {
+            return null;
+        }
+        String tableDirectory = tableCatalogTuple.getField(CatalogConstants.TABLE_DIRECTORY).getValue().toString();
+        String luceneAnalyzerString = tableCatalogTuple.getField(CatalogConstants.TABLE_LUCENE_ANALYZER).getValue().toString();
+        
+        // get the tuples with tableName from the schema catalog
+        List<Tuple> tableAttributeTuples = getSchemaCatalogTuples(tableName);
+
+        // if the list is empty, then the schema is not found
+        if (tableAttributeTuples.isEmpty()) {
+            throw new StorageException(String.format("The schema of table %s is not found.", tableName));
+        }
+        
+        // convert the unordered list of tuples to an order list of attributes
+        List<Attribute> tableSchemaData = tableAttributeTuples.stream()
+                // sort the tuples based on the attributePosition field.
+                .sorted((tuple1, tuple2) -> Integer.compare((int) tuple1.getField(CatalogConstants.ATTR_POSITION).getValue(), 
+                        (int) tuple2.getField(CatalogConstants.ATTR_POSITION).getValue()))
+                // map one tuple to one attribute
+                .map(tuple -> new Attribute(tuple.getField(CatalogConstants.ATTR_NAME).getValue().toString(),
+                        convertAttributeType(tuple.getField(CatalogConstants.ATTR_TYPE).getValue().toString())))
+                .collect(Collectors.toList());
+        Schema tableSchema = new Schema(tableSchemaData.stream().toArray(Attribute[]::new));
+        
+        return new CatalogCacheEntry(tableDirectory, tableSchema, luceneAnalyzerString);
+    }
+    
     /*
      * Gets the a tuple of a table from table catalog.
      */
@@ -459,6 +617,21 @@ public class RelationManager {
                 .findAny().orElse(null);
     }
 
+    /*
+     * The catalog information of a table kept in the catalog cache.
+     */
+    private static class CatalogCacheEntry {
+        private final String tableDirectory;
+        private final Schema tableSchema;
+        private final String luceneAnalyzerString;
+        
+        private CatalogCacheEntry(String tableDirectory, Schema tableSchema, String luceneAnalyzerString) {
+            this.tableDirectory = tableDirectory;
+            this.tableSchema = tableSchema;
+            this.luceneAnalyzerString = luceneAnalyzerString;
+        }
+    }
+
     public List<TableMetadata> getMetaData() throws StorageException {
         DataReader dataReader = RelationManager.getInstance().getTableDataReader(CatalogConstants.TABLE_CATALOG, new MatchAllDocsQuery());
 
@@ -1,6 +1,7 @@
 package edu.uci.ics.texera.storage.constants;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
@@ -15,6 +16,14 @@ import edu.uci.ics.texera.api.exception.DataflowException;
  * LuceneAnalyzerConstants contains helper functions specifically
  *   used when dealing with different Lucene analyzers.
  * 
+ * It also serves as a registry of analyzers: getLuceneAnalyzer() builds the analyzer of 
+ *   an analyzer string only once and returns the same instance afterwards.
+ * A Lucene analyzer is thread-safe, and keeps its token stream components per thread, 
+ *   so every thread reuses its own token stream after the first call of tokenStream(),
+ *   as long as the previous token stream is closed.
+ * The shared analyzers must not be closed by their users, 
+ *   use newLuceneAnalyzer() if a private analyzer is needed.
+ * 
  * @author Zuozhi Wang
  *
  */
@@ -24,6 +33,9 @@ public class LuceneAnalyzerConstants {
     
     public static final String CHINESE_ANALYZER = "chinese";
     
+    // the shared analyzers, keyed by the analyzer string
+    private static final ConcurrentHashMap<String, Analyzer> analyzerRegistry = new ConcurrentHashMap<>();
+    
     
     public static String standardAnalyzerString() {
         return STANDARD_ANALYZER;
@@ -42,50 +54,78 @@ public class LuceneAnalyzerConstants {
     }
     
     /**
-     * Gets the lucene analyzer based on the string, currently analyzers supported are:
+     * Gets the shared lucene analyzer based on the string, currently analyzers supported are:
      *   "standard", same as calling standardAnalyzerString().
      *   
      *   "n-gram", n represents the number of grams, for example, "3-gram",
      *     same as calling nGramAnalyzerString(3).
+     *     
+     *   "chinese", same as calling chineseAnalyzerString().
+     *   
+     * The analyzer is created on the first call and reused by all later calls, it must not be closed.
      * 
      * @param luceneAnalyzerString
      * @return
      * @throws DataflowException, if the luceneAnalyzerString is invalid
      */
     public static Analyzer getLuceneAnalyzer(String luceneAnalyzerString) throws DataflowException {
-        if (luceneAnalyzerString.equals("standard")) {
-            return LuceneAnalyzerConstants.getStandardAnalyzer();
+        Analyzer luceneAnalyzer = analyzerRegistry.get(luceneAnalyzerString);
+        if (luceneAnalyzer != null) {
+            return luceneAnalyzer;
+        }
+        // an invalid analyzer string throws an exception and is not put into the registry
+        return analyzerRegistry.computeIfAbsent(luceneAnalyzerString, LuceneAnalyzerConstants::newLuceneAnalyzer);
+    }
+    
+    /**
+     * Creates a new lucene analyzer based on the string, which is owned (and should be closed) by the caller.
+     * The supported analyzer strings are the same as getLuceneAnalyzer().
+     * 
+     * @param luceneAnalyzerString
+     * @return
+     * @throws DataflowException, if the luceneAnalyzerString is invalid
+     */
+    public static Analyzer newLuceneAnalyzer(String luceneAnalyzerString) throws DataflowException {
+        if (luceneAnalyzerString.equals(STANDARD_ANALYZER)) {
+            return new StandardAnalyzer();
         }
         else if (luceneAnalyzerString.endsWith("-gram")) {
             try {
                 Integer gramNum = Integer.parseInt(
                         luceneAnalyzerString.substring(0, luceneAnalyzerString.indexOf('-')));
-                return getNGramAnalyzer(gramNum);
+                return newNGramAnalyzer(gramNum);
             } catch (NumberFormatException e) {
                 throw new DataflowException(luceneAnalyzerString + " is not a valid lucene analyzer");
             }
-        } else if (luceneAnalyzerString.equals("chinese")) {
+        } else if (luceneAnalyzerString.equals(CHINESE_ANALYZER)) {
             return new SmartChineseAnalyzer();
         }
         throw new DataflowException(luceneAnalyzerString + " is not a valid lucene analyzer");
     }
 
 
+    /**
+     * @return the shared standard analyzer, which must not be closed.
+     */
     public static Analyzer getStandardAnalyzer() {
-        return new StandardAnalyzer();
+        return getLuceneAnalyzer(STANDARD_ANALYZER);
     }
 
     /**
-     * @return a n-gram analyzer that tokenizes the text into grams of length n.
+     * @return the shared n-gram analyzer that tokenizes the text into grams of length n, which must not be closed.
      * @throws DataflowException
      */
     public static Analyzer getNGramAnalyzer(int gramNum) throws DataflowException {
+        return getLuceneAnalyzer(nGramAnalyzerString(gramNum));
+    }
+    
+    private static Analyzer newNGramAnalyzer(int gramNum) throws DataflowException {
         try {
             return CustomAnalyzer.builder()
                     .withTokenizer(NGramTokenizerFactory.class, 
                             new String[] { "minGramSize", Integer.toString(gramNum), "maxGramSize", Integer.toString(gramNum) })
                     .addTokenFilter(LowerCaseFilterFactory.class).build();
-        } catch (IOException e) {
+        } catch (IOException | IllegalArgumentException e) {
             throw new DataflowException(e.getMessage(), e);
         }
     }
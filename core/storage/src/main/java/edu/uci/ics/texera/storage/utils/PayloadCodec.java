@@ -0,0 +1,146 @@
+package edu.uci.ics.texera.storage.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.OutputStreamDataOutput;
+import org.apache.lucene.util.BytesRef;
+
+import edu.uci.ics.texera.api.span.Span;
+
+/**
+ * PayloadCodec encodes the tokens of a TEXT field into a compact binary form,
+ *   which is stored in a binary doc-values column when a table stores its payload (see DataWriter),
+ *   and decodes it back to the payload spans without running the analyzer or walking the term vector.
+ *
+ * The encoding of a field is:
+ *   the number of tokens, followed by, for each token (in the order of the token stream):
+ *     the start offset (delta from the previous token's start offset),
+ *     the length in characters,
+ *     the token position (delta from the previous token's position),
+ *     0 if the analyzed term is the lower case original text,
+ *       otherwise the length of the UTF-8 term plus 1, followed by the UTF-8 term.
+ *   All numbers are variable-length integers.
+ *
+ */
+public class PayloadCodec {
+
+    // the prefix of the doc-values field which stores the encoded payload of a TEXT field
+    public static final String PAYLOAD_FIELD_PREFIX = "_payload_";
+
+    public static String getPayloadFieldName(String attributeName) {
+        return PAYLOAD_FIELD_PREFIX + attributeName;
+    }
+
+    /**
+     * Tokenizes the field value with the analyzer and encodes the tokens.
+     *
+     * @param fieldValue, the value of a TEXT field
+     * @param luceneAnalyzer, the analyzer of the table
+     * @return
+     * @throws IOException
+     */
+    public static BytesRef encode(String fieldValue, Analyzer luceneAnalyzer) throws IOException {
+        List<int[]> tokenOffsets = new ArrayList<>();
+        List<String> tokenTerms = new ArrayList<>();
+
+        try (TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(fieldValue))) {
+            OffsetAttribute offsetAttribute = tokenStream.addAttribute(OffsetAttribute.class);
+            CharTermAttribute charTermAttribute = tokenStream.addAttribute(CharTermAttribute.class);
+            PositionIncrementAttribute positionIncrementAttribute =
+                    tokenStream.addAttribute(PositionIncrementAttribute.class);
+
+            int tokenPositionCounter = -1;
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                tokenPositionCounter += positionIncrementAttribute.getPositionIncrement();
+                tokenOffsets.add(new int[] {offsetAttribute.startOffset(), offsetAttribute.endOffset(), tokenPositionCounter});
+                tokenTerms.add(charTermAttribute.toString());
+            }
+            tokenStream.end();
+        }
+
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        OutputStreamDataOutput dataOutput = new OutputStreamDataOutput(byteStream);
+        dataOutput.writeVInt(tokenOffsets.size());
+        int previousStart = 0;
+        int previousPosition = 0;
+        for (int i = 0; i < tokenOffsets.size(); i++) {
+            int charStart = tokenOffsets.get(i)[0];
+            int charEnd = tokenOffsets.get(i)[1];
+            int tokenPosition = tokenOffsets.get(i)[2];
+            dataOutput.writeVInt(charStart - previousStart);
+            dataOutput.writeVInt(charEnd - charStart);
+            dataOutput.writeVInt(tokenPosition - previousPosition);
+
+            String analyzedTerm = tokenTerms.get(i);
+            if (analyzedTerm.equals(getDefaultTerm(fieldValue, charStart, charEnd))) {
+                dataOutput.writeVInt(0);
+            } else {
+                BytesRef termBytes = new BytesRef(analyzedTerm);
+                dataOutput.writeVInt(termBytes.length + 1);
+                dataOutput.writeBytes(termBytes.bytes, termBytes.offset, termBytes.length);
+            }
+
+            previousStart = charStart;
+            previousPosition = tokenPosition;
+        }
+
+        return new BytesRef(byteStream.toByteArray());
+    }
+
+    /**
+     * Decodes the payload spans of a TEXT field.
+     *
+     * @param attributeName, the name of the TEXT attribute
+     * @param fieldValue, the value of the TEXT field
+     * @param encodedPayload, the encoded payload
+     * @return
+     */
+    public static List<Span> decode(String attributeName, String fieldValue, BytesRef encodedPayload) {
+        ByteArrayDataInput dataInput = new ByteArrayDataInput(
+                encodedPayload.bytes, encodedPayload.offset, encodedPayload.length);
+
+        int tokenCount = dataInput.readVInt();
+        List<Span> payload = new ArrayList<>(tokenCount);
+        int charStart = 0;
+        int tokenPosition = 0;
+        for (int i = 0; i < tokenCount; i++) {
+            charStart += dataInput.readVInt();
+            int charEnd = charStart + dataInput.readVInt();
+            tokenPosition += dataInput.readVInt();
+
+            String analyzedTerm;
+            int termLength = dataInput.readVInt();
+            if (termLength == 0) {
+                analyzedTerm = getDefaultTerm(fieldValue, charStart, charEnd);
+            } else {
+                byte[] termBytes = new byte[termLength - 1];
+                dataInput.readBytes(termBytes, 0, termBytes.length);
+                analyzedTerm = new BytesRef(termBytes).utf8ToString();
+            }
+
+            payload.add(new Span(attributeName, charStart, charEnd, analyzedTerm,
+                    fieldValue.substring(charStart, charEnd), tokenPosition));
+        }
+        return payload;
+    }
+
+    /*
+     * The term which doesn't need to be stored explicitly: the lower case original text of the token.
+     */
+    private static String getDefaultTerm(String fieldValue, int charStart, int charEnd) {
+        return fieldValue.substring(charStart, charEnd).toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -10,6 +10,8 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.text.ParseException;
 import java.util.Arrays;
 
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexableField;
@@ -28,6 +30,19 @@ import edu.uci.ics.texera.api.schema.AttributeType;
 
 public class StorageUtils {
     
+    // the prefix of the field which indexes the n-grams of a TEXT field, when a table keeps an n-gram index
+    public static final String NGRAM_FIELD_PREFIX = "_ngram_";
+    
+    // the n-gram fields are only searched by the gram queries of the regex source, 
+    //   they are neither stored nor need the frequencies and positions of the grams
+    private static final org.apache.lucene.document.FieldType NGRAM_FIELD_TYPE = new org.apache.lucene.document.FieldType();
+    static {
+        NGRAM_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
+        NGRAM_FIELD_TYPE.setTokenized(true);
+        NGRAM_FIELD_TYPE.setOmitNorms(true);
+        NGRAM_FIELD_TYPE.freeze();
+    }
+    
     public static IField getField(AttributeType attributeType, String fieldValue) throws ParseException {
         IField field = null;
         switch (attributeType) {
@@ -107,6 +122,41 @@ public class StorageUtils {
         return luceneField;
     }
     
+    /**
+     * Gets the binary doc-values field storing the encoded payload of a TEXT field (see PayloadCodec).
+     * 
+     * @param attributeName, the name of the TEXT attribute
+     * @param fieldValue, the value of the TEXT field
+     * @param luceneAnalyzer, the analyzer of the table
+     * @return
+     * @throws IOException
+     */
+    public static IndexableField getLucenePayloadField(String attributeName, String fieldValue, Analyzer luceneAnalyzer) 
+            throws IOException {
+        return new BinaryDocValuesField(PayloadCodec.getPayloadFieldName(attributeName), 
+                PayloadCodec.encode(fieldValue, luceneAnalyzer));
+    }
+    
+    public static String getNGramFieldName(String attributeName) {
+        return NGRAM_FIELD_PREFIX + attributeName;
+    }
+    
+    public static boolean isNGramFieldName(String fieldName) {
+        return fieldName != null && fieldName.startsWith(NGRAM_FIELD_PREFIX);
+    }
+    
+    /**
+     * Gets the field indexing the n-grams of a TEXT field, which is analyzed by the n-gram analyzer of the table's 
+     *   n-gram index (see DataWriter.setNGramIndexGramLength()).
+     * 
+     * @param attributeName, the name of the TEXT attribute
+     * @param fieldValue, the value of the TEXT field
+     * @return
+     */
+    public static IndexableField getLuceneNGramField(String attributeName, String fieldValue) {
+        return new org.apache.lucene.document.Field(getNGramFieldName(attributeName), fieldValue, NGRAM_FIELD_TYPE);
+    }
+    
     public static void deleteDirectory(String indexDir) throws StorageException {
         Path directory = Paths.get(indexDir);
         if (!Files.exists(directory)) {
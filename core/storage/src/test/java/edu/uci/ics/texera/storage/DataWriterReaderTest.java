@@ -1,19 +1,37 @@
 package edu.uci.ics.texera.storage;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TermQuery;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.constants.test.TestConstants;
+import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.IDField;
+import edu.uci.ics.texera.api.field.IField;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.tuple.TupleBatch;
 import edu.uci.ics.texera.api.utils.TestUtils;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
 
 public class DataWriterReaderTest {
     
@@ -58,4 +76,271 @@ public class DataWriterReaderTest {
         Assert.assertTrue(TestUtils.equals(TestConstants.getSamplePeopleTuples(), returnedTuples));
     }
 
+    /*
+     * A reader keeps reading after the searcher manager of its table is invalidated,
+     *   which also closes the Lucene Directory, and the readers opened afterwards open the table again.
+     */
+    @Test
+    public void testReadAcrossInvalidate() throws Exception {
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(
+                PEOPLE_TABLE, new MatchAllDocsQuery());
+        dataReader.setStreaming(true);
+        
+        List<Tuple> returnedTuples = new ArrayList<Tuple>();
+        dataReader.open();
+        returnedTuples.add(dataReader.getNextTuple());
+        IndexSearcherPool.invalidate(Paths.get(RelationManager.getInstance().getTableDirectory(PEOPLE_TABLE)));
+        Tuple nextTuple = null;
+        while ((nextTuple = dataReader.getNextTuple()) != null) {
+            returnedTuples.add(nextTuple);
+        }
+        dataReader.close();
+        Assert.assertTrue(TestUtils.equals(TestConstants.getSamplePeopleTuples(), returnedTuples));
+        
+        DataReader newDataReader = RelationManager.getInstance().getTableDataReader(
+                PEOPLE_TABLE, new MatchAllDocsQuery());
+        returnedTuples.clear();
+        newDataReader.open();
+        while ((nextTuple = newDataReader.getNextTuple()) != null) {
+            returnedTuples.add(nextTuple);
+        }
+        newDataReader.close();
+        Assert.assertTrue(TestUtils.equals(TestConstants.getSamplePeopleTuples(), returnedTuples));
+    }
+
+    @Test
+    public void testStreamingReadData() throws Exception {
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(
+                PEOPLE_TABLE, new MatchAllDocsQuery());
+        dataReader.setStreaming(true);
+        
+        Tuple nextTuple = null;
+        List<Tuple> returnedTuples = new ArrayList<Tuple>();
+        
+        dataReader.open();
+        while ((nextTuple = dataReader.getNextTuple()) != null) {
+            returnedTuples.add(nextTuple);
+        }
+        dataReader.close();
+        
+        Assert.assertTrue(TestUtils.equals(TestConstants.getSamplePeopleTuples(), returnedTuples));
+    }
+    
+    @Test
+    public void testStreamingReadBatches() throws Exception {
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(
+                PEOPLE_TABLE, new MatchAllDocsQuery());
+        dataReader.setStreaming(true);
+        
+        TupleBatch nextBatch = null;
+        List<Tuple> returnedTuples = new ArrayList<Tuple>();
+        
+        dataReader.open();
+        while ((nextBatch = dataReader.getNextBatch(2)) != null) {
+            Assert.assertTrue(nextBatch.size() <= 2);
+            returnedTuples.addAll(nextBatch.getTuples());
+        }
+        dataReader.close();
+        
+        Assert.assertTrue(TestUtils.equals(TestConstants.getSamplePeopleTuples(), returnedTuples));
+    }
+
+    @Test
+    public void testReadRequiredAttributes() throws Exception {
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(
+                PEOPLE_TABLE, new MatchAllDocsQuery(), Arrays.asList(TestConstants.FIRST_NAME.toUpperCase()));
+        
+        Tuple nextTuple = null;
+        List<String> returnedFirstNames = new ArrayList<String>();
+        
+        dataReader.open();
+        Assert.assertEquals(Arrays.asList(SchemaConstants._ID, TestConstants.FIRST_NAME), 
+                dataReader.getOutputSchema().getAttributeNames());
+        while ((nextTuple = dataReader.getNextTuple()) != null) {
+            Assert.assertEquals(2, nextTuple.getFields().size());
+            returnedFirstNames.add(nextTuple.getField(TestConstants.FIRST_NAME).getValue().toString());
+        }
+        dataReader.close();
+        
+        List<String> expectedFirstNames = TestConstants.getSamplePeopleTuples().stream()
+                .map(tuple -> tuple.getField(TestConstants.FIRST_NAME).getValue().toString())
+                .collect(Collectors.toList());
+        Assert.assertTrue(returnedFirstNames.containsAll(expectedFirstNames));
+        Assert.assertEquals(expectedFirstNames.size(), returnedFirstNames.size());
+    }
+
+    @Test
+    public void testReaderSeesCommittedWrites() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        String tableName = "data_writer_reader_test_refresh";
+        relationManager.createTable(tableName, TestUtils.getDefaultTestIndex().resolve(tableName), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString());
+        
+        List<Tuple> sampleTuples = TestConstants.getSamplePeopleTuples();
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        dataWriter.insertTuple(sampleTuples.get(0));
+        dataWriter.close();
+        
+        // a reader opened before the second commit keeps its point-in-time view
+        DataReader oldReader = relationManager.getTableDataReader(tableName, new MatchAllDocsQuery());
+        oldReader.open();
+        
+        dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        dataWriter.insertTuple(sampleTuples.get(1));
+        dataWriter.close();
+        
+        DataReader newReader = relationManager.getTableDataReader(tableName, new MatchAllDocsQuery());
+        newReader.open();
+        
+        Assert.assertEquals(1, countTuples(oldReader));
+        Assert.assertEquals(2, countTuples(newReader));
+        
+        oldReader.close();
+        newReader.close();
+        relationManager.deleteTable(tableName);
+    }
+    
+    @Test
+    public void testStoredPayload() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        String tableName = "data_writer_reader_test_stored_payload";
+        relationManager.createTable(tableName, TestUtils.getDefaultTestIndex().resolve(tableName), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString(), true);
+        
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        // the option is kept in the index
+        Assert.assertTrue(dataWriter.isPayloadStored());
+        for (Tuple tuple : TestConstants.getSamplePeopleTuples()) {
+            dataWriter.insertTuple(tuple);
+        }
+        dataWriter.close();
+        
+        // the payload decoded from the stored column is the same as the payload built from the term vectors
+        Map<String, Set<Span>> storedPayloads = readPayloads(tableName);
+        Map<String, Set<Span>> termVectorPayloads = readPayloads(PEOPLE_TABLE);
+        Assert.assertEquals(termVectorPayloads, storedPayloads);
+        
+        relationManager.deleteTable(tableName);
+    }
+    
+    @Test
+    public void testBulkInsertTuples() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        String tableName = "data_writer_reader_test_bulk_insert";
+        relationManager.createTable(tableName, TestUtils.getDefaultTestIndex().resolve(tableName), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString());
+        
+        // enough tuples to be split into several chunks
+        List<Tuple> insertedTuples = new ArrayList<>();
+        while (insertedTuples.size() < DataWriter.BULK_CHUNK_SIZE * 5) {
+            insertedTuples.addAll(TestConstants.getSamplePeopleTuples());
+        }
+        
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.setNumThreads(4);
+        dataWriter.setIdGenerator(DataWriter.FAST_RANDOM_ID_GENERATOR);
+        dataWriter.open();
+        List<IDField> idFields = dataWriter.insertTuples(insertedTuples);
+        dataWriter.close();
+        
+        Assert.assertEquals(insertedTuples.size(), idFields.size());
+        Assert.assertEquals(idFields.size(), new HashSet<>(idFields).size());
+        
+        DataReader dataReader = relationManager.getTableDataReader(tableName, new MatchAllDocsQuery());
+        List<Tuple> returnedTuples = new ArrayList<>();
+        Tuple nextTuple = null;
+        dataReader.open();
+        while ((nextTuple = dataReader.getNextTuple()) != null) {
+            returnedTuples.add(nextTuple);
+        }
+        dataReader.close();
+        
+        Assert.assertTrue(TestUtils.equals(insertedTuples, returnedTuples));
+        Assert.assertEquals(new HashSet<>(idFields), returnedTuples.stream()
+                .map(tuple -> tuple.getField(SchemaConstants._ID)).collect(Collectors.toSet()));
+        
+        relationManager.deleteTable(tableName);
+    }
+    
+    @Test
+    public void testNGramIndex() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        String tableName = "data_writer_reader_test_ngram_index";
+        relationManager.createTable(tableName, TestUtils.getDefaultTestIndex().resolve(tableName), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString(), false, 3);
+        Assert.assertEquals(3, relationManager.getTableNGramIndexGramLength(tableName));
+        Assert.assertEquals(0, relationManager.getTableNGramIndexGramLength(PEOPLE_TABLE));
+        
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        // the option is kept in the index
+        Assert.assertEquals(3, dataWriter.getNGramIndexGramLength());
+        List<IDField> idFields = dataWriter.insertTuples(TestConstants.getSamplePeopleTuples());
+        // the n-gram index can't be changed once the table has tuples
+        try {
+            dataWriter.setNGramIndexGramLength(2);
+            Assert.fail("the n-gram index of a non-empty table is changed");
+        } catch (StorageException e) {
+        }
+        dataWriter.close();
+        
+        // the grams of a TEXT field are indexed (in lower case), not the words of the standard analyzer
+        long expectedCount = TestConstants.getSamplePeopleTuples().stream()
+                .filter(tuple -> tuple.getField(TestConstants.DESCRIPTION).getValue().toString().toLowerCase().contains("ngr"))
+                .count();
+        Assert.assertTrue(expectedCount > 0);
+        Assert.assertEquals(expectedCount, countNGramMatches(tableName, TestConstants.DESCRIPTION, "ngr"));
+        
+        // the n-gram fields are maintained on updates
+        Tuple firstTuple = TestConstants.getSamplePeopleTuples().get(0);
+        List<IField> updatedFields = new ArrayList<>(firstTuple.getFields());
+        updatedFields.set(firstTuple.getSchema().getIndex(TestConstants.DESCRIPTION), new TextField("Quixotic"));
+        Tuple updatedTuple = new Tuple(firstTuple.getSchema(), updatedFields.stream().toArray(IField[]::new));
+        dataWriter.open();
+        dataWriter.updateTuple(updatedTuple, idFields.get(0));
+        dataWriter.close();
+        Assert.assertEquals(1, countNGramMatches(tableName, TestConstants.DESCRIPTION, "xot"));
+        
+        relationManager.deleteTable(tableName);
+    }
+    
+    private static int countNGramMatches(String tableName, String attributeName, String gram) throws TexeraException {
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(tableName, 
+                new TermQuery(new Term(StorageUtils.getNGramFieldName(attributeName), gram)));
+        dataReader.open();
+        int count = countTuples(dataReader);
+        dataReader.close();
+        return count;
+    }
+    
+    /*
+     * Reads the payload of every tuple in a table, keyed by the description of the tuple.
+     */
+    private static Map<String, Set<Span>> readPayloads(String tableName) throws TexeraException {
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(tableName, new MatchAllDocsQuery());
+        dataReader.setPayloadAdded(true);
+        
+        Map<String, Set<Span>> payloads = new HashMap<>();
+        Tuple nextTuple = null;
+        dataReader.open();
+        while ((nextTuple = dataReader.getNextTuple()) != null) {
+            ListField<Span> payloadField = nextTuple.getField(SchemaConstants.PAYLOAD);
+            payloads.put(nextTuple.getField(TestConstants.DESCRIPTION).getValue().toString(), 
+                    new HashSet<>(payloadField.getValue()));
+        }
+        dataReader.close();
+        return payloads;
+    }
+
+    private static int countTuples(DataReader dataReader) throws TexeraException {
+        int count = 0;
+        while (dataReader.getNextTuple() != null) {
+            count++;
+        }
+        return count;
+    }
+
 }
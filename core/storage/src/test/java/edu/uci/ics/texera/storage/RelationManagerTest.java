@@ -2,7 +2,10 @@ package edu.uci.ics.texera.storage;
 
 import java.io.File;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -429,4 +432,79 @@ public class RelationManagerTest {
 
         relationManager.deleteTable(tableName);
     }
+
+    /*
+     * Test that a table re-created with a different schema and analyzer 
+     *   is not served from the stale catalog cache.
+     */
+    @Test
+    public void test18() throws Exception {
+        String tableName = "relation_manager_test_table";
+        String tableDirectory = "./index/test_table";
+        Schema tableSchema1 = new Schema(new Attribute("content", AttributeType.STRING));
+        Schema tableSchema2 = new Schema(new Attribute("content", AttributeType.TEXT), new Attribute("number", AttributeType.INTEGER));
+
+        RelationManager relationManager = RelationManager.getInstance();
+
+        relationManager.deleteTable(tableName);
+        relationManager.createTable(
+                tableName, Paths.get(tableDirectory), tableSchema1, LuceneAnalyzerConstants.standardAnalyzerString());
+        Assert.assertEquals(Schema.Builder.getSchemaWithID(tableSchema1), relationManager.getTableSchema(tableName));
+        
+        relationManager.deleteTable(tableName);
+        Assert.assertFalse(relationManager.checkTableExistence(tableName));
+        
+        relationManager.createTable(
+                tableName, Paths.get(tableDirectory), tableSchema2, LuceneAnalyzerConstants.chineseAnalyzerString());
+        Assert.assertEquals(Schema.Builder.getSchemaWithID(tableSchema2), relationManager.getTableSchema(tableName));
+        Assert.assertEquals(Schema.Builder.getSchemaWithID(tableSchema2), relationManager.getTableDataStore(tableName).getSchema());
+        Assert.assertEquals(LuceneAnalyzerConstants.chineseAnalyzerString(), relationManager.getTableAnalyzerString(tableName));
+        
+        relationManager.deleteTable(tableName);
+    }
+
+    /*
+     * Test that lookups racing with deleteTable() neither fail on a half-deleted table
+     *   nor put the deleted table back into the catalog cache.
+     */
+    @Test
+    public void test19() throws Exception {
+        String tableName = "relation_manager_test_table";
+        String tableDirectory = "./index/test_table";
+        Schema tableSchema = new Schema(new Attribute("content", AttributeType.STRING));
+
+        RelationManager relationManager = RelationManager.getInstance();
+        relationManager.deleteTable(tableName);
+        
+        for (int round = 0; round < 5; round++) {
+            relationManager.createTable(
+                    tableName, Paths.get(tableDirectory), tableSchema, LuceneAnalyzerConstants.standardAnalyzerString());
+            
+            AtomicBoolean stopped = new AtomicBoolean(false);
+            ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+            List<Thread> readers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Thread reader = new Thread(() -> {
+                    try {
+                        while (! stopped.get()) {
+                            relationManager.checkTableExistence(tableName);
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                });
+                reader.start();
+                readers.add(reader);
+            }
+            
+            relationManager.deleteTable(tableName);
+            stopped.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+            
+            Assert.assertTrue(failures.isEmpty());
+            Assert.assertFalse(relationManager.checkTableExistence(tableName));
+        }
+    }
 }
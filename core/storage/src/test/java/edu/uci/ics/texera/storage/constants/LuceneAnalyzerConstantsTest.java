@@ -0,0 +1,76 @@
+package edu.uci.ics.texera.storage.constants;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.exception.DataflowException;
+
+public class LuceneAnalyzerConstantsTest {
+
+    @Test
+    public void testAnalyzersAreShared() throws Exception {
+        Assert.assertSame(LuceneAnalyzerConstants.getStandardAnalyzer(),
+                LuceneAnalyzerConstants.getLuceneAnalyzer(LuceneAnalyzerConstants.standardAnalyzerString()));
+        Assert.assertSame(LuceneAnalyzerConstants.getNGramAnalyzer(3),
+                LuceneAnalyzerConstants.getLuceneAnalyzer(LuceneAnalyzerConstants.nGramAnalyzerString(3)));
+        Assert.assertNotSame(LuceneAnalyzerConstants.getNGramAnalyzer(3), LuceneAnalyzerConstants.getNGramAnalyzer(2));
+        Assert.assertNotSame(LuceneAnalyzerConstants.getStandardAnalyzer(),
+                LuceneAnalyzerConstants.newLuceneAnalyzer(LuceneAnalyzerConstants.standardAnalyzerString()));
+    }
+
+    @Test(expected = DataflowException.class)
+    public void testInvalidAnalyzerString() throws Exception {
+        LuceneAnalyzerConstants.getLuceneAnalyzer("x-gram");
+    }
+
+    @Test
+    public void testSharedAnalyzerAcrossThreads() throws Exception {
+        Analyzer analyzer = LuceneAnalyzerConstants.getStandardAnalyzer();
+        List<String> expectedTokens = Arrays.asList("tom", "hanks", "angry");
+
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    // every call reuses the token stream of the thread
+                    for (int j = 0; j < 100; j++) {
+                        Assert.assertEquals(expectedTokens, tokenize(analyzer, "Tom Hanks is angry"));
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue(failures.isEmpty());
+    }
+
+    private static List<String> tokenize(Analyzer analyzer, String text) throws Exception {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream tokenStream = analyzer.tokenStream(null, new StringReader(text))) {
+            CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            tokenStream.end();
+        }
+        return tokens;
+    }
+
+}